@@ -200,7 +200,7 @@ public class ClassDefinition extends TopLevelDefinition implements CoreClassDefi
       }
     }
 
-    return hLevel == null ? sort : new Sort(sort.getPLevel(), new Level(hLevel));
+    return hLevel == null ? sort : new Sort(sort.getPLevel(), Level.make(hLevel));
   }
 
   public void updateSort() {
@@ -133,11 +133,13 @@ public abstract class Definition extends UserDataHolderImpl implements CoreDefin
   }
 
   public Levels makeIdLevels() {
+    TopLevelDefinition topDef = getTopLevelDefinition();
+    if (topDef != null && topDef != this) return topDef.makeIdLevels();
     List<? extends LevelVariable> vars = getLevelParameters();
     if (vars == null) return LevelPair.STD;
     List<Level> result = new ArrayList<>(vars.size());
     for (LevelVariable var : vars) {
-      result.add(new Level(var));
+      result.add(Level.make(var));
     }
     return new ListLevels(result);
   }
@@ -147,7 +149,7 @@ public abstract class Definition extends UserDataHolderImpl implements CoreDefin
     if (vars == null) return LevelPair.PROP;
     List<Level> result = new ArrayList<>(vars.size());
     for (LevelVariable var : vars) {
-      result.add(new Level(var.getMinValue()));
+      result.add(Level.make(var.getMinValue()));
     }
     return new ListLevels(result);
   }
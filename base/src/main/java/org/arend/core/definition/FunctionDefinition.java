@@ -14,12 +14,14 @@ import org.jetbrains.annotations.NotNull;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 public class FunctionDefinition extends TopLevelDefinition implements Function, CoreFunctionDefinition {
   private DependentLink myParameters;
   private Expression myResultType;
   private Expression myResultTypeLevel;
   private Body myBody;
+  private volatile Supplier<? extends Body> myBodyLoader;
   private List<Integer> myParametersTypecheckingOrder;
   private Kind myKind = Kind.FUNC;
   private HiddenStatus myBodyIsHidden = HiddenStatus.NOT_HIDDEN;
@@ -41,15 +43,25 @@ public class FunctionDefinition extends TopLevelDefinition implements Function,
 
   @Override
   public Body getBody() {
-    return isSFunc() || myBodyIsHidden != HiddenStatus.NOT_HIDDEN ? null : myBody;
+    return isSFunc() || myBodyIsHidden != HiddenStatus.NOT_HIDDEN ? null : getReallyActualBody();
   }
 
   @Override
   public Body getActualBody() {
-    return myBodyIsHidden == HiddenStatus.REALLY_HIDDEN ? null : myBody;
+    return myBodyIsHidden == HiddenStatus.REALLY_HIDDEN ? null : getReallyActualBody();
   }
 
   public Body getReallyActualBody() {
+    Supplier<? extends Body> loader = myBodyLoader;
+    if (loader != null) {
+      synchronized (this) {
+        loader = myBodyLoader;
+        if (loader != null) {
+          myBody = loader.get();
+          myBodyLoader = null;
+        }
+      }
+    }
     return myBody;
   }
 
@@ -65,8 +77,18 @@ public class FunctionDefinition extends TopLevelDefinition implements Function,
     myBodyIsHidden = HiddenStatus.REALLY_HIDDEN;
   }
 
-  public void setBody(Body body) {
+  public synchronized void setBody(Body body) {
     myBody = body;
+    myBodyLoader = null;
+  }
+
+  /**
+   * Sets a loader that computes the body on the first access.
+   * It is used to deserialize bodies of definitions from binary modules lazily.
+   * If the loader returns null, the function does not have a body.
+   */
+  public synchronized void setBodyLoader(Supplier<? extends Body> loader) {
+    myBodyLoader = loader;
   }
 
   @Override
@@ -1,6 +1,7 @@
 package org.arend.core.definition;
 
 import org.arend.core.context.binding.LevelVariable;
+import org.arend.core.subst.Levels;
 import org.arend.ext.util.Pair;
 import org.arend.naming.reference.TCDefReferable;
 import org.arend.naming.reference.TCReferable;
@@ -12,6 +13,7 @@ import java.util.Set;
 public abstract class TopLevelDefinition extends CallableDefinition {
   private UniverseKind myUniverseKind = UniverseKind.NO_UNIVERSES;
   private List<? extends LevelVariable> myLevelParameters;
+  private Levels myIdLevels;
   private TCReferable myPLevelsParent;
   private TCReferable myHLevelsParent;
   private boolean myPLevelsDerived;
@@ -45,6 +47,20 @@ public abstract class TopLevelDefinition extends CallableDefinition {
 
   public void setLevelParameters(List<LevelVariable> parameters) {
     myLevelParameters = parameters;
+    myIdLevels = null;
+  }
+
+  /**
+   * The result is computed once for the current level parameters and shared between all calls.
+   */
+  @Override
+  public Levels makeIdLevels() {
+    Levels levels = myIdLevels;
+    if (levels == null) {
+      levels = super.makeIdLevels();
+      myIdLevels = levels;
+    }
+    return levels;
   }
 
   @Override
@@ -55,6 +55,11 @@ public class AppExpression extends Expression implements CoreAppExpression {
     return myExplicit;
   }
 
+  @Override
+  protected int computeFreeVariablesMask() {
+    return myFunction.getFreeVariablesMask() | myArgument.getFreeVariablesMask();
+  }
+
   @Override
   public Expression getArguments(List<Expression> args) {
     assert args.isEmpty();
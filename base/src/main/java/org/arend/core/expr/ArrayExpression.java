@@ -16,6 +16,7 @@ import org.arend.ext.core.expr.CoreExpressionVisitor;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.prelude.Prelude;
 import org.arend.util.Decision;
+import org.arend.util.PersistentList;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -42,10 +43,10 @@ public class ArrayExpression extends Expression implements CoreArrayExpression {
       List<Expression> newElements;
       if (arrayExpr.myElements.isEmpty()) {
         newElements = elements;
+      } else if (elements.isEmpty()) {
+        newElements = arrayExpr.myElements;
       } else {
-        newElements = new ArrayList<>(elements.size() + arrayExpr.myElements.size());
-        newElements.addAll(elements);
-        newElements.addAll(arrayExpr.myElements);
+        newElements = PersistentList.concat(elements, arrayExpr.myElements);
       }
       return new ArrayExpression(levels, elementsType, newElements, arrayExpr.myTail);
     } else {
@@ -91,7 +92,7 @@ public class ArrayExpression extends Expression implements CoreArrayExpression {
     for (int i = 0; i < n; i++) {
       index = Suc(index);
     }
-    return new ArrayExpression(myLevels, new LamExpression(myLevels.toSort().max(Sort.SET0), param, AppExpression.make(myElementsType, index, true)), myElements.subList(n, myElements.size()), myTail);
+    return new ArrayExpression(myLevels, new LamExpression(myLevels.toSort().max(Sort.SET0), param, AppExpression.make(myElementsType, index, true)), PersistentList.of(myElements).drop(n), myTail);
   }
 
   public Expression getLength() {
@@ -50,53 +50,53 @@ public class BigIntegerExpression extends IntegerExpression {
 
   @Override
   public boolean isEqual(IntegerExpression expr) {
-    return expr instanceof SmallIntegerExpression ? myInteger.equals(BigInteger.valueOf(((SmallIntegerExpression) expr).getInteger())) : myInteger.equals(expr.getBigInteger());
+    return expr instanceof SmallIntegerExpression ? compare(((SmallIntegerExpression) expr).getInteger()) == 0 : myInteger.equals(expr.getBigInteger());
   }
 
   @Override
   public int compare(IntegerExpression expr) {
-    return myInteger.compareTo(expr.getBigInteger());
+    return expr instanceof SmallIntegerExpression ? compare(((SmallIntegerExpression) expr).getInteger()) : myInteger.compareTo(expr.getBigInteger());
   }
 
   @Override
   public int compare(int x) {
-    return myInteger.compareTo(BigInteger.valueOf(x));
+    return myInteger.bitLength() < Integer.SIZE ? Integer.compare(myInteger.intValue(), x) : myInteger.signum();
   }
 
   @Override
-  public BigIntegerExpression plus(IntegerExpression expr) {
-    return new BigIntegerExpression(myInteger.add(expr.getBigInteger()));
+  public IntegerExpression plus(IntegerExpression expr) {
+    return make(myInteger.add(expr.getBigInteger()));
   }
 
   @Override
-  public BigIntegerExpression plus(int num) {
-    return new BigIntegerExpression(myInteger.add(BigInteger.valueOf(num)));
+  public IntegerExpression plus(int num) {
+    return make(myInteger.add(BigInteger.valueOf(num)));
   }
 
   @Override
-  public BigIntegerExpression mul(IntegerExpression expr) {
-    return new BigIntegerExpression(myInteger.multiply(expr.getBigInteger()));
+  public IntegerExpression mul(IntegerExpression expr) {
+    return make(myInteger.multiply(expr.getBigInteger()));
   }
 
   @Override
   public ConCallExpression minus(IntegerExpression expr) {
     BigInteger result = myInteger.subtract(expr.getBigInteger());
-    return result.signum() >= 0 ? Pos(new BigIntegerExpression(result)) : Neg(new BigIntegerExpression(result.negate()));
+    return result.signum() >= 0 ? Pos(make(result)) : Neg(make(result.negate()));
   }
 
   @Override
-  public BigIntegerExpression minus(int x) {
-    return new BigIntegerExpression(myInteger.subtract(BigInteger.valueOf(x)));
+  public IntegerExpression minus(int x) {
+    return make(myInteger.subtract(BigInteger.valueOf(x)));
   }
 
   @Override
-  public BigIntegerExpression div(IntegerExpression expr) {
-    return expr.isZero() ? this : new BigIntegerExpression(myInteger.divide(expr.getBigInteger()));
+  public IntegerExpression div(IntegerExpression expr) {
+    return expr.isZero() ? this : make(myInteger.divide(expr.getBigInteger()));
   }
 
   @Override
-  public BigIntegerExpression mod(IntegerExpression expr) {
-    return expr.isZero() ? this : new BigIntegerExpression(myInteger.remainder(expr.getBigInteger()));
+  public IntegerExpression mod(IntegerExpression expr) {
+    return expr.isZero() ? this : make(myInteger.remainder(expr.getBigInteger()));
   }
 
   @Override
@@ -108,9 +108,9 @@ public class BigIntegerExpression extends IntegerExpression {
       return new TupleExpression(fields, Prelude.DIV_MOD_TYPE);
     } else {
       BigInteger[] divMod = myInteger.divideAndRemainder(expr.getBigInteger());
-      fields.add(new BigIntegerExpression(divMod[0]));
-      fields.add(new BigIntegerExpression(divMod[1]));
-      return new TupleExpression(fields, ExpressionFactory.finDivModType(new BigIntegerExpression(divMod[1].add(BigInteger.ONE))));
+      fields.add(make(divMod[0]));
+      fields.add(make(divMod[1]));
+      return new TupleExpression(fields, ExpressionFactory.finDivModType(make(divMod[1].add(BigInteger.ONE))));
     }
   }
 }
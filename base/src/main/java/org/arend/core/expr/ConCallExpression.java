@@ -10,6 +10,7 @@ import org.arend.prelude.Prelude;
 import org.arend.util.Decision;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -24,6 +25,24 @@ public class ConCallExpression extends LeveledDefCallExpression implements CoreC
     myArguments = arguments;
   }
 
+  @Override
+  protected int computeFreeVariablesMask() {
+    // Constructor chains can be long, so their summaries are computed from the end to avoid deep recursion
+    List<ConCallExpression> chain = new ArrayList<>();
+    for (ConCallExpression conCall = this;;) {
+      int recursiveParam = conCall.getDefinition().getRecursiveParameter();
+      if (recursiveParam < 0 || recursiveParam >= conCall.myArguments.size() || !(conCall.myArguments.get(recursiveParam) instanceof ConCallExpression next) || next.isFreeVariablesMaskComputed()) {
+        break;
+      }
+      chain.add(next);
+      conCall = next;
+    }
+    for (int i = chain.size() - 1; i >= 0; i--) {
+      chain.get(i).getFreeVariablesMask();
+    }
+    return LEVELS_MASK | getFreeVariablesMask(myDataTypeArguments) | getFreeVariablesMask(myArguments);
+  }
+
   public static Expression make(Constructor constructor, Levels levels, List<Expression> dataTypeArguments, List<Expression> arguments) {
     if (constructor == Prelude.ZERO || constructor == Prelude.FIN_ZERO) {
       return new SmallIntegerExpression(0);
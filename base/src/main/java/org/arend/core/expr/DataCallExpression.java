@@ -35,6 +35,11 @@ public class DataCallExpression extends LeveledDefCallExpression implements Type
     myArguments = arguments;
   }
 
+  @Override
+  protected int computeFreeVariablesMask() {
+    return LEVELS_MASK | getFreeVariablesMask(myArguments);
+  }
+
   public static DataCallExpression make(DataDefinition definition, Levels levels, List<Expression> arguments) {
     DataCallExpression result = new DataCallExpression(definition, levels, arguments);
     result.fixBoxes();
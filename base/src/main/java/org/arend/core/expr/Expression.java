@@ -56,6 +56,87 @@ import java.util.*;
 import java.util.function.Function;
 
 public abstract class Expression implements Body, CoreExpression {
+  private int myStructuralHash;
+
+  /**
+   * @return true if this expression was interned by {@link ExpressionInterner}.
+   */
+  public boolean isInterned() {
+    return myStructuralHash != 0;
+  }
+
+  /**
+   * @return true if this expression was interned and does not contain level variables.
+   *         Since interned expressions do not contain bindings, such expressions are not affected by substitutions.
+   */
+  public boolean isClosedInterned() {
+    return (myStructuralHash & ExpressionInterner.CLOSED_BIT) != 0;
+  }
+
+  public int getStructuralHash() {
+    return myStructuralHash;
+  }
+
+  void setStructuralHash(int hash) {
+    myStructuralHash = hash;
+  }
+
+  private static final int SUMMARY_COMPUTED_BIT = 1 << 31;
+  private static final int BINDING_BITS = 30;
+
+  /**
+   * The bit of {@link #getFreeVariablesMask} that is set if an expression may contain level variables.
+   */
+  public static final int LEVELS_MASK = 1 << BINDING_BITS;
+
+  /**
+   * The summary of expressions whose free variables are not tracked.
+   */
+  public static final int UNKNOWN_MASK = SUMMARY_COMPUTED_BIT - 1;
+
+  private int myFreeVariablesMask;
+
+  /**
+   * @return the bit of {@link #getFreeVariablesMask} that corresponds to {@code binding}.
+   */
+  public static int bindingMask(Binding binding) {
+    return 1 << ((System.identityHashCode(binding) & Integer.MAX_VALUE) % BINDING_BITS);
+  }
+
+  /**
+   * A bloom-style summary of the free variables of this expression.
+   * If a binding occurs freely in this expression, then its {@link #bindingMask} is set in the summary.
+   * The summary is computed on the first request and cached, so it is tracked only for expressions that are not modified after construction;
+   * other expressions are summarized as {@link #UNKNOWN_MASK}.
+   */
+  public int getFreeVariablesMask() {
+    int mask = myFreeVariablesMask;
+    if (mask == 0) {
+      mask = computeFreeVariablesMask() | SUMMARY_COMPUTED_BIT;
+      myFreeVariablesMask = mask;
+    }
+    return mask & ~SUMMARY_COMPUTED_BIT;
+  }
+
+  boolean isFreeVariablesMaskComputed() {
+    return myFreeVariablesMask != 0;
+  }
+
+  protected int computeFreeVariablesMask() {
+    return UNKNOWN_MASK;
+  }
+
+  protected static int getFreeVariablesMask(List<? extends Expression> exprs) {
+    int mask = 0;
+    for (Expression expr : exprs) {
+      if (expr == null) {
+        return UNKNOWN_MASK;
+      }
+      mask |= expr.getFreeVariablesMask();
+    }
+    return mask;
+  }
+
   public abstract <P, R> R accept(ExpressionVisitor<? super P, ? extends R> visitor, P params);
 
   public abstract <P1, P2, R> R accept(ExpressionVisitor2<? super P1, ? super P2, ? extends R> visitor, P1 param1, P2 param2);
@@ -0,0 +1,183 @@
+package org.arend.core.expr;
+
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+import org.arend.core.subst.Levels;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash-consing of immutable core expressions.
+ * Data calls, constructor calls, function calls, universes, and small integers are interned
+ * if their levels do not contain inference variables and all their arguments are already interned.
+ * Thus, interned expressions are structurally equal if and only if they are the same object.
+ * Interned expressions are referenced weakly, so they are released together with the definitions that use them.
+ */
+public class ExpressionInterner {
+  public static final ExpressionInterner INSTANCE = new ExpressionInterner();
+
+  // The lowest bit of a structural hash is set if the expression does not contain level variables
+  static final int CLOSED_BIT = 1;
+
+  private final Map<Entry, Entry> myTable = new HashMap<>();
+  private final ReferenceQueue<Expression> myQueue = new ReferenceQueue<>();
+
+  private static final class Entry extends WeakReference<Expression> {
+    private final int myHash;
+
+    private Entry(Expression expr, int hash, ReferenceQueue<Expression> queue) {
+      super(expr, queue);
+      myHash = hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Entry entry) || myHash != entry.myHash) return false;
+      Expression expr1 = get();
+      Expression expr2 = entry.get();
+      return expr1 != null && expr2 != null && shallowEquals(expr1, expr2);
+    }
+
+    @Override
+    public int hashCode() {
+      return myHash;
+    }
+  }
+
+  private static int hashLevel(Level level) {
+    return (31 * System.identityHashCode(level.getVar()) + level.getConstant()) * 31 + level.getMaxConstant();
+  }
+
+  private static boolean equalLevels(Level level1, Level level2) {
+    return level1.getVar() == level2.getVar() && level1.getConstant() == level2.getConstant() && level1.getMaxConstant() == level2.getMaxConstant();
+  }
+
+  private static boolean equalLevels(Levels levels1, Levels levels2) {
+    if (levels1.getClass() != levels2.getClass()) return false;
+    List<? extends Level> list1 = levels1.toList();
+    List<? extends Level> list2 = levels2.toList();
+    if (list1.size() != list2.size()) return false;
+    for (int i = 0; i < list1.size(); i++) {
+      if (!equalLevels(list1.get(i), list2.get(i))) return false;
+    }
+    return true;
+  }
+
+  private static boolean sameArguments(List<? extends Expression> args1, List<? extends Expression> args2) {
+    if (args1.size() != args2.size()) return false;
+    for (int i = 0; i < args1.size(); i++) {
+      if (args1.get(i) != args2.get(i)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Compares expressions whose arguments are interned.
+   */
+  private static boolean shallowEquals(Expression expr1, Expression expr2) {
+    if (expr1.getClass() != expr2.getClass()) return false;
+    if (expr1 instanceof SmallIntegerExpression) {
+      return ((SmallIntegerExpression) expr1).getInteger() == ((SmallIntegerExpression) expr2).getInteger();
+    }
+    if (expr1 instanceof UniverseExpression) {
+      Sort sort1 = ((UniverseExpression) expr1).getSort();
+      Sort sort2 = ((UniverseExpression) expr2).getSort();
+      return equalLevels(sort1.getPLevel(), sort2.getPLevel()) && equalLevels(sort1.getHLevel(), sort2.getHLevel());
+    }
+    LeveledDefCallExpression defCall1 = (LeveledDefCallExpression) expr1;
+    LeveledDefCallExpression defCall2 = (LeveledDefCallExpression) expr2;
+    return defCall1.getDefinition() == defCall2.getDefinition() && equalLevels(defCall1.getLevels(), defCall2.getLevels()) &&
+      (!(expr1 instanceof ConCallExpression) || sameArguments(((ConCallExpression) expr1).getDataTypeArguments(), ((ConCallExpression) expr2).getDataTypeArguments())) &&
+      sameArguments(defCall1.getDefCallArguments(), defCall2.getDefCallArguments());
+  }
+
+  /**
+   * @return the structural hash of {@code expr} or 0 if it cannot be interned.
+   */
+  private static int computeHash(Expression expr) {
+    int hash;
+    boolean closed = true;
+    if (expr instanceof SmallIntegerExpression) {
+      hash = ((SmallIntegerExpression) expr).getInteger();
+    } else if (expr instanceof UniverseExpression) {
+      Sort sort = ((UniverseExpression) expr).getSort();
+      if (sort.getPLevel().hasInferenceVar() || sort.getHLevel().hasInferenceVar()) return 0;
+      hash = 31 * hashLevel(sort.getPLevel()) + hashLevel(sort.getHLevel());
+      closed = sort.getPLevel().isClosed() && sort.getHLevel().isClosed();
+    } else if (expr instanceof DataCallExpression || expr instanceof ConCallExpression || expr instanceof FunCallExpression) {
+      LeveledDefCallExpression defCall = (LeveledDefCallExpression) expr;
+      hash = System.identityHashCode(defCall.getDefinition());
+      for (Level level : defCall.getLevels().toList()) {
+        if (level.hasInferenceVar()) return 0;
+        hash = 31 * hash + hashLevel(level);
+        closed &= level.isClosed();
+      }
+      if (expr instanceof ConCallExpression) {
+        for (Expression arg : ((ConCallExpression) expr).getDataTypeArguments()) {
+          if (!arg.isInterned()) return 0;
+          hash = 31 * hash + arg.getStructuralHash();
+          closed &= arg.isClosedInterned();
+        }
+      }
+      for (Expression arg : defCall.getDefCallArguments()) {
+        if (arg == null || !arg.isInterned()) return 0;
+        hash = 31 * hash + arg.getStructuralHash();
+        closed &= arg.isClosedInterned();
+      }
+    } else {
+      return 0;
+    }
+    hash = 31 * hash + expr.getClass().hashCode();
+    if (closed) {
+      return hash | CLOSED_BIT;
+    }
+    hash &= ~CLOSED_BIT;
+    return hash == 0 ? 2 : hash;
+  }
+
+  private void expungeStaleEntries() {
+    for (Object entry; (entry = myQueue.poll()) != null; ) {
+      myTable.remove(entry);
+    }
+  }
+
+  /**
+   * Returns the interned copy of {@code expr}.
+   * If {@code expr} cannot be interned, it is returned unchanged.
+   * The interned copy has the same class as {@code expr} since expressions of different classes are never equal.
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends Expression> T intern(T expr) {
+    if (expr.isInterned()) {
+      return expr;
+    }
+    int hash = computeHash(expr);
+    if (hash == 0) {
+      return expr;
+    }
+
+    synchronized (this) {
+      expungeStaleEntries();
+      Entry probe = new Entry(expr, hash, null);
+      Entry entry = myTable.get(probe);
+      Expression result = entry == null ? null : entry.get();
+      if (result != null) {
+        return (T) result;
+      }
+      expr.setStructuralHash(hash);
+      Entry newEntry = new Entry(expr, hash, myQueue);
+      myTable.put(newEntry, newEntry);
+      return expr;
+    }
+  }
+
+  public synchronized int size() {
+    expungeStaleEntries();
+    return myTable.size();
+  }
+}
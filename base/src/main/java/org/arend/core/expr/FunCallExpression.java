@@ -28,6 +28,11 @@ public class FunCallExpression extends LeveledDefCallExpression implements CoreF
     myArguments = arguments;
   }
 
+  @Override
+  protected int computeFreeVariablesMask() {
+    return LEVELS_MASK | getFreeVariablesMask(myArguments);
+  }
+
   // a fake funCall that can be used only in ConstructorExpressionPattern
   public FunCallExpression(DConstructor function, Levels levels, Expression length, Expression elementsType) {
     super(function, levels);
@@ -9,11 +9,32 @@ import org.arend.prelude.Prelude;
 import org.arend.util.Decision;
 import org.jetbrains.annotations.NotNull;
 
+import java.math.BigInteger;
+
 public abstract class IntegerExpression extends Expression implements CoreIntegerExpression {
+  /**
+   * Creates a small integer if {@code value} fits into an int and a big integer otherwise.
+   */
+  public static IntegerExpression make(long value) {
+    return value >= 0 && value <= Integer.MAX_VALUE ? new SmallIntegerExpression((int) value) : new BigIntegerExpression(BigInteger.valueOf(value));
+  }
+
+  /**
+   * Creates a small integer if {@code value} fits into an int, so that further arithmetic does not allocate big integers.
+   */
+  public static IntegerExpression make(BigInteger value) {
+    return value.signum() >= 0 && value.bitLength() < Integer.SIZE ? new SmallIntegerExpression(value.intValue()) : new BigIntegerExpression(value);
+  }
+
   public abstract int getSmallInteger();
 
   public abstract IntegerExpression suc();
 
+  @Override
+  protected int computeFreeVariablesMask() {
+    return 0;
+  }
+
   @Override
   public abstract IntegerExpression pred();
 
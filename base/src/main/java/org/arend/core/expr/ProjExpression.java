@@ -18,6 +18,11 @@ public class ProjExpression extends Expression implements CoreProjExpression {
     myProperty = isProperty;
   }
 
+  @Override
+  protected int computeFreeVariablesMask() {
+    return myExpression.getFreeVariablesMask();
+  }
+
   public static Expression make(Expression expression, int field, boolean isProperty) {
     TupleExpression tuple = isProperty ? null : expression.cast(TupleExpression.class);
     return tuple != null ? tuple.getFields().get(field) : new ProjExpression(expression, field, isProperty);
@@ -29,6 +29,12 @@ public class ReferenceExpression extends Expression implements CoreReferenceExpr
     return myBinding;
   }
 
+  @Override
+  protected int computeFreeVariablesMask() {
+    // SubstVisitor may unfold evaluating bindings
+    return myBinding instanceof EvaluatingBinding ? UNKNOWN_MASK : bindingMask(myBinding);
+  }
+
   @Override
   public <P, R> R accept(ExpressionVisitor<? super P, ? extends R> visitor, P params) {
     return visitor.visitReference(this, params);
@@ -11,8 +11,6 @@ import static org.arend.core.expr.ExpressionFactory.Neg;
 import static org.arend.core.expr.ExpressionFactory.Pos;
 
 public class SmallIntegerExpression extends IntegerExpression {
-  private final static int MAX_VALUE_TO_MULTIPLY = 45000;
-
   private final int myInteger;
 
   public SmallIntegerExpression(int integer) {
@@ -39,8 +37,7 @@ public class SmallIntegerExpression extends IntegerExpression {
     if (myInteger < 0) {
       return new SmallIntegerExpression(myInteger + 1);
     }
-    int newInt = myInteger + 1;
-    return newInt < 0 ? new BigIntegerExpression(BigInteger.valueOf(myInteger).add(BigInteger.ONE)) : new SmallIntegerExpression(newInt);
+    return make(myInteger + 1L);
   }
 
   @Override
@@ -60,12 +57,12 @@ public class SmallIntegerExpression extends IntegerExpression {
 
   @Override
   public boolean isEqual(IntegerExpression expr) {
-    return expr instanceof SmallIntegerExpression ? myInteger == ((SmallIntegerExpression) expr).getInteger() : expr.getBigInteger().equals(BigInteger.valueOf(myInteger));
+    return expr instanceof SmallIntegerExpression ? myInteger == ((SmallIntegerExpression) expr).getInteger() : expr.compare(myInteger) == 0;
   }
 
   @Override
   public int compare(IntegerExpression expr) {
-    return expr instanceof SmallIntegerExpression ? Integer.compare(myInteger, ((SmallIntegerExpression) expr).getInteger()) : BigInteger.valueOf(myInteger).compareTo(expr.getBigInteger());
+    return expr instanceof SmallIntegerExpression ? Integer.compare(myInteger, ((SmallIntegerExpression) expr).getInteger()) : -expr.compare(myInteger);
   }
 
   @Override
@@ -76,31 +73,25 @@ public class SmallIntegerExpression extends IntegerExpression {
   @Override
   public IntegerExpression plus(IntegerExpression expr) {
     if (expr instanceof SmallIntegerExpression) {
-      int sum = myInteger + ((SmallIntegerExpression) expr).myInteger;
-      if (sum >= 0) {
-        return new SmallIntegerExpression(sum);
-      }
+      return make((long) myInteger + ((SmallIntegerExpression) expr).myInteger);
     }
 
-    return new BigIntegerExpression(BigInteger.valueOf(myInteger).add(expr.getBigInteger()));
+    return expr.plus(myInteger);
   }
 
   @Override
   public IntegerExpression plus(int num) {
-    int sum = myInteger + num;
-    return sum >= 0 ? new SmallIntegerExpression(sum) : new BigIntegerExpression(BigInteger.valueOf(myInteger).add(BigInteger.valueOf(num)));
+    return make((long) myInteger + num);
   }
 
   @Override
   public IntegerExpression mul(IntegerExpression expr) {
     if (expr instanceof SmallIntegerExpression) {
-      int other = ((SmallIntegerExpression) expr).getInteger();
-      if (myInteger <= MAX_VALUE_TO_MULTIPLY && other <= MAX_VALUE_TO_MULTIPLY) {
-        return new SmallIntegerExpression(myInteger * other);
-      }
+      // The product of two ints always fits into a long
+      return make((long) myInteger * ((SmallIntegerExpression) expr).getInteger());
     }
 
-    return new BigIntegerExpression(BigInteger.valueOf(myInteger).multiply(expr.getBigInteger()));
+    return expr.mul(this);
   }
 
   @Override
@@ -109,7 +100,7 @@ public class SmallIntegerExpression extends IntegerExpression {
       int result = myInteger - ((SmallIntegerExpression) expr).myInteger;
       return result >= 0 ? Pos(new SmallIntegerExpression(result)) : Neg(new SmallIntegerExpression(-result));
     } else {
-      return new BigIntegerExpression(BigInteger.valueOf(myInteger)).minus(expr);
+      return expr.compare(myInteger) <= 0 ? Pos(new SmallIntegerExpression(myInteger - expr.getSmallInteger())) : Neg(expr.minus(myInteger));
     }
   }
 
@@ -119,17 +110,20 @@ public class SmallIntegerExpression extends IntegerExpression {
     return new SmallIntegerExpression(myInteger - x);
   }
 
+  /**
+   * @return the value of {@code expr} if it is not greater than this number, or -1 otherwise.
+   */
+  private int getDivisor(IntegerExpression expr) {
+    return expr instanceof SmallIntegerExpression ? ((SmallIntegerExpression) expr).getInteger() : expr.compare(myInteger) > 0 ? -1 : expr.getSmallInteger();
+  }
+
   @Override
   public IntegerExpression div(IntegerExpression expr) {
     if (expr.isZero()) {
       return this;
     }
-    if (expr instanceof SmallIntegerExpression) {
-      int other = ((SmallIntegerExpression) expr).getInteger();
-      return new SmallIntegerExpression(myInteger / other);
-    }
-
-    return new BigIntegerExpression(BigInteger.valueOf(myInteger).divide(expr.getBigInteger()));
+    int other = getDivisor(expr);
+    return new SmallIntegerExpression(other == -1 ? 0 : myInteger / other);
   }
 
   @Override
@@ -137,12 +131,8 @@ public class SmallIntegerExpression extends IntegerExpression {
     if (expr.isZero()) {
       return this;
     }
-    if (expr instanceof SmallIntegerExpression) {
-      int other = ((SmallIntegerExpression) expr).getInteger();
-      return new SmallIntegerExpression(myInteger % other);
-    }
-
-    return new BigIntegerExpression(BigInteger.valueOf(myInteger).remainder(expr.getBigInteger()));
+    int other = getDivisor(expr);
+    return other == -1 ? this : new SmallIntegerExpression(myInteger % other);
   }
 
   @Override
@@ -153,15 +143,9 @@ public class SmallIntegerExpression extends IntegerExpression {
       fields.add(this);
       return new TupleExpression(fields, Prelude.DIV_MOD_TYPE);
     } else {
-      if (expr instanceof SmallIntegerExpression) {
-        int other = ((SmallIntegerExpression) expr).getInteger();
-        fields.add(new SmallIntegerExpression(myInteger / other));
-        fields.add(new SmallIntegerExpression(myInteger % other));
-      } else {
-        BigInteger[] divMod = BigInteger.valueOf(myInteger).divideAndRemainder(expr.getBigInteger());
-        fields.add(new BigIntegerExpression(divMod[0]));
-        fields.add(new BigIntegerExpression(divMod[1]));
-      }
+      int other = getDivisor(expr);
+      fields.add(new SmallIntegerExpression(other == -1 ? 0 : myInteger / other));
+      fields.add(other == -1 ? this : new SmallIntegerExpression(myInteger % other));
       return new TupleExpression(fields, ExpressionFactory.finDivModType(expr));
     }
   }
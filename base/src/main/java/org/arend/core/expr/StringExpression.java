@@ -14,6 +14,11 @@ public class StringExpression extends Expression implements CoreStringExpression
     myString = string;
   }
 
+  @Override
+  protected int computeFreeVariablesMask() {
+    return 0;
+  }
+
   @Override
   public @NotNull String getString() {
     return myString;
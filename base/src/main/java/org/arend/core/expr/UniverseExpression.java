@@ -21,6 +21,11 @@ public class UniverseExpression extends Expression implements Type, CoreUniverse
     mySort = sort;
   }
 
+  @Override
+  protected int computeFreeVariablesMask() {
+    return LEVELS_MASK;
+  }
+
   @Override
   public boolean isOmega() {
     return mySort.isOmega();
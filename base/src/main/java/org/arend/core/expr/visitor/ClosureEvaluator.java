@@ -0,0 +1,248 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.EvaluatingBinding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.context.param.SingleDependentLink;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.*;
+import org.arend.core.expr.*;
+import org.arend.core.pattern.Pattern;
+import org.arend.core.subst.ExprSubstitution;
+import org.arend.ext.core.level.LevelSubstitution;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.prelude.Prelude;
+import org.arend.typechecking.computation.ComputationRunner;
+
+import java.util.*;
+
+/**
+ * Evaluates function calls to weak head normal form using environments instead of substitution.
+ * Clause bodies are never instantiated during unfolding; arguments are kept as closures which are evaluated on demand.
+ * Only the final result is read back to a core expression.
+ * The evaluator is disabled by default; it is used by {@link NormalizeVisitor} for the modes specified in {@link #setModes}.
+ */
+public class ClosureEvaluator {
+  private static volatile Set<NormalizationMode> ourModes = EnumSet.noneOf(NormalizationMode.class);
+
+  private ClosureEvaluator() {}
+
+  /**
+   * Specifies normalization modes that use this evaluator.
+   * {@link NormalizationMode#RNF} does not unfold definitions, so it is ignored.
+   */
+  public static void setModes(Set<NormalizationMode> modes) {
+    Set<NormalizationMode> newModes = modes.isEmpty() ? EnumSet.noneOf(NormalizationMode.class) : EnumSet.copyOf(modes);
+    newModes.remove(NormalizationMode.RNF);
+    ourModes = newModes;
+  }
+
+  public static Set<NormalizationMode> getModes() {
+    return Collections.unmodifiableSet(ourModes);
+  }
+
+  public static boolean isEnabled(NormalizationMode mode) {
+    return ourModes.contains(mode);
+  }
+
+  private static class Environment {
+    static final Environment EMPTY = new Environment(Collections.emptyMap(), LevelSubstitution.EMPTY);
+
+    final Map<Binding, Closure> values;
+    final LevelSubstitution levelSubstitution;
+    private ExprSubstitution mySubstitution;
+
+    Environment(Map<Binding, Closure> values, LevelSubstitution levelSubstitution) {
+      this.values = values;
+      this.levelSubstitution = levelSubstitution;
+    }
+
+    Expression readBack(Expression expr) {
+      if (values.isEmpty() && levelSubstitution.isEmpty()) {
+        return expr;
+      }
+      if (mySubstitution == null) {
+        mySubstitution = new ExprSubstitution();
+        for (Map.Entry<Binding, Closure> entry : values.entrySet()) {
+          mySubstitution.add(entry.getKey(), entry.getValue().readBack());
+        }
+      }
+      return expr.subst(mySubstitution, levelSubstitution);
+    }
+  }
+
+  private static class Closure {
+    final Expression expression;
+    final Environment environment;
+    private Expression myValue;
+    private Expression myWHNF;
+
+    Closure(Expression expression, Environment environment) {
+      this.expression = expression;
+      this.environment = environment;
+    }
+
+    Expression readBack() {
+      if (myValue == null) {
+        myValue = environment.readBack(expression);
+      }
+      return myValue;
+    }
+
+    Expression force() {
+      if (myWHNF == null) {
+        myWHNF = whnf(expression, environment);
+      }
+      return myWHNF;
+    }
+  }
+
+  private static boolean isUnfoldable(FunctionDefinition definition) {
+    return !NormalizeVisitor.isBlocked(definition) && definition != Prelude.ARRAY_INDEX && !definition.hasStrictParameters() && (definition.getBody() instanceof ElimBody || definition.getBody() instanceof Expression);
+  }
+
+  private record Match(ElimClause<Pattern> clause, List<Closure> arguments) {}
+
+  private static Match match(ElimBody elimBody, List<Closure> arguments) {
+    Deque<Closure> stack = new ArrayDeque<>();
+    for (int i = arguments.size() - 1; i >= 0; i--) {
+      stack.push(arguments.get(i));
+    }
+
+    List<Closure> argList = new ArrayList<>();
+    ElimTree elimTree = elimBody.getElimTree();
+    while (true) {
+      for (int i = 0; i < elimTree.getSkip(); i++) {
+        argList.add(stack.pop());
+      }
+
+      if (elimTree instanceof LeafElimTree leafElimTree) {
+        ElimClause<Pattern> clause = elimBody.getClauses().get(leafElimTree.getClauseIndex());
+        List<Closure> matched = new ArrayList<>();
+        int i = 0;
+        for (DependentLink link = clause.getParameters(); link.hasNext(); link = link.getNext(), i++) {
+          matched.add(argList.get(leafElimTree.getArgumentIndex(i)));
+        }
+        return new Match(clause, matched);
+      }
+
+      Deque<Expression> exprStack = new ArrayDeque<>();
+      exprStack.push(stack.pop().force());
+      List<Expression> keptArgs = new ArrayList<>(1);
+      elimTree = NormalizeVisitor.INSTANCE.updateStack(exprStack, keptArgs, (BranchElimTree) elimTree);
+      if (elimTree == null) {
+        return null;
+      }
+      for (Expression arg : keptArgs) {
+        argList.add(new Closure(arg, Environment.EMPTY));
+      }
+      for (Iterator<Expression> it = exprStack.descendingIterator(); it.hasNext(); ) {
+        stack.push(new Closure(it.next(), Environment.EMPTY));
+      }
+    }
+  }
+
+  /**
+   * Binds {@code parameters} to {@code arguments} in a copy of {@code environment} or in a new environment if it is null.
+   */
+  private static Environment extend(Environment environment, DependentLink parameters, List<Closure> arguments, LevelSubstitution levelSubstitution) {
+    Map<Binding, Closure> values = environment == null ? new HashMap<>() : new HashMap<>(environment.values);
+    for (Closure argument : arguments) {
+      values.put(parameters, argument);
+      parameters = parameters.getNext();
+    }
+    return new Environment(values, levelSubstitution);
+  }
+
+  private static List<Closure> makeClosures(List<? extends Expression> arguments, Environment environment) {
+    List<Closure> result = new ArrayList<>(arguments.size());
+    for (Expression argument : arguments) {
+      result.add(new Closure(argument, environment));
+    }
+    return result;
+  }
+
+  /**
+   * Evaluates {@code funCall} to weak head normal form.
+   *
+   * @return the result of the evaluation or null if {@code funCall} does not reduce.
+   */
+  public static Expression evaluate(FunCallExpression funCall) {
+    FunctionDefinition definition = funCall.getDefinition();
+    if (!isUnfoldable(definition)) {
+      return null;
+    }
+
+    Body body = definition.getBody();
+    if (body instanceof ElimBody elimBody) {
+      Match match = match(elimBody, makeClosures(funCall.getDefCallArguments(), Environment.EMPTY));
+      return match == null ? null : whnf(Objects.requireNonNull(match.clause.getExpression()), extend(null, match.clause.getParameters(), match.arguments, funCall.getLevelSubstitution()));
+    } else {
+      return whnf((Expression) body, extend(null, definition.getParameters(), makeClosures(funCall.getDefCallArguments(), Environment.EMPTY), funCall.getLevelSubstitution()));
+    }
+  }
+
+  private static Expression whnf(Expression expr, Environment environment) {
+    while (true) {
+      ComputationRunner.checkCanceled();
+
+      if (expr instanceof ReferenceExpression refExpr) {
+        Closure closure = environment.values.get(refExpr.getBinding());
+        if (closure != null) {
+          return closure.force();
+        }
+        if (refExpr.getBinding() instanceof EvaluatingBinding evaluatingBinding) {
+          expr = evaluatingBinding.getExpression();
+          environment = Environment.EMPTY;
+          continue;
+        }
+        return expr;
+      }
+
+      if (expr instanceof FunCallExpression funCall && isUnfoldable(funCall.getDefinition())) {
+        Body body = funCall.getDefinition().getBody();
+        LevelSubstitution levelSubstitution = funCall.getLevelSubstitution().subst(environment.levelSubstitution);
+        if (body instanceof ElimBody elimBody) {
+          Match match = match(elimBody, makeClosures(funCall.getDefCallArguments(), environment));
+          if (match == null) {
+            break;
+          }
+          expr = Objects.requireNonNull(match.clause.getExpression());
+          environment = extend(null, match.clause.getParameters(), match.arguments, levelSubstitution);
+        } else {
+          environment = extend(null, funCall.getDefinition().getParameters(), makeClosures(funCall.getDefCallArguments(), environment), levelSubstitution);
+          expr = (Expression) body;
+        }
+        continue;
+      }
+
+      if (expr instanceof CaseExpression caseExpr && !caseExpr.isSCase()) {
+        Match match = match(caseExpr.getElimBody(), makeClosures(caseExpr.getArguments(), environment));
+        if (match == null) {
+          break;
+        }
+        expr = Objects.requireNonNull(match.clause.getExpression());
+        environment = extend(environment, match.clause.getParameters(), match.arguments, environment.levelSubstitution);
+        continue;
+      }
+
+      if (expr instanceof AppExpression appExpr) {
+        Expression function = whnf(appExpr.getFunction(), environment);
+        LamExpression lamExpr = function.cast(LamExpression.class);
+        if (lamExpr != null) {
+          SingleDependentLink param = lamExpr.getParameters();
+          Map<Binding, Closure> values = new HashMap<>();
+          values.put(param, new Closure(appExpr.getArgument(), environment));
+          expr = param.getNext().hasNext() ? new LamExpression(lamExpr.getResultSort(), param.getNext(), lamExpr.getBody()) : lamExpr.getBody();
+          environment = new Environment(values, LevelSubstitution.EMPTY);
+          continue;
+        }
+        return AppExpression.make(function, environment.readBack(appExpr.getArgument()), appExpr.isExplicit());
+      }
+
+      break;
+    }
+
+    return environment.readBack(expr).accept(NormalizeVisitor.INSTANCE, NormalizationMode.WHNF);
+  }
+}
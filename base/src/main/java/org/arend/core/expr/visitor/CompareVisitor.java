@@ -390,7 +390,57 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
     return funCall != null && funCall.getDefinition().getBody() == null && funCall.getDefinition().getResultType() instanceof ClassCallExpression && ((ClassCallExpression) funCall.getDefinition().getResultType()).isImplemented(fieldCall.getDefinition());
   }
 
+  /**
+   * Compares interned values built from constructors without conditions and small integers.
+   * Values of data types in {@code \Prop} are not compared.
+   *
+   * @return the result of the comparison or null if it cannot be determined without normalization.
+   */
+  private static Boolean compareInternedValues(Expression expr1, Expression expr2) {
+    if (expr1 == expr2) {
+      return true;
+    }
+    if (expr1 instanceof SmallIntegerExpression && expr2 instanceof SmallIntegerExpression) {
+      return false;
+    }
+    if (!(expr1 instanceof ConCallExpression conCall1 && expr2 instanceof ConCallExpression conCall2) || conCall1.getDefinition().getBody() != null || conCall2.getDefinition().getBody() != null || conCall1.getDefinition() == Prelude.SUC || conCall2.getDefinition() == Prelude.SUC) {
+      return null;
+    }
+    if (conCall1.getDefinition().getDataType().getSort().isProp() || conCall2.getDefinition().getDataType().getSort().isProp()) {
+      // Propositions are equal even if they are built from different constructors
+      return null;
+    }
+    if (conCall1.getDefinition() != conCall2.getDefinition()) {
+      return conCall1.getDefinition().getDataType() == conCall2.getDefinition().getDataType() ? false : null;
+    }
+
+    Boolean result = true;
+    List<Expression> args1 = conCall1.getDefCallArguments();
+    List<Expression> args2 = conCall2.getDefCallArguments();
+    for (int i = 0; i < args1.size(); i++) {
+      Boolean argResult = compareInternedValues(args1.get(i), args2.get(i));
+      if (argResult == null) {
+        result = null;
+      } else if (!argResult) {
+        return false;
+      }
+    }
+    return result;
+  }
+
   private Boolean compareImmediately(Expression expr1, Expression expr2, Expression type) {
+    if (expr1.isInterned() && expr2.isInterned()) {
+      Boolean result = compareInternedValues(expr1, expr2);
+      if (result == Boolean.TRUE) {
+        return true;
+      }
+      // If only inference variables are solved, different values are not reported as unequal
+      if (result != null && myNormalCompare && !myOnlySolveVars) {
+        initResult(expr1, expr2);
+        return false;
+      }
+    }
+
     int n1 = 0;
     Expression e1 = expr1;
     while (e1 instanceof AppExpression) {
@@ -1877,14 +1927,18 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
           BigInteger m = pair1.proj2.min(pair2.proj2);
           if (!m.equals(BigInteger.ZERO)) {
             for (BigInteger i = BigInteger.ZERO; i.compareTo(m) < 0; i = i.add(BigInteger.ONE)) {
-              IntegerExpression index = new BigIntegerExpression(i);
+              IntegerExpression index = IntegerExpression.make(i);
               if (!normalizedCompare(FunCallExpression.make(Prelude.ARRAY_INDEX, classCall1.getLevels(), Arrays.asList(expr1, index)).normalize(NormalizationMode.WHNF),
-                                     FunCallExpression.make(Prelude.ARRAY_INDEX, classCall2.getLevels(), Arrays.asList(expr2, index)).normalize(NormalizationMode.WHNF), null, true) ||
-                  !compare(dropElements(expr1, pair1.proj1, classCall1, m), dropElements(expr2, pair2.proj1, classCall2, m), new ClassCallExpression(Prelude.DEP_ARRAY, classCall1.getLevels()), true)) {
+                                     FunCallExpression.make(Prelude.ARRAY_INDEX, classCall2.getLevels(), Arrays.asList(expr2, index)).normalize(NormalizationMode.WHNF), null, true)) {
                 myResult = null;
                 return false;
               }
             }
+            // The remaining elements do not depend on the index, so they are compared once
+            if (!compare(dropElements(expr1, pair1.proj1, classCall1, m), dropElements(expr2, pair2.proj1, classCall2, m), new ClassCallExpression(Prelude.DEP_ARRAY, classCall1.getLevels()), true)) {
+              myResult = null;
+              return false;
+            }
             return true;
           }
         }
@@ -2031,16 +2085,20 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
             isGE = type2 instanceof DataCallExpression && ((DataCallExpression) type2).getDefinition() == Prelude.FIN || type1 instanceof DataCallExpression && ((DataCallExpression) type1).getDefinition() == Prelude.NAT;
           }
           myCMP = isGE ? CMP.GE : CMP.LE;
-          TypecheckerState state = new TypecheckerState(null, 0, 0, null, null, null, true);
+          TypecheckerState state = new TypecheckerState(null, 0, 0, 0, null, null, null, true);
           myEquations.saveState(state);
-          ok = normalizedCompare(type1, type2, Type.OMEGA, false);
-          myCMP = origCMP;
-          if (ok) {
-            ok = compare(list1.get(i), list2.get(i), isGE ? type1 : type2, true);
-          }
-          if (!ok) {
-            state.numberOfLevelVariables = Integer.MAX_VALUE;
-            myEquations.loadState(state);
+          try {
+            ok = normalizedCompare(type1, type2, Type.OMEGA, false);
+            myCMP = origCMP;
+            if (ok) {
+              ok = compare(list1.get(i), list2.get(i), isGE ? type1 : type2, true);
+            }
+            if (!ok) {
+              state.numberOfLevelVariables = Integer.MAX_VALUE;
+              myEquations.loadState(state);
+            }
+          } finally {
+            myEquations.discardState(state);
           }
         } else {
           ok = compare(list1.get(i), list2.get(i), substitution != null && link.hasNext() ? link.getTypeExpr().subst(substitution) : null, true);
@@ -171,13 +171,13 @@ public class GetTypeVisitor implements ExpressionVisitor<Void, Expression> {
       if (defCall.getDefinition().getLevelParameters() == null) {
         Level pLevel = levelMap.get(LevelVariable.PVAR);
         Level hLevel = levelMap.get(LevelVariable.HVAR);
-        levels = new LevelPair(pLevel == null ? new Level(0) : pLevel, hLevel == null ? new Level(-1) : hLevel);
+        levels = new LevelPair(pLevel == null ? Level.make(0) : pLevel, hLevel == null ? Level.make(-1) : hLevel);
       } else {
         List<Level> list = new ArrayList<>();
         List<? extends LevelVariable> vars = defCall.getDefinition().getLevelParameters();
         for (LevelVariable var : vars) {
           Level level = levelMap.get(var);
-          list.add(level == null ? new Level(var.getMinValue()) : level);
+          list.add(level == null ? Level.make(var.getMinValue()) : level);
         }
         for (int i = 0; i < list.size() - 1; i++) {
           Level maxLevel = list.get(i).max(list.get(i + 1));
@@ -26,6 +26,7 @@ import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.prelude.Prelude;
 import org.arend.typechecking.computation.ComputationRunner;
 import org.arend.ext.util.Pair;
+import org.arend.util.PersistentList;
 import org.arend.util.SingletonList;
 
 import java.math.BigInteger;
@@ -91,39 +92,41 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     Expression arg1 = defCallArgs.get(0).accept(this, mode);
     Expression arg2 = defCallArgs.get(1).accept(this, mode);
 
-    if (arg1 instanceof IntegerExpression intExpr1) {
-      if (arg2 instanceof IntegerExpression) {
-        return intExpr1.plus((IntegerExpression) arg2);
-      }
-      for (int i = 0; intExpr1.compare(i) > 0; i++) {
-        arg2 = Suc(arg2);
-      }
-      return arg2;
-    }
-
-    if (arg2 instanceof IntegerExpression intExpr2) {
-      for (int i = 0; intExpr2.compare(i) > 0; i++) {
-        arg1 = Suc(arg1);
-      }
-      return arg1;
+    if (arg1 instanceof IntegerExpression intExpr1 && arg2 instanceof IntegerExpression intExpr2) {
+      return intExpr1.plus(intExpr2);
     }
 
+    // Suc-chains that end with literals are folded into literals
     List<Expression> newDefCallArgs = new ArrayList<>(2);
-    Expression result = FunCallExpression.make(Prelude.PLUS, expr.getLevels(), newDefCallArgs);
-    result = addSucs(arg1, newDefCallArgs, result);
-    result = addSucs(arg2, newDefCallArgs, result);
-    return result;
+    int sucs1 = removeSucs(arg1, newDefCallArgs);
+    int sucs2 = removeSucs(arg2, newDefCallArgs);
+    arg1 = newDefCallArgs.get(0);
+    arg2 = newDefCallArgs.get(1);
+
+    // Literals that do not fit into an int are kept as arguments of the funcall
+    Expression result;
+    if (arg1 instanceof IntegerExpression intExpr1 && arg2 instanceof IntegerExpression intExpr2) {
+      result = intExpr1.plus(intExpr2);
+    } else if (arg1 instanceof IntegerExpression intExpr1 && intExpr1.compare(Integer.MAX_VALUE) <= 0) {
+      result = addSucs(arg2, intExpr1.getSmallInteger());
+    } else if (arg2 instanceof IntegerExpression intExpr2 && intExpr2.compare(Integer.MAX_VALUE) <= 0) {
+      result = addSucs(arg1, intExpr2.getSmallInteger());
+    } else {
+      result = FunCallExpression.make(Prelude.PLUS, expr.getLevels(), newDefCallArgs);
+    }
+    return addSucs(addSucs(result, sucs1), sucs2);
   }
 
-  private Expression addSucs(Expression arg1, List<Expression> defCallArgs, Expression result) {
-    ConCallExpression conCall1 = arg1.cast(ConCallExpression.class);
-    while (conCall1 != null && conCall1.getDefinition() == Prelude.SUC) {
-      result = Suc(result);
-      arg1 = conCall1.getDefCallArguments().get(0).accept(this, NormalizationMode.WHNF);
-      conCall1 = arg1.cast(ConCallExpression.class);
+  private int removeSucs(Expression arg, List<Expression> defCallArgs) {
+    int sucs = 0;
+    ConCallExpression conCall = arg.cast(ConCallExpression.class);
+    while (conCall != null && conCall.getDefinition() == Prelude.SUC) {
+      sucs++;
+      arg = conCall.getDefCallArguments().get(0).accept(this, NormalizationMode.WHNF);
+      conCall = arg.cast(ConCallExpression.class);
     }
-    defCallArgs.add(arg1);
-    return result;
+    defCallArgs.add(arg);
+    return sucs;
   }
 
   private Expression normalizeMinus(FunCallExpression expr, NormalizationMode mode) {
@@ -159,6 +162,10 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
         return Neg(arg2);
       }
 
+      if (arg2 instanceof IntegerExpression) {
+        return intExpr1.minus((IntegerExpression) arg2);
+      }
+
       List<Expression> newDefCallArgs = new ArrayList<>(2);
       newDefCallArgs.add(intExpr1);
       newDefCallArgs.add(mode == NormalizationMode.WHNF ? arg2 : arg2.accept(this, mode));
@@ -194,6 +201,10 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
         return Pos(arg1);
       }
 
+      if (arg1 instanceof IntegerExpression) {
+        return ((IntegerExpression) arg1).minus(intExpr2);
+      }
+
       List<Expression> newDefCallArgs = new ArrayList<>(2);
       newDefCallArgs.add(mode == NormalizationMode.WHNF ? arg1 : arg1.accept(this, mode));
       newDefCallArgs.add(intExpr2);
@@ -208,6 +219,13 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
       conCall2 = arg2.cast(ConCallExpression.class);
     }
 
+    if (arg1 instanceof IntegerExpression intExpr && arg2 instanceof IntegerExpression) {
+      return intExpr.minus((IntegerExpression) arg2);
+    }
+    if (arg1 instanceof IntegerExpression || arg2 instanceof IntegerExpression) {
+      return normalizeMinus(FunCallExpression.makeFunCall(Prelude.MINUS, expr.getLevels(), Arrays.asList(arg1, arg2)), mode);
+    }
+
     List<Expression> newDefCallArgs = new ArrayList<>(2);
     newDefCallArgs.add(mode == NormalizationMode.WHNF ? arg1 : arg1.accept(this, mode));
     newDefCallArgs.add(mode == NormalizationMode.WHNF ? arg2 : arg2.accept(this, mode));
@@ -388,10 +406,42 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
       return applyDefCall(expr, mode);
     }
 
-    Expression result = visitBody(((Function) definition).getBody(), defCallArgs, expr, mode);
+    if (mode == NormalizationMode.WHNF && expr instanceof FunCallExpression funCall) {
+      WHNFCache.Key key = WHNFCache.INSTANCE.makeKey(funCall);
+      if (key != null) {
+        Expression result = WHNFCache.INSTANCE.get(funCall.getDefinition(), key);
+        if (result == null) {
+          result = unfoldFunction(expr, defCallArgs, mode);
+          WHNFCache.INSTANCE.put(funCall.getDefinition(), key, result);
+        }
+        return result;
+      }
+    }
+
+    return unfoldFunction(expr, defCallArgs, mode);
+  }
+
+  private Expression unfoldFunction(LeveledDefCallExpression expr, List<? extends Expression> defCallArgs, NormalizationMode mode) {
+    if (mode != NormalizationMode.RNF && expr instanceof FunCallExpression && ClosureEvaluator.isEnabled(mode)) {
+      Expression result = ClosureEvaluator.evaluate((FunCallExpression) expr);
+      if (result != null) {
+        return mode == NormalizationMode.WHNF ? result : normalizeEvaluated(result, mode);
+      }
+    }
+
+    Expression result = visitBody(((Function) expr.getDefinition()).getBody(), defCallArgs, expr, mode);
     return result == null ? applyDefCall(expr, mode) : result;
   }
 
+  private Expression normalizeEvaluated(Expression result, NormalizationMode mode) {
+    int sucs = 0;
+    while (result instanceof ConCallExpression conCall && conCall.getDefinition() == Prelude.SUC) {
+      sucs++;
+      result = conCall.getDefCallArguments().get(0).accept(this, NormalizationMode.WHNF);
+    }
+    return addSucs(result.accept(this, mode), sucs);
+  }
+
   public Expression visitBody(Body body, List<? extends Expression> defCallArgs, LeveledDefCallExpression expr, NormalizationMode mode) {
     ComputationRunner.checkCanceled();
     Definition definition = expr.getDefinition();
@@ -506,7 +556,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     }
   }
 
-  private static boolean isBlocked(FunctionDefinition def) {
+  static boolean isBlocked(FunctionDefinition def) {
     return def.isSFunc() || def == Prelude.PLUS || def == Prelude.MUL || def == Prelude.MINUS || def == Prelude.DIV || def == Prelude.MOD || def == Prelude.DIV_MOD || def == Prelude.COERCE || def == Prelude.COERCE2;
   }
 
@@ -707,7 +757,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     }
   }
 
-  private ElimTree updateStack(Deque<Expression> stack, List<Expression> argList, BranchElimTree branchElimTree) {
+  ElimTree updateStack(Deque<Expression> stack, List<Expression> argList, BranchElimTree branchElimTree) {
     Expression argument = TypeConstructorExpression.unfoldExpression(stack.pop());
     ArrayExpression array = argument instanceof ArrayExpression ? (ArrayExpression) argument : null;
     BranchKey key = argument instanceof ConCallExpression ? ((ConCallExpression) argument).getDefinition() : argument instanceof IntegerExpression ? (((IntegerExpression) argument).isZero() ? Prelude.ZERO : Prelude.SUC) : array != null ? new ArrayConstructor(array.getElements().isEmpty(), true, true) : argument instanceof PathExpression ? Prelude.PATH_CON : null;
@@ -831,7 +881,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
       if (classCall != null) {
         LevelPair levelPair = classCall.getLevels().toLevelPair();
         TypedSingleDependentLink lamParam = new TypedSingleDependentLink(true, "j", Fin(FieldCallExpression.make(Prelude.ARRAY_LENGTH, expr.getArgument())));
-        return new LamExpression(new Sort(levelPair.get(LevelVariable.PVAR), levelPair.get(LevelVariable.HVAR).max(new Level(0))), lamParam, FunCallExpression.make(Prelude.ARRAY_INDEX, levelPair, Arrays.asList(expr.getArgument(), new ReferenceExpression(lamParam))));
+        return new LamExpression(new Sort(levelPair.get(LevelVariable.PVAR), levelPair.get(LevelVariable.HVAR).max(Level.make(0))), lamParam, FunCallExpression.make(Prelude.ARRAY_INDEX, levelPair, Arrays.asList(expr.getArgument(), new ReferenceExpression(lamParam))));
       }
     }
 
@@ -1095,8 +1145,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     }
     Expression tail = expr.getTail() == null ? null : expr.getTail().normalize(mode);
     if (tail instanceof ArrayExpression) {
-      if (mode == NormalizationMode.WHNF) elements = new ArrayList<>(elements);
-      elements.addAll(((ArrayExpression) tail).getElements());
+      elements = PersistentList.concat(elements, ((ArrayExpression) tail).getElements());
       return ArrayExpression.make(expr.getLevels(), mode == NormalizationMode.NF ? expr.getElementsType().accept(this, NormalizationMode.NF) : expr.getElementsType(), elements, ((ArrayExpression) tail).getTail());
     }
     return ArrayExpression.make(expr.getLevels(), mode == NormalizationMode.NF || mode == NormalizationMode.RNF ? expr.getElementsType().accept(this, NormalizationMode.NF) : expr.getElementsType(), elements, tail);
@@ -0,0 +1,254 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.*;
+import org.arend.core.sort.Level;
+import org.arend.core.subst.Levels;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches weak head normal forms of closed function calls.
+ * A call is cached only if its arguments are built from constructors, function calls, data calls, and integers,
+ * and its levels do not contain inference variables.
+ * Only results that are not stuck are stored since they cannot change when other definitions are typechecked.
+ * Results are returned without copying, so only results of the same form as arguments are stored.
+ * Such expressions are immutable, unlike, for example, {@link ClassCallExpression}.
+ * Entries are grouped by the called definition which is referenced weakly.
+ * Both the number of definitions and the number of entries per definition are bounded;
+ * when a bound is exceeded, an arbitrary group or entry is evicted, which is cheaper than maintaining an LRU order.
+ * The cache can be accessed concurrently without locking. It is disabled by default.
+ */
+public class WHNFCache {
+  public static final WHNFCache INSTANCE = new WHNFCache();
+
+  private static final int MAX_KEY_SIZE = 64;
+  private static final int MAX_DEFINITIONS = 1024;
+  private static final int MAX_ENTRIES_PER_DEFINITION = 64;
+
+  private final Map<DefinitionKey, Map<Key, Expression>> myCache = new ConcurrentHashMap<>();
+  private final ReferenceQueue<FunctionDefinition> myQueue = new ReferenceQueue<>();
+  private final AtomicLong myHits = new AtomicLong();
+  private final AtomicLong myMisses = new AtomicLong();
+  private volatile boolean myEnabled = false;
+
+  private static final class DefinitionKey extends WeakReference<FunctionDefinition> {
+    private final int myHash;
+
+    private DefinitionKey(FunctionDefinition definition, ReferenceQueue<FunctionDefinition> queue) {
+      super(definition, queue);
+      myHash = System.identityHashCode(definition);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof DefinitionKey key) || myHash != key.myHash) return false;
+      FunctionDefinition definition = get();
+      return definition != null && definition == key.get();
+    }
+
+    @Override
+    public int hashCode() {
+      return myHash;
+    }
+  }
+
+  public static final class Key {
+    private final Levels myLevels;
+    private final List<? extends Expression> myArguments;
+    private final int myHash;
+
+    private Key(Levels levels, List<? extends Expression> arguments, int hash) {
+      myLevels = levels;
+      myArguments = arguments;
+      myHash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key key)) return false;
+      return myHash == key.myHash && myLevels.equals(key.myLevels) && equalArguments(myArguments, key.myArguments);
+    }
+
+    @Override
+    public int hashCode() {
+      return myHash;
+    }
+  }
+
+  public boolean isEnabled() {
+    return myEnabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    myEnabled = enabled;
+    if (!enabled) {
+      clear();
+    }
+  }
+
+  public long getHits() {
+    return myHits.get();
+  }
+
+  public long getMisses() {
+    return myMisses.get();
+  }
+
+  public void resetStatistics() {
+    myHits.set(0);
+    myMisses.set(0);
+  }
+
+  private static boolean isClosed(Levels levels) {
+    for (Level level : levels.toList()) {
+      if (level.hasInferenceVar()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Computes the hash of an expression built from constructors, function calls, data calls, and integers.
+   *
+   * @param size  the remaining number of subexpressions that may be visited.
+   * @return the hash or null if the expression is not of this form or it is too big.
+   */
+  private static Integer hash(Expression expr, int[] size) {
+    if (--size[0] < 0) {
+      return null;
+    }
+    if (expr instanceof IntegerExpression intExpr) {
+      return intExpr.getBigInteger().hashCode();
+    }
+    if (!(expr instanceof ConCallExpression || expr instanceof FunCallExpression || expr instanceof DataCallExpression) || !isClosed(((LeveledDefCallExpression) expr).getLevels())) {
+      return null;
+    }
+
+    int result = System.identityHashCode(((DefCallExpression) expr).getDefinition());
+    if (expr instanceof ConCallExpression conCall) {
+      Integer argsHash = hash(conCall.getDataTypeArguments(), size);
+      if (argsHash == null) {
+        return null;
+      }
+      result = 31 * result + argsHash;
+    }
+    Integer argsHash = hash(((DefCallExpression) expr).getDefCallArguments(), size);
+    return argsHash == null ? null : 31 * result + argsHash;
+  }
+
+  private static Integer hash(List<? extends Expression> exprs, int[] size) {
+    int result = 1;
+    for (Expression expr : exprs) {
+      Integer hash = hash(expr, size);
+      if (hash == null) {
+        return null;
+      }
+      result = 31 * result + hash;
+    }
+    return result;
+  }
+
+  private static boolean equalArguments(List<? extends Expression> exprs1, List<? extends Expression> exprs2) {
+    if (exprs1.size() != exprs2.size()) {
+      return false;
+    }
+    for (int i = 0; i < exprs1.size(); i++) {
+      if (!equal(exprs1.get(i), exprs2.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean equal(Expression expr1, Expression expr2) {
+    if (expr1 == expr2) {
+      return true;
+    }
+    if (expr1 instanceof IntegerExpression intExpr1) {
+      return expr2 instanceof IntegerExpression intExpr2 && intExpr1.isEqual(intExpr2);
+    }
+    if (expr1.getClass() != expr2.getClass()) {
+      return false;
+    }
+    LeveledDefCallExpression defCall1 = (LeveledDefCallExpression) expr1;
+    LeveledDefCallExpression defCall2 = (LeveledDefCallExpression) expr2;
+    return defCall1.getDefinition() == defCall2.getDefinition() && defCall1.getLevels().equals(defCall2.getLevels()) &&
+      (!(expr1 instanceof ConCallExpression) || equalArguments(((ConCallExpression) expr1).getDataTypeArguments(), ((ConCallExpression) expr2).getDataTypeArguments())) &&
+      equalArguments(defCall1.getDefCallArguments(), defCall2.getDefCallArguments());
+  }
+
+  /**
+   * @return a key for {@code funCall} or null if the call cannot be cached.
+   */
+  public Key makeKey(FunCallExpression funCall) {
+    if (!myEnabled || funCall.getDefinition().status() != Definition.TypeCheckingStatus.NO_ERRORS || !isClosed(funCall.getLevels())) {
+      return null;
+    }
+    Integer hash = hash(funCall.getDefCallArguments(), new int[] { MAX_KEY_SIZE });
+    return hash == null ? null : new Key(funCall.getLevels(), funCall.getDefCallArguments(), hash);
+  }
+
+  private void expungeStaleEntries() {
+    for (Object key; (key = myQueue.poll()) != null; ) {
+      myCache.remove(key);
+    }
+  }
+
+  /**
+   * Removes the first entry in the iteration order of {@code map}, which is arbitrary for {@link ConcurrentHashMap}.
+   */
+  private static <K> void evictOne(Map<K, ?> map) {
+    Iterator<K> iterator = map.keySet().iterator();
+    if (iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  public Expression get(FunctionDefinition definition, Key key) {
+    Map<Key, Expression> map = myCache.get(new DefinitionKey(definition, null));
+    Expression result = map == null ? null : map.get(key);
+    (result == null ? myMisses : myHits).incrementAndGet();
+    return result;
+  }
+
+  public void put(FunctionDefinition definition, Key key, Expression result) {
+    if (result instanceof FunCallExpression || result.getStuckExpression() != null || hash(result, new int[] { MAX_KEY_SIZE }) == null) {
+      return;
+    }
+
+    expungeStaleEntries();
+    DefinitionKey definitionKey = new DefinitionKey(definition, null);
+    Map<Key, Expression> map = myCache.get(definitionKey);
+    if (map == null) {
+      while (myCache.size() >= MAX_DEFINITIONS) {
+        evictOne(myCache);
+      }
+      map = myCache.computeIfAbsent(new DefinitionKey(definition, myQueue), k -> new ConcurrentHashMap<>());
+    }
+    if (map.put(key, result) == null) {
+      while (map.size() > MAX_ENTRIES_PER_DEFINITION) {
+        evictOne(map);
+      }
+    }
+  }
+
+  public void invalidate(Definition definition) {
+    if (definition instanceof FunctionDefinition) {
+      myCache.remove(new DefinitionKey((FunctionDefinition) definition, null));
+    }
+  }
+
+  public void clear() {
+    myCache.clear();
+  }
+}
@@ -20,6 +20,23 @@ public class Level implements CoreLevel {
 
   public static final Level INFINITY = new Level();
 
+  private static final int CACHED_CONSTANTS = 16;
+  // Closed levels -1, 0, ..., CACHED_CONSTANTS - 1
+  private static final Level[] CLOSED_LEVELS = new Level[CACHED_CONSTANTS + 1];
+  // \lp + c and \lh + c for c = 0, ..., CACHED_CONSTANTS - 1
+  private static final Level[] PVAR_LEVELS = new Level[CACHED_CONSTANTS];
+  private static final Level[] HVAR_LEVELS = new Level[CACHED_CONSTANTS];
+
+  static {
+    for (int i = 0; i < CLOSED_LEVELS.length; i++) {
+      CLOSED_LEVELS[i] = new Level(null, i - 1, -1);
+    }
+    for (int i = 0; i < CACHED_CONSTANTS; i++) {
+      PVAR_LEVELS[i] = new Level(LevelVariable.PVAR, i, -1);
+      HVAR_LEVELS[i] = new Level(LevelVariable.HVAR, i, -1);
+    }
+  }
+
   private Level() {
     myVar = null;
     myConstant = Integer.MAX_VALUE;
@@ -50,6 +67,33 @@ public class Level implements CoreLevel {
     this(null, constant);
   }
 
+  /**
+   * Returns max(var + constant, maxConstant).
+   * Unlike constructors, this method returns shared instances for closed levels and for \lp and \lh with small constants.
+   */
+  public static Level make(LevelVariable var, int constant, int maxConstant) {
+    if (var == null) {
+      return constant >= -1 && constant < CACHED_CONSTANTS ? CLOSED_LEVELS[constant + 1] : new Level(null, constant, maxConstant);
+    }
+    if (constant >= 0 && constant < CACHED_CONSTANTS && maxConstant <= constant + var.getMinValue()) {
+      if (var == LevelVariable.PVAR) return PVAR_LEVELS[constant];
+      if (var == LevelVariable.HVAR) return HVAR_LEVELS[constant];
+    }
+    return new Level(var, constant, maxConstant);
+  }
+
+  public static Level make(LevelVariable var, int constant) {
+    return make(var, constant, -1);
+  }
+
+  public static Level make(LevelVariable var) {
+    return make(var, 0, -1);
+  }
+
+  public static Level make(int constant) {
+    return make(null, constant, -1);
+  }
+
   public LevelVariable getVar() {
     return myVar;
   }
@@ -92,7 +136,7 @@ public class Level implements CoreLevel {
 
   public Level add(int constant) {
     assert constant >= 0;
-    return constant == 0 || isInfinity() ? this : new Level(myVar, myConstant + constant, myMaxConstant + constant);
+    return constant == 0 || isInfinity() ? this : make(myVar, myConstant + constant, myMaxConstant + constant);
   }
 
   public Level max(Level level) {
@@ -103,19 +147,19 @@ public class Level implements CoreLevel {
     if (myVar != null && level.myVar != null) {
       LevelVariable var = myVar.max(level.myVar);
       if (var != null) {
-        return new Level(var, Math.max(myConstant, level.myConstant), Math.max(myMaxConstant, level.myMaxConstant));
+        return make(var, Math.max(myConstant, level.myConstant), Math.max(myMaxConstant, level.myMaxConstant));
       } else {
         return null;
       }
     }
 
     if (myVar == null && level.myVar == null) {
-      return new Level(Math.max(myConstant, level.myConstant));
+      return myConstant >= level.myConstant ? this : level;
     }
 
     int constant = myVar == null ? myConstant : level.myConstant;
     Level lvl = myVar == null ? level : this;
-    return new Level(lvl.myVar, lvl.myConstant, Math.max(constant, lvl.myMaxConstant));
+    return constant <= lvl.myMaxConstant ? lvl : make(lvl.myVar, lvl.myConstant, constant);
   }
 
   public Level subst(LevelSubstitution subst) {
@@ -126,18 +170,29 @@ public class Level implements CoreLevel {
     if (level == null) {
       return this;
     }
-    if (level == INFINITY || isVarOnly()) {
+    if (level == INFINITY) {
       return level;
     }
+    if (isVarOnly()) {
+      return level.isVarOnly() && level.myVar == myVar ? this : level;
+    }
 
     int constant = myConstant == -1 && level.myConstant == -1 ? -1 : level.myConstant + myConstant;
     if (level.myVar != null) {
-      return new Level(level.myVar, constant, Math.max(level.myMaxConstant + myConstant, myMaxConstant));
+      int maxConstant = Math.max(level.myMaxConstant + myConstant, myMaxConstant);
+      return hasFields(level.myVar, constant, maxConstant) ? this : make(level.myVar, constant, maxConstant);
     } else {
-      return new Level(Math.max(constant, myMaxConstant));
+      return make(Math.max(constant, myMaxConstant));
     }
   }
 
+  /**
+   * @return true if this level is max(var + constant, maxConstant).
+   */
+  private boolean hasFields(LevelVariable var, int constant, int maxConstant) {
+    return myVar == var && myConstant == constant && (myMaxConstant == maxConstant || var != null && maxConstant <= constant + var.getMinValue() && myMaxConstant == var.getMinValue());
+  }
+
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
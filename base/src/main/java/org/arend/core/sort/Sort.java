@@ -15,27 +15,40 @@ public class Sort implements CoreSort {
   private final Level myPLevel;
   private final Level myHLevel;
 
-  public static final Sort PROP = new Sort(new Level(0), new Level(-1));
-  public static final Sort SET0 = new Sort(new Level(0), new Level(0));
-  public static final Sort STD = new Sort(new Level(LevelVariable.PVAR), new Level(LevelVariable.HVAR));
+  public static final Sort PROP = new Sort(Level.make(0), Level.make(-1));
+  public static final Sort SET0 = new Sort(Level.make(0), Level.make(0));
+  public static final Sort STD = new Sort(Level.make(LevelVariable.PVAR), Level.make(LevelVariable.HVAR));
+
+  /**
+   * Returns a sort with the given levels.
+   * If the levels are shared instances of {@link #PROP}, {@link #SET0}, or {@link #STD}, then the corresponding constant is returned.
+   */
+  public static Sort make(Level pLevel, Level hLevel) {
+    if (pLevel == STD.myPLevel && hLevel == STD.myHLevel) return STD;
+    if (pLevel == SET0.myPLevel) {
+      if (hLevel == SET0.myHLevel) return SET0;
+      if (hLevel == PROP.myHLevel) return PROP;
+    }
+    return new Sort(pLevel, hLevel);
+  }
 
   public static Sort SetOfLevel(int pLevel) {
     return new Sort(pLevel, 0);
   }
 
   public static Sort SetOfLevel(Level pLevel) {
-    return new Sort(pLevel, new Level(0));
+    return new Sort(pLevel, Level.make(0));
   }
 
   public static Sort TypeOfLevel(int pLevel) {
-    return new Sort(new Level(pLevel), Level.INFINITY);
+    return new Sort(Level.make(pLevel), Level.INFINITY);
   }
 
   public Sort(int pLevel, int hLevel) {
     assert pLevel >= 0;
     assert hLevel >= 0;
-    myPLevel = new Level(pLevel);
-    myHLevel = new Level(hLevel);
+    myPLevel = Level.make(pLevel);
+    myHLevel = Level.make(hLevel);
   }
 
   public Sort(Level pLevel, Level hLevel) {
@@ -60,7 +73,7 @@ public class Sort implements CoreSort {
   }
 
   public Sort succ() {
-    return isProp() ? SET0 : new Sort(getPLevel().add(1), getHLevel().add(1));
+    return isProp() ? SET0 : make(getPLevel().add(1), getHLevel().add(1));
   }
 
   public Sort max(Sort sort) {
@@ -68,7 +81,10 @@ public class Sort implements CoreSort {
     if (sort.isProp()) return this;
     Level pLevel = myPLevel.max(sort.myPLevel);
     Level hLevel = myHLevel.max(sort.myHLevel);
-    return pLevel == null || hLevel == null ? null : new Sort(pLevel, hLevel);
+    if (pLevel == null || hLevel == null) return null;
+    if (pLevel == myPLevel && hLevel == myHLevel) return this;
+    if (pLevel == sort.myPLevel && hLevel == sort.myHLevel) return sort;
+    return make(pLevel, hLevel);
   }
 
   @Override
@@ -95,7 +111,7 @@ public class Sort implements CoreSort {
     if (equations == null) {
       return true;
     }
-    return equations.addEquation(new Level(sort.getHLevel().getVar()), new Level(sort.getHLevel().getConstant() == 0 ? -1 : 0), CMP.LE, sourceNode);
+    return equations.addEquation(Level.make(sort.getHLevel().getVar()), Level.make(sort.getHLevel().getConstant() == 0 ? -1 : 0), CMP.LE, sourceNode);
   }
 
   public static boolean compare(Sort sort1, Sort sort2, CMP cmp, Equations equations, Concrete.SourceNode sourceNode) {
@@ -119,7 +135,10 @@ public class Sort implements CoreSort {
   }
 
   public Sort subst(LevelSubstitution subst) {
-    return subst.isEmpty() || myPLevel.isClosed() && myHLevel.isClosed() ? this : new Sort(myPLevel.subst(subst), myHLevel.subst(subst));
+    if (subst.isEmpty() || myPLevel.isClosed() && myHLevel.isClosed()) return this;
+    Level pLevel = myPLevel.subst(subst);
+    Level hLevel = myHLevel.subst(subst);
+    return pLevel == myPLevel && hLevel == myHLevel ? this : make(pLevel, hLevel);
   }
 
   public static Sort generateInferVars(Equations equations, boolean isUniverseLike, Concrete.SourceNode sourceNode) {
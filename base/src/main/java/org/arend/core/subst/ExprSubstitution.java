@@ -9,6 +9,7 @@ import java.util.*;
 
 public class ExprSubstitution {
   private Map<Binding, Expression> mySubstExprs;
+  private int myKeysMask;
 
   public ExprSubstitution() {
     mySubstExprs = Collections.emptyMap();
@@ -16,6 +17,7 @@ public class ExprSubstitution {
 
   public ExprSubstitution(ExprSubstitution substitution) {
     mySubstExprs = substitution.mySubstExprs.isEmpty() ? Collections.emptyMap() : new HashMap<>(substitution.mySubstExprs);
+    myKeysMask = substitution.myKeysMask;
   }
 
   public ExprSubstitution(Binding from, Expression to) {
@@ -23,6 +25,14 @@ public class ExprSubstitution {
     add(from, to);
   }
 
+  /**
+   * @return the union of {@link Expression#bindingMask} of the keys of this substitution.
+   *         Bits of removed keys are not cleared, so the mask may contain extra bits.
+   */
+  public int getKeysMask() {
+    return myKeysMask;
+  }
+
   public Set<Binding> getKeys() {
     return mySubstExprs.keySet();
   }
@@ -47,6 +57,7 @@ public class ExprSubstitution {
     if (!mySubstExprs.isEmpty()) {
       mySubstExprs.clear();
     }
+    myKeysMask = 0;
   }
 
   public void remove(Binding variable) {
@@ -60,6 +71,7 @@ public class ExprSubstitution {
       mySubstExprs = new HashMap<>();
     }
     mySubstExprs.put(binding, expression);
+    myKeysMask |= Expression.bindingMask(binding);
   }
 
   public void addIfAbsent(Binding binding, Expression expression) {
@@ -67,6 +79,7 @@ public class ExprSubstitution {
       mySubstExprs = new HashMap<>();
     }
     mySubstExprs.putIfAbsent(binding, expression);
+    myKeysMask |= Expression.bindingMask(binding);
   }
 
   public void addSubst(Binding binding, Expression expression) {
@@ -78,6 +91,7 @@ public class ExprSubstitution {
       }
     }
     mySubstExprs.put(binding, expression);
+    myKeysMask |= Expression.bindingMask(binding);
   }
 
   public void addAll(ExprSubstitution substitution) {
@@ -86,6 +100,7 @@ public class ExprSubstitution {
         mySubstExprs = new HashMap<>();
       }
       mySubstExprs.putAll(substitution.mySubstExprs);
+      myKeysMask |= substitution.myKeysMask;
     }
   }
 
@@ -98,6 +113,7 @@ public class ExprSubstitution {
         break;
       }
       mySubstExprs.put(link, arg);
+      myKeysMask |= Expression.bindingMask(link);
       link = link.getNext();
     }
     return this;
@@ -46,6 +46,10 @@ public class InPlaceLevelSubstVisitor extends VoidExpressionVisitor<Void> {
 
   @Override
   public Void visitDefCall(DefCallExpression expr, Void params) {
+    // Interned expressions are shared and do not contain inference variables
+    if (expr.isInterned()) {
+      return null;
+    }
     if (expr instanceof LeveledDefCallExpression) {
       ((LeveledDefCallExpression) expr).substSort(mySubstitution);
     }
@@ -55,7 +59,9 @@ public class InPlaceLevelSubstVisitor extends VoidExpressionVisitor<Void> {
 
   @Override
   protected void processConCall(ConCallExpression expr, Void params) {
-    expr.substSort(mySubstitution);
+    if (!expr.isInterned()) {
+      expr.substSort(mySubstitution);
+    }
   }
 
   @Override
@@ -95,6 +101,9 @@ public class InPlaceLevelSubstVisitor extends VoidExpressionVisitor<Void> {
 
   @Override
   public Void visitUniverse(UniverseExpression expr, Void params) {
+    if (expr.isInterned()) {
+      return null;
+    }
     expr.substSort(mySubstitution);
     super.visitUniverse(expr, null);
     return null;
@@ -17,9 +17,9 @@ import java.util.Arrays;
 import java.util.List;
 
 public class LevelPair implements LevelSubstitution, Levels {
-  public static final LevelPair STD = new LevelPair(new Level(LevelVariable.PVAR), new Level(LevelVariable.HVAR));
-  public static final LevelPair PROP = new LevelPair(new Level(0), new Level(-1));
-  public static final LevelPair SET0 = new LevelPair(new Level(0), new Level(0));
+  public static final LevelPair STD = new LevelPair(Level.make(LevelVariable.PVAR), Level.make(LevelVariable.HVAR));
+  public static final LevelPair PROP = new LevelPair(Level.make(0), Level.make(-1));
+  public static final LevelPair SET0 = new LevelPair(Level.make(0), Level.make(0));
 
   private final Level myPLevel;
   private final Level myHLevel;
@@ -29,6 +29,19 @@ public class LevelPair implements LevelSubstitution, Levels {
     this.myHLevel = hLevel;
   }
 
+  /**
+   * Returns a pair of the given levels.
+   * If the levels are shared instances of {@link #STD}, {@link #PROP}, or {@link #SET0}, then the corresponding constant is returned.
+   */
+  public static LevelPair make(Level pLevel, Level hLevel) {
+    if (pLevel == STD.myPLevel && hLevel == STD.myHLevel) return STD;
+    if (pLevel == SET0.myPLevel) {
+      if (hLevel == SET0.myHLevel) return SET0;
+      if (hLevel == PROP.myHLevel) return PROP;
+    }
+    return new LevelPair(pLevel, hLevel);
+  }
+
   @Override
   public boolean isEmpty() {
     return myPLevel.isVarOnly() && myPLevel.getVar() == LevelVariable.PVAR && myHLevel.isVarOnly() && myHLevel.getVar() == LevelVariable.HVAR;
@@ -63,7 +76,10 @@ public class LevelPair implements LevelSubstitution, Levels {
 
   @Override
   public LevelPair subst(LevelSubstitution substitution) {
-    return isClosed() ? this : new LevelPair(myPLevel.subst(substitution), myHLevel.subst(substitution));
+    if (isClosed()) return this;
+    Level pLevel = myPLevel.subst(substitution);
+    Level hLevel = myHLevel.subst(substitution);
+    return pLevel == myPLevel && hLevel == myHLevel ? this : make(pLevel, hLevel);
   }
 
   @Override
@@ -77,7 +93,7 @@ public class LevelPair implements LevelSubstitution, Levels {
   }
 
   public Sort toSort() {
-    return myHLevel.isProp() ? Sort.PROP : new Sort(myPLevel, myHLevel);
+    return myHLevel.isProp() ? Sort.PROP : Sort.make(myPLevel, myHLevel);
   }
 
   public static LevelPair generateInferVars(Equations equations, boolean isUniverseLike, Concrete.SourceNode sourceNode) {
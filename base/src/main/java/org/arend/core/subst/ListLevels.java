@@ -40,11 +40,19 @@ public class ListLevels implements Levels {
 
   @Override
   public Levels subst(LevelSubstitution substitution) {
-    List<Level> result = new ArrayList<>(myLevels.size());
-    for (Level level : myLevels) {
-      result.add(level.subst(substitution));
+    List<Level> result = null;
+    for (int i = 0; i < myLevels.size(); i++) {
+      Level level = myLevels.get(i);
+      Level newLevel = level.subst(substitution);
+      if (result == null && newLevel != level) {
+        result = new ArrayList<>(myLevels.size());
+        result.addAll(myLevels.subList(0, i));
+      }
+      if (result != null) {
+        result.add(newLevel);
+      }
     }
-    return new ListLevels(result);
+    return result == null ? this : new ListLevels(result);
   }
 
   @Override
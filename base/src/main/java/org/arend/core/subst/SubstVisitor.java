@@ -15,6 +15,7 @@ import org.arend.core.expr.let.HaveClause;
 import org.arend.core.expr.let.LetClause;
 import org.arend.core.expr.visitor.ExpressionTransformer;
 import org.arend.core.pattern.Pattern;
+import org.arend.core.sort.Sort;
 import org.arend.ext.core.level.LevelSubstitution;
 
 import java.util.*;
@@ -23,6 +24,7 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
   private final ExprSubstitution myExprSubstitution;
   private final LevelSubstitution myLevelSubstitution;
   private final boolean myClearInferenceVariables;
+  private final boolean myShareInterned;
 
   public static class SubstException extends RuntimeException {}
 
@@ -34,6 +36,8 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
     myExprSubstitution = exprSubstitution;
     myLevelSubstitution = levelSubstitution;
     myClearInferenceVariables = clearInferenceVariables;
+    // Visitors with empty substitutions are used to copy expressions and in subclasses that transform them in other ways, so they visit every node
+    myShareInterned = !exprSubstitution.isEmpty() || !levelSubstitution.isEmpty();
   }
 
   public ExprSubstitution getExprSubstitution() {
@@ -48,14 +52,38 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
     return myExprSubstitution.isEmpty() && myLevelSubstitution.isEmpty();
   }
 
+  /**
+   * Interned expressions do not contain bindings, so they are affected only by the level substitution.
+   * Other expressions are unaffected if their {@link Expression#getFreeVariablesMask} is disjoint from the substituted bindings.
+   * Nodes that are not summarized are traversed, but they are reused if their children are not changed by the substitution.
+   */
+  private boolean isUnaffected(Expression expr) {
+    if (!myShareInterned) {
+      return false;
+    }
+    if (expr.isClosedInterned()) {
+      return true;
+    }
+    int mask = myLevelSubstitution.isEmpty() ? myExprSubstitution.getKeysMask() : myExprSubstitution.getKeysMask() | Expression.LEVELS_MASK;
+    return ((expr.isInterned() ? Expression.LEVELS_MASK : expr.getFreeVariablesMask()) & mask) == 0;
+  }
+
   @Override
   public Expression visitApp(AppExpression expr, Void params) {
-    return AppExpression.make(expr.getFunction().accept(this, null), expr.getArgument().accept(this, null), expr.isExplicit());
+    if (isUnaffected(expr)) {
+      return expr;
+    }
+    Expression function = expr.getFunction().accept(this, null);
+    Expression argument = expr.getArgument().accept(this, null);
+    return function == expr.getFunction() && argument == expr.getArgument() ? expr : AppExpression.make(function, argument, expr.isExplicit());
   }
 
   @Override
   public Expression visitDefCall(DefCallExpression expr, Void params) {
     assert expr instanceof LeveledDefCallExpression;
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     List<Expression> args = new ArrayList<>(expr.getDefCallArguments().size());
     for (Expression arg : expr.getDefCallArguments()) {
       args.add(arg.accept(this, null));
@@ -70,6 +98,9 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
 
   @Override
   public Expression visitConCall(ConCallExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     if (expr.getDefCallArguments().isEmpty()) {
       List<Expression> dataTypeArgs = new ArrayList<>(expr.getDataTypeArguments().size());
       for (Expression parameter : expr.getDataTypeArguments()) {
@@ -99,7 +130,9 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
 
   @Override
   public Expression visitFieldCall(FieldCallExpression expr, Void params) {
-    return FieldCallExpression.make(expr.getDefinition(), expr.getArgument().accept(this, null));
+    Expression argument = expr.getArgument().accept(this, null);
+    // make may unfold references that were not unfolded when expr was created
+    return argument == expr.getArgument() && !(argument instanceof ReferenceExpression) ? expr : FieldCallExpression.make(expr.getDefinition(), argument);
   }
 
   @Override
@@ -202,7 +235,11 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
 
   @Override
   public Expression visitUniverse(UniverseExpression expr, Void params) {
-    return myLevelSubstitution.isEmpty() ? expr : new UniverseExpression(expr.getSort().subst(myLevelSubstitution));
+    if (myLevelSubstitution.isEmpty()) {
+      return expr;
+    }
+    Sort sort = expr.getSort().subst(myLevelSubstitution);
+    return sort == expr.getSort() ? expr : new UniverseExpression(sort);
   }
 
   @Override
@@ -225,7 +262,11 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
 
   @Override
   public Expression visitProj(ProjExpression expr, Void params) {
-    return ProjExpression.make(expr.getExpression().accept(this, null), expr.getField(), expr.isBoxed());
+    if (isUnaffected(expr)) {
+      return expr;
+    }
+    Expression argument = expr.getExpression().accept(this, null);
+    return argument == expr.getExpression() ? expr : ProjExpression.make(argument, expr.getField(), expr.isBoxed());
   }
 
   @Override
@@ -2,15 +2,17 @@ package org.arend.library;
 
 import org.arend.ext.ArendExtension;
 import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.module.ModulePath;
 import org.arend.ext.typechecking.DefinitionListener;
 import org.arend.extImpl.DefinitionRequester;
 import org.arend.library.classLoader.MultiClassLoader;
 import org.arend.library.error.LibraryError;
 import org.arend.library.resolver.LibraryResolver;
-import org.arend.module.scopeprovider.CachingModuleScopeProvider;
 import org.arend.module.scopeprovider.ModuleScopeProvider;
+import org.arend.naming.scope.CachingScope;
 import org.arend.naming.scope.Scope;
 import org.arend.prelude.Prelude;
+import org.arend.term.group.Group;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.arend.util.Range;
@@ -19,6 +21,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -37,6 +40,10 @@ public class LibraryManager {
   private MultiClassLoader<Library> myInternalClassLoader = new MultiClassLoader<>(myExternalClassLoader);
   private final DefinitionRequester myDefinitionRequester;
   private final DefinitionListener myDefinitionListener;
+  private int myNumberOfThreads = 1;
+  private final Map<Library, Map<ModulePath, ModuleScope>> myModuleScopes = new ConcurrentHashMap<>();
+
+  private record ModuleScope(Group group, Scope scope) {}
 
   /**
    * Constructs new {@code LibraryManager}.
@@ -66,27 +73,56 @@ public class LibraryManager {
    */
   public @NotNull ModuleScopeProvider getAvailableModuleScopeProvider(Library library) {
     Collection<? extends LibraryDependency> dependencies = library.getDependencies();
-    ModuleScopeProvider libraryModuleScopeProvider = library.getModuleScopeProvider();
-    return new CachingModuleScopeProvider(modulePath -> {
+    return modulePath -> {
       if (modulePath.equals(Prelude.MODULE_PATH)) {
         Library lib = getRegisteredLibrary(Prelude.LIBRARY_NAME);
-        return lib == null ? null : lib.getModuleScopeProvider().forModule(modulePath);
+        return lib == null ? null : getModuleScope(lib, modulePath);
       }
-      Scope scope = libraryModuleScopeProvider.forModule(modulePath);
+      Scope scope = getModuleScope(library, modulePath);
       if (scope != null) {
         return scope;
       }
       for (LibraryDependency dependency : dependencies) {
         Library lib = getRegisteredLibrary(dependency.name);
         if (lib != null) {
-          scope = lib.getModuleScopeProvider().forModule(modulePath);
+          scope = getModuleScope(lib, modulePath);
           if (scope != null) {
             return scope;
           }
         }
       }
       return null;
-    });
+    };
+  }
+
+  /**
+   * Gets the scope of a module exported by a library.
+   * The scope is computed once and shared by all modules that import it.
+   * It is recomputed if the group of the module is replaced and dropped when the library is unloaded.
+   * This method may be invoked concurrently.
+   *
+   * @param library     the library containing the module.
+   * @param modulePath  the path of the module.
+   *
+   * @return the scope of the module or null if the library does not contain it.
+   */
+  public @Nullable Scope getModuleScope(Library library, ModulePath modulePath) {
+    Group group = library.getModuleGroup(modulePath, false);
+    Map<ModulePath, ModuleScope> scopes = myModuleScopes.computeIfAbsent(library, k -> new ConcurrentHashMap<>());
+    ModuleScope moduleScope = group == null ? null : scopes.get(modulePath);
+    if (moduleScope != null && moduleScope.group == group) {
+      return moduleScope.scope;
+    }
+
+    Scope scope = library.getModuleScopeProvider().forModule(modulePath);
+    if (scope == null) {
+      return null;
+    }
+    scope = CachingScope.make(scope);
+    if (group != null) {
+      scopes.put(modulePath, new ModuleScope(group, scope));
+    }
+    return scope;
   }
 
   public InstanceProviderSet getInstanceProviderSet() {
@@ -109,6 +145,17 @@ public class LibraryManager {
     return myDefinitionRequester;
   }
 
+  /**
+   * @return the number of threads used to preload sources of a library.
+   */
+  public int getNumberOfThreads() {
+    return myNumberOfThreads;
+  }
+
+  public void setNumberOfThreads(int numberOfThreads) {
+    myNumberOfThreads = numberOfThreads;
+  }
+
   public DefinitionListener getDefinitionListener() {
     return myDefinitionListener;
   }
@@ -241,6 +288,16 @@ public class LibraryManager {
 
   }
 
+  /**
+   * Invoked after sources of a library are loaded.
+   *
+   * @param library     the loaded library.
+   * @param times       the time in milliseconds spent in each phase of the loading process.
+   */
+  protected void afterSourcesLoading(Library library, Map<String, Long> times) {
+
+  }
+
   /**
    * Invoked after a library is loaded.
    *
@@ -290,6 +347,7 @@ public class LibraryManager {
       return;
     }
 
+    myModuleScopes.remove(library);
     Set<Library> dependencies = library.unload() ? myReverseDependencies.remove(library) : myReverseDependencies.get(library);
     if (dependencies != null) {
       for (Library dependency : dependencies) {
@@ -307,6 +365,7 @@ public class LibraryManager {
       myLibraryErrorReporter.report(LibraryError.unloadDuringLoading(myLoadingLibraries.stream().map(Library::getName)));
     }
 
+    myModuleScopes.clear();
     myReverseDependencies.keySet().removeIf(Library::unload);
   }
 
@@ -319,6 +378,7 @@ public class LibraryManager {
     }
 
     for (Library library : libraries) {
+      myModuleScopes.remove(library);
       library.unload();
     }
 
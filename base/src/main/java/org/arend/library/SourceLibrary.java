@@ -23,7 +23,10 @@ import org.arend.source.PersistableBinarySource;
 import org.arend.source.Source;
 import org.arend.source.SourceLoader;
 import org.arend.source.error.PersistingError;
+import org.arend.term.NamespaceCommand;
 import org.arend.term.group.ChildGroup;
+import org.arend.term.group.Group;
+import org.arend.term.group.Statement;
 import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.typechecking.order.dependency.DummyDependencyListener;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
@@ -40,6 +43,9 @@ public abstract class SourceLibrary extends BaseLibrary {
   public enum Flag { RECOMPILE }
   private final EnumSet<Flag> myFlags = EnumSet.noneOf(Flag.class);
   private final SimpleModuleScopeProvider myAdditionalModuleScopeProvider = new SimpleModuleScopeProvider();
+  private final Map<ModulePath, byte[]> mySourceHashes = new HashMap<>();
+  private final Map<ModulePath, List<ModulePath>> myStoredDependencies = new HashMap<>();
+  private final List<SourceLibrary> myDependencyLibraries = new ArrayList<>();
   private ArendExtension myExtension;
 
   /**
@@ -146,6 +152,93 @@ public abstract class SourceLibrary extends BaseLibrary {
 
   }
 
+  /**
+   * Invoked by a raw source after it computes a hash of its contents.
+   *
+   * @param modulePath  the path to the loaded module.
+   * @param hash        the hash of the raw source.
+   */
+  public void sourceHashComputed(ModulePath modulePath, byte[] hash) {
+    mySourceHashes.put(modulePath, hash);
+  }
+
+  /**
+   * Gets the hash of the raw source of a module which was computed when the module was loaded.
+   *
+   * @param modulePath  the path to a module.
+   * @return the hash of the raw source or null if it is not known.
+   */
+  public byte @Nullable [] getSourceHash(ModulePath modulePath) {
+    return mySourceHashes.get(modulePath);
+  }
+
+  /**
+   * Invoked by a binary source after it is loaded if this library does not have raw sources.
+   * The hash of the source and the dependencies stored in the binary module are used instead of the ones computed from the raw source.
+   *
+   * @param modulePath    the path to the loaded module.
+   * @param hash          the hash of the source from which the module was compiled.
+   * @param dependencies  the modules on which the loaded module depends.
+   */
+  public void binaryHashesLoaded(ModulePath modulePath, byte[] hash, List<ModulePath> dependencies) {
+    mySourceHashes.putIfAbsent(modulePath, hash);
+    myStoredDependencies.put(modulePath, dependencies);
+  }
+
+  /**
+   * Gets modules on which a module depends directly.
+   * These are the modules imported by the module or, if it was loaded from a binary source without a raw counterpart,
+   * the dependencies stored in the binary module.
+   *
+   * @param modulePath  the path to a module.
+   * @return the list of dependencies of the module.
+   */
+  public @NotNull List<ModulePath> getModuleDependencies(ModulePath modulePath) {
+    List<ModulePath> dependencies = myStoredDependencies.get(modulePath);
+    if (dependencies != null) {
+      return dependencies;
+    }
+
+    Group group = getModuleGroup(modulePath, false);
+    if (group == null) {
+      return Collections.emptyList();
+    }
+    dependencies = new ArrayList<>();
+    for (Statement statement : group.getStatements()) {
+      NamespaceCommand command = statement.getNamespaceCommand();
+      if (command != null && command.getKind() == NamespaceCommand.Kind.IMPORT) {
+        dependencies.add(new ModulePath(command.getPath()));
+      }
+    }
+    return dependencies;
+  }
+
+  /**
+   * Finds a library that contains a module among this library and libraries on which it depends, directly or indirectly.
+   *
+   * @param modulePath  the path to a module.
+   * @return the library containing the module or null if it is not found.
+   */
+  public @Nullable SourceLibrary findModuleLibrary(ModulePath modulePath) {
+    return findModuleLibrary(modulePath, new HashSet<>());
+  }
+
+  private SourceLibrary findModuleLibrary(ModulePath modulePath, Set<SourceLibrary> visited) {
+    if (!visited.add(this)) {
+      return null;
+    }
+    if (getModuleGroup(modulePath, false) != null) {
+      return this;
+    }
+    for (SourceLibrary library : myDependencyLibraries) {
+      SourceLibrary result = library.findModuleLibrary(modulePath, visited);
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
+
   /**
    * Invoked by a binary source after it is loaded.
    *
@@ -220,6 +313,7 @@ public abstract class SourceLibrary extends BaseLibrary {
     }
 
     Map<String, ArendExtension> dependenciesExtensions = new LinkedHashMap<>();
+    myDependencyLibraries.clear();
     for (LibraryDependency dependency : header.dependencies) {
       Library loadedDependency = libraryManager.loadDependency(this, dependency.name, typechecking);
       if (loadedDependency == null && !mustBeLoaded()) {
@@ -229,6 +323,9 @@ public abstract class SourceLibrary extends BaseLibrary {
 
       if (loadedDependency != null) {
         libraryManager.registerDependency(this, loadedDependency);
+        if (loadedDependency instanceof SourceLibrary) {
+          myDependencyLibraries.add((SourceLibrary) loadedDependency);
+        }
         dependenciesExtensions.put(dependency.name, loadedDependency.getArendExtension());
       }
     }
@@ -277,8 +374,8 @@ public abstract class SourceLibrary extends BaseLibrary {
     loadGeneratedModules();
 
     Set<ModulePath> loaded = Collections.emptySet();
+    SourceLoader sourceLoader = new SourceLoader(this, libraryManager);
     try {
-      SourceLoader sourceLoader = new SourceLoader(this, libraryManager);
       if (hasRawSources()) {
         Set<ModulePath> loadedRaw = sourceLoader.loadRawSources(header.modules, false);
         if (loadedRaw.size() < header.modules.size()) {
@@ -302,6 +399,7 @@ public abstract class SourceLibrary extends BaseLibrary {
       libraryManager.afterLibraryLoading(this, -1, header.modules.size());
       throw e;
     }
+    libraryManager.afterSourcesLoading(this, sourceLoader.getTimes());
 
     myExtension.setDefinitionProvider(DefinitionProviderImpl.INSTANCE);
     ArendDependencyProviderImpl provider = new ArendDependencyProviderImpl(typechecking, libraryManager.getAvailableModuleScopeProvider(this), libraryManager.getDefinitionRequester(), this);
@@ -328,6 +426,9 @@ public abstract class SourceLibrary extends BaseLibrary {
   @Override
   public boolean unload() {
     myAdditionalModuleScopeProvider.clear();
+    mySourceHashes.clear();
+    myStoredDependencies.clear();
+    myDependencyLibraries.clear();
     return super.unload();
   }
 
@@ -0,0 +1,46 @@
+package org.arend.module.serialization;
+
+import org.arend.core.definition.Definition;
+import org.arend.naming.reference.TCReferable;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Delegates to another provider and collects the returned indices between {@link #startCollecting} and {@link #stopCollecting}.
+ */
+class CollectingCallTargetIndexProvider implements CallTargetIndexProvider {
+  private final CallTargetIndexProvider myProvider;
+  private Set<Integer> myIndices;
+
+  CollectingCallTargetIndexProvider(CallTargetIndexProvider provider) {
+    myProvider = provider;
+  }
+
+  void startCollecting() {
+    myIndices = new LinkedHashSet<>();
+  }
+
+  Set<Integer> stopCollecting() {
+    Set<Integer> result = myIndices;
+    myIndices = null;
+    return result;
+  }
+
+  private int collect(int index) {
+    if (myIndices != null) {
+      myIndices.add(index);
+    }
+    return index;
+  }
+
+  @Override
+  public int getDefIndex(Definition definition) {
+    return collect(myProvider.getDefIndex(definition));
+  }
+
+  @Override
+  public int getDefIndex(TCReferable definition) {
+    return collect(myProvider.getDefIndex(definition));
+  }
+}
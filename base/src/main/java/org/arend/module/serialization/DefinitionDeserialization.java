@@ -29,16 +29,39 @@ public class DefinitionDeserialization implements ArendDeserializer {
   private final DependencyListener myDependencyListener;
   private final SerializableKeyRegistryImpl myKeyRegistry;
   private final DefinitionListener myDefinitionListener;
+  private final boolean myLazyBodies;
+  private final LevelTable myLevelTable = new LevelTable();
+  private final List<Callback> myDeferredCallbacks;
 
-  public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener) {
+  private interface Callback {
+    void run() throws DeserializationException;
+  }
+
+  /**
+   * @param lazyBodies      if true, bodies of functions are deserialized when they are accessed for the first time.
+   *                        Call targets of a body are resolved at that moment, so this should be used only for modules that do not change.
+   * @param deferCallbacks  if true, deserializers of user data and the definition listener are not invoked during deserialization.
+   *                        They are invoked by {@link #runDeferredCallbacks} instead.
+   */
+  public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener, boolean lazyBodies, boolean deferCallbacks) {
     myCallTargetProvider = callTargetProvider;
     myDependencyListener = dependencyListener;
     myKeyRegistry = keyRegistry;
     myDefinitionListener = definitionListener;
+    myLazyBodies = lazyBodies;
+    myDeferredCallbacks = deferCallbacks ? new ArrayList<>() : null;
+  }
+
+  public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener, boolean lazyBodies) {
+    this(callTargetProvider, dependencyListener, keyRegistry, definitionListener, lazyBodies, false);
+  }
+
+  public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener) {
+    this(callTargetProvider, dependencyListener, keyRegistry, definitionListener, false);
   }
 
   public void fillInDefinition(DefinitionProtos.Definition defProto, Definition def) throws DeserializationException {
-    final ExpressionDeserialization defDeserializer = new ExpressionDeserialization(myCallTargetProvider, myDependencyListener, def);
+    final ExpressionDeserialization defDeserializer = new ExpressionDeserialization(myCallTargetProvider, myDependencyListener, def, myLevelTable);
 
     switch (defProto.getDefinitionDataCase()) {
       case CLASS -> fillInClassDefinition(defDeserializer, defProto.getClass_(), (ClassDefinition) def);
@@ -79,20 +102,47 @@ public class DefinitionDeserialization implements ArendDeserializer {
     loadKeys(defProto.getUserDataMap(), def);
 
     if (myDefinitionListener != null) {
-      myDefinitionListener.loaded(def);
+      runCallback(() -> myDefinitionListener.loaded(def));
+    }
+  }
+
+  /**
+   * Invokes callbacks deferred during deserialization in the order in which they were deferred.
+   */
+  public void runDeferredCallbacks() throws DeserializationException {
+    if (myDeferredCallbacks == null) {
+      return;
+    }
+
+    try {
+      for (Callback callback : myDeferredCallbacks) {
+        callback.run();
+      }
+    } finally {
+      myDeferredCallbacks.clear();
+    }
+  }
+
+  private void runCallback(Callback callback) throws DeserializationException {
+    if (myDeferredCallbacks != null) {
+      myDeferredCallbacks.add(callback);
+    } else {
+      callback.run();
     }
   }
 
   private void loadKeys(Map<String, ByteString> proto, Definition def) throws DeserializationException {
-    if (myKeyRegistry != null) {
-      for (Map.Entry<String, ByteString> entry : proto.entrySet()) {
-        //noinspection unchecked
-        SerializableKey<Object> key = (SerializableKey<Object>) myKeyRegistry.getKey(entry.getKey());
-        if (key == null) {
-          throw new DeserializationException("Key '" + entry.getKey() + "' is not registered");
+    if (myKeyRegistry != null && !proto.isEmpty()) {
+      runCallback(() -> {
+        for (Map.Entry<String, ByteString> entry : proto.entrySet()) {
+          //noinspection unchecked
+          SerializableKey<Object> key = (SerializableKey<Object>) myKeyRegistry.getKey(entry.getKey());
+          if (key == null) {
+            throw new DeserializationException("Key '" + entry.getKey() + "' is not registered");
+          }
+          def.putUserData(key, key.deserialize(this, entry.getValue().toByteArray()));
         }
-        def.putUserData(key, key.deserialize(this, entry.getValue().toByteArray()));
-      }
+      });
     }
   }
 
@@ -467,7 +517,30 @@ public class DefinitionDeserialization implements ArendDeserializer {
     functionDef.setKind(kind);
     functionDef.setVisibleParameter(functionProto.getVisibleParameter());
     if (functionProto.hasBody()) {
-      functionDef.setBody(readBody(defDeserializer, functionProto.getBody(), DependentLink.Helper.size(functionDef.getParameters())));
+      DefinitionProtos.Body bodyProto = functionProto.getBody();
+      int numberOfParameters = DependentLink.Helper.size(functionDef.getParameters());
+      // The body is the last thing read by defDeserializer unless functionDef is a DConstructor, so the bindings it refers to are already registered
+      if (myLazyBodies && !(functionDef instanceof DConstructor)) {
+        // Dependencies are recorded and references are checked now, so that errors in them are reported when the module is loaded
+        for (Integer index : functionProto.getBodyRefList()) {
+          TCReferable ref = myCallTargetProvider.getRef(index);
+          if (ref instanceof TCDefReferable) {
+            myCallTargetProvider.getCallTarget(index);
+            myDependencyListener.dependsOn(functionDef.getRef(), ref.getTypecheckable());
+          }
+        }
+        functionDef.setBodyLoader(() -> {
+          try {
+            return readBody(defDeserializer, bodyProto, numberOfParameters);
+          } catch (DeserializationException e) {
+            // The binary file is corrupted; the function is treated as if it did not have a body
+            functionDef.setStatus(Definition.TypeCheckingStatus.HAS_ERRORS);
+            return null;
+          }
+        });
+      } else {
+        functionDef.setBody(readBody(defDeserializer, bodyProto, numberOfParameters));
+      }
     }
     // setTypeClassReference(functionDef.getReferable(), functionDef.getParameters(), functionDef.getResultType());
   }
@@ -31,12 +31,18 @@ import org.jetbrains.annotations.NotNull;
 import java.util.*;
 
 public class DefinitionSerialization implements ArendSerializer {
-  private final CallTargetIndexProvider myCallTargetIndexProvider;
+  private final CollectingCallTargetIndexProvider myCallTargetIndexProvider;
   private final DependencyListener myDependencyListener;
+  private final boolean myInterfaceOnly;
 
-  public DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider, DependencyListener dependencyListener) {
-    myCallTargetIndexProvider = callTargetIndexProvider;
+  DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider, DependencyListener dependencyListener, boolean interfaceOnly) {
+    myCallTargetIndexProvider = new CollectingCallTargetIndexProvider(callTargetIndexProvider);
     myDependencyListener = dependencyListener;
+    myInterfaceOnly = interfaceOnly;
+  }
+
+  public DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider, DependencyListener dependencyListener) {
+    this(callTargetIndexProvider, dependencyListener, false);
   }
 
   DefinitionProtos.Definition writeDefinition(Definition definition) {
@@ -408,8 +414,11 @@ public class DefinitionSerialization implements ArendSerializer {
     };
     builder.setKind(kind);
     builder.setVisibleParameter(definition.getVisibleParameter());
-    if (definition.getReallyActualBody() != null) {
+    if ((!myInterfaceOnly || InterfaceFingerprint.isBodyObservable(definition)) && definition.getReallyActualBody() != null) {
+      // Definitions referred to by the body are stored separately, so that they are known without reading the body
+      myCallTargetIndexProvider.startCollecting();
       builder.setBody(writeBody(defSerializer, definition.getReallyActualBody()));
+      builder.addAllBodyRef(myCallTargetIndexProvider.stopCollecting());
     }
 
     return builder.build();
@@ -35,11 +35,13 @@ class ExpressionDeserialization {
 
   private final DependencyListener myDependencyListener;
   private final Definition myDefinition;
+  private final LevelTable myLevelTable;
 
-  ExpressionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, Definition definition) {
+  ExpressionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, Definition definition, LevelTable levelTable) {
     myCallTargetProvider = callTargetProvider;
     myDependencyListener = dependencyListener;
     myDefinition = definition;
+    myLevelTable = levelTable;
   }
 
   // Bindings
@@ -80,17 +82,17 @@ class ExpressionDeserialization {
     if (var == null && constant == Level.INFINITY.getConstant()) {
       return Level.INFINITY;
     } else {
-      return new Level(var, constant, proto.getMaxConstant());
+      return myLevelTable.get(var, constant, proto.getMaxConstant());
     }
   }
 
   Sort readSort(LevelProtos.Sort proto) {
-    return new Sort(readLevel(proto.getPLevel(), LevelVariable.PVAR), readLevel(proto.getHLevel(), LevelVariable.HVAR));
+    return Sort.make(readLevel(proto.getPLevel(), LevelVariable.PVAR), readLevel(proto.getHLevel(), LevelVariable.HVAR));
   }
 
   Levels readLevels(LevelProtos.Levels proto) {
     if (proto.getIsStd()) {
-      return new LevelPair(readLevel(proto.getPLevel(0), LevelVariable.PVAR), readLevel(proto.getHLevel(0), LevelVariable.HVAR));
+      return LevelPair.make(readLevel(proto.getPLevel(0), LevelVariable.PVAR), readLevel(proto.getHLevel(0), LevelVariable.HVAR));
     } else {
       List<Level> levels = new ArrayList<>();
       for (LevelProtos.Level level : proto.getPLevelList()) {
@@ -351,7 +353,7 @@ class ExpressionDeserialization {
   private Expression readFunCall(ExpressionProtos.Expression.FunCall proto) throws DeserializationException {
     FunctionDefinition functionDefinition = myCallTargetProvider.getCallTarget(proto.getFunRef(), FunctionDefinition.class);
     myDependencyListener.dependsOn(myDefinition.getRef(), functionDefinition.getReferable());
-    return FunCallExpression.make(functionDefinition, readLevels(proto.getLevels()), readExprList(proto.getArgumentList()));
+    return ExpressionInterner.INSTANCE.intern(FunCallExpression.make(functionDefinition, readLevels(proto.getLevels()), readExprList(proto.getArgumentList())));
   }
 
   private Expression readConCalls(ExpressionProtos.Expression.ConCalls protos) throws DeserializationException {
@@ -360,15 +362,20 @@ class ExpressionDeserialization {
       throw new DeserializationException("Empty constructors list");
     }
 
-    ConCallExpression result = readConCall(conCalls.get(0), conCalls.size() == 1);
-    ConCallExpression expr = result;
+    List<ConCallExpression> chain = new ArrayList<>(conCalls.size());
+    chain.add(readConCall(conCalls.get(0), conCalls.size() == 1));
     for (int i = 1; i < conCalls.size(); i++) {
-      ConCallExpression arg = readConCall(conCalls.get(i), i == conCalls.size() - 1);
-      expr.getDefCallArguments().set(conCalls.get(i - 1).getRecursiveParam(), arg);
-      expr.fixBoxes();
-      expr = arg;
+      chain.add(readConCall(conCalls.get(i), i == conCalls.size() - 1));
     }
 
+    // Arguments must be interned before the expressions that contain them
+    Expression result = ExpressionInterner.INSTANCE.intern(chain.get(chain.size() - 1));
+    for (int i = chain.size() - 2; i >= 0; i--) {
+      ConCallExpression expr = chain.get(i);
+      expr.getDefCallArguments().set(conCalls.get(i).getRecursiveParam(), result);
+      expr.fixBoxes();
+      result = ExpressionInterner.INSTANCE.intern(expr);
+    }
     return result;
   }
 
@@ -405,7 +412,7 @@ class ExpressionDeserialization {
   private DataCallExpression readDataCall(ExpressionProtos.Expression.DataCall proto) throws DeserializationException {
     DataDefinition dataDefinition = myCallTargetProvider.getCallTarget(proto.getDataRef(), DataDefinition.class);
     myDependencyListener.dependsOn(myDefinition.getRef(), dataDefinition.getReferable());
-    return DataCallExpression.make(dataDefinition, readLevels(proto.getLevels()), readExprList(proto.getArgumentList()));
+    return ExpressionInterner.INSTANCE.intern(DataCallExpression.make(dataDefinition, readLevels(proto.getLevels()), readExprList(proto.getArgumentList())));
   }
 
   private ClassCallExpression readClassCall(ExpressionProtos.Expression.ClassCall proto) throws DeserializationException {
@@ -414,7 +421,7 @@ class ExpressionDeserialization {
 
     Map<ClassField, Expression> fieldSet = new LinkedHashMap<>();
     LevelProtos.Sort sort = proto.getSort();
-    ClassCallExpression classCall = new ClassCallExpression(classDefinition, readLevels(proto.getLevels()), fieldSet, new Sort(readLevel(sort.getPLevel(), LevelVariable.PVAR, classDefinition), readLevel(sort.getHLevel(), LevelVariable.HVAR, classDefinition)), readUniverseKind(proto.getUniverseKind()));
+    ClassCallExpression classCall = new ClassCallExpression(classDefinition, readLevels(proto.getLevels()), fieldSet, Sort.make(readLevel(sort.getPLevel(), LevelVariable.PVAR, classDefinition), readLevel(sort.getHLevel(), LevelVariable.HVAR, classDefinition)), readUniverseKind(proto.getUniverseKind()));
     registerBinding(classCall.getThisBinding());
     for (ExpressionProtos.Expression.ClassCall.ImplEntry entry : proto.getFieldImplList()) {
       fieldSet.put(myCallTargetProvider.getCallTarget(entry.getField(), ClassField.class), readExpr(entry.getImpl()));
@@ -451,7 +458,7 @@ class ExpressionDeserialization {
   }
 
   private UniverseExpression readUniverse(ExpressionProtos.Expression.Universe proto) {
-    return new UniverseExpression(readSort(proto.getSort()));
+    return ExpressionInterner.INSTANCE.intern(new UniverseExpression(readSort(proto.getSort())));
   }
 
   private ErrorExpression readError(ExpressionProtos.Expression.Error proto) throws DeserializationException {
@@ -463,7 +470,7 @@ class ExpressionDeserialization {
   }
 
   private SigmaExpression readSigma(ExpressionProtos.Expression.Sigma proto) throws DeserializationException {
-    return new SigmaExpression(new Sort(readLevel(proto.getPLevel(), LevelVariable.PVAR), readLevel(proto.getHLevel(), LevelVariable.HVAR)), readParameters(proto.getParamList()));
+    return new SigmaExpression(Sort.make(readLevel(proto.getPLevel(), LevelVariable.PVAR), readLevel(proto.getHLevel(), LevelVariable.HVAR)), readParameters(proto.getParamList()));
   }
 
   private Expression readProj(ExpressionProtos.Expression.Proj proto) throws DeserializationException {
@@ -495,11 +502,11 @@ class ExpressionDeserialization {
   }
 
   private Expression readArray(ExpressionProtos.Expression.Array proto) throws DeserializationException {
-    return ArrayExpression.make(new LevelPair(readLevel(proto.getPLevel(), LevelVariable.PVAR), readLevel(proto.getHLevel(), LevelVariable.HVAR)), readExpr(proto.getElementsType()), readExprList(proto.getElementList()), proto.hasTail() ? readExpr(proto.getTail()) : null);
+    return ArrayExpression.make(LevelPair.make(readLevel(proto.getPLevel(), LevelVariable.PVAR), readLevel(proto.getHLevel(), LevelVariable.HVAR)), readExpr(proto.getElementsType()), readExprList(proto.getElementList()), proto.hasTail() ? readExpr(proto.getTail()) : null);
   }
 
   private Expression readPath(ExpressionProtos.Expression.Path proto) throws DeserializationException {
-    return new PathExpression(new LevelPair(readLevel(proto.getPLevel(), LevelVariable.PVAR), readLevel(proto.getHLevel(), LevelVariable.HVAR)), proto.hasArgumentType() ? readExpr(proto.getArgumentType()) : null, readExpr(proto.getArgument()));
+    return new PathExpression(LevelPair.make(readLevel(proto.getPLevel(), LevelVariable.PVAR), readLevel(proto.getHLevel(), LevelVariable.HVAR)), proto.hasArgumentType() ? readExpr(proto.getArgumentType()) : null, readExpr(proto.getArgument()));
   }
 
   private Expression readAt(ExpressionProtos.Expression.At proto) throws DeserializationException {
@@ -566,7 +573,7 @@ class ExpressionDeserialization {
   }
 
   private SmallIntegerExpression readSmallInteger(ExpressionProtos.Expression.SmallInteger proto) {
-    return new SmallIntegerExpression(proto.getValue());
+    return ExpressionInterner.INSTANCE.intern(new SmallIntegerExpression(proto.getValue()));
   }
 
   private BigIntegerExpression readBigInteger(ExpressionProtos.Expression.BigInteger proto) {
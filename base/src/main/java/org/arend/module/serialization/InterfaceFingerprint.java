@@ -0,0 +1,70 @@
+package org.arend.module.serialization;
+
+import com.google.protobuf.CodedOutputStream;
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.ext.core.definition.CoreFunctionDefinition;
+import org.arend.ext.module.LongName;
+import org.arend.module.ModuleLocation;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.reference.TCReferable;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The interface fingerprint of a definition is a hash of everything other definitions can observe:
+ * its header, its status, and its body unless the body cannot be unfolded.
+ * If the fingerprint of a definition did not change, definitions that depend on it do not need to be typechecked again.
+ */
+public final class InterfaceFingerprint {
+  private InterfaceFingerprint() {}
+
+  /**
+   * @return true if the body of {@code definition} can be observed by other definitions.
+   *         Bodies of lemmas and really hidden bodies cannot be observed.
+   */
+  public static boolean isBodyObservable(FunctionDefinition definition) {
+    return definition.getKind() != CoreFunctionDefinition.Kind.LEMMA && definition.getBodyHiddenStatus() != FunctionDefinition.HiddenStatus.REALLY_HIDDEN;
+  }
+
+  /**
+   * @return the fingerprint of {@code definition} or null if it cannot be computed.
+   */
+  public static byte @Nullable [] compute(Definition definition, DependencyListener dependencyListener) {
+    try {
+      SimpleCallTargetIndexProvider indexProvider = new SimpleCallTargetIndexProvider();
+      DefinitionProtos.Definition proto = new DefinitionSerialization(indexProvider, dependencyListener, true).writeDefinition(definition);
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+      output.useDeterministicSerialization();
+      proto.writeTo(output);
+      output.flush();
+
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(bytes.toByteArray());
+      for (Map.Entry<TCReferable, Integer> entry : indexProvider.getCallTargets()) {
+        digest.update(getFullName(entry.getKey()).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+      }
+      return digest.digest();
+    } catch (IOException | NoSuchAlgorithmException e) {
+      return null;
+    }
+  }
+
+  private static String getFullName(TCReferable referable) {
+    List<String> longName = new ArrayList<>();
+    ModuleLocation location = LocatedReferable.Helper.getLocation(referable, longName);
+    return location == null ? referable.getRefName() : location.getModulePath() + "." + new LongName(longName);
+  }
+}
@@ -0,0 +1,32 @@
+package org.arend.module.serialization;
+
+import org.arend.core.context.binding.LevelVariable;
+import org.arend.core.sort.Level;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares equal levels read from a single module.
+ * Levels are compared by the identity of their variables since level parameters of different definitions are different variables.
+ * The table is thread-safe since bodies of functions can be read lazily.
+ */
+class LevelTable {
+  private final Map<Key, Level> myLevels = new ConcurrentHashMap<>();
+
+  private record Key(LevelVariable var, int constant, int maxConstant) {
+    @Override
+    public boolean equals(Object obj) {
+      return this == obj || obj instanceof Key key && var == key.var && constant == key.constant && maxConstant == key.maxConstant;
+    }
+
+    @Override
+    public int hashCode() {
+      return (31 * System.identityHashCode(var) + constant) * 31 + maxConstant;
+    }
+  }
+
+  Level get(LevelVariable var, int constant, int maxConstant) {
+    return myLevels.computeIfAbsent(new Key(var, constant, maxConstant), key -> Level.make(var, constant, maxConstant));
+  }
+}
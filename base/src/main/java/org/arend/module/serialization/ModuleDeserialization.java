@@ -30,13 +30,37 @@ public class ModuleDeserialization {
   private final SerializableKeyRegistryImpl myKeyRegistry;
   private final DefinitionListener myDefinitionListener;
   private final boolean myPrelude;
+  private final boolean myLazyBodies;
+  private DefinitionDeserialization myDefinitionDeserialization;
 
-  public ModuleDeserialization(ModuleProtos.Module moduleProto, ReferableConverter referableConverter, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener, boolean isPrelude) {
+  private static volatile boolean ourLazyBodies = false;
+
+  /**
+   * @param lazyBodies  if true, bodies of functions are deserialized on the first access.
+   */
+  public ModuleDeserialization(ModuleProtos.Module moduleProto, ReferableConverter referableConverter, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener, boolean isPrelude, boolean lazyBodies) {
     myModuleProto = moduleProto;
     myReferableConverter = referableConverter;
     myKeyRegistry = keyRegistry;
     myDefinitionListener = definitionListener;
     myPrelude = isPrelude;
+    myLazyBodies = lazyBodies && !isPrelude;
+  }
+
+  public ModuleDeserialization(ModuleProtos.Module moduleProto, ReferableConverter referableConverter, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener, boolean isPrelude) {
+    this(moduleProto, referableConverter, keyRegistry, definitionListener, isPrelude, false);
+  }
+
+  /**
+   * Enables lazy deserialization of bodies in modules of libraries that cannot change, that is,
+   * external libraries and libraries without raw sources.
+   */
+  public static void setLazyBodies(boolean lazyBodies) {
+    ourLazyBodies = lazyBodies;
+  }
+
+  public static boolean isLazyBodies() {
+    return ourLazyBodies;
   }
 
   public ModuleProtos.Module getModuleProto() {
@@ -44,6 +68,15 @@ public class ModuleDeserialization {
   }
 
   public void readModule(ModuleScopeProvider moduleScopeProvider, DependencyListener dependencyListener) throws DeserializationException {
+    resolveCallTargets(moduleScopeProvider);
+    fillInDefinitions(dependencyListener);
+  }
+
+  /**
+   * Resolves references to definitions from other modules.
+   * This is the first part of {@link #readModule}.
+   */
+  public void resolveCallTargets(ModuleScopeProvider moduleScopeProvider) throws DeserializationException {
     if (myModuleProto.getVersion() != ModuleSerialization.VERSION) {
       throw new DeserializationException("Version mismatch:\nLanguage version: " + ModuleSerialization.VERSION + "\nLibrary binaries version: " + myModuleProto.getVersion());
     }
@@ -59,14 +92,43 @@ public class ModuleDeserialization {
         fillInCallTargetTree(null, callTargetTree, scope, module, EmptyScope.INSTANCE, null);
       }
     }
+  }
+
+  /**
+   * Deserializes definitions read by {@link #readGroup} or {@link #readDefinitions}.
+   * This is the second part of {@link #readModule}.
+   */
+  public void fillInDefinitions(DependencyListener dependencyListener) throws DeserializationException {
+    fillInDefinitions(dependencyListener, false);
+    myDefinitionDeserialization = null;
+  }
 
-    DefinitionDeserialization defDeserialization = new DefinitionDeserialization(myCallTargetProvider, dependencyListener, myKeyRegistry, myDefinitionListener);
+  /**
+   * Deserializes definitions read by {@link #readGroup} or {@link #readDefinitions}.
+   * If {@code deferCallbacks} is true, deserializers of user data and the definition listener are not invoked
+   * until {@link #runDeferredCallbacks} is invoked.
+   * In this case, this method modifies only definitions of this module and does not run code of language extensions,
+   * so it can be invoked concurrently for different modules if definitions of modules this one depends on are already filled in.
+   */
+  public void fillInDefinitions(DependencyListener dependencyListener, boolean deferCallbacks) throws DeserializationException {
+    myDefinitionDeserialization = new DefinitionDeserialization(myCallTargetProvider, dependencyListener, myKeyRegistry, myDefinitionListener, myLazyBodies, deferCallbacks);
     for (Pair<DefinitionProtos.Definition, Definition> pair : myDefinitions) {
-      defDeserialization.fillInDefinition(pair.proj1, pair.proj2);
+      myDefinitionDeserialization.fillInDefinition(pair.proj1, pair.proj2);
     }
     myDefinitions.clear();
   }
 
+  /**
+   * Invokes callbacks deferred by {@link #fillInDefinitions(DependencyListener, boolean)}.
+   * It should be invoked in the thread that loads the module.
+   */
+  public void runDeferredCallbacks() throws DeserializationException {
+    if (myDefinitionDeserialization != null) {
+      myDefinitionDeserialization.runDeferredCallbacks();
+      myDefinitionDeserialization = null;
+    }
+  }
+
   private TCReferable convertReferable(Referable ref) {
     return myReferableConverter == null
       ? (ref instanceof TCReferable ? (TCReferable) ref : null)
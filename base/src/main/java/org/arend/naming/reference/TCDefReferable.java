@@ -34,7 +34,7 @@ public interface TCDefReferable extends TCReferable {
 
   default void dropAndCancelTypechecking() {
     synchronized (getUpdateLock()) {
-      ComputationRunner.getCancellationIndicator().cancel();
+      ComputationRunner.cancelComputations(this);
       setTypechecked(null);
     }
   }
@@ -6,12 +6,14 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 public class CachingScope implements Scope {
   private final EnumMap<Referable.RefKind, Map<String, Referable>> myElements = new EnumMap<>(Referable.RefKind.class);
-  private final Map<String, Scope> myNamespaces = new HashMap<>();
-  private final Map<String, Scope> myOnlyInternalNamespaces = new HashMap<>();
+  // Namespaces are computed lazily; the maps are concurrent since module scopes are shared between modules
+  private final Map<String, Scope> myNamespaces = new ConcurrentHashMap<>();
+  private final Map<String, Scope> myOnlyInternalNamespaces = new ConcurrentHashMap<>();
   private final Scope myScope;
   private final static Scope EMPTY_SCOPE = new Scope() {};
 
@@ -78,7 +80,10 @@ public class CachingScope implements Scope {
     if (namespace == null) {
       namespace = myScope.resolveNamespace(name, onlyInternal);
       namespace = namespace == null ? EMPTY_SCOPE : CachingScope.make(namespace);
-      namespaces.put(name, namespace);
+      Scope oldNamespace = namespaces.putIfAbsent(name, namespace);
+      if (oldNamespace != null) {
+        namespace = oldNamespace;
+      }
     }
 
     return namespace == EMPTY_SCOPE ? null : namespace;
@@ -0,0 +1,152 @@
+package org.arend.naming.scope;
+
+import org.arend.naming.reference.*;
+import org.arend.term.abs.Abstract;
+import org.arend.term.group.Group;
+import org.arend.term.group.Statement;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Names defined directly in a group, indexed for {@link LexicalScope}.
+ * Each table keeps the first definition of a name in the order in which {@link LexicalScope} would find it.
+ * The table does not reflect changes made to the group after it was built.
+ */
+public class GroupSymbolTable {
+  // A definition of a name in the statement with the given index; kind orders definitions in the same statement
+  private record Entry(int statement, int kind, Object value) {}
+
+  private static final int SUBGROUP_KIND = 0;
+  private static final int PLEVEL_KIND = 1;
+  private static final int HLEVEL_KIND = 2;
+
+  private final Map<String, Entry> myStatementReferables = new HashMap<>();
+  private final Map<String, Entry> myStatementGroups = new HashMap<>();
+  private final Map<String, Entry> myPLevels = new HashMap<>();
+  private final Map<String, Entry> myHLevels = new HashMap<>();
+  private final Map<String, Referable> myDynamicReferables = new HashMap<>();
+  private final Map<String, Group> myDynamicGroups = new HashMap<>();
+  private final Map<String, Referable> myInternalReferables = new HashMap<>();
+  private final Map<String, Referable> myVisibleInternalReferables = new HashMap<>();
+
+  public GroupSymbolTable(Group group) {
+    List<? extends Statement> statements = group.getStatements();
+    for (int i = 0; i < statements.size(); i++) {
+      Statement statement = statements.get(i);
+      Group subgroup = statement.getGroup();
+      if (subgroup != null) {
+        addSubgroup(subgroup, i);
+      }
+      addLevels(statement.getPLevelsDefinition(), myPLevels, i, PLEVEL_KIND);
+      addLevels(statement.getHLevelsDefinition(), myHLevels, i, HLEVEL_KIND);
+    }
+
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      GlobalReferable ref = subgroup.getReferable();
+      myDynamicGroups.putIfAbsent(ref.textRepresentation(), subgroup);
+      String alias = ref.getAliasName();
+      if (alias != null) {
+        myDynamicGroups.putIfAbsent(alias, subgroup);
+      }
+      addReferable(ref, myDynamicReferables);
+      addInternalReferables(subgroup, myDynamicReferables, true, true);
+    }
+
+    addInternalReferables(group, myInternalReferables, false, !(group.getReferable() instanceof ClassReferable));
+    addInternalReferables(group, myVisibleInternalReferables, true, true);
+  }
+
+  private void addSubgroup(Group subgroup, int statement) {
+    Entry groupEntry = new Entry(statement, SUBGROUP_KIND, subgroup);
+    GlobalReferable ref = subgroup.getReferable();
+    myStatementGroups.putIfAbsent(ref.textRepresentation(), groupEntry);
+    myStatementReferables.putIfAbsent(ref.textRepresentation(), new Entry(statement, SUBGROUP_KIND, ref));
+    String alias = ref.getAliasName();
+    if (alias != null) {
+      myStatementGroups.putIfAbsent(alias, groupEntry);
+      myStatementReferables.putIfAbsent(alias, new Entry(statement, SUBGROUP_KIND, new AliasReferable(ref)));
+    }
+
+    Map<String, Referable> internal = new HashMap<>();
+    addInternalReferables(subgroup, internal, true, true);
+    for (Map.Entry<String, Referable> entry : internal.entrySet()) {
+      myStatementReferables.putIfAbsent(entry.getKey(), new Entry(statement, SUBGROUP_KIND, entry.getValue()));
+    }
+  }
+
+  private static void addLevels(Abstract.LevelParameters levelParams, Map<String, Entry> levels, int statement, int kind) {
+    if (levelParams != null) {
+      for (Referable ref : levelParams.getReferables()) {
+        levels.putIfAbsent(ref.getRefName(), new Entry(statement, kind, ref));
+      }
+    }
+  }
+
+  private static void addReferable(GlobalReferable ref, Map<String, Referable> referables) {
+    referables.putIfAbsent(ref.textRepresentation(), ref);
+    String alias = ref.getAliasName();
+    if (alias != null) {
+      referables.putIfAbsent(alias, new AliasReferable(ref));
+    }
+  }
+
+  private static void addInternalReferables(Group group, Map<String, Referable> referables, boolean onlyVisible, boolean withFields) {
+    for (Group.InternalReferable internalReferable : group.getConstructors()) {
+      if (!onlyVisible || internalReferable.isVisible()) {
+        addReferable(internalReferable.getReferable(), referables);
+      }
+    }
+    if (withFields) {
+      for (Group.InternalReferable internalReferable : group.getFields()) {
+        if (!onlyVisible || internalReferable.isVisible()) {
+          addReferable(internalReferable.getReferable(), referables);
+        }
+      }
+    }
+  }
+
+  private static Entry first(Entry entry1, Entry entry2) {
+    if (entry1 == null) return entry2;
+    if (entry2 == null) return entry1;
+    return entry1.statement < entry2.statement || entry1.statement == entry2.statement && entry1.kind < entry2.kind ? entry1 : entry2;
+  }
+
+  /**
+   * @return a referable defined in a statement of the group; if {@code kind} is null, the first one among all kinds.
+   */
+  public @Nullable Referable resolveStatementReferable(String name, @Nullable Referable.RefKind kind) {
+    Entry entry = kind == null
+      ? first(first(myStatementReferables.get(name), myPLevels.get(name)), myHLevels.get(name))
+      : kind == Referable.RefKind.EXPR ? myStatementReferables.get(name)
+      : kind == Referable.RefKind.PLEVEL ? myPLevels.get(name)
+      : myHLevels.get(name);
+    return entry == null ? null : (Referable) entry.value;
+  }
+
+  /**
+   * @return a subgroup defined in a statement of the group or a level parameter that shadows it.
+   */
+  public @Nullable Object resolveStatementNamespace(String name) {
+    Entry entry = first(first(myStatementGroups.get(name), myPLevels.get(name)), myHLevels.get(name));
+    return entry == null ? null : entry.value;
+  }
+
+  public @Nullable Referable resolveDynamicReferable(String name) {
+    return myDynamicReferables.get(name);
+  }
+
+  public @Nullable Group resolveDynamicNamespace(String name) {
+    return myDynamicGroups.get(name);
+  }
+
+  /**
+   * @return a constructor or a field of the group.
+   *         Fields of classes are not included unless {@code onlyVisible} is true since they are resolved with their superclasses.
+   */
+  public @Nullable Referable resolveInternal(String name, boolean onlyVisible) {
+    return (onlyVisible ? myVisibleInternalReferables : myInternalReferables).get(name);
+  }
+}
@@ -220,11 +220,7 @@ public class LexicalScope implements Scope {
 
   private enum ResolveType { REF, SCOPE, INTERNAL_SCOPE }
 
-  private Object resolve(String name, ResolveType resolveType, Referable.RefKind refKind) {
-    if (name.isEmpty() || "_".equals(name)) {
-      return null;
-    }
-
+  private Object resolveDefined(String name, ResolveType resolveType, Referable.RefKind refKind) {
     for (Statement statement : myGroup.getStatements()) {
       if (resolveType != ResolveType.REF || refKind == null || refKind == Referable.RefKind.EXPR) {
         Group subgroup = statement.getGroup();
@@ -275,6 +271,59 @@ public class LexicalScope implements Scope {
       }
     }
 
+    return null;
+  }
+
+  private Object resolveDefined(GroupSymbolTable table, String name, ResolveType resolveType, Referable.RefKind refKind) {
+    if (resolveType == ResolveType.REF) {
+      Referable ref = table.resolveStatementReferable(name, refKind);
+      if (ref != null) {
+        return ref;
+      }
+    } else {
+      Object result = table.resolveStatementNamespace(name);
+      if (result != null) {
+        return result instanceof Group ? LexicalScope.opened((Group) result, resolveType == ResolveType.INTERNAL_SCOPE) : result;
+      }
+    }
+
+    if (resolveType != ResolveType.REF || refKind == null || refKind == Referable.RefKind.EXPR) {
+      if (myExtent == Extent.EVERYTHING) {
+        Object result = resolveType == ResolveType.REF ? table.resolveDynamicReferable(name) : table.resolveDynamicNamespace(name);
+        if (result != null) {
+          return result instanceof Group ? LexicalScope.opened((Group) result, resolveType == ResolveType.INTERNAL_SCOPE) : result;
+        }
+      }
+
+      if (resolveType == ResolveType.REF && myExtent != Extent.ONLY_EXTERNAL) {
+        boolean onlyInternal = myKind == Kind.OPENED_INTERNAL;
+        Referable result = table.resolveInternal(name, onlyInternal);
+        if (result != null) {
+          return result;
+        }
+        if (!onlyInternal && myGroup.getReferable() instanceof ClassReferable) {
+          Referable referable = new ClassFieldImplScope((ClassReferable) myGroup.getReferable(), ClassFieldImplScope.Extent.WITH_SUPER_DYNAMIC).resolveName(name);
+          if (referable instanceof GlobalReferable) {
+            return referable;
+          }
+        }
+      }
+    }
+
+    return null;
+  }
+
+  private Object resolve(String name, ResolveType resolveType, Referable.RefKind refKind) {
+    if (name.isEmpty() || "_".equals(name)) {
+      return null;
+    }
+
+    GroupSymbolTable table = myGroup.getSymbolTable();
+    Object defined = table != null ? resolveDefined(table, name, resolveType, refKind) : resolveDefined(name, resolveType, refKind);
+    if (defined != null) {
+      return defined;
+    }
+
     if (!ignoreOpens()) {
       Scope cachingScope = null;
       for (Statement statement : myGroup.getStatements()) {
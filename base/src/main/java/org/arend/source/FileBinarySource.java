@@ -28,6 +28,10 @@ public class FileBinarySource extends StreamBinarySource {
     myModulePath = modulePath;
   }
 
+  public Path getFile() {
+    return myFile;
+  }
+
   @NotNull
   @Override
   public ModulePath getModulePath() {
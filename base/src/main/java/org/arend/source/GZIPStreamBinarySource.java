@@ -5,12 +5,17 @@ import org.arend.library.SourceLibrary;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+/**
+ * A source that compresses binaries with gzip.
+ * It can also read uncompressed binaries.
+ */
 public class GZIPStreamBinarySource extends StreamBinarySource {
   private final StreamBinarySource mySource;
 
@@ -26,7 +31,25 @@ public class GZIPStreamBinarySource extends StreamBinarySource {
   @Override
   protected InputStream getInputStream() throws IOException {
     InputStream stream = mySource.getInputStream();
-    return stream == null ? null : new GZIPInputStream(stream);
+    return stream == null ? null : decompress(stream);
+  }
+
+  /**
+   * @return a stream that decompresses {@code stream} if it is compressed with gzip, or {@code stream} itself otherwise.
+   */
+  public static InputStream decompress(InputStream stream) throws IOException {
+    if (!stream.markSupported()) {
+      stream = new BufferedInputStream(stream);
+    }
+    stream.mark(2);
+    int b1 = stream.read();
+    int b2 = stream.read();
+    stream.reset();
+    return isCompressed(b1, b2) ? new GZIPInputStream(stream) : stream;
+  }
+
+  static boolean isCompressed(int b1, int b2) {
+    return b1 == (GZIPInputStream.GZIP_MAGIC & 0xFF) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8);
   }
 
   @Nullable
@@ -0,0 +1,114 @@
+package org.arend.source;
+
+import com.google.protobuf.CodedInputStream;
+import org.arend.ext.module.ModulePath;
+import org.arend.library.SourceLibrary;
+import org.arend.module.serialization.ModuleProtos;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A file source that persists binaries without compression and reads them without copying them through streams.
+ * Files are read into a single buffer.
+ * If the source is read-only, large files are mapped into memory instead.
+ * Mapped files stay locked on some platforms until the mapping is garbage collected, so sources that may rewrite their files do not map them.
+ * Binaries compressed with gzip are still supported.
+ */
+public class MappedFileBinarySource extends FileBinarySource {
+  private static final int MAPPING_THRESHOLD = 64 * 1024;
+
+  private final boolean myReadOnly;
+
+  /**
+   * @param readOnly  true if the source does not persist or delete its file, false otherwise.
+   */
+  public MappedFileBinarySource(Path basePath, ModulePath modulePath, boolean readOnly) {
+    super(basePath, modulePath);
+    myReadOnly = readOnly;
+  }
+
+  public MappedFileBinarySource(Path basePath, ModulePath modulePath) {
+    this(basePath, modulePath, false);
+  }
+
+  @Override
+  protected @Nullable ModuleProtos.Module readModule() throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(getFile(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File " + getFile() + " is too large");
+      }
+      if (myReadOnly && size >= MAPPING_THRESHOLD) {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      } else {
+        buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {}
+        buffer.flip();
+      }
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+
+    if (buffer.remaining() >= 2 && GZIPStreamBinarySource.isCompressed(buffer.get(0) & 0xFF, buffer.get(1) & 0xFF)) {
+      try (InputStream stream = new GZIPInputStream(asInputStream(buffer))) {
+        return parseModule(CodedInputStream.newInstance(stream));
+      }
+    }
+    return parseModule(CodedInputStream.newInstance(buffer));
+  }
+
+  private static InputStream asInputStream(ByteBuffer buffer) {
+    return new InputStream() {
+      @Override
+      public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+      }
+
+      @Override
+      public int read(byte @NotNull [] bytes, int offset, int length) {
+        if (length == 0) {
+          return 0;
+        }
+        if (!buffer.hasRemaining()) {
+          return -1;
+        }
+        int n = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, n);
+        return n;
+      }
+    };
+  }
+
+  @Nullable
+  @Override
+  protected InputStream getInputStream() throws IOException {
+    return GZIPStreamBinarySource.decompress(Files.newInputStream(getFile()));
+  }
+
+  @Nullable
+  @Override
+  protected OutputStream getOutputStream() throws IOException {
+    if (myReadOnly) {
+      return null;
+    }
+    Files.createDirectories(getFile().getParent());
+    return Files.newOutputStream(getFile(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+  }
+
+  @Override
+  public boolean delete(SourceLibrary library) {
+    return !myReadOnly && super.delete(library);
+  }
+}
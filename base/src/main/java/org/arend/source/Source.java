@@ -32,6 +32,25 @@ public interface Source {
    */
   @NotNull LoadResult load(SourceLoader sourceLoader);
 
+  /**
+   * Performs the part of the loading process that does not depend on other modules, such as parsing.
+   * This method is invoked before the first invocation of {@link #load} and it may be invoked concurrently for different sources.
+   * It should not modify the library.
+   *
+   * @param sourceLoader    the state of the loading process.
+   */
+  default void preload(SourceLoader sourceLoader) {}
+
+  /**
+   * Performs the part of the next invocation of {@link #load} that does not modify the library, such as deserialization of definitions.
+   * This method is invoked before every invocation of {@link #load} except the first one.
+   * It may be invoked concurrently for different sources, but a source is processed only after the sources it depends on
+   * (see {@link #getDependencies}) unless they depend on each other.
+   *
+   * @param sourceLoader    the state of the loading process.
+   */
+  default void loadConcurrently(SourceLoader sourceLoader) {}
+
   /**
    * Gets the timestamp for this source.
    *
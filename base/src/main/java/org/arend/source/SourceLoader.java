@@ -1,11 +1,13 @@
 package org.arend.source;
 
+import com.google.protobuf.ByteString;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.module.ModulePath;
 import org.arend.ext.typechecking.DefinitionListener;
 import org.arend.extImpl.SerializableKeyRegistryImpl;
 import org.arend.library.LibraryManager;
 import org.arend.library.SourceLibrary;
+import org.arend.module.serialization.ModuleProtos;
 import org.arend.module.scopeprovider.CachingModuleScopeProvider;
 import org.arend.module.scopeprovider.ModuleScopeProvider;
 import org.arend.naming.reference.converter.ReferableConverter;
@@ -13,8 +15,14 @@ import org.arend.naming.scope.Scope;
 import org.arend.term.group.Group;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.arend.typechecking.dfs.MapDFS;
+import org.arend.typechecking.order.TarjanSCC;
+import org.arend.util.ComputationInterruptedException;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -26,6 +34,7 @@ public final class SourceLoader {
   private final LibraryManager myLibraryManager;
   private ModuleScopeProvider myModuleScopeProvider;
   private ModuleScopeProvider myTestsModuleScopeProvider;
+  private final Map<String, Long> myTimes = new LinkedHashMap<>();
 
   public SourceLoader(SourceLibrary library, LibraryManager libraryManager) {
     myLibrary = library;
@@ -71,6 +80,178 @@ public final class SourceLoader {
     return myLibraryManager.getLibraryErrorReporter();
   }
 
+  /**
+   * Adds {@code time} milliseconds to the time spent in {@code phase}.
+   */
+  public synchronized void addTime(String phase, long time) {
+    myTimes.merge(phase, time, Long::sum);
+  }
+
+  /**
+   * @return the time in milliseconds spent in each phase of the loading process.
+   */
+  public synchronized Map<String, Long> getTimes() {
+    return new LinkedHashMap<>(myTimes);
+  }
+
+  private void preloadSources(Collection<? extends Source> sources) {
+    long time = System.currentTimeMillis();
+    int numberOfThreads = Math.min(myLibraryManager.getNumberOfThreads(), sources.size());
+    if (numberOfThreads <= 1) {
+      for (Source source : sources) {
+        source.preload(this);
+      }
+    } else {
+      ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+      try {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(sources.size());
+        for (Source source : sources) {
+          tasks.add(pool.submit(() -> source.preload(this)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+          task.join();
+        }
+      } finally {
+        pool.shutdownNow();
+      }
+    }
+    addTime("parsing", System.currentTimeMillis() - time);
+  }
+
+  private static class Task {
+    final List<Source> sources = new ArrayList<>();
+    final List<Task> dependents = new ArrayList<>();
+    final AtomicInteger remaining = new AtomicInteger();
+  }
+
+  /**
+   * Groups sources into tasks so that sources that depend on each other belong to the same task.
+   */
+  private static List<Task> makeTasks(Map<ModulePath, Source> sources) {
+    List<Task> tasks = new ArrayList<>();
+    Map<ModulePath, Task> moduleToTask = new HashMap<>();
+    TarjanSCC<ModulePath> tarjan = new TarjanSCC<>() {
+      @Override
+      protected boolean forDependencies(ModulePath unit, Consumer<ModulePath> consumer) {
+        for (ModulePath dependency : sources.get(unit).getDependencies()) {
+          if (sources.containsKey(dependency)) {
+            consumer.accept(dependency);
+          }
+        }
+        return false;
+      }
+
+      @Override
+      protected void unitFound(ModulePath unit, boolean withLoops) {
+        sccFound(Collections.singletonList(unit));
+      }
+
+      @Override
+      protected void sccFound(List<ModulePath> scc) {
+        Task task = new Task();
+        for (ModulePath module : scc) {
+          task.sources.add(sources.get(module));
+          moduleToTask.put(module, task);
+        }
+        Set<Task> dependencies = new HashSet<>();
+        for (ModulePath module : scc) {
+          for (ModulePath dependency : sources.get(module).getDependencies()) {
+            Task depTask = moduleToTask.get(dependency);
+            if (depTask != null && depTask != task && dependencies.add(depTask)) {
+              depTask.dependents.add(task);
+            }
+          }
+        }
+        task.remaining.set(dependencies.size());
+        tasks.add(task);
+      }
+    };
+    for (ModulePath module : sources.keySet()) {
+      tarjan.order(module);
+    }
+    return tasks;
+  }
+
+  private void loadConcurrently(Map<ModulePath, Source> sources) {
+    int numberOfThreads = Math.min(myLibraryManager.getNumberOfThreads(), sources.size());
+    if (numberOfThreads <= 1) {
+      for (Source source : sources.values()) {
+        source.loadConcurrently(this);
+      }
+      return;
+    }
+
+    List<Task> tasks = makeTasks(sources);
+    ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+    CountDownLatch latch = new CountDownLatch(tasks.size());
+    Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    AtomicBoolean interrupted = new AtomicBoolean();
+    Consumer<Task> runner = new Consumer<>() {
+      @Override
+      public void accept(Task task) {
+        pool.execute(() -> {
+          try {
+            if (failures.isEmpty() && !interrupted.get()) {
+              for (Source source : task.sources) {
+                source.loadConcurrently(SourceLoader.this);
+              }
+            }
+          } catch (Throwable e) {
+            failures.add(e);
+          }
+
+          try {
+            for (Task dependent : task.dependents) {
+              if (dependent.remaining.decrementAndGet() == 0) {
+                accept(dependent);
+              }
+            }
+          } catch (RejectedExecutionException ignored) {
+            // The pool is shut down because the loading was interrupted
+          } finally {
+            latch.countDown();
+          }
+        });
+      }
+    };
+
+    boolean wasInterrupted = false;
+    try {
+      for (Task task : tasks) {
+        if (task.remaining.get() == 0) {
+          runner.accept(task);
+        }
+      }
+      latch.await();
+    } catch (InterruptedException e) {
+      wasInterrupted = true;
+      interrupted.set(true);
+    } finally {
+      pool.shutdownNow();
+      // Workers still use this loader, so they are awaited even if the thread is interrupted
+      while (!pool.isTerminated()) {
+        try {
+          pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          wasInterrupted = true;
+        }
+      }
+    }
+
+    if (wasInterrupted) {
+      Thread.currentThread().interrupt();
+      throw new ComputationInterruptedException();
+    }
+
+    Throwable failure = failures.peek();
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+  }
+
   private Set<ModulePath> loadSources(Collection<? extends ModulePath> modules, Function<ModulePath, Source> sourceMap) {
     Set<ModulePath> failed = new HashSet<>();
     Map<ModulePath, Source> sources = new LinkedHashMap<>();
@@ -83,8 +264,16 @@ public final class SourceLoader {
       }
     }
 
+    preloadSources(sources.values());
+
     Set<ModulePath> loaded = new HashSet<>();
+    boolean first = true;
     while (!sources.isEmpty()) {
+      if (!first) {
+        loadConcurrently(sources);
+      }
+      first = false;
+
       for (var it = sources.entrySet().iterator(); it.hasNext(); ) {
         Map.Entry<ModulePath, Source> entry = it.next();
         Source.LoadResult loadResult = entry.getValue().load(this);
@@ -130,6 +319,7 @@ public final class SourceLoader {
    * @param modules     modules to load.
    * @param inTests     true if the module located in the test directory, false otherwise.
    * @return the set of loaded modules.
+   * @throws ComputationInterruptedException if the thread is interrupted while modules are loaded in parallel.
    */
   public Set<ModulePath> loadRawSources(Collection<? extends ModulePath> modules, boolean inTests) {
     return loadSources(modules, module -> inTests ? myLibrary.getTestSource(module) : myLibrary.getRawSource(module));
@@ -140,6 +330,7 @@ public final class SourceLoader {
    *
    * @param modules  modules to load.
    * @return the set of loaded modules.
+   * @throws ComputationInterruptedException if the thread is interrupted while modules are loaded in parallel.
    */
   public Set<ModulePath> loadBinarySources(Collection<? extends ModulePath> modules, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener) {
     return loadSources(modules, module -> {
@@ -148,7 +339,8 @@ public final class SourceLoader {
         binarySource.setKeyRegistry(keyRegistry);
         binarySource.setDefinitionListener(definitionListener);
 
-        if (!myLibrary.isExternal() && myLibrary.hasRawSources()) {
+        // If the hash of the raw source is known, the binary source compares it with the stored one when it is loaded
+        if (!myLibrary.isExternal() && myLibrary.hasRawSources() && myLibrary.getSourceHash(module) == null) {
           Source rawSource = myLibrary.getRawSource(module);
           if (rawSource != null && rawSource.isAvailable() && binarySource.getTimeStamp() < rawSource.getTimeStamp()) {
             return null;
@@ -158,4 +350,40 @@ public final class SourceLoader {
       return binarySource;
     });
   }
+
+  /**
+   * Checks if a binary module is compiled from the current version of its raw source.
+   * If both the binary module and the raw source have hashes, then the stored hashes of the module and its dependencies are compared with the actual ones.
+   * The stored dependencies include indirect ones and modules from other libraries.
+   * Otherwise, timestamps are compared.
+   *
+   * @param module      the path to the module.
+   * @param moduleProto the header of the binary module.
+   * @param timeStamp   the timestamp of the binary module.
+   * @return true if the binary module can be loaded, false otherwise.
+   */
+  public boolean isBinaryUpToDate(ModulePath module, ModuleProtos.Module moduleProto, long timeStamp) {
+    if (myLibrary.isExternal() || !myLibrary.hasRawSources()) {
+      return true;
+    }
+
+    byte[] hash = myLibrary.getSourceHash(module);
+    if (hash == null || moduleProto.getSourceHash().isEmpty()) {
+      Source rawSource = myLibrary.getRawSource(module);
+      return rawSource == null || !rawSource.isAvailable() || timeStamp >= rawSource.getTimeStamp();
+    }
+
+    if (!moduleProto.getSourceHash().equals(ByteString.copyFrom(hash))) {
+      return false;
+    }
+    for (ModuleProtos.ModuleHash dependency : moduleProto.getDependencyHashList()) {
+      ModulePath dependencyPath = new ModulePath(dependency.getNameList());
+      SourceLibrary dependencyLibrary = myLibrary.findModuleLibrary(dependencyPath);
+      byte[] dependencyHash = dependencyLibrary == null ? null : dependencyLibrary.getSourceHash(dependencyPath);
+      if (dependencyHash == null || !dependency.getHash().equals(ByteString.copyFrom(dependencyHash))) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
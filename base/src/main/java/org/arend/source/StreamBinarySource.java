@@ -1,5 +1,6 @@
 package org.arend.source;
 
+import com.google.protobuf.ByteString;
 import com.google.protobuf.CodedInputStream;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.module.ModulePath;
@@ -29,8 +30,7 @@ import org.jetbrains.annotations.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
  * Represents a source that loads a binary module from an {@link InputStream} and persists it to an {@link OutputStream}.
@@ -40,6 +40,9 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
   private SerializableKeyRegistryImpl myKeyRegistry;
   private DefinitionListener myDefinitionListener;
   private int myPass = 0;
+  private ModuleProtos.Module myModuleProto;
+  private ChildGroup myGroup;
+  private Exception myException;
   private final List<ModulePath> myDependencies = new ArrayList<>();
 
   @Override
@@ -77,12 +80,31 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
     return myDependencies;
   }
 
-  public static Group getGroup(InputStream inputStream, LibraryManager libraryManager, SourceLibrary library) throws IOException, DeserializationException {
-    CodedInputStream codedInputStream = CodedInputStream.newInstance(inputStream);
+  private static boolean isLazyBodies(SourceLibrary library) {
+    return ModuleDeserialization.isLazyBodies() && (library.isExternal() || !library.hasRawSources());
+  }
+
+  protected static ModuleProtos.Module parseModule(CodedInputStream codedInputStream) throws IOException {
     codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
-    ModuleProtos.Module moduleProto = ModuleProtos.Module.parseFrom(codedInputStream);
+    return ModuleProtos.Module.parseFrom(codedInputStream);
+  }
 
-    ModuleDeserialization moduleDeserialization = new ModuleDeserialization(moduleProto, library.getReferableConverter(), null, libraryManager.getDefinitionListener(), false);
+  /**
+   * Reads the module from {@link #getInputStream}.
+   * Subclasses may override this method to read the module without copying it through a stream.
+   *
+   * @return the module or null if the input stream is not available.
+   */
+  protected @Nullable ModuleProtos.Module readModule() throws IOException {
+    try (InputStream inputStream = getInputStream()) {
+      return inputStream == null ? null : parseModule(CodedInputStream.newInstance(inputStream));
+    }
+  }
+
+  public static Group getGroup(InputStream inputStream, LibraryManager libraryManager, SourceLibrary library) throws IOException, DeserializationException {
+    ModuleProtos.Module moduleProto = parseModule(CodedInputStream.newInstance(inputStream));
+
+    ModuleDeserialization moduleDeserialization = new ModuleDeserialization(moduleProto, library.getReferableConverter(), null, libraryManager.getDefinitionListener(), false, isLazyBodies(library));
 
     ChildGroup group = moduleDeserialization.readGroup(new ModuleLocation(library, ModuleLocation.LocationKind.GENERATED, new ModulePath()));
 
@@ -92,21 +114,64 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
     return group;
   }
 
+  /**
+   * Reads the module and, if the library does not have a referable converter, creates its definitions.
+   */
+  @Override
+  public void preload(SourceLoader sourceLoader) {
+    try {
+      myModuleProto = readModule();
+      if (myModuleProto != null && sourceLoader.getReferableConverter() == null) {
+        SourceLibrary library = sourceLoader.getLibrary();
+        myModuleDeserialization = new ModuleDeserialization(myModuleProto, null, myKeyRegistry, myDefinitionListener, library instanceof PreludeLibrary, isLazyBodies(library));
+        myGroup = myModuleDeserialization.readGroup(new ModuleLocation(library, ModuleLocation.LocationKind.SOURCE, getModulePath()));
+      }
+    } catch (IOException | DeserializationException e) {
+      myException = e;
+    }
+  }
+
+  /**
+   * Deserializes definitions of the module after references to other modules are resolved.
+   */
+  @Override
+  public void loadConcurrently(SourceLoader sourceLoader) {
+    if (myPass != 2 || myException != null) {
+      return;
+    }
+
+    long time = System.currentTimeMillis();
+    try {
+      myModuleDeserialization.fillInDefinitions(sourceLoader.getLibrary().getDependencyListener(), true);
+      myPass = 3;
+    } catch (DeserializationException e) {
+      myException = e;
+    }
+    sourceLoader.addTime("deserialization", System.currentTimeMillis() - time);
+  }
+
   @Override
   public @NotNull LoadResult load(SourceLoader sourceLoader) {
     SourceLibrary library = sourceLoader.getLibrary();
     ModulePath modulePath = getModulePath();
+    if (myException != null) {
+      loadingFailed(sourceLoader, modulePath, myException);
+      myException = null;
+      return LoadResult.FAIL;
+    }
 
     if (myPass == 0) {
-      try (InputStream inputStream = getInputStream()) {
-        if (inputStream == null) {
+      try {
+        ModuleProtos.Module moduleProto = myModuleProto != null ? myModuleProto : readModule();
+        myModuleProto = null;
+        if (moduleProto == null) {
           sourceLoader.getLibraryErrorReporter().report(LibraryError.moduleLoading(modulePath, library.getName()));
           return LoadResult.FAIL;
         }
 
-        CodedInputStream codedInputStream = CodedInputStream.newInstance(inputStream);
-        codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
-        ModuleProtos.Module moduleProto = ModuleProtos.Module.parseFrom(codedInputStream);
+        if (!sourceLoader.isBinaryUpToDate(modulePath, moduleProto, getTimeStamp())) {
+          return LoadResult.FAIL;
+        }
 
         for (ModuleProtos.ModuleCallTargets moduleCallTargets : moduleProto.getModuleCallTargetsList()) {
           myDependencies.add(new ModulePath(moduleCallTargets.getNameList()));
@@ -119,10 +184,13 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
         }
 
         ReferableConverter referableConverter = sourceLoader.getReferableConverter();
-        myModuleDeserialization = new ModuleDeserialization(moduleProto, referableConverter, myKeyRegistry, myDefinitionListener, library instanceof PreludeLibrary);
+        if (myGroup == null) {
+          myModuleDeserialization = new ModuleDeserialization(moduleProto, referableConverter, myKeyRegistry, myDefinitionListener, library instanceof PreludeLibrary, isLazyBodies(library));
+        }
 
         if (referableConverter == null) {
-          ChildGroup group = myModuleDeserialization.readGroup(new ModuleLocation(library, ModuleLocation.LocationKind.SOURCE, modulePath));
+          ChildGroup group = myGroup != null ? myGroup : myModuleDeserialization.readGroup(new ModuleLocation(library, ModuleLocation.LocationKind.SOURCE, modulePath));
+          myGroup = null;
           library.groupLoaded(modulePath, group, false, false);
         } else {
           ChildGroup group = library.getModuleGroup(modulePath, false);
@@ -142,9 +210,34 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
       }
     }
 
+    if (myPass == 1) {
+      try {
+        myModuleDeserialization.resolveCallTargets(sourceLoader.getModuleScopeProvider(false));
+        myPass = 2;
+        return LoadResult.CONTINUE;
+      } catch (DeserializationException e) {
+        loadingFailed(sourceLoader, modulePath, e);
+        return LoadResult.FAIL;
+      }
+    }
+
     try {
-      myModuleDeserialization.readModule(sourceLoader.getModuleScopeProvider(false), library.getDependencyListener());
-      library.binaryLoaded(modulePath, myModuleDeserialization.getModuleProto().getComplete());
+      // Definitions are filled in here if loadConcurrently was not invoked
+      if (myPass == 2) {
+        myModuleDeserialization.fillInDefinitions(library.getDependencyListener());
+      } else {
+        // Callbacks of language extensions deferred in loadConcurrently are invoked in the loading thread
+        myModuleDeserialization.runDeferredCallbacks();
+      }
+      ModuleProtos.Module moduleProto = myModuleDeserialization.getModuleProto();
+      if (!library.hasRawSources() && !moduleProto.getSourceHash().isEmpty()) {
+        List<ModulePath> dependencies = new ArrayList<>(moduleProto.getDependencyHashCount());
+        for (ModuleProtos.ModuleHash dependency : moduleProto.getDependencyHashList()) {
+          dependencies.add(new ModulePath(dependency.getNameList()));
+        }
+        library.binaryHashesLoaded(modulePath, moduleProto.getSourceHash().toByteArray(), dependencies);
+      }
+      library.binaryLoaded(modulePath, moduleProto.getComplete());
       myModuleDeserialization = null;
       return LoadResult.SUCCESS;
     } catch (DeserializationException e) {
@@ -179,6 +272,7 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
       if (module == null) {
         return false;
       }
+      module = addSourceHashes(module, currentModulePath, library);
 
       module.writeTo(outputStream);
       return true;
@@ -187,4 +281,46 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
       return false;
     }
   }
+
+  /**
+   * Stores the hash of the raw source of the module and hashes of sources of modules it depends on.
+   * Dependencies are collected transitively, so that a change in any module which can affect the interface of the module is detected.
+   * They include modules from other libraries.
+   */
+  private static ModuleProtos.Module addSourceHashes(ModuleProtos.Module module, ModulePath modulePath, SourceLibrary library) {
+    byte[] hash = library.getSourceHash(modulePath);
+    if (hash == null) {
+      return module;
+    }
+
+    Deque<Map.Entry<SourceLibrary, ModulePath>> toVisit = new ArrayDeque<>();
+    for (ModulePath dependency : library.getModuleDependencies(modulePath)) {
+      toVisit.add(new AbstractMap.SimpleEntry<>(library, dependency));
+    }
+    for (ModuleProtos.ModuleCallTargets moduleCallTargets : module.getModuleCallTargetsList()) {
+      toVisit.add(new AbstractMap.SimpleEntry<>(library, new ModulePath(moduleCallTargets.getNameList())));
+    }
+
+    ModuleProtos.Module.Builder builder = module.toBuilder().setSourceHash(ByteString.copyFrom(hash));
+    Set<ModulePath> visited = new HashSet<>();
+    visited.add(modulePath);
+    while (!toVisit.isEmpty()) {
+      Map.Entry<SourceLibrary, ModulePath> entry = toVisit.pop();
+      ModulePath dependency = entry.getValue();
+      if (!visited.add(dependency)) {
+        continue;
+      }
+
+      SourceLibrary dependencyLibrary = entry.getKey().findModuleLibrary(dependency);
+      byte[] dependencyHash = dependencyLibrary == null ? null : dependencyLibrary.getSourceHash(dependency);
+      if (dependencyHash == null) {
+        continue;
+      }
+      builder.addDependencyHash(ModuleProtos.ModuleHash.newBuilder().addAllName(dependency.toList()).setHash(ByteString.copyFrom(dependencyHash)));
+      for (ModulePath next : dependencyLibrary.getModuleDependencies(dependency)) {
+        toVisit.add(new AbstractMap.SimpleEntry<>(dependencyLibrary, next));
+      }
+    }
+    return builder.build();
+  }
 }
@@ -2,7 +2,9 @@ package org.arend.term.group;
 
 import org.arend.naming.reference.LocatedReferable;
 import org.arend.naming.reference.ParameterReferable;
+import org.arend.naming.scope.GroupSymbolTable;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collections;
 import java.util.List;
@@ -31,6 +33,14 @@ public interface Group {
     return Collections.emptyList();
   }
 
+  /**
+   * @return a cached table of names defined in this group, or null if the group does not keep one.
+   *         Only implementations that do not change after they are built should return a table.
+   */
+  default @Nullable GroupSymbolTable getSymbolTable() {
+    return null;
+  }
+
   interface InternalReferable {
     LocatedReferable getReferable();
     boolean isVisible();
@@ -2,6 +2,7 @@ package org.arend.term.group;
 
 import org.arend.naming.reference.LocatedReferable;
 import org.arend.naming.reference.ParameterReferable;
+import org.arend.naming.scope.GroupSymbolTable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -13,6 +14,7 @@ public class StaticGroup implements ChildGroup, Statement {
   private final List<Statement> myStatements;
   private final List<ParameterReferable> myExternalParameters;
   private final ChildGroup myParent;
+  private volatile GroupSymbolTable mySymbolTable;
 
   public StaticGroup(LocatedReferable referable, List<Statement> statements, List<ParameterReferable> externalParameters, ChildGroup parent) {
     myReferable = referable;
@@ -43,6 +45,16 @@ public class StaticGroup implements ChildGroup, Statement {
     return myExternalParameters;
   }
 
+  @Override
+  public @NotNull GroupSymbolTable getSymbolTable() {
+    GroupSymbolTable table = mySymbolTable;
+    if (table == null) {
+      table = new GroupSymbolTable(this);
+      mySymbolTable = table;
+    }
+    return table;
+  }
+
   @Nullable
   @Override
   public ChildGroup getParentGroup() {
@@ -1,55 +1,174 @@
 package org.arend.typechecking.computation;
 
+import org.arend.naming.reference.TCDefReferable;
 import org.arend.util.ComputationInterruptedException;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
+/**
+ * Runs computations with a cancellation indicator.
+ * The indicator is bound to the thread that runs the computation, so independent runners can be used concurrently.
+ * A single runner still processes one computation at a time.
+ */
 public class ComputationRunner<T> {
-  private static CancellationIndicator CANCELLATION_INDICATOR = UnstoppableCancellationIndicator.INSTANCE;
-  private static final Lock lock = new ReentrantLock();
+  private record Context(CancellationIndicator indicator, ComputationRunner<?> runner, Thread thread, Context previous) {}
+
+  private static final Context EMPTY_CONTEXT = new Context(UnstoppableCancellationIndicator.INSTANCE, null, null, null);
+  private static final ThreadLocal<Context> CONTEXT = ThreadLocal.withInitial(() -> EMPTY_CONTEXT);
+  private static final Set<Context> ACTIVE_CONTEXTS = ConcurrentHashMap.newKeySet();
+  private static final Lock GLOBAL_LOCK = new ReentrantLock();
+
+  private final ReentrantLock myLock = new ReentrantLock();
+  private final Set<Object> myComputedKeys = ConcurrentHashMap.newKeySet();
 
   public static void checkCanceled() throws ComputationInterruptedException {
-    CANCELLATION_INDICATOR.checkCanceled();
+    CONTEXT.get().indicator.checkCanceled();
   }
 
   public static CancellationIndicator getCancellationIndicator() {
-    return CANCELLATION_INDICATOR;
+    return CONTEXT.get().indicator;
   }
 
   public static void resetCancellationIndicator() {
-    CANCELLATION_INDICATOR = UnstoppableCancellationIndicator.INSTANCE;
+    Context context = CONTEXT.get();
+    if (context != EMPTY_CONTEXT) {
+      ACTIVE_CONTEXTS.remove(context);
+      CONTEXT.set(new Context(UnstoppableCancellationIndicator.INSTANCE, context.runner, context.thread, context.previous));
+    }
   }
 
   public static boolean isCancellationIndicatorSet() {
-    return CANCELLATION_INDICATOR != UnstoppableCancellationIndicator.INSTANCE;
+    return CONTEXT.get().indicator != UnstoppableCancellationIndicator.INSTANCE;
+  }
+
+  /**
+   * Cancels computations that depend on {@code key}.
+   * A computation is canceled if its runner marked {@code key} with {@link #addComputedKey}.
+   * Other computations are notified with {@link CancellationIndicator#cancel(TCDefReferable)}
+   * if {@code key} is a definition, so indicators bound to a specific definition can react to it.
+   */
+  public static void cancelComputations(Object key) {
+    cancelComputations(key, null);
+  }
+
+  /**
+   * Cancels computations that depend on {@code key} as {@link #cancelComputations(Object)} does
+   * except for the computations of the runner of the current thread.
+   */
+  public static void cancelOtherComputations(Object key) {
+    ComputationRunner<?> current = CONTEXT.get().runner;
+    if (current == null) {
+      cancelComputations(key);
+    } else {
+      cancelComputations(key, current);
+    }
+  }
+
+  private static void cancelComputations(Object key, ComputationRunner<?> excluded) {
+    for (Context context : ACTIVE_CONTEXTS) {
+      if (excluded != null && context.runner == excluded) {
+        continue;
+      }
+      if (context.runner != null && context.runner.myComputedKeys.contains(key)) {
+        cancel(context);
+      } else if (key instanceof TCDefReferable) {
+        context.indicator.cancel((TCDefReferable) key);
+      }
+    }
+  }
+
+  private static void cancel(Context context) {
+    if (context.indicator == ThreadCancellationIndicator.INSTANCE) {
+      // This indicator checks the current thread, so the thread of the computation is interrupted instead of the caller
+      context.thread.interrupt();
+    } else {
+      context.indicator.cancel();
+    }
+  }
+
+  /**
+   * Marks {@code key} as used by the current computation of this runner, so that {@link #cancelComputations} cancels it.
+   * Marks are removed when the computation finishes.
+   */
+  protected void addComputedKey(Object key) {
+    myComputedKeys.add(key);
   }
 
   protected T computationInterrupted() {
     return null;
   }
 
-  public static void lock(CancellationIndicator cancellationIndicator) {
-    lock.lock();
-    if (cancellationIndicator != null) {
-      CANCELLATION_INDICATOR = cancellationIndicator;
+  private static void pushContext(CancellationIndicator cancellationIndicator, ComputationRunner<?> runner) {
+    Context previous = CONTEXT.get();
+    Context context = new Context(cancellationIndicator != null ? cancellationIndicator : previous.indicator, runner != null ? runner : previous.runner, Thread.currentThread(), previous);
+    CONTEXT.set(context);
+    if (context.indicator != UnstoppableCancellationIndicator.INSTANCE) {
+      ACTIVE_CONTEXTS.add(context);
     }
   }
 
+  private static void popContext() {
+    Context context = CONTEXT.get();
+    ACTIVE_CONTEXTS.remove(context);
+    if (context.previous == null || context.previous == EMPTY_CONTEXT) {
+      CONTEXT.remove();
+    } else {
+      CONTEXT.set(context.previous);
+    }
+  }
+
+  /**
+   * Acquires a JVM-wide lock and sets the cancellation indicator of the current thread until the matching invocation of {@link #unlock}.
+   * If {@code cancellationIndicator} is null, the current indicator is kept.
+   *
+   * @deprecated computations started with {@link #run} do not acquire this lock, so it only excludes other callers of this method.
+   *             Use {@link #run} instead.
+   */
+  @Deprecated
+  public static void lock(CancellationIndicator cancellationIndicator) {
+    GLOBAL_LOCK.lock();
+    pushContext(cancellationIndicator, null);
+  }
+
+  /**
+   * @deprecated see {@link #lock}.
+   */
+  @Deprecated
   public static void unlock() {
-    CANCELLATION_INDICATOR = UnstoppableCancellationIndicator.INSTANCE;
-    lock.unlock();
+    popContext();
+    GLOBAL_LOCK.unlock();
   }
 
   public T run(CancellationIndicator cancellationIndicator, Supplier<T> runnable) {
-    lock(cancellationIndicator);
+    myLock.lock();
+    pushContext(cancellationIndicator, this);
     try {
       return runnable.get();
     } catch (ComputationInterruptedException ignored) {
       return computationInterrupted();
     } finally {
-      unlock();
+      popContext();
+      if (myLock.getHoldCount() == 1) {
+        myComputedKeys.clear();
+      }
+      myLock.unlock();
+    }
+  }
+
+  /**
+   * Runs a part of the current computation of this runner in another thread.
+   * Unlike {@link #run}, it does not lock the runner and does not catch {@link ComputationInterruptedException}.
+   */
+  public void runInWorker(CancellationIndicator cancellationIndicator, Runnable runnable) {
+    pushContext(cancellationIndicator, this);
+    try {
+      runnable.run();
+    } finally {
+      popContext();
     }
   }
 }
@@ -2,15 +2,23 @@ package org.arend.typechecking.doubleChecker;
 
 import org.arend.core.definition.Definition;
 import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.ListErrorReporter;
+import org.arend.ext.module.ModulePath;
 import org.arend.naming.reference.LocatedReferable;
 import org.arend.naming.reference.TCDefReferable;
 import org.arend.term.group.Group;
 import org.arend.term.group.Statement;
 import org.arend.typechecking.error.local.LocalErrorReporter;
 
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 public class CoreModuleChecker {
   private final ErrorReporter myErrorReporter;
   private final CoreDefinitionChecker myChecker;
+  private final Map<ModulePath, Long> myTimes = new LinkedHashMap<>(); // in nanoseconds
 
   public CoreModuleChecker(ErrorReporter errorReporter) {
     myErrorReporter = errorReporter;
@@ -42,4 +50,96 @@ public class CoreModuleChecker {
 
     return ok;
   }
+
+  private record Task(ModulePath module, TCDefReferable referable, Definition definition, List<GeneralError> errors) {}
+
+  private static void collectTasks(ModulePath module, Group group, List<Task> tasks) {
+    LocatedReferable ref = group.getReferable();
+    Definition def = ref instanceof TCDefReferable ? ((TCDefReferable) ref).getTypechecked() : null;
+    if (def != null) {
+      tasks.add(new Task(module, (TCDefReferable) ref, def, new ArrayList<>()));
+    }
+
+    for (Statement statement : group.getStatements()) {
+      Group subgroup = statement.getGroup();
+      if (subgroup != null) {
+        collectTasks(module, subgroup, tasks);
+      }
+    }
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      collectTasks(module, subgroup, tasks);
+    }
+  }
+
+  /**
+   * Checks modules using {@code numberOfThreads} threads.
+   * Every thread has its own {@link CoreDefinitionChecker}.
+   * Errors are reported in the same order as by {@link #checkGroup} regardless of the number of threads.
+   * Times spent on modules are available via {@link #getTimes}.
+   */
+  public boolean checkModules(Map<ModulePath, ? extends Group> groups, int numberOfThreads) {
+    List<Task> tasks = new ArrayList<>();
+    for (Map.Entry<ModulePath, ? extends Group> entry : groups.entrySet()) {
+      collectTasks(entry.getKey(), entry.getValue(), tasks);
+    }
+
+    boolean[] results = new boolean[tasks.size()];
+    long[] times = new long[tasks.size()];
+    if (numberOfThreads <= 1 || tasks.size() <= 1) {
+      CoreDefinitionChecker checker = new CoreDefinitionChecker(myErrorReporter);
+      for (int i = 0; i < tasks.size(); i++) {
+        check(checker, tasks.get(i), i, results, times);
+      }
+    } else {
+      ThreadLocal<CoreDefinitionChecker> checkers = ThreadLocal.withInitial(() -> new CoreDefinitionChecker(myErrorReporter));
+      ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+      try {
+        List<ForkJoinTask<?>> futures = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+          int index = i;
+          futures.add(pool.submit(() -> check(checkers.get(), tasks.get(index), index, results, times)));
+        }
+        for (ForkJoinTask<?> future : futures) {
+          future.join();
+        }
+      } finally {
+        pool.shutdownNow();
+      }
+    }
+
+    boolean ok = true;
+    for (ModulePath module : groups.keySet()) {
+      myTimes.putIfAbsent(module, 0L);
+    }
+    for (int i = 0; i < tasks.size(); i++) {
+      Task task = tasks.get(i);
+      for (GeneralError error : task.errors) {
+        myErrorReporter.report(error);
+      }
+      if (!results[i]) {
+        ok = false;
+      }
+      myTimes.merge(task.module, times[i], Long::sum);
+    }
+    return ok;
+  }
+
+  private static void check(CoreDefinitionChecker checker, Task task, int index, boolean[] results, long[] times) {
+    long time = System.nanoTime();
+    checker.setErrorReporter(new LocalErrorReporter(task.referable, new ListErrorReporter(task.errors)));
+    results[index] = checker.check(task.definition);
+    times[index] = System.nanoTime() - time;
+  }
+
+  /**
+   * @return times in milliseconds spent on checking definitions of modules passed to {@link #checkModules}.
+   *         If modules were checked in parallel, the total time may exceed the wall-clock time.
+   */
+  public Map<ModulePath, Long> getTimes() {
+    Map<ModulePath, Long> result = new LinkedHashMap<>();
+    for (Map.Entry<ModulePath, Long> entry : myTimes.entrySet()) {
+      result.put(entry.getKey(), entry.getValue() / 1000000);
+    }
+    return result;
+  }
 }
@@ -0,0 +1,112 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import java.util.*;
+
+/**
+ * An insertion-ordered set of equations.
+ * A removed equation keeps the links to its neighbors, so if removals and additions are undone in the reverse order,
+ * then {@link #restore} puts equations back at their original positions in constant time.
+ * The current equation of an iterator can be removed with {@link #removeNode}.
+ */
+class EquationSet extends AbstractSet<Equation> {
+  static final class Node {
+    private final Equation myEquation;
+    private Node myPrev;
+    private Node myNext;
+
+    private Node(Equation equation) {
+      myEquation = equation;
+    }
+  }
+
+  private final Map<Equation, Node> myNodes = new HashMap<>();
+  private final Node myHead = new Node(null);
+
+  EquationSet() {
+    myHead.myPrev = myHead;
+    myHead.myNext = myHead;
+  }
+
+  @Override
+  public int size() {
+    return myNodes.size();
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return myNodes.containsKey(o);
+  }
+
+  @Override
+  public boolean add(Equation equation) {
+    if (myNodes.containsKey(equation)) {
+      return false;
+    }
+    Node node = new Node(equation);
+    node.myPrev = myHead.myPrev;
+    node.myNext = myHead;
+    myHead.myPrev.myNext = node;
+    myHead.myPrev = node;
+    myNodes.put(equation, node);
+    return true;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    return removeNode(o) != null;
+  }
+
+  /**
+   * Removes an equation from the set.
+   *
+   * @return the node of the removed equation that can be passed to {@link #restore}, or null if the set does not contain the equation.
+   */
+  Node removeNode(Object equation) {
+    Node node = myNodes.remove(equation);
+    if (node != null) {
+      node.myPrev.myNext = node.myNext;
+      node.myNext.myPrev = node.myPrev;
+    }
+    return node;
+  }
+
+  /**
+   * Puts a removed equation back. All changes made after the removal must be undone before.
+   */
+  void restore(Node node) {
+    node.myPrev.myNext = node;
+    node.myNext.myPrev = node;
+    myNodes.put(node.myEquation, node);
+  }
+
+  @Override
+  public void clear() {
+    myNodes.clear();
+    myHead.myPrev = myHead;
+    myHead.myNext = myHead;
+  }
+
+  /**
+   * The iterator does not support removal; use {@link #removeNode} instead.
+   */
+  @Override
+  public Iterator<Equation> iterator() {
+    return new Iterator<>() {
+      private Node myCurrent = myHead;
+
+      @Override
+      public boolean hasNext() {
+        return myCurrent.myNext != myHead;
+      }
+
+      @Override
+      public Equation next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        myCurrent = myCurrent.myNext;
+        return myCurrent.myEquation;
+      }
+    };
+  }
+}
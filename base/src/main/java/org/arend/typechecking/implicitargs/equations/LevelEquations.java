@@ -1,17 +1,49 @@
 package org.arend.typechecking.implicitargs.equations;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Predicate;
 
+/**
+ * A system of difference constraints on levels.
+ * Variables are numbered and constraints are kept as a graph on these numbers.
+ * The solution of the previous call to {@link #solve} is reused if constraints were only added after it.
+ */
 public class LevelEquations<Var> {
   private final List<Var> myVariables = new ArrayList<>();
   private final List<LevelEquation<Var>> myEquations = new ArrayList<>();
   static final int INFINITY = Integer.MAX_VALUE;
 
+  // Node 0 is the constant level, other nodes are variables
+  private final List<Var> myNodes = new ArrayList<>(Collections.singletonList(null));
+  private final Map<Var, Integer> myIndices = new HashMap<>();
+
+  // The graph of equations from myEquations up to myNumberOfCompiledEquations
+  private int myNumberOfCompiledEquations;
+  private final List<LevelEquation<Var>> myEdges = new ArrayList<>();
+  private int[] myFrom = new int[8];
+  private int[] myTo = new int[8];
+  private int[] myNext = new int[8];
+  private int[] myConstants = new int[8];
+  private int[] myMaxConstants = new int[8];
+  private boolean[] myWithMaxConstant = new boolean[8];
+  private int[] myHead = new int[8];
+  private final List<Integer> myInfinityNodes = new ArrayList<>();
+
+  // The solution of the previous call to solve; it is valid only if no equations were removed and no cycle was found
+  private boolean mySolutionValid;
+  private int myNumberOfSolvedEdges;
+  private int myNumberOfSolvedInfinityNodes;
+  private int[] myDistances = new int[8];
+  private int[] myLengths = new int[8];
+  private int[] myPredecessors = new int[8];
+
+  public LevelEquations() {
+    Arrays.fill(myHead, -1);
+    Arrays.fill(myPredecessors, -1);
+  }
+
   public List<LevelEquation<Var>> getEquations() {
-    return myEquations;
+    return Collections.unmodifiableList(myEquations);
   }
 
   public List<Var> getVariables() {
@@ -20,10 +52,13 @@ public class LevelEquations<Var> {
 
   void addVariable(Var var) {
     myVariables.add(var);
+    getIndex(var);
   }
 
   public void add(LevelEquations<Var> equations) {
-    myVariables.addAll(equations.myVariables);
+    for (Var var : equations.myVariables) {
+      addVariable(var);
+    }
     myEquations.addAll(equations.myEquations);
   }
 
@@ -31,59 +66,203 @@ public class LevelEquations<Var> {
     myEquations.add(equation);
   }
 
+  public void removeEquations(Predicate<? super LevelEquation<Var>> predicate) {
+    if (myEquations.removeIf(predicate)) {
+      resetGraph();
+    }
+  }
+
   public void clear() {
     myVariables.clear();
     myEquations.clear();
+    myNodes.subList(1, myNodes.size()).clear();
+    myIndices.clear();
+    resetGraph();
   }
 
   public boolean isEmpty() {
     return myVariables.isEmpty() && myEquations.isEmpty();
   }
 
+  private void resetGraph() {
+    myNumberOfCompiledEquations = 0;
+    myEdges.clear();
+    myInfinityNodes.clear();
+    Arrays.fill(myHead, -1);
+    mySolutionValid = false;
+  }
+
+  private int getIndex(Var var) {
+    if (var == null) {
+      return 0;
+    }
+    Integer index = myIndices.get(var);
+    if (index != null) {
+      return index;
+    }
+
+    int newIndex = myNodes.size();
+    myNodes.add(var);
+    myIndices.put(var, newIndex);
+    if (newIndex >= myHead.length) {
+      int length = Math.max(newIndex + 1, myHead.length * 2);
+      int oldLength = myHead.length;
+      myHead = Arrays.copyOf(myHead, length);
+      myDistances = Arrays.copyOf(myDistances, length);
+      myLengths = Arrays.copyOf(myLengths, length);
+      myPredecessors = Arrays.copyOf(myPredecessors, length);
+      Arrays.fill(myHead, oldLength, length, -1);
+      Arrays.fill(myPredecessors, oldLength, length, -1);
+    }
+    myHead[newIndex] = -1;
+    myDistances[newIndex] = 0;
+    myLengths[newIndex] = 0;
+    myPredecessors[newIndex] = -1;
+    return newIndex;
+  }
+
+  private void compile() {
+    for (; myNumberOfCompiledEquations < myEquations.size(); myNumberOfCompiledEquations++) {
+      LevelEquation<Var> equation = myEquations.get(myNumberOfCompiledEquations);
+      if (equation.isInfinity()) {
+        myInfinityNodes.add(getIndex(equation.getVariable()));
+        continue;
+      }
+
+      int edge = myEdges.size();
+      if (edge >= myFrom.length) {
+        myFrom = Arrays.copyOf(myFrom, edge * 2);
+        myTo = Arrays.copyOf(myTo, edge * 2);
+        myNext = Arrays.copyOf(myNext, edge * 2);
+        myConstants = Arrays.copyOf(myConstants, edge * 2);
+        myMaxConstants = Arrays.copyOf(myMaxConstants, edge * 2);
+        myWithMaxConstant = Arrays.copyOf(myWithMaxConstant, edge * 2);
+      }
+      int from = getIndex(equation.getVariable1());
+      Integer maxConstant = equation.getMaxConstant();
+      myEdges.add(equation);
+      myFrom[edge] = from;
+      myTo[edge] = getIndex(equation.getVariable2());
+      myConstants[edge] = equation.getConstant();
+      myWithMaxConstant[edge] = maxConstant != null;
+      myMaxConstants[edge] = maxConstant == null ? 0 : maxConstant;
+      myNext[edge] = myHead[from];
+      myHead[from] = edge;
+    }
+  }
+
+  /**
+   * Solves the equations with a queue-based Bellman-Ford algorithm.
+   *
+   * @param solution  a map which the solution is written to.
+   *                  The solution is written even if the equations cannot be solved.
+   * @return null if the equations are solvable; otherwise, a chain of equations that leads to a contradiction.
+   */
   public List<LevelEquation<Var>> solve(Map<Var, Integer> solution) {
-    Map<Var, List<LevelEquation<Var>>> paths = new HashMap<>();
+    compile();
+    int numberOfNodes = myNodes.size();
+    // A node is added to the queue only if it is not there, so the queue never contains more than numberOfNodes elements
+    int[] queue = new int[numberOfNodes];
+    int queueStart = 0;
+    int queueSize = 0;
+    boolean[] inQueue = new boolean[numberOfNodes];
 
-    solution.put(null, 0);
-    paths.put(null, new ArrayList<>());
-    for (Var var : myVariables) {
-      solution.put(var, 0);
-      paths.put(var, new ArrayList<>());
+    if (mySolutionValid) {
+      for (int i = myNumberOfSolvedEdges; i < myEdges.size(); i++) {
+        int from = myFrom[i];
+        if (!inQueue[from]) {
+          inQueue[from] = true;
+          queue[queueSize++] = from;
+        }
+      }
+    } else {
+      Arrays.fill(myDistances, 0, numberOfNodes, 0);
+      Arrays.fill(myLengths, 0, numberOfNodes, 0);
+      Arrays.fill(myPredecessors, 0, numberOfNodes, -1);
+      myNumberOfSolvedInfinityNodes = 0;
+      for (int i = 0; i < numberOfNodes; i++) {
+        inQueue[i] = true;
+        queue[i] = i;
+      }
+      queueSize = numberOfNodes;
     }
 
-    for (int i = myVariables.size(); i >= 0; i--) {
-      boolean updated = false;
-      for (LevelEquation<Var> equation : myEquations) {
-        if (equation.isInfinity()) {
-          Integer prev = solution.put(equation.getVariable(), INFINITY);
-          if (prev == null || prev != INFINITY) {
-            updated = true;
-          }
-        } else {
-          int a = solution.get(equation.getVariable1());
-          int b = solution.get(equation.getVariable2());
-          Integer m = equation.getMaxConstant();
-          if (b != INFINITY && (a == INFINITY || (m == null || a + m < 0) && b > a + equation.getConstant())) {
-            if (a != INFINITY) {
-              List<LevelEquation<Var>> newPath = new ArrayList<>(paths.get(equation.getVariable1()));
-              newPath.add(equation);
-              paths.put(equation.getVariable2(), newPath);
-            }
-            if (i == 0 || equation.getVariable2() == null && a != INFINITY) {
-              solution.remove(null);
-              return paths.get(equation.getVariable2());
-            }
-
-            solution.put(equation.getVariable2(), a == INFINITY ? INFINITY : a + equation.getConstant());
-            updated = true;
-          }
+    // Infinity propagates along all equations, so infinite variables are found first
+    Deque<Integer> infinityStack = new ArrayDeque<>();
+    for (int i = myNumberOfSolvedInfinityNodes; i < myInfinityNodes.size(); i++) {
+      int node = myInfinityNodes.get(i);
+      if (myDistances[node] != INFINITY) {
+        myDistances[node] = INFINITY;
+        infinityStack.push(node);
+      }
+    }
+    if (mySolutionValid) {
+      for (int i = myNumberOfSolvedEdges; i < myEdges.size(); i++) {
+        if (myDistances[myFrom[i]] == INFINITY) {
+          infinityStack.push(myFrom[i]);
         }
       }
-      if (!updated) {
-        break;
+    }
+    while (!infinityStack.isEmpty()) {
+      int node = infinityStack.pop();
+      for (int edge = myHead[node]; edge != -1; edge = myNext[edge]) {
+        int to = myTo[edge];
+        if (myDistances[to] != INFINITY) {
+          myDistances[to] = INFINITY;
+          infinityStack.push(to);
+        }
       }
     }
 
-    solution.remove(null);
-    return null;
+    List<LevelEquation<Var>> result = null;
+    loop:
+    while (queueSize > 0) {
+      int node = queue[queueStart];
+      queueStart = (queueStart + 1) % numberOfNodes;
+      queueSize--;
+      inQueue[node] = false;
+      int a = myDistances[node];
+      if (a == INFINITY) {
+        continue;
+      }
+      for (int edge = myHead[node]; edge != -1; edge = myNext[edge]) {
+        int to = myTo[edge];
+        int b = myDistances[to];
+        if (b == INFINITY || !((!myWithMaxConstant[edge] || a + myMaxConstants[edge] < 0) && b > a + myConstants[edge])) {
+          continue;
+        }
+
+        myPredecessors[to] = edge;
+        myLengths[to] = myLengths[node] + 1;
+        if (to == 0 || myLengths[to] >= numberOfNodes) {
+          result = getPath(to);
+          break loop;
+        }
+        myDistances[to] = a + myConstants[edge];
+        if (!inQueue[to]) {
+          inQueue[to] = true;
+          queue[(queueStart + queueSize++) % numberOfNodes] = to;
+        }
+      }
+    }
+
+    mySolutionValid = result == null;
+    myNumberOfSolvedEdges = myEdges.size();
+    myNumberOfSolvedInfinityNodes = myInfinityNodes.size();
+    for (int i = 1; i < numberOfNodes; i++) {
+      solution.put(myNodes.get(i), myDistances[i]);
+    }
+    return result;
+  }
+
+  private List<LevelEquation<Var>> getPath(int node) {
+    List<LevelEquation<Var>> path = new ArrayList<>();
+    boolean[] visited = new boolean[myNodes.size()];
+    for (int current = node; myPredecessors[current] != -1 && !visited[current]; current = myFrom[myPredecessors[current]]) {
+      visited[current] = true;
+      path.add(myEdges.get(myPredecessors[current]));
+    }
+    Collections.reverse(path);
+    return path;
   }
 }
@@ -34,19 +34,29 @@ import org.arend.typechecking.error.local.SolveEquationsError;
 import org.arend.typechecking.error.local.SolveLevelEquationsError;
 import org.arend.typechecking.visitor.CheckTypeVisitor;
 import org.arend.ext.util.Pair;
+import org.jetbrains.annotations.TestOnly;
 
 import java.util.*;
 
 import static org.arend.core.expr.ExpressionFactory.Nat;
 
 public class TwoStageEquations implements Equations {
-  private List<Equation> myEquations = new ArrayList<>();
+  private final EquationSet myEquations = new EquationSet();
+  // Equations indexed by inference variables that occur as their sides; may contain equations that were already removed
+  private final Map<InferenceVariable, Set<Equation>> myVariableEquations = new HashMap<>();
   private final List<LevelEquation<LevelVariable>> myLevelEquations = new ArrayList<>();
   private final List<InferenceLevelVariable> myLevelVariables = new ArrayList<>();
   private final CheckTypeVisitor myVisitor;
-  private Set<InferenceVariable> myProps = new LinkedHashSet<>();
+  private final Set<InferenceVariable> myProps = new LinkedHashSet<>();
   private final List<Pair<InferenceLevelVariable, InferenceLevelVariable>> myBoundVariables = new ArrayList<>();
   private final Map<InferenceVariable, Expression> myNotSolvableFromEquationsVars = new HashMap<>();
+  // Changes of myEquations, myProps, myNotSolvableFromEquationsVars, and removals from myVariableEquations made since the first saved state; they are undone by loadState
+  private final List<Change> myChanges = new ArrayList<>();
+  private int myNumberOfSavedStates;
+
+  private enum ChangeKind { ADD_EQUATION, REMOVE_EQUATION, UNINDEX_EQUATION, ADD_PROP, REMOVE_PROP, ADD_NOT_SOLVABLE, REMOVE_NOT_SOLVABLE }
+
+  private record Change(ChangeKind kind, Object key, Object value) {}
 
   public TwoStageEquations(CheckTypeVisitor visitor) {
     myVisitor = visitor;
@@ -157,7 +167,9 @@ public class TwoStageEquations implements Equations {
 
       if (cType instanceof UniverseExpression && ((UniverseExpression) cType).getSort().isProp()) {
         if (cmp == CMP.LE) {
-          myProps.add(cInf);
+          if (myProps.add(cInf)) {
+            recordChange(ChangeKind.ADD_PROP, cInf, null);
+          }
           return true;
         } else {
           cmp = CMP.EQ;
@@ -244,10 +256,11 @@ public class TwoStageEquations implements Equations {
       if (prev != null) {
         return CompareVisitor.compare(this, CMP.EQ, prev, inf1 != null ? expr2 : expr1, type, sourceNode);
       }
+      recordChange(ChangeKind.ADD_NOT_SOLVABLE, inf1 != null ? inf1 : inf2, null);
     }
 
     Equation equation = new Equation(expr1, expr2, type, origCmp, sourceNode);
-    myEquations.add(equation);
+    addEquation(equation);
     if (inf1 != null && inf2 != null) {
       inf1.addListener(equation);
       inf2.addListener(equation);
@@ -263,6 +276,86 @@ public class TwoStageEquations implements Equations {
     return true;
   }
 
+  private static InferenceVariable getSideVariable(Expression expr) {
+    return expr instanceof InferenceReferenceExpression ? ((InferenceReferenceExpression) expr).getVariable() : null;
+  }
+
+  private void indexEquation(Equation equation) {
+    InferenceVariable var1 = getSideVariable(equation.expr1);
+    if (var1 != null) {
+      myVariableEquations.computeIfAbsent(var1, k -> new LinkedHashSet<>()).add(equation);
+    }
+    InferenceVariable var2 = getSideVariable(equation.expr2);
+    if (var2 != null && var2 != var1) {
+      myVariableEquations.computeIfAbsent(var2, k -> new LinkedHashSet<>()).add(equation);
+    }
+  }
+
+  private void reindexEquations() {
+    clearIndex();
+    for (Equation equation : myEquations) {
+      indexEquation(equation);
+    }
+  }
+
+  private void clearIndex() {
+    if (myNumberOfSavedStates > 0) {
+      for (Map.Entry<InferenceVariable, Set<Equation>> entry : myVariableEquations.entrySet()) {
+        for (Equation equation : entry.getValue()) {
+          recordChange(ChangeKind.UNINDEX_EQUATION, entry.getKey(), equation);
+        }
+      }
+    }
+    myVariableEquations.clear();
+  }
+
+  private void unindexEquation(Equation equation, InferenceVariable var) {
+    Set<Equation> equations = var == null ? null : myVariableEquations.get(var);
+    if (equations != null && equations.remove(equation)) {
+      recordChange(ChangeKind.UNINDEX_EQUATION, var, equation);
+    }
+  }
+
+  private void addEquation(Equation equation) {
+    if (myEquations.add(equation)) {
+      recordChange(ChangeKind.ADD_EQUATION, equation, null);
+      indexEquation(equation);
+    }
+  }
+
+  private void removeEquation(Equation equation) {
+    EquationSet.Node node = myEquations.removeNode(equation);
+    if (node != null) {
+      recordChange(ChangeKind.REMOVE_EQUATION, equation, node);
+    }
+  }
+
+  private void recordChange(ChangeKind kind, Object key, Object value) {
+    if (myNumberOfSavedStates > 0) {
+      myChanges.add(new Change(kind, key, value));
+    }
+  }
+
+  /**
+   * Undoes a change without recording it.
+   * Changes are undone in the reverse order, so removed equations are restored at their original positions.
+   */
+  private void undoChange(Change change) {
+    switch (change.kind) {
+      // Entries of the index are removed lazily
+      case ADD_EQUATION -> myEquations.remove((Equation) change.key);
+      case REMOVE_EQUATION -> {
+        myEquations.restore((EquationSet.Node) change.value);
+        indexEquation((Equation) change.key);
+      }
+      case UNINDEX_EQUATION -> myVariableEquations.computeIfAbsent((InferenceVariable) change.key, k -> new LinkedHashSet<>()).add((Equation) change.value);
+      case ADD_PROP -> myProps.remove((InferenceVariable) change.key);
+      case REMOVE_PROP -> myProps.add((InferenceVariable) change.key);
+      case ADD_NOT_SOLVABLE -> myNotSolvableFromEquationsVars.remove((InferenceVariable) change.key);
+      case REMOVE_NOT_SOLVABLE -> myNotSolvableFromEquationsVars.put((InferenceVariable) change.key, (Expression) change.value);
+    }
+  }
+
   @Override
   public void bindVariables(InferenceLevelVariable pVar, InferenceLevelVariable hVar) {
     assert pVar.getType() == LevelVariable.LvlType.PLVL;
@@ -355,15 +448,14 @@ public class TwoStageEquations implements Equations {
       }
     }
 
-    for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
-      Equation equation = iterator.next();
+    for (Equation equation : myEquations) {
       Expression stuckExpr = equation.expr2.getStuckExpression();
       if (stuckExpr != null && (stuckExpr.isInstance(InferenceReferenceExpression.class) || stuckExpr.isError())) {
-        iterator.remove();
+        removeEquation(equation);
       } else {
         stuckExpr = equation.expr1.getStuckExpression();
         if (stuckExpr != null && (stuckExpr.isInstance(InferenceReferenceExpression.class) || stuckExpr.isError())) {
-          iterator.remove();
+          removeEquation(equation);
         }
       }
     }
@@ -371,7 +463,19 @@ public class TwoStageEquations implements Equations {
       myVisitor.getErrorReporter().report(new SolveEquationsError(myVisitor.getExpressionPrettifier(), new ArrayList<>(myEquations), sourceNode));
     }
 
+    if (myNumberOfSavedStates > 0) {
+      for (Equation equation : myEquations) {
+        removeEquation(equation);
+      }
+      for (InferenceVariable var : myProps) {
+        recordChange(ChangeKind.REMOVE_PROP, var, null);
+      }
+      for (Map.Entry<InferenceVariable, Expression> entry : myNotSolvableFromEquationsVars.entrySet()) {
+        recordChange(ChangeKind.REMOVE_NOT_SOLVABLE, entry.getKey(), entry.getValue());
+      }
+    }
     myEquations.clear();
+    clearIndex();
     myProps.clear();
     myNotSolvableFromEquationsVars.clear();
     myBoundVariables.clear();
@@ -385,7 +489,14 @@ public class TwoStageEquations implements Equations {
 
   @Override
   public boolean remove(Equation equation) {
-    return myEquations.remove(equation);
+    EquationSet.Node node = myEquations.removeNode(equation);
+    if (node == null) {
+      return false;
+    }
+    unindexEquation(equation, getSideVariable(equation.expr1));
+    unindexEquation(equation, getSideVariable(equation.expr2));
+    recordChange(ChangeKind.REMOVE_EQUATION, equation, node);
+    return true;
   }
 
   @Override
@@ -394,6 +505,7 @@ public class TwoStageEquations implements Equations {
       Iterator<InferenceVariable> it = myProps.iterator();
       InferenceVariable var = it.next();
       it.remove();
+      recordChange(ChangeKind.REMOVE_PROP, var, null);
       if (!var.isSolved()) {
         solve(var, new UniverseExpression(Sort.PROP), false, false, false, true);
       }
@@ -403,11 +515,11 @@ public class TwoStageEquations implements Equations {
       equation.expr1 = equation.expr1.normalize(NormalizationMode.WHNF);
       equation.expr2 = equation.expr2.normalize(NormalizationMode.WHNF);
     }
+    reindexEquations();
 
-    for (int i = 0; i < myEquations.size(); i++) {
-      Equation equation = myEquations.get(i);
-      if (equation.expr1 instanceof DataCallExpression && equation.expr2 instanceof DataCallExpression && ((DataCallExpression) equation.expr1).getDefinition() == Prelude.FIN && ((DataCallExpression) equation.expr2).getDefinition() == Prelude.FIN) {
-        myEquations.remove(i--);
+    for (Equation equation : new ArrayList<>(myEquations)) {
+      if (myEquations.contains(equation) && equation.expr1 instanceof DataCallExpression && equation.expr2 instanceof DataCallExpression && ((DataCallExpression) equation.expr1).getDefinition() == Prelude.FIN && ((DataCallExpression) equation.expr2).getDefinition() == Prelude.FIN) {
+        remove(equation);
         Expression arg1 = ((DataCallExpression) equation.expr1).getDefCallArguments().get(0);
         Expression arg2 = ((DataCallExpression) equation.expr2).getDefCallArguments().get(0);
         if (!CompareVisitor.compare(this, CMP.EQ, arg1, arg2, Nat(), equation.sourceNode)) {
@@ -441,41 +553,73 @@ public class TwoStageEquations implements Equations {
 
   @Override
   public void saveState(TypecheckerState state) {
-    state.equations = new ArrayList<>(myEquations);
+    myNumberOfSavedStates++;
+    state.numberOfEquationChanges = myChanges.size();
     state.numberOfLevelVariables = myLevelVariables.size();
     state.numberOfLevelEquations = myLevelEquations.size();
-    state.propVars = new LinkedHashSet<>(myProps);
     state.numberOfBoundVars = myBoundVariables.size();
-    state.notSolvableFromEquationsVars = new HashSet<>(myNotSolvableFromEquationsVars.keySet());
   }
 
   @Override
   public void loadState(TypecheckerState state) {
-    myEquations = new ArrayList<>(state.equations);
+    for (int i = myChanges.size() - 1; i >= state.numberOfEquationChanges; i--) {
+      undoChange(myChanges.get(i));
+    }
+    if (myChanges.size() > state.numberOfEquationChanges) {
+      myChanges.subList(state.numberOfEquationChanges, myChanges.size()).clear();
+    }
     if (myLevelVariables.size() > state.numberOfLevelVariables) {
       myLevelVariables.subList(state.numberOfLevelVariables, myLevelVariables.size()).clear();
     }
     if (myLevelEquations.size() > state.numberOfLevelEquations) {
       myLevelEquations.subList(state.numberOfLevelEquations, myLevelEquations.size()).clear();
     }
-    if (myProps.size() > state.propVars.size()) {
-      myProps = new LinkedHashSet<>(state.propVars);
-    }
     if (myBoundVariables.size() > state.numberOfBoundVars) {
       myBoundVariables.subList(state.numberOfBoundVars, myBoundVariables.size()).clear();
     }
-    myNotSolvableFromEquationsVars.keySet().retainAll(state.notSolvableFromEquationsVars);
+  }
+
+  @Override
+  public void discardState(TypecheckerState state) {
+    if (myNumberOfSavedStates > 0 && --myNumberOfSavedStates == 0) {
+      myChanges.clear();
+    }
+  }
+
+  @TestOnly
+  List<Equation> getDeferredEquations() {
+    return new ArrayList<>(myEquations);
+  }
+
+  @TestOnly
+  Set<Equation> getIndexedEquations(InferenceVariable var) {
+    Set<Equation> equations = myVariableEquations.get(var);
+    return equations == null ? Collections.emptySet() : equations;
+  }
+
+  @TestOnly
+  Set<InferenceVariable> getPropVariables() {
+    return myProps;
+  }
+
+  @TestOnly
+  Set<InferenceVariable> getNotSolvableFromEquationsVariables() {
+    return myNotSolvableFromEquationsVars.keySet();
+  }
+
+  @TestOnly
+  int getNumberOfChanges() {
+    return myChanges.size();
   }
 
   private boolean solveClassCallsEq() {
     List<Pair<InferenceVariable, Expression>> solved = null;
-    for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
-      Equation equation = iterator.next();
+    for (Equation equation : myEquations) {
       if (equation.cmp == CMP.EQ) {
         InferenceVariable var1 = equation.expr1.getInferenceVariable();
         InferenceVariable var2 = equation.expr2.getInferenceVariable();
         if (var1 == null && var2 != null && var2.isSolvableFromEquations() || var2 == null && var1 != null && var1.isSolvableFromEquations()) {
-          iterator.remove();
+          removeEquation(equation);
           if (solved == null) {
             solved = new ArrayList<>();
           }
@@ -500,17 +644,17 @@ public class TwoStageEquations implements Equations {
     boolean allOK = true;
 
     boolean hasBound = false;
-    Map<InferenceVariable,Set<Wrapper>> bounds = new HashMap<>();
+    Map<InferenceVariable,Set<Wrapper>> bounds = new LinkedHashMap<>();
+    Map<InferenceVariable,InferenceVariable> classes = new HashMap<>();
     List<Equation> classCallEquations = new ArrayList<>();
-    for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
-      Equation equation = iterator.next();
+    for (Equation equation : myEquations) {
       Expression lower = equation.getLowerBound();
       Expression upper = equation.getUpperBound();
       ClassCallExpression lowerClassCall = lower.cast(ClassCallExpression.class);
       ClassCallExpression upperClassCall = upper.cast(ClassCallExpression.class);
       if (lowerClassCall != null && upperClassCall != null) {
         classCallEquations.add(new Equation(lowerClassCall, upperClassCall, Type.OMEGA, equation.cmp == CMP.EQ ? CMP.EQ : CMP.LE, equation.sourceNode));
-        iterator.remove();
+        removeEquation(equation);
         solved = true;
         continue;
       }
@@ -519,8 +663,9 @@ public class TwoStageEquations implements Equations {
         InferenceVariable var1 = equation.expr1.getInferenceVariable();
         InferenceVariable var2 = equation.expr2.getInferenceVariable();
         if (var1 != null && var2 != null && var1.isSolvableFromEquations() && var2.isSolvableFromEquations()) {
-          bounds.computeIfAbsent(var1, k -> new LinkedHashSet<>()).add(new Wrapper(equation.expr2));
-          bounds.computeIfAbsent(var2, k -> new LinkedHashSet<>()).add(new Wrapper(equation.expr1));
+          bounds.computeIfAbsent(var1, k -> new LinkedHashSet<>());
+          bounds.computeIfAbsent(var2, k -> new LinkedHashSet<>());
+          union(classes, var1, var2);
         }
         continue;
       }
@@ -533,7 +678,7 @@ public class TwoStageEquations implements Equations {
           bounds.computeIfAbsent(var, k -> new LinkedHashSet<>()).add(new Wrapper(cmp == CMP.LE ? lower : upper));
           if (isClassCall) {
             hasBound = true;
-            iterator.remove();
+            removeEquation(equation);
           }
         }
       }
@@ -551,8 +696,9 @@ public class TwoStageEquations implements Equations {
     }
 
     // @bounds consists of entries (@v,@list) such that every expression @e in @list is either a classCall or an inference variable and @e `cmp` @v.
+    // @classes is a union-find structure on variables that are equal to each other.
     // The result of @calculateClosure is the transitive closure of @bounds.
-    return solveClassCallLowerBounds(calculateClosure(bounds), allOK, solved, cmp, true);
+    return solveClassCallLowerBounds(calculateClosure(bounds, classes), allOK, solved, cmp, true);
   }
 
   private ClassDefinition checkClasses(InferenceVariable var, List<ClassCallExpression> bounds, CMP cmp) {
@@ -595,23 +741,53 @@ public class TwoStageEquations implements Equations {
     }
   }
 
-  private List<Pair<InferenceVariable,List<ClassCallExpression>>> calculateClosure(Map<InferenceVariable,Set<Wrapper>> bounds) {
-    List<Pair<InferenceVariable,List<ClassCallExpression>>> result = new ArrayList<>(bounds.size());
+  private static InferenceVariable find(Map<InferenceVariable,InferenceVariable> classes, InferenceVariable variable) {
+    InferenceVariable parent = classes.get(variable);
+    if (parent == null) {
+      return variable;
+    }
+    InferenceVariable root = find(classes, parent);
+    if (root != parent) {
+      classes.put(variable, root);
+    }
+    return root;
+  }
+
+  private static void union(Map<InferenceVariable,InferenceVariable> classes, InferenceVariable var1, InferenceVariable var2) {
+    InferenceVariable root1 = find(classes, var1);
+    InferenceVariable root2 = find(classes, var2);
+    if (root1 != root2) {
+      classes.put(root1, root2);
+    }
+  }
+
+  // Bounds of equal variables coincide, so they are computed once for each class of @classes
+  private List<Pair<InferenceVariable,List<ClassCallExpression>>> calculateClosure(Map<InferenceVariable,Set<Wrapper>> bounds, Map<InferenceVariable,InferenceVariable> classes) {
+    Map<InferenceVariable,Set<Wrapper>> classBounds = new HashMap<>();
     for (Map.Entry<InferenceVariable, Set<Wrapper>> entry : bounds.entrySet()) {
-      Set<Wrapper> varResult = new HashSet<>();
-      calculateBoundsOfVariable(entry.getKey(), varResult, bounds, new HashSet<>());
+      classBounds.computeIfAbsent(find(classes, entry.getKey()), k -> new LinkedHashSet<>()).addAll(entry.getValue());
+    }
+
+    Map<InferenceVariable,Set<Wrapper>> closures = new HashMap<>();
+    List<Pair<InferenceVariable,List<ClassCallExpression>>> result = new ArrayList<>(bounds.size());
+    for (InferenceVariable variable : bounds.keySet()) {
+      Set<Wrapper> varResult = closures.computeIfAbsent(find(classes, variable), root -> {
+        Set<Wrapper> rootResult = new HashSet<>();
+        calculateBoundsOfVariable(root, rootResult, classBounds, classes, new HashSet<>());
+        return rootResult;
+      });
       if (!varResult.isEmpty()) {
         List<ClassCallExpression> list = new ArrayList<>(varResult.size());
         for (Wrapper wrapper : varResult) {
           list.add((ClassCallExpression) wrapper.expression);
         }
-        result.add(new Pair<>(entry.getKey(), list));
+        result.add(new Pair<>(variable, list));
       }
     }
     return result;
   }
 
-  private void calculateBoundsOfVariable(InferenceVariable variable, Set<Wrapper> result, Map<InferenceVariable,Set<Wrapper>> bounds, Set<InferenceVariable> visited) {
+  private void calculateBoundsOfVariable(InferenceVariable variable, Set<Wrapper> result, Map<InferenceVariable,Set<Wrapper>> bounds, Map<InferenceVariable,InferenceVariable> classes, Set<InferenceVariable> visited) {
     if (!visited.add(variable)) {
       return;
     }
@@ -629,7 +805,7 @@ public class TwoStageEquations implements Equations {
       } else {
         InferenceVariable var = wrapper.expression.getInferenceVariable();
         if (var != null && var.isSolvableFromEquations()) {
-          calculateBoundsOfVariable(var, result, bounds, visited);
+          calculateBoundsOfVariable(find(classes, var), result, bounds, classes, visited);
         }
       }
     }
@@ -642,9 +818,17 @@ public class TwoStageEquations implements Equations {
 
   @Override
   public void solveLowerBounds(InferenceVariable var) {
+    Set<Equation> varEquations = myVariableEquations.get(var);
+    if (varEquations == null) return;
+
     List<Equation> equations = new ArrayList<>();
-    for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
+    for (Iterator<Equation> iterator = varEquations.iterator(); iterator.hasNext(); ) {
       Equation equation = iterator.next();
+      if (!myEquations.contains(equation)) {
+        iterator.remove();
+        recordChange(ChangeKind.UNINDEX_EQUATION, var, equation);
+        continue;
+      }
       Expression varExpr = equation.cmp == CMP.LE ? equation.expr2 : equation.expr1;
       if (varExpr instanceof InferenceReferenceExpression && ((InferenceReferenceExpression) varExpr).getVariable() == var) {
         Expression other = (equation.cmp == CMP.LE ? equation.expr1 : equation.expr2).normalize(NormalizationMode.WHNF);
@@ -655,11 +839,15 @@ public class TwoStageEquations implements Equations {
             equation.expr2 = other;
           }
         } else {
-          myEquations.addAll(equations);
+          for (Equation removed : equations) {
+            addEquation(removed);
+          }
           return;
         }
         equations.add(equation);
         iterator.remove();
+        recordChange(ChangeKind.UNINDEX_EQUATION, var, equation);
+        removeEquation(equation);
       }
     }
 
@@ -15,6 +15,7 @@ import org.arend.ext.instance.InstanceSearchParameters;
 import org.arend.naming.reference.CoreReferable;
 import org.arend.naming.reference.TCDefReferable;
 import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.instance.provider.InstanceIndex;
 import org.arend.typechecking.instance.provider.InstanceProvider;
 import org.arend.typechecking.result.TypecheckingResult;
 import org.arend.typechecking.visitor.CheckTypeVisitor;
@@ -184,34 +185,26 @@ public class GlobalInstancePool implements InstancePool {
     }
 
     Expression finalClassifyingExpression = normClassifyingExpression;
-    class MyPredicate implements Predicate<TCDefReferable> {
+    class MyPredicate implements Predicate<InstanceIndex.Entry> {
       private FunctionDefinition instanceDef = null;
 
       @Override
-      public boolean test(TCDefReferable instance) {
-        instanceDef = (FunctionDefinition) instance.getTypechecked();
-        if (!(instanceDef != null && instanceDef.status().headerIsOK() && instanceDef.getResultType() instanceof ClassCallExpression && parameters.testClass(((ClassCallExpression) instanceDef.getResultType()).getDefinition()) && parameters.testGlobalInstance(instanceDef))) {
+      public boolean test(InstanceIndex.Entry instance) {
+        instanceDef = instance.getDefinition();
+        ClassDefinition classDef = instance.getClassDefinition();
+        if (!(instanceDef != null && classDef != null && parameters.testClass(classDef) && parameters.testGlobalInstance(instanceDef))) {
           return false;
         }
 
-        ClassCallExpression classCall = (ClassCallExpression) instanceDef.getResultType();
-        if (finalClassifyingExpression == null || classCall.getDefinition().getClassifyingField() == null) {
+        if (finalClassifyingExpression == null || classDef.getClassifyingField() == null) {
           return true;
         }
-
-        Expression instanceClassifyingExpr = classCall.getAbsImplementationHere(classCall.getDefinition().getClassifyingField());
-        if (instanceClassifyingExpr != null) {
-          instanceClassifyingExpr = instanceClassifyingExpr.normalize(NormalizationMode.WHNF);
-        }
-        while (instanceClassifyingExpr instanceof LamExpression) {
-          instanceClassifyingExpr = ((LamExpression) instanceClassifyingExpr).getBody();
-        }
-        return compareClassifying(instanceClassifyingExpr, finalClassifyingExpression, true);
+        return compareClassifying(instance.getClassifyingExpression(), finalClassifyingExpression, true);
       }
     }
 
     MyPredicate predicate = new MyPredicate();
-    TCDefReferable instance = myInstanceProvider.findInstance(predicate);
+    TCDefReferable instance = myInstanceProvider.findInstance(parameters::testClass, finalClassifyingExpression == null ? null : InstanceIndex.getHead(finalClassifyingExpression), predicate);
     if (instance == null || predicate.instanceDef == null) {
       return null;
     }
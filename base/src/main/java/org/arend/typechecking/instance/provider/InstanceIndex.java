@@ -0,0 +1,240 @@
+package org.arend.typechecking.instance.provider;
+
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.ClassField;
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.*;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.prelude.Prelude;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * An index of global instances keyed by the class of an instance and the head of its classifying expression.
+ * Classifying expressions of instances are normalized once when the index is built.
+ * An index is a snapshot of a list of instances; it must be rebuilt when {@link #isUpToDate} returns false.
+ * Instances that were not typechecked when the index was built are rechecked by {@link #isUpToDate}.
+ * Other instances are rechecked only when {@link #find} reaches them.
+ */
+public class InstanceIndex {
+  private static final Object UNIVERSE_HEAD = new Object();
+
+  private record ArityHead(boolean isPi, int arity) {}
+
+  public static final class Entry {
+    private final TCDefReferable myReferable;
+    private final int myPosition;
+    private final Definition myTypechecked;
+    private final Expression myResultType;
+    private final boolean myHeaderIsOK;
+    private final Expression myClassifyingExpression;
+    private final Object myHead;
+
+    private Entry(TCDefReferable referable, int position) {
+      myReferable = referable;
+      myPosition = position;
+      myTypechecked = referable.getTypechecked();
+      myResultType = myTypechecked instanceof FunctionDefinition ? ((FunctionDefinition) myTypechecked).getResultType() : null;
+      myHeaderIsOK = myTypechecked != null && myTypechecked.status().headerIsOK();
+
+      Expression classifyingExpr = null;
+      ClassField classifyingField = myHeaderIsOK && myResultType instanceof ClassCallExpression ? ((ClassCallExpression) myResultType).getDefinition().getClassifyingField() : null;
+      if (classifyingField != null) {
+        classifyingExpr = ((ClassCallExpression) myResultType).getAbsImplementationHere(classifyingField);
+        if (classifyingExpr != null) {
+          classifyingExpr = classifyingExpr.normalize(NormalizationMode.WHNF);
+        }
+        while (classifyingExpr instanceof LamExpression) {
+          classifyingExpr = ((LamExpression) classifyingExpr).getBody();
+        }
+      }
+      myClassifyingExpression = classifyingExpr;
+      myHead = classifyingExpr == null ? null : getHead(classifyingExpr);
+    }
+
+    public TCDefReferable getReferable() {
+      return myReferable;
+    }
+
+    /**
+     * @return the typechecked instance or null if it is not a function with a valid header.
+     */
+    public @Nullable FunctionDefinition getDefinition() {
+      return myHeaderIsOK && myTypechecked instanceof FunctionDefinition ? (FunctionDefinition) myTypechecked : null;
+    }
+
+    /**
+     * @return the class of the instance or null if it is not known.
+     */
+    public @Nullable ClassDefinition getClassDefinition() {
+      return myHeaderIsOK && myResultType instanceof ClassCallExpression ? ((ClassCallExpression) myResultType).getDefinition() : null;
+    }
+
+    /**
+     * @return the classifying expression in weak head normal form without lambdas
+     *         or null if either the class does not have a classifying field or it is not implemented.
+     */
+    public @Nullable Expression getClassifyingExpression() {
+      return myClassifyingExpression;
+    }
+
+    private boolean isSettled() {
+      return myTypechecked != null && !myTypechecked.status().needsTypeChecking();
+    }
+
+    private boolean isUpToDate() {
+      Definition typechecked = myReferable.getTypechecked();
+      return typechecked == myTypechecked && (typechecked == null || typechecked.status().headerIsOK() == myHeaderIsOK && (!(typechecked instanceof FunctionDefinition) || ((FunctionDefinition) typechecked).getResultType() == myResultType));
+    }
+  }
+
+  private static class ClassEntries {
+    final List<Entry> all = new ArrayList<>();
+    final Map<Object, List<Entry>> byHead = new HashMap<>();
+    final boolean isClassifying;
+
+    ClassEntries(ClassDefinition classDef) {
+      isClassifying = classDef.getClassifyingField() != null;
+    }
+  }
+
+  private final long myModificationStamp;
+  private final Map<ClassDefinition, ClassEntries> myClasses = new LinkedHashMap<>();
+  private final List<Entry> myUnresolved = new ArrayList<>();
+  private final List<Entry> myUnsettled = new ArrayList<>();
+  private volatile boolean myValid = true;
+
+  /**
+   * @param modificationStamp  the modification stamp of the list of instances; see {@link #getModificationStamp}.
+   */
+  public InstanceIndex(List<? extends TCDefReferable> instances, long modificationStamp) {
+    myModificationStamp = modificationStamp;
+    for (int i = 0; i < instances.size(); i++) {
+      Entry entry = new Entry(instances.get(i), i);
+      if (!entry.isSettled()) {
+        myUnsettled.add(entry);
+      }
+      ClassDefinition classDef = entry.getClassDefinition();
+      if (classDef == null) {
+        myUnresolved.add(entry);
+        continue;
+      }
+
+      ClassEntries classEntries = myClasses.computeIfAbsent(classDef, ClassEntries::new);
+      classEntries.all.add(entry);
+      if (entry.myHead != null) {
+        classEntries.byHead.computeIfAbsent(entry.myHead, k -> new ArrayList<>()).add(entry);
+      }
+    }
+  }
+
+  public static Entry makeEntry(TCDefReferable instance) {
+    return new Entry(instance, -1);
+  }
+
+  /**
+   * Computes the key of an expression in weak head normal form.
+   * If the classifying expression of an instance matches an expression, then their heads coincide.
+   *
+   * @return the head of {@code expr} or null if the classifying expression of an instance with this head cannot match anything.
+   */
+  public static @Nullable Object getHead(Expression expr) {
+    if (expr instanceof IntegerExpression) {
+      return ((IntegerExpression) expr).isZero() ? Prelude.ZERO : Prelude.SUC;
+    }
+    if (expr instanceof DefCallExpression) {
+      return ((DefCallExpression) expr).getDefinition();
+    }
+    if (expr instanceof SigmaExpression) {
+      return new ArityHead(false, DependentLink.Helper.size(((SigmaExpression) expr).getParameters()));
+    }
+    if (expr instanceof PiExpression) {
+      return new ArityHead(true, DependentLink.Helper.size(((PiExpression) expr).getParameters()));
+    }
+    if (expr instanceof UniverseExpression) {
+      return UNIVERSE_HEAD;
+    }
+    return null;
+  }
+
+  public long getModificationStamp() {
+    return myModificationStamp;
+  }
+
+  /**
+   * Checks that instances that were not typechecked when the index was built did not change
+   * and that {@link #find} did not encounter a changed instance.
+   * It does not check whether the list of instances was modified; compare {@link #getModificationStamp} for this.
+   */
+  public boolean isUpToDate() {
+    if (!myValid) {
+      return false;
+    }
+    for (Entry entry : myUnsettled) {
+      if (!entry.isUpToDate()) {
+        myValid = false;
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds the last instance satisfying {@code pred} among instances that may match.
+   * If a changed instance is encountered, the index becomes outdated and the result should be discarded.
+   *
+   * @param classPred        a predicate on classes of instances.
+   * @param classifyingHead  the head of the classifying expression or null if it should not be taken into account.
+   */
+  public @Nullable TCDefReferable find(Predicate<ClassDefinition> classPred, @Nullable Object classifyingHead, Predicate<Entry> pred) {
+    List<List<Entry>> lists = new ArrayList<>();
+    for (Map.Entry<ClassDefinition, ClassEntries> entry : myClasses.entrySet()) {
+      if (!classPred.test(entry.getKey())) {
+        continue;
+      }
+      ClassEntries classEntries = entry.getValue();
+      if (classifyingHead == null || !classEntries.isClassifying) {
+        lists.add(classEntries.all);
+      } else {
+        List<Entry> list = classEntries.byHead.get(classifyingHead);
+        if (list != null) {
+          lists.add(list);
+        }
+      }
+    }
+    if (!myUnresolved.isEmpty()) {
+      lists.add(myUnresolved);
+    }
+
+    // Candidates are tested in the reverse order of their positions
+    int[] indices = new int[lists.size()];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = lists.get(i).size() - 1;
+    }
+    while (true) {
+      int best = -1;
+      for (int i = 0; i < indices.length; i++) {
+        if (indices[i] >= 0 && (best == -1 || lists.get(i).get(indices[i]).myPosition > lists.get(best).get(indices[best]).myPosition)) {
+          best = i;
+        }
+      }
+      if (best == -1) {
+        return null;
+      }
+      Entry entry = lists.get(best).get(indices[best]--);
+      if (!entry.isUpToDate()) {
+        // The instance was typechecked again, so it may belong to another class; the index must be rebuilt
+        myValid = false;
+        return null;
+      }
+      if (pred.test(entry)) {
+        return entry.myReferable;
+      }
+    }
+  }
+}
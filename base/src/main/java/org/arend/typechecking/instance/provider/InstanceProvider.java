@@ -1,9 +1,26 @@
 package org.arend.typechecking.instance.provider;
 
+import org.arend.core.definition.ClassDefinition;
 import org.arend.naming.reference.TCDefReferable;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.function.Predicate;
 
 public interface InstanceProvider {
   TCDefReferable findInstance(Predicate<TCDefReferable> pred);
+
+  /**
+   * Finds the last instance satisfying {@code pred} among instances of classes satisfying {@code classPred}.
+   * Instances are tested in the same order as in {@link #findInstance(Predicate)}.
+   * Instances that cannot match a classifying expression with head {@code classifyingHead} may be skipped.
+   *
+   * @param classifyingHead  the head of the classifying expression computed by {@link InstanceIndex#getHead}
+   *                         or null if it should not be taken into account.
+   */
+  default TCDefReferable findInstance(Predicate<ClassDefinition> classPred, @Nullable Object classifyingHead, Predicate<InstanceIndex.Entry> pred) {
+    return findInstance(instance -> {
+      InstanceIndex.Entry entry = InstanceIndex.makeEntry(instance);
+      return (entry.getClassDefinition() == null || classPred.test(entry.getClassDefinition())) && pred.test(entry);
+    });
+  }
 }
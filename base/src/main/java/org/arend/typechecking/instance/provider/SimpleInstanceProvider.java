@@ -1,14 +1,19 @@
 package org.arend.typechecking.instance.provider;
 
+import org.arend.core.definition.ClassDefinition;
 import org.arend.naming.reference.TCDefReferable;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
 public class SimpleInstanceProvider implements InstanceProvider {
   private final List<TCDefReferable> myInstances;
+  private volatile InstanceIndex myIndex;
+  private final AtomicLong myModificationStamp = new AtomicLong();
 
   public SimpleInstanceProvider() {
     myInstances = new ArrayList<>();
@@ -28,6 +33,7 @@ public class SimpleInstanceProvider implements InstanceProvider {
     } else {
       myInstances.add(index, instance);
     }
+    myModificationStamp.incrementAndGet();
   }
 
   public boolean isEmpty() {
@@ -35,16 +41,25 @@ public class SimpleInstanceProvider implements InstanceProvider {
   }
 
   public boolean remove(TCDefReferable instance) {
-    return myInstances.remove(instance);
+    boolean removed = myInstances.remove(instance);
+    if (removed) {
+      myModificationStamp.incrementAndGet();
+    }
+    return removed;
   }
 
+  /**
+   * @return an unmodifiable view of the list of instances.
+   *         The list must be modified with {@link #add}, {@link #remove}, and {@link #reverseFrom} so that the index is rebuilt.
+   */
   public List<TCDefReferable> getInstances() {
-    return myInstances;
+    return Collections.unmodifiableList(myInstances);
   }
 
   public void reverseFrom(int n) {
     if (myInstances.size() > n + 1) {
       Collections.reverse(myInstances.subList(n, myInstances.size()));
+      myModificationStamp.incrementAndGet();
     }
   }
 
@@ -57,4 +72,21 @@ public class SimpleInstanceProvider implements InstanceProvider {
     }
     return null;
   }
+
+  @Override
+  public TCDefReferable findInstance(Predicate<ClassDefinition> classPred, @Nullable Object classifyingHead, Predicate<InstanceIndex.Entry> pred) {
+    InstanceIndex index = getIndex();
+    TCDefReferable result = index.find(classPred, classifyingHead, pred);
+    return index.isUpToDate() ? result : getIndex().find(classPred, classifyingHead, pred);
+  }
+
+  private InstanceIndex getIndex() {
+    InstanceIndex index = myIndex;
+    long stamp = myModificationStamp.get();
+    if (index == null || index.getModificationStamp() != stamp || !index.isUpToDate()) {
+      index = new InstanceIndex(myInstances, stamp);
+      myIndex = index;
+    }
+    return index;
+  }
 }
@@ -1,13 +1,19 @@
 package org.arend.typechecking.order.dependency;
 
 import org.arend.core.definition.*;
+import org.arend.core.expr.visitor.WHNFCache;
 import org.arend.ext.typechecking.MetaDefinition;
 import org.arend.module.ModuleLocation;
+import org.arend.module.scopeprovider.ModuleScopeProvider;
+import org.arend.module.serialization.InterfaceFingerprint;
+import org.arend.naming.reference.LocatedReferable;
 import org.arend.naming.reference.MetaReferable;
 import org.arend.naming.reference.TCDefReferable;
 import org.arend.naming.reference.TCReferable;
 import org.arend.term.concrete.DefinableMetaDefinition;
+import org.arend.typechecking.computation.ComputationRunner;
 import org.arend.typechecking.visitor.CollectDefCallsVisitor;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -15,6 +21,20 @@ import java.util.concurrent.ConcurrentHashMap;
 public class DependencyCollector implements DependencyListener {
   private final Map<TCReferable, Set<TCReferable>> myDependencies = new ConcurrentHashMap<>();
   private final Map<TCReferable, Set<TCReferable>> myReverseDependencies = new ConcurrentHashMap<>();
+  private final Map<TCReferable, byte[]> myPendingFingerprints = new ConcurrentHashMap<>();
+  private final ModuleScopeProvider myModuleScopeProvider;
+
+  public DependencyCollector() {
+    myModuleScopeProvider = null;
+  }
+
+  /**
+   * @param moduleScopeProvider is used by {@link #update} to check if a definition still exists.
+   *                            If it is null, every updated definition is assumed to exist.
+   */
+  public DependencyCollector(@Nullable ModuleScopeProvider moduleScopeProvider) {
+    myModuleScopeProvider = moduleScopeProvider;
+  }
 
   @Override
   public void dependsOn(TCReferable def1, TCReferable def2) {
@@ -32,15 +52,125 @@ public class DependencyCollector implements DependencyListener {
     myReverseDependencies.computeIfAbsent(def2, k -> ConcurrentHashMap.newKeySet()).add(def1);
   }
 
+  /**
+   * Drops {@code definition} and definitions that depend on it.
+   * If the body of {@code definition} cannot be observed by other definitions (see {@link InterfaceFingerprint#isBodyObservable}),
+   * only {@code definition} itself is dropped.
+   * Dependent definitions are dropped by {@link #typechecked} if the interface fingerprint of {@code definition} changes.
+   * If {@code definition} was removed or renamed, it will not be typechecked again, so its dependents are dropped immediately.
+   */
   @Override
   public Set<? extends TCReferable> update(TCReferable definition) {
+    if (isRemoved(definition)) {
+      myPendingFingerprints.remove(definition);
+      return drop(Collections.singletonList(definition), true);
+    }
+
     if (definition instanceof TCDefReferable && ((TCDefReferable) definition).getTypechecked() == null) {
       return Collections.emptySet();
     }
 
-    Set<TCReferable> updated = new HashSet<>();
+    if (definition instanceof TCDefReferable defRef && defRef.getTypechecked() instanceof FunctionDefinition function && !InterfaceFingerprint.isBodyObservable(function) && isNotMutuallyRecursive(function)) {
+      byte[] fingerprint = InterfaceFingerprint.compute(function, this);
+      if (fingerprint != null) {
+        removeDependencies(definition, myDependencies.remove(definition));
+        // Keep the fingerprint that dependent definitions were typechecked against
+        myPendingFingerprints.putIfAbsent(definition, fingerprint);
+        WHNFCache.INSTANCE.invalidate(function);
+        defRef.dropAndCancelTypechecking();
+        cancelDependents(definition);
+        return Collections.singleton(definition);
+      }
+    }
+
+    myPendingFingerprints.remove(definition);
+    return drop(Collections.singletonList(definition), true);
+  }
+
+  /**
+   * Cancels computations that typecheck definitions depending on {@code definition}.
+   * Their typechecked definitions are kept since they are still valid if the interface of {@code definition} does not change.
+   */
+  private void cancelDependents(TCReferable definition) {
+    Set<TCReferable> visited = new HashSet<>();
     Stack<TCReferable> stack = new Stack<>();
     stack.push(definition);
+    while (!stack.isEmpty()) {
+      Set<TCReferable> reverseDependencies = myReverseDependencies.get(stack.pop());
+      if (reverseDependencies == null) {
+        continue;
+      }
+      for (TCReferable dependent : reverseDependencies) {
+        if (visited.add(dependent)) {
+          ComputationRunner.cancelComputations(dependent);
+          stack.push(dependent);
+        }
+      }
+    }
+  }
+
+  private boolean isRemoved(TCReferable definition) {
+    return myModuleScopeProvider != null && LocatedReferable.Helper.resolveReferable(definition, myModuleScopeProvider) != definition;
+  }
+
+  private static boolean isNotMutuallyRecursive(FunctionDefinition function) {
+    for (Definition recursiveDefinition : function.getRecursiveDefinitions()) {
+      if (recursiveDefinition != function) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void removeDependencies(TCReferable definition, Set<TCReferable> dependencies) {
+    if (dependencies != null) {
+      for (TCReferable dependency : dependencies) {
+        Set<TCReferable> definitions = myReverseDependencies.get(dependency);
+        if (definitions != null) {
+          definitions.remove(definition);
+        }
+      }
+    }
+  }
+
+  /**
+   * Drops definitions that depend on {@code definition} if it was dropped by {@link #update}
+   * and its interface fingerprint has changed since then.
+   * This method is invoked while the typechecking session that rechecks {@code definition} is still running,
+   * so computations of this session are not canceled, but computations of other sessions that typecheck dependent definitions are.
+   */
+  @Override
+  public Set<? extends TCReferable> typechecked(TCReferable definition) {
+    byte[] oldFingerprint = myPendingFingerprints.remove(definition);
+    if (oldFingerprint == null) {
+      return Collections.emptySet();
+    }
+
+    Definition typechecked = definition instanceof TCDefReferable ? ((TCDefReferable) definition).getTypechecked() : null;
+    byte[] newFingerprint = typechecked == null ? null : InterfaceFingerprint.compute(typechecked, this);
+    if (newFingerprint != null && Arrays.equals(oldFingerprint, newFingerprint)) {
+      return Collections.emptySet();
+    }
+
+    Set<TCReferable> reverseDependencies = myReverseDependencies.remove(definition);
+    return reverseDependencies == null ? Collections.emptySet() : drop(reverseDependencies, false);
+  }
+
+  private static void drop(TCDefReferable definition, boolean cancel) {
+    if (cancel) {
+      definition.dropAndCancelTypechecking();
+    } else {
+      synchronized (definition.getUpdateLock()) {
+        ComputationRunner.cancelOtherComputations(definition);
+        definition.setTypechecked(null);
+      }
+    }
+  }
+
+  private Set<TCReferable> drop(Collection<? extends TCReferable> definitions, boolean cancel) {
+    Set<TCReferable> updated = new HashSet<>();
+    Stack<TCReferable> stack = new Stack<>();
+    stack.addAll(definitions);
 
     while (!stack.isEmpty()) {
       TCReferable toUpdate = stack.pop();
@@ -61,14 +191,8 @@ public class DependencyCollector implements DependencyListener {
         dependencies = myDependencies.remove(toUpdate);
       }
 
-      if (dependencies != null) {
-        for (TCReferable dependency : dependencies) {
-          Set<TCReferable> definitions = myReverseDependencies.get(dependency);
-          if (definitions != null) {
-            definitions.remove(definition);
-          }
-        }
-      }
+      removeDependencies(toUpdate, dependencies);
+      myPendingFingerprints.remove(toUpdate);
 
       Set<TCReferable> reverseDependencies = myReverseDependencies.remove(toUpdate);
       if (reverseDependencies != null) {
@@ -82,15 +206,16 @@ public class DependencyCollector implements DependencyListener {
         continue;
       }
       Definition def = ((TCDefReferable) updatedDef).getTypechecked();
-      ((TCDefReferable) updatedDef).dropAndCancelTypechecking();
+      WHNFCache.INSTANCE.invalidate(def);
+      drop((TCDefReferable) updatedDef, cancel);
       if (def instanceof ClassDefinition) {
         for (ClassField field : ((ClassDefinition) def).getPersonalFields()) {
-          field.getReferable().dropAndCancelTypechecking();
+          drop(field.getReferable(), cancel);
           additional.add(field.getReferable());
         }
       } else if (def instanceof DataDefinition) {
         for (Constructor constructor : ((DataDefinition) def).getConstructors()) {
-          constructor.getReferable().dropAndCancelTypechecking();
+          drop(constructor.getReferable(), cancel);
           additional.add(constructor.getReferable());
         }
       }
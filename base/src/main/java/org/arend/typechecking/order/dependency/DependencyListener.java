@@ -2,10 +2,20 @@ package org.arend.typechecking.order.dependency;
 
 import org.arend.naming.reference.TCReferable;
 
+import java.util.Collections;
 import java.util.Set;
 
 public interface DependencyListener {
   void dependsOn(TCReferable def1, TCReferable def2);
   Set<? extends TCReferable> update(TCReferable definition);
   Set<? extends TCReferable> getDependencies(TCReferable definition);
+
+  /**
+   * Invoked after {@code definition} is typechecked.
+   *
+   * @return definitions that were dropped because of the changes in {@code definition}.
+   */
+  default Set<? extends TCReferable> typechecked(TCReferable definition) {
+    return Collections.emptySet();
+  }
 }
@@ -0,0 +1,338 @@
+package org.arend.typechecking.order.listener;
+
+import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.ListErrorReporter;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.naming.reference.TCReferable;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.computation.CancellationIndicator;
+import org.arend.typechecking.computation.ComputationRunner;
+import org.arend.typechecking.order.TarjanSCC;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.util.ComputationInterruptedException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Typechecks elements collected by {@link CollectingOrderingListener} on a work-stealing pool.
+ * Elements that share definitions are merged into a single task which is processed sequentially.
+ * A task is scheduled as soon as all tasks it depends on are finished.
+ * Errors are buffered per task and reported in the order of tasks, so the output does not depend on the scheduling.
+ */
+public class ParallelTypechecking implements DependencyListener {
+  private final DependencyListener myDependencyListener;
+  private final Map<TCReferable, Set<TCReferable>> myDependencies = new HashMap<>();
+
+  private static class Task {
+    final int index;
+    final List<CollectingOrderingListener.Element> elements = new ArrayList<>();
+    final Set<Task> dependencies = new LinkedHashSet<>();
+    final List<Task> dependents = new ArrayList<>();
+    final AtomicInteger remaining = new AtomicInteger();
+    final List<GeneralError> errors = new ArrayList<>();
+
+    Task(int index) {
+      this.index = index;
+    }
+  }
+
+  public ParallelTypechecking(DependencyListener dependencyListener) {
+    myDependencyListener = dependencyListener;
+  }
+
+  @Override
+  public void dependsOn(TCReferable def1, TCReferable def2) {
+    myDependencies.computeIfAbsent(def1, k -> new LinkedHashSet<>()).add(def2);
+    myDependencyListener.dependsOn(def1, def2);
+  }
+
+  @Override
+  public Set<? extends TCReferable> update(TCReferable definition) {
+    return myDependencyListener.update(definition);
+  }
+
+  @Override
+  public Set<? extends TCReferable> getDependencies(TCReferable definition) {
+    return myDependencyListener.getDependencies(definition);
+  }
+
+  @Override
+  public Set<? extends TCReferable> typechecked(TCReferable definition) {
+    return myDependencyListener.typechecked(definition);
+  }
+
+  private static int find(int[] parents, int i) {
+    while (parents[i] != i) {
+      parents[i] = parents[parents[i]];
+      i = parents[i];
+    }
+    return i;
+  }
+
+  private static void union(int[] parents, int i, int j) {
+    i = find(parents, i);
+    j = find(parents, j);
+    if (i < j) {
+      parents[j] = i;
+    } else if (j < i) {
+      parents[i] = j;
+    }
+  }
+
+  private static List<TCReferable> getReferables(CollectingOrderingListener.Element element) {
+    List<TCReferable> result = new ArrayList<>();
+    for (Concrete.ResolvableDefinition definition : element.getAllDefinitions()) {
+      result.add(definition.getData());
+      if (definition instanceof Concrete.UseDefinition useDef && useDef.getUseParent() != null) {
+        result.add(useDef.getUseParent());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Splits elements into tasks and orders them so that every task comes after its dependencies.
+   */
+  private List<Task> makeTasks(List<CollectingOrderingListener.Element> elements) {
+    int[] parents = new int[elements.size()];
+    for (int i = 0; i < parents.length; i++) {
+      parents[i] = i;
+    }
+
+    Map<TCReferable, Integer> owners = new HashMap<>();
+    for (int i = 0; i < elements.size(); i++) {
+      for (TCReferable referable : getReferables(elements.get(i))) {
+        Integer owner = owners.putIfAbsent(referable, i);
+        if (owner != null) {
+          union(parents, owner, i);
+        }
+      }
+    }
+
+    Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+    for (int i = 0; i < elements.size(); i++) {
+      groups.computeIfAbsent(find(parents, i), k -> new ArrayList<>()).add(i);
+    }
+
+    Map<Integer, Set<Integer>> groupDependencies = new HashMap<>();
+    for (Map.Entry<Integer, List<Integer>> entry : groups.entrySet()) {
+      Set<Integer> dependencies = new LinkedHashSet<>();
+      for (Integer index : entry.getValue()) {
+        for (TCReferable referable : getReferables(elements.get(index))) {
+          Set<TCReferable> refDependencies = myDependencies.get(referable);
+          if (refDependencies == null) continue;
+          for (TCReferable dependency : refDependencies) {
+            Integer owner = owners.get(dependency);
+            if (owner != null) {
+              owner = find(parents, owner);
+              if (!owner.equals(entry.getKey())) {
+                dependencies.add(owner);
+              }
+            }
+          }
+        }
+      }
+      groupDependencies.put(entry.getKey(), dependencies);
+    }
+
+    // Dependencies between groups may form cycles; such groups are merged
+    List<Task> tasks = new ArrayList<>();
+    Map<Integer, Task> groupToTask = new HashMap<>();
+    TarjanSCC<Integer> tarjan = new TarjanSCC<>() {
+      @Override
+      protected boolean forDependencies(Integer unit, Consumer<Integer> consumer) {
+        groupDependencies.get(unit).forEach(consumer);
+        return false;
+      }
+
+      @Override
+      protected void unitFound(Integer unit, boolean withLoops) {
+        sccFound(Collections.singletonList(unit));
+      }
+
+      @Override
+      protected void sccFound(List<Integer> scc) {
+        Task task = new Task(tasks.size());
+        List<Integer> indices = new ArrayList<>();
+        for (Integer group : scc) {
+          indices.addAll(groups.get(group));
+          groupToTask.put(group, task);
+        }
+        Collections.sort(indices);
+        for (Integer index : indices) {
+          task.elements.add(elements.get(index));
+        }
+        for (Integer group : scc) {
+          for (Integer dependency : groupDependencies.get(group)) {
+            Task depTask = groupToTask.get(dependency);
+            if (depTask != task) {
+              task.dependencies.add(depTask);
+            }
+          }
+        }
+        tasks.add(task);
+      }
+    };
+    for (Integer group : groups.keySet()) {
+      tarjan.order(group);
+    }
+
+    for (Task task : tasks) {
+      task.remaining.set(task.dependencies.size());
+      for (Task dependency : task.dependencies) {
+        dependency.dependents.add(task);
+      }
+    }
+    return tasks;
+  }
+
+  /**
+   * Feeds collected elements to {@code listener} using {@code numberOfThreads} threads.
+   * Errors are reported to {@code errorReporter} in a deterministic order.
+   * If the current thread is interrupted, the workers are canceled and awaited,
+   * and then {@link ComputationInterruptedException} is thrown with the interrupt flag restored.
+   */
+  public void typecheck(CollectingOrderingListener collector, TypecheckingOrderingListener listener, ErrorReporter errorReporter, int numberOfThreads) {
+    List<Task> tasks = makeTasks(collector.getElements());
+    if (tasks.isEmpty()) {
+      return;
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+    LinkedBlockingQueue<Task> finished = new LinkedBlockingQueue<>();
+    Map<Task, Throwable> failures = new ConcurrentHashMap<>();
+    CancellationIndicator parentIndicator = ComputationRunner.getCancellationIndicator();
+    AtomicBoolean interrupted = new AtomicBoolean();
+    CancellationIndicator cancellationIndicator = new CancellationIndicator() {
+      @Override
+      public boolean isCanceled() {
+        return interrupted.get() || parentIndicator.isCanceled();
+      }
+
+      @Override
+      public void cancel() {
+        interrupted.set(true);
+      }
+
+      @Override
+      public void cancel(TCDefReferable target) {
+        parentIndicator.cancel(target);
+      }
+    };
+
+    Consumer<Task> runner = new Consumer<>() {
+      @Override
+      public void accept(Task task) {
+        pool.execute(() -> {
+          try {
+            if (failures.isEmpty()) {
+              listener.runInWorker(cancellationIndicator, () -> {
+                listener.setLocalErrorReporter(new ListErrorReporter(task.errors));
+                try {
+                  for (CollectingOrderingListener.Element element : task.elements) {
+                    element.feedTo(listener);
+                  }
+                } finally {
+                  listener.setLocalErrorReporter(null);
+                }
+              });
+            }
+          } catch (Throwable e) {
+            failures.put(task, e);
+          }
+
+          try {
+            if (failures.isEmpty()) {
+              for (Task dependent : task.dependents) {
+                if (dependent.remaining.decrementAndGet() == 0) {
+                  accept(dependent);
+                }
+              }
+            }
+          } catch (RejectedExecutionException ignored) {
+            // The pool is shut down because another task has failed
+          } finally {
+            finished.add(task);
+          }
+        });
+      }
+    };
+
+    boolean[] isFinished = new boolean[tasks.size()];
+    int next = 0;
+    boolean wasInterrupted = false;
+    try {
+      for (Task task : tasks) {
+        if (task.dependencies.isEmpty()) {
+          runner.accept(task);
+        }
+      }
+
+      while (next < tasks.size() && failures.isEmpty()) {
+        Task task = finished.take();
+        isFinished[task.index] = true;
+        while (next < tasks.size() && isFinished[next]) {
+          for (GeneralError error : tasks.get(next).errors) {
+            errorReporter.report(error);
+          }
+          next++;
+        }
+      }
+    } catch (InterruptedException e) {
+      wasInterrupted = true;
+      interrupted.set(true);
+      pool.shutdownNow();
+    } finally {
+      pool.shutdown();
+      // Workers are waited for even if the thread is interrupted, since they still use the listener
+      while (!pool.isTerminated()) {
+        try {
+          pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          wasInterrupted = true;
+          interrupted.set(true);
+        }
+      }
+    }
+
+    if (wasInterrupted) {
+      Task task;
+      while ((task = finished.poll()) != null) {
+        isFinished[task.index] = true;
+      }
+      for (; next < tasks.size(); next++) {
+        if (isFinished[next]) {
+          for (GeneralError error : tasks.get(next).errors) {
+            errorReporter.report(error);
+          }
+        }
+      }
+      Thread.currentThread().interrupt();
+      throw new ComputationInterruptedException();
+    }
+
+    if (!failures.isEmpty()) {
+      Throwable failure = null;
+      for (Task task : tasks) {
+        failure = failures.get(task);
+        if (failure != null) break;
+      }
+      if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      }
+      if (failure instanceof Error) {
+        throw (Error) failure;
+      }
+      throw new IllegalStateException(failure);
+    }
+  }
+}
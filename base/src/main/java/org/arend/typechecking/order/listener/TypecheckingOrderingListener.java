@@ -48,19 +48,23 @@ import org.arend.ext.util.Pair;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 public class TypecheckingOrderingListener extends BooleanComputationRunner implements OrderingListener {
   private final DependencyListener myDependencyListener;
-  private final Map<TCDefReferable, Suspension> mySuspensions = new HashMap<>();
+  private final Map<TCDefReferable, Suspension> mySuspensions = new ConcurrentHashMap<>();
   private final ErrorReporter myErrorReporter;
+  private final ThreadLocal<ErrorReporter> myLocalErrorReporter = new ThreadLocal<>();
   private final InstanceProviderSet myInstanceProviderSet;
   private final ConcreteProvider myConcreteProvider;
   private final ReferableConverter myReferableConverter;
   private final PartialComparator<TCDefReferable> myComparator;
   private final ArendExtensionProvider myExtensionProvider;
-  private final Map<TCDefReferable, Concrete.ResolvableDefinition> myDesugaredDefinitions = new HashMap<>();
-  private List<TCDefReferable> myCurrentDefinitions = Collections.emptyList();
-  private boolean myHeadersAreOK = true;
+  private final Map<TCDefReferable, Concrete.ResolvableDefinition> myDesugaredDefinitions = new ConcurrentHashMap<>();
+  private final Set<TCDefReferable> myCurrentDefinitions = ConcurrentHashMap.newKeySet();
+  private final Set<TCDefReferable> myFailedHeaders = ConcurrentHashMap.newKeySet();
+  private int myNumberOfThreads = 1;
 
   private record Suspension(CheckTypeVisitor typechecker, boolean isNew, UniverseKind universeKind) {}
 
@@ -90,6 +94,41 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     return myReferableConverter;
   }
 
+  public int getNumberOfThreads() {
+    return myNumberOfThreads;
+  }
+
+  /**
+   * Sets the number of threads used to typecheck libraries, modules, and definitions.
+   * If it is greater than 1, independent definitions are typechecked in parallel.
+   * In this case, callbacks such as {@link #typecheckingUnitFinished} may be invoked concurrently.
+   */
+  public void setNumberOfThreads(int numberOfThreads) {
+    myNumberOfThreads = Math.max(numberOfThreads, 1);
+  }
+
+  void setLocalErrorReporter(ErrorReporter errorReporter) {
+    if (errorReporter == null) {
+      myLocalErrorReporter.remove();
+    } else {
+      myLocalErrorReporter.set(errorReporter);
+    }
+  }
+
+  /**
+   * Marks {@code definition} as being typechecked.
+   * If it is dropped before the current computation finishes, the computation is canceled.
+   */
+  private void addCurrentDefinition(TCDefReferable definition) {
+    myCurrentDefinitions.add(definition);
+    addComputedKey(definition);
+  }
+
+  private ErrorReporter getErrorReporter() {
+    ErrorReporter errorReporter = myLocalErrorReporter.get();
+    return errorReporter != null ? errorReporter : myErrorReporter;
+  }
+
   @Override
   protected Boolean computationInterrupted() {
     for (TCDefReferable currentDefinition : myCurrentDefinitions) {
@@ -97,18 +136,30 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
       currentDefinition.setTypechecked(null);
       typecheckingInterrupted(currentDefinition, typechecked);
     }
-    myCurrentDefinitions = Collections.emptyList();
+    myCurrentDefinitions.clear();
+    myFailedHeaders.clear();
     return false;
   }
 
+  private boolean order(boolean withInstances, Predicate<Ordering> orderer) {
+    if (myNumberOfThreads <= 1) {
+      return orderer.test(new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myComparator, withInstances));
+    }
+
+    CollectingOrderingListener collector = new CollectingOrderingListener();
+    ParallelTypechecking parallelTypechecking = new ParallelTypechecking(myDependencyListener);
+    boolean result = orderer.test(new Ordering(myInstanceProviderSet, myConcreteProvider, collector, parallelTypechecking, myReferableConverter, myComparator, withInstances));
+    parallelTypechecking.typecheck(collector, this, myErrorReporter, myNumberOfThreads);
+    return result;
+  }
+
   public boolean typecheckDefinitions(final Collection<? extends Concrete.ResolvableDefinition> definitions, CancellationIndicator cancellationIndicator, boolean withInstances) {
-    return run(cancellationIndicator, () -> {
-      Ordering ordering = new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myComparator, withInstances);
+    return run(cancellationIndicator, () -> order(withInstances, ordering -> {
       for (Concrete.ResolvableDefinition definition : definitions) {
         ordering.order(definition);
       }
       return true;
-    });
+    }));
   }
 
   public boolean typecheckDefinitions(final Collection<? extends Concrete.ResolvableDefinition> definitions, CancellationIndicator cancellationIndicator) {
@@ -116,14 +167,14 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
   }
 
   public boolean typecheckModules(final Collection<? extends Group> modules, CancellationIndicator cancellationIndicator) {
-    return run(cancellationIndicator, () -> {
-      new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myComparator).orderModules(modules);
+    return run(cancellationIndicator, () -> order(true, ordering -> {
+      ordering.orderModules(modules);
       return true;
-    });
+    }));
   }
 
   public boolean typecheckLibrary(Library library, CancellationIndicator cancellationIndicator) {
-    return run(cancellationIndicator, () -> library.orderModules(new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myComparator)));
+    return run(cancellationIndicator, () -> order(true, library::orderModules));
   }
 
   public boolean typecheckLibrary(Library library) {
@@ -131,7 +182,7 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
   }
 
   public boolean typecheckTests(Library library, CancellationIndicator cancellationIndicator) {
-    return run(cancellationIndicator, () -> library.orderTestModules(new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myComparator)));
+    return run(cancellationIndicator, () -> order(true, library::orderTestModules));
   }
 
   public boolean typecheckCollected(CollectingOrderingListener collector, CancellationIndicator cancellationIndicator) {
@@ -209,14 +260,12 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
 
   @Override
   public void unitFound(Concrete.ResolvableDefinition definition, boolean recursive) {
-    myHeadersAreOK = true;
-
     if (recursive) {
       Set<TCReferable> dependencies = new HashSet<>();
       definition.accept(new CollectDefCallsVisitor(dependencies, false), null);
       if (dependencies.contains(definition.getData())) {
         typecheckingUnitStarted(definition.getData());
-        myErrorReporter.report(new CycleError(Collections.singletonList(definition.getData())));
+        getErrorReporter().report(new CycleError(Collections.singletonList(definition.getData())));
         typecheckingUnitFinished(definition.getData(), newDefinition(definition));
         return;
       }
@@ -227,17 +276,18 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
 
     List<ExtElimClause> clauses;
     ArendExtension extension = myExtensionProvider.getArendExtension(definition.getData());
-    CheckTypeVisitor checkTypeVisitor = new CheckTypeVisitor(new LocalErrorReporter(definition.getData(), myErrorReporter), null, extension);
+    ErrorReporter errorReporter = getErrorReporter();
+    CheckTypeVisitor checkTypeVisitor = new CheckTypeVisitor(new LocalErrorReporter(definition.getData(), errorReporter), null, extension);
     checkTypeVisitor.setInstancePool(new GlobalInstancePool(myInstanceProviderSet.get(definition.getData()), checkTypeVisitor));
     definition = definition.accept(new ReplaceDataVisitor(), null);
     if (definition instanceof Concrete.FunctionDefinition funDef && funDef.getKind().isUse()) {
       myDesugaredDefinitions.put(funDef.getData(), funDef);
     }
     if (definition instanceof Concrete.Definition) {
-      WhereVarsFixVisitor.fixDefinition(Collections.singletonList((Concrete.Definition) definition), myErrorReporter);
+      WhereVarsFixVisitor.fixDefinition(Collections.singletonList((Concrete.Definition) definition), errorReporter);
     }
     DesugarVisitor.desugar(definition, checkTypeVisitor.getErrorReporter());
-    myCurrentDefinitions = Collections.singletonList(definition.getData());
+    addCurrentDefinition(definition.getData());
     typecheckingUnitStarted(definition.getData());
     DefinitionTypechecker typechecker = new DefinitionTypechecker(checkTypeVisitor, recursive ? Collections.singleton(definition.getData()) : Collections.emptySet());
     clauses = definition.accept(typechecker, null);
@@ -267,6 +317,7 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     }
 
     typecheckingUnitFinished(definition.getData(), typechecked);
+    myDependencyListener.typechecked(definition.getData());
 
     if (extension != null) {
       DefinitionListener listener = extension.getDefinitionListener();
@@ -275,7 +326,7 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
       }
     }
 
-    myCurrentDefinitions = Collections.emptyList();
+    myCurrentDefinitions.remove(definition.getData());
   }
 
   private void setParametersOriginalDefinitionsDependency(Definition definition) {
@@ -291,7 +342,7 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
       for (Concrete.ResolvableDefinition definition : definitions) {
         cycle.add(definition.getData());
       }
-      myErrorReporter.report(new CycleError("Instance dependency cycle", cycle, false));
+      getErrorReporter().report(new CycleError("Instance dependency cycle", cycle, false));
       return;
     }
 
@@ -309,9 +360,10 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
         typecheckingUnitStarted(def.getData());
         mySuspensions.remove(def.getData());
         typecheckingUnitFinished(def.getData(), typechecked);
+        myDependencyListener.typechecked(def.getData());
       }
     }
-    myErrorReporter.report(new CycleError(cycle));
+    getErrorReporter().report(new CycleError(cycle));
   }
 
   @Override
@@ -324,17 +376,17 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
         newDefs.add((Concrete.Definition) def);
       }
     }
-    WhereVarsFixVisitor.fixDefinition(newDefs, myErrorReporter);
+    WhereVarsFixVisitor.fixDefinition(newDefs, getErrorReporter());
   }
 
   @Override
   public void headerFound(Concrete.ResolvableDefinition definition) {
     Concrete.ResolvableDefinition newDef = myDesugaredDefinitions.get(definition.getData());
     if (newDef != null) definition = newDef;
-    myCurrentDefinitions = Collections.singletonList(definition.getData());
+    addCurrentDefinition(definition.getData());
     typecheckingHeaderStarted(definition.getData());
 
-    CountingErrorReporter countingErrorReporter = new CountingErrorReporter(myErrorReporter);
+    CountingErrorReporter countingErrorReporter = new CountingErrorReporter(getErrorReporter());
     CheckTypeVisitor visitor = new CheckTypeVisitor(new LocalErrorReporter(definition.getData(), countingErrorReporter), null, myExtensionProvider.getArendExtension(definition.getData()));
     visitor.setStatus(definition.getStatus().getTypecheckingStatus());
     DesugarVisitor.desugar(definition, visitor.getErrorReporter());
@@ -350,9 +402,9 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     }
 
     typecheckingHeaderFinished(definition.getData(), typechecked);
-    myCurrentDefinitions = Collections.emptyList();
+    myCurrentDefinitions.remove(definition.getData());
     if (!typechecked.status().headerIsOK()) {
-      myHeadersAreOK = false;
+      myFailedHeaders.add(definition.getData());
     }
   }
 
@@ -379,9 +431,12 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     orderedDefinitions.addAll(otherDefs);
 
     DefinitionTypechecker typechecking = new DefinitionTypechecker(null, refs);
-    myCurrentDefinitions = new ArrayList<>();
+    boolean headersAreOK = true;
     for (Concrete.ResolvableDefinition definition : orderedDefinitions) {
-      myCurrentDefinitions.add(definition.getData());
+      addCurrentDefinition(definition.getData());
+      if (myFailedHeaders.remove(definition.getData())) {
+        headersAreOK = false;
+      }
     }
 
     Set<Definition> newDefs = new HashSet<>();
@@ -404,7 +459,7 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
       if (suspension != null && suspension.isNew) {
         newDefs.add(def);
       }
-      if (myHeadersAreOK && suspension != null) {
+      if (headersAreOK && suspension != null) {
         typechecking.setTypechecker(suspension.typechecker);
         typechecking.updateState(suspension.isNew);
         List<? extends ElimClause<ExpressionPattern>> clauses = typechecking.typecheckBody(def, definition, dataDefinitions);
@@ -424,9 +479,9 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
         }
       }
     }
-    myCurrentDefinitions = Collections.emptyList();
-
-    myHeadersAreOK = true;
+    for (Concrete.ResolvableDefinition definition : orderedDefinitions) {
+      myCurrentDefinitions.remove(definition.getData());
+    }
 
     boolean fixLevels = true;
     Set<TopLevelDefinition> allDefinitions = new LinkedHashSet<>();
@@ -459,7 +514,7 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
         if (found != null) {
           entry.getKey().setBody(null);
           entry.getKey().addStatus(Definition.TypeCheckingStatus.HAS_ERRORS);
-          myErrorReporter.report(new TypecheckingError("Mutually recursive function refers to data type '" + found.getName() + "'", entry.getValue()).withDefinition(entry.getKey().getReferable()));
+          getErrorReporter().report(new TypecheckingError("Mutually recursive function refers to data type '" + found.getName() + "'", entry.getValue()).withDefinition(entry.getKey().getReferable()));
           it.remove();
           visitor.clear();
         }
@@ -477,7 +532,7 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
           return expr instanceof LeveledDefCallExpression && expr.getDefinition() instanceof TopLevelDefinition && allDefinitions.contains((TopLevelDefinition) expr.getDefinition()) && !((LeveledDefCallExpression) expr).getLevels().compare(expr.getDefinition().makeIdLevels(), CMP.EQ, DummyEquations.getInstance(), null) ? CoreExpression.FindAction.STOP : CoreExpression.FindAction.CONTINUE;
         }
       }, null)) {
-        myErrorReporter.report(new TypecheckingError("Recursive call must have the same levels as the definition", definition));
+        getErrorReporter().report(new TypecheckingError("Recursive call must have the same levels as the definition", definition));
       }
     }
 
@@ -490,6 +545,9 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     for (Definition definition : allDefinitions) {
       typecheckingBodyFinished(definition.getReferable(), definition);
     }
+    for (Concrete.ResolvableDefinition definition : orderedDefinitions) {
+      myDependencyListener.typechecked(definition.getData());
+    }
 
     for (Pair<Definition, DefinitionListener> pair : listeners) {
       pair.proj2.typechecked(pair.proj1);
@@ -498,16 +556,18 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
 
   @Override
   public void useFound(List<Concrete.UseDefinition> definitions) {
-    myCurrentDefinitions = new ArrayList<>();
     List<Concrete.UseDefinition> newDefs = new ArrayList<>(definitions.size());
     for (Concrete.UseDefinition definition : definitions) {
-      myCurrentDefinitions.add(definition.getData());
-      myCurrentDefinitions.add(definition.getUseParent());
+      addCurrentDefinition(definition.getData());
+      addCurrentDefinition(definition.getUseParent());
       Concrete.ResolvableDefinition newDef = myDesugaredDefinitions.get(definition.getData());
       newDefs.add(newDef instanceof Concrete.UseDefinition ? (Concrete.UseDefinition) newDef : definition);
     }
-    UseTypechecking.typecheck(newDefs, myErrorReporter);
-    myCurrentDefinitions = Collections.emptyList();
+    UseTypechecking.typecheck(newDefs, getErrorReporter());
+    for (Concrete.UseDefinition definition : definitions) {
+      myCurrentDefinitions.remove(definition.getData());
+      myCurrentDefinitions.remove(definition.getUseParent());
+    }
   }
 
   @Override
@@ -566,19 +626,19 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
       for (DependentLink link = entry.getKey().getParameters(); link.hasNext(); link = link.getNext()) {
         link = link.getNextTyped(null);
         if (FindDefCallVisitor.findDefinition(link.getTypeExpr(), definitions.keySet()) != null) {
-          myErrorReporter.report(new TypecheckingError("Mutually recursive functions are not allowed in parameters", entry.getValue()).withDefinition(entry.getKey().getReferable()));
+          getErrorReporter().report(new TypecheckingError("Mutually recursive functions are not allowed in parameters", entry.getValue()).withDefinition(entry.getKey().getReferable()));
           ok = false;
         }
       }
       if (entry.getValue() instanceof Concrete.FunctionDefinition && ((Concrete.FunctionDefinition) entry.getValue()).getBody() instanceof Concrete.CoelimFunctionBody) {
-        myErrorReporter.report(new TypecheckingError("Recursive functions cannot be defined by copattern matching", entry.getValue()).withDefinition(entry.getKey().getReferable()));
+        getErrorReporter().report(new TypecheckingError("Recursive functions cannot be defined by copattern matching", entry.getValue()).withDefinition(entry.getKey().getReferable()));
         ok = false;
       }
     }
 
     if (!definitionCallGraph.checkTermination()) {
       for (Map.Entry<Definition, Set<RecursiveBehavior<Definition>>> entry : definitionCallGraph.myErrorInfo.entrySet()) {
-        myErrorReporter.report(new TerminationCheckError(entry.getKey(), entry.getValue()));
+        getErrorReporter().report(new TerminationCheckError(entry.getKey(), entry.getValue()));
       }
       ok = false;
     }
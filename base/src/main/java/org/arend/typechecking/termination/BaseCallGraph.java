@@ -5,6 +5,7 @@ import java.util.*;
 
 public abstract class BaseCallGraph<T> {
   private final HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> myGraph = new HashMap<>();
+  private final Map<BaseCallMatrix.Cells, long[][]> myCellsPool = new HashMap<>();
 
   BaseCallGraph() {
   }
@@ -15,7 +16,7 @@ public abstract class BaseCallGraph<T> {
 
   public void add(Set<BaseCallMatrix<T>> set) {
     for (BaseCallMatrix<T> cm : set) {
-      append(cm, myGraph);
+      append(cm, myGraph, myCellsPool);
     }
   }
 
@@ -70,7 +71,8 @@ public abstract class BaseCallGraph<T> {
     return result.toString();
   }
 
-  private static <T> boolean append(BaseCallMatrix<T> cm, HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> graph) {
+  private static <T> boolean append(BaseCallMatrix<T> cm, HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> graph, Map<BaseCallMatrix.Cells, long[][]> pool) {
+    cm.intern(pool);
     HashSet<BaseCallMatrix<T>> set;
     HashMap<T, HashSet<BaseCallMatrix<T>>> map;
     if (!(graph.containsKey(cm.getDomain()))) {
@@ -125,7 +127,7 @@ public abstract class BaseCallGraph<T> {
         HashMap<T, HashSet<BaseCallMatrix<T>>> outboundArrows = oldGraph.get(vDom);
         for (T vCodom : outboundArrows.keySet()) {
           for (BaseCallMatrix<T> edge : outboundArrows.get(vCodom)) {
-            append(edge, newGraph);
+            append(edge, newGraph, myCellsPool);
           }
         }
       }
@@ -139,7 +141,7 @@ public abstract class BaseCallGraph<T> {
               ComputationRunner.checkCanceled();
               for (HashSet<BaseCallMatrix<T>> homSet : outboundEdges2.values()) {
                 for (BaseCallMatrix<T> arrow2 : homSet) {
-                  if (append(new CompositeCallMatrix<>(arrow, arrow2), newGraph)) {
+                  if (append(new CompositeCallMatrix<>(arrow, arrow2), newGraph, myCellsPool)) {
                     myNewEdges++;
                   }
                 }
@@ -5,7 +5,8 @@ import org.arend.ext.prettyprinting.doc.Doc;
 import org.arend.ext.prettyprinting.doc.DocFactory;
 import org.arend.ext.prettyprinting.doc.DocStringBuilder;
 import org.arend.util.StringFormat;
-import java.util.HashMap;
+
+import java.util.Arrays;
 import java.util.Map;
 
 public abstract class BaseCallMatrix<T> {
@@ -15,79 +16,91 @@ public abstract class BaseCallMatrix<T> {
     LessThan()
   }
 
-  private static BaseCallMatrix.R rmul(BaseCallMatrix.R a, BaseCallMatrix.R b) {
+  static boolean rleq(BaseCallMatrix.R a, BaseCallMatrix.R b) {
     switch (a) {
-      case Equal:
-        switch (b) {
-          case Equal:
-            return BaseCallMatrix.R.Equal;
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
       case LessThan:
-        switch (b) {
-          case Equal:
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
+        return (b == BaseCallMatrix.R.LessThan);
+      case Equal:
+        return (b == BaseCallMatrix.R.LessThan || b == BaseCallMatrix.R.Equal);
       default:
-        return BaseCallMatrix.R.Unknown;
+        return true;
     }
   }
 
-  private static BaseCallMatrix.R radd(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    if (a == R.LessThan || b == R.LessThan) return R.LessThan;
-    if (a == R.Equal || b == R.Equal) return R.Equal;
-    return R.Unknown;
-  }
+  /*
+   * Cells are stored in rows, 2 bits per cell, 32 cells per word.
+   * The encoding is chosen so that operations on R are bitwise operations:
+   * the sum (the maximum of two values) is bitwise or and a <= b iff (a & ~b) == 0.
+   * The product of a and b is 0 if one of them is 0 and (a | b) otherwise.
+   * Missing rows and words consist of unknown cells.
+   */
+  private static final long UNKNOWN = 0b00;
+  private static final long EQUAL = 0b01;
+  private static final long LESS_THAN = 0b11;
+  private static final long LOW_BITS = 0x5555555555555555L;
+  private static final int CELLS_PER_WORD = 32;
+  private static final long[] EMPTY_ROW = new long[0];
 
-  static boolean rleq(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    switch (a) {
-      case LessThan:
-        return (b == BaseCallMatrix.R.LessThan);
+  private static long encode(R r) {
+    switch (r) {
       case Equal:
-        return (b == BaseCallMatrix.R.LessThan || b == BaseCallMatrix.R.Equal);
+        return EQUAL;
+      case LessThan:
+        return LESS_THAN;
       default:
-        return true;
+        return UNKNOWN;
     }
   }
 
-  private final HashMap<Integer, HashMap<Integer, BaseCallMatrix.R>> matrixMap = new HashMap<>();
+  private static R decode(long bits) {
+    return bits == UNKNOWN ? R.Unknown : bits == EQUAL ? R.Equal : R.LessThan;
+  }
 
   private final int myWidth;
   private final int myHeight;
+  private long[][] myRows;
+  private int myHash;
+  private Map<Cells, long[][]> myPool;
 
   BaseCallMatrix(int width, int height) {
     myWidth = width;
     myHeight = height;
+    myRows = new long[height][];
+    Arrays.fill(myRows, EMPTY_ROW);
   }
 
   BaseCallMatrix(BaseCallMatrix<T> m1, BaseCallMatrix<T> m2) {
     // multiplication constructor
+    this(m2.myWidth, m1.myHeight);
     if (m1.myWidth != m2.myHeight) {
       throw new IllegalArgumentException();
     }
-    myHeight = m1.myHeight;
-    myWidth = m2.myWidth;
-
-    for (Integer i : m1.matrixMap.keySet()) {
-      HashMap<Integer, BaseCallMatrix.R> m1map = m1.matrixMap.get(i);
-      for (Integer j : m1map.keySet()) {
-        HashMap<Integer, BaseCallMatrix.R> m2map = m2.matrixMap.get(j);
-        if (m2map != null) for (Map.Entry<Integer, R> e : m2map.entrySet()) {
-          int k = e.getKey();
-          BaseCallMatrix.R ik_value = getValue(i, k);
-          if (ik_value != R.LessThan) {
-            BaseCallMatrix.R ik_summand = rmul(m1map.get(j), e.getValue());
-            BaseCallMatrix.R new_ik_value = radd(ik_value, ik_summand);
-            if (new_ik_value != ik_value) set(i, k, new_ik_value);
+
+    long[][] rows2 = m2.myRows;
+    for (int i = 0; i < m1.myRows.length; i++) {
+      long[] row1 = m1.myRows[i];
+      long[] row = EMPTY_ROW;
+      for (int k = 0; k < row1.length; k++) {
+        for (long word1 = row1[k]; word1 != 0; ) {
+          int shift = Long.numberOfTrailingZeros(word1) & ~1;
+          long a = (word1 >>> shift) & 0b11;
+          word1 &= ~(0b11L << shift);
+          int j = k * CELLS_PER_WORD + shift / 2;
+          long[] row2 = j < rows2.length ? rows2[j] : EMPTY_ROW;
+          if (row.length < row2.length) {
+            row = Arrays.copyOf(row, row2.length);
+          }
+          for (int l = 0; l < row2.length; l++) {
+            long word2 = row2[l];
+            // Equal keeps the cells of m2; LessThan turns every known cell into LessThan
+            row[l] |= a == EQUAL ? word2 : word2 | ((word2 & LOW_BITS) << 1);
           }
         }
       }
+      if (i >= myRows.length) {
+        growRows(i + 1);
+      }
+      myRows[i] = row;
     }
   }
 
@@ -105,24 +118,140 @@ public abstract class BaseCallMatrix<T> {
 
   public abstract int getCompositeLength();
 
+  private void growRows(int size) {
+    int oldSize = myRows.length;
+    myRows = Arrays.copyOf(myRows, size);
+    Arrays.fill(myRows, oldSize, size, EMPTY_ROW);
+  }
+
   public void set(int i, int j, BaseCallMatrix.R v) {
-    if (v != R.Unknown) {
-      HashMap<Integer, BaseCallMatrix.R> map = matrixMap.computeIfAbsent(i, k -> new HashMap<>());
-      map.put(j, v);
+    if (i < 0 || j < 0) {
+      throw new IndexOutOfBoundsException();
+    }
+    // Rows are never modified in place since they may be shared with other matrices
+    if (myPool != null) {
+      myRows = myRows.clone();
+      myPool = null;
+    }
+    if (i >= myRows.length) {
+      growRows(i + 1);
+    }
+
+    int index = j / CELLS_PER_WORD;
+    long[] row = myRows[i];
+    if (index >= row.length) {
+      if (v == R.Unknown) return;
+      row = Arrays.copyOf(row, index + 1);
     } else {
-      HashMap<Integer, BaseCallMatrix.R> map = matrixMap.get(i);
-      if (map != null) {
-        map.remove(j);
-      }
+      row = row.clone();
     }
+    int shift = 2 * (j % CELLS_PER_WORD);
+    row[index] = (row[index] & ~(0b11L << shift)) | (encode(v) << shift);
+    myRows[i] = row;
+    myHash = 0;
   }
 
   public BaseCallMatrix.R getValue(int i, int j) {
-    HashMap<Integer, BaseCallMatrix.R> result = matrixMap.get(i);
-    if (result == null) return R.Unknown; else {
-      BaseCallMatrix.R result2 = result.get(j);
-      if (result2 == null) return R.Unknown; else return result2;
+    if (i < 0 || j < 0 || i >= myRows.length) return R.Unknown;
+    long[] row = myRows[i];
+    int index = j / CELLS_PER_WORD;
+    return index >= row.length ? R.Unknown : decode((row[index] >>> (2 * (j % CELLS_PER_WORD))) & 0b11);
+  }
+
+  private static long getWord(long[][] rows, int i, int k) {
+    if (i >= rows.length) return 0;
+    long[] row = rows[i];
+    return k < row.length ? row[k] : 0;
+  }
+
+  private static int getMaxRowLength(long[][] rows) {
+    int result = 0;
+    for (long[] row : rows) {
+      result = Math.max(result, row.length);
+    }
+    return result;
+  }
+
+  private static boolean equalRows(long[][] rows1, long[][] rows2) {
+    if (rows1 == rows2) return true;
+    if (rows1.length == rows2.length) {
+      boolean sameLengths = true;
+      for (int i = 0; i < rows1.length; i++) {
+        if (rows1[i].length != rows2[i].length) {
+          sameLengths = false;
+          break;
+        }
+      }
+      if (sameLengths) {
+        for (int i = 0; i < rows1.length; i++) {
+          if (!Arrays.equals(rows1[i], rows2[i])) return false;
+        }
+        return true;
+      }
+    }
+
+    int height = Math.max(rows1.length, rows2.length);
+    int width = Math.max(getMaxRowLength(rows1), getMaxRowLength(rows2));
+    for (int i = 0; i < height; i++) {
+      for (int k = 0; k < width; k++) {
+        if (getWord(rows1, i, k) != getWord(rows2, i, k)) return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A hash that does not depend on trailing unknown cells.
+   */
+  private static int hashRows(long[][] rows) {
+    int result = 0;
+    for (int i = 0; i < rows.length; i++) {
+      long[] row = rows[i];
+      for (int k = 0; k < row.length; k++) {
+        if (row[k] != 0) {
+          result = result * 1000003 + (i * 65537 + k) ^ Long.hashCode(row[k]);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * A key for the pool of interned rows.
+   */
+  static final class Cells {
+    private final long[][] myRows;
+    private final int myHash;
+
+    private Cells(long[][] rows) {
+      myRows = rows;
+      myHash = hashRows(rows);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Cells && equalRows(myRows, ((Cells) obj).myRows);
+    }
+
+    @Override
+    public int hashCode() {
+      return myHash;
+    }
+  }
+
+  /**
+   * Replaces the rows of this matrix with equal rows from {@code pool}.
+   * Matrices interned in the same pool are equal if and only if they have the same rows and the same (co)domain.
+   */
+  void intern(Map<Cells, long[][]> pool) {
+    if (myPool == pool) {
+      return;
     }
+    long[][] rows = pool.putIfAbsent(new Cells(myRows), myRows);
+    if (rows != null) {
+      myRows = rows;
+    }
+    myPool = pool;
   }
 
   @Override
@@ -130,7 +259,9 @@ public abstract class BaseCallMatrix<T> {
     if (object instanceof BaseCallMatrix) {
       BaseCallMatrix<?> cm = (BaseCallMatrix<?>) object;
       if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain()) return false;
-      return cm.matrixMap.equals(this.matrixMap);
+      if (myRows == cm.myRows) return true;
+      if (myPool != null && myPool == cm.myPool) return false;
+      return equalRows(myRows, cm.myRows);
     }
     return false;
   }
@@ -140,12 +271,10 @@ public abstract class BaseCallMatrix<T> {
       BaseCallMatrix<?> cm = (BaseCallMatrix<?>) object;
       if (this.equals(cm)) return R.Equal;
       if (this.getDomain() != cm.getDomain() || this.getCodomain() != cm.getCodomain()) throw new IllegalArgumentException();
-      for (Integer i : matrixMap.keySet()) {
-        HashMap<Integer, R> map = matrixMap.get(i);
-        for (Integer j : map.keySet()) {
-          R my = map.get(j);
-          R theirs = cm.getValue(i, j);
-          if (!rleq(my, theirs)) return R.Unknown;
+      for (int i = 0; i < myRows.length; i++) {
+        long[] row = myRows[i];
+        for (int k = 0; k < row.length; k++) {
+          if ((row[k] & ~getWord(cm.myRows, i, k)) != 0) return R.Unknown;
         }
       }
       return R.LessThan;
@@ -155,8 +284,11 @@ public abstract class BaseCallMatrix<T> {
 
   @Override
   public final int hashCode() {
-    int result = getCodomain().hashCode() * 31 + getDomain().hashCode();
-    return result * 31 + matrixMap.hashCode();
+    if (myHash == 0) {
+      int result = getCodomain().hashCode() * 31 + getDomain().hashCode();
+      myHash = result * 31 + hashRows(myRows);
+    }
+    return myHash;
   }
 
   protected String[] getColumnLabels() {
@@ -7,11 +7,18 @@ import org.arend.ext.prettyprinting.doc.DocFactory;
 public class CompositeCallMatrix<T> extends BaseCallMatrix<T> {
   private final BaseCallMatrix<T> myM1;
   private final BaseCallMatrix<T> myM2;
+  private final T myDomain;
+  private final T myCodomain;
+  private final int myCompositeLength;
 
   CompositeCallMatrix(BaseCallMatrix<T> m1, BaseCallMatrix<T> m2) {
     super(m1, m2);
     myM1 = m1;
     myM2 = m2;
+    // Composite matrices form long chains, so these are not recomputed recursively
+    myDomain = m1.getDomain();
+    myCodomain = m2.getCodomain();
+    myCompositeLength = m1.getCompositeLength() + m2.getCompositeLength();
   }
 
   @Override
@@ -21,17 +28,17 @@ public class CompositeCallMatrix<T> extends BaseCallMatrix<T> {
 
   @Override
   public T getCodomain() {
-    return myM2.getCodomain();
+    return myCodomain;
   }
 
   @Override
   public T getDomain() {
-    return myM1.getDomain();
+    return myDomain;
   }
 
   @Override
   public int getCompositeLength() {
-    return myM1.getCompositeLength() + myM2.getCompositeLength();
+    return myCompositeLength;
   }
 
   @Override
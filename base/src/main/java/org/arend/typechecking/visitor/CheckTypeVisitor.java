@@ -101,6 +101,7 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
   private final List<DeferredMeta> myDeferredMetasAfterLevels = new ArrayList<>();
   private final ArendExtension myArendExtension;
   private TypecheckerState mySavedState;
+  private final List<InferenceVariable> mySolvedVariables = new ArrayList<>(); // variables solved since the first saved state
   private LevelContext myLevelContext;
   private Definition myDefinition;
   private Set<TCDefReferable> myRecursiveDefinitions = Collections.emptySet();
@@ -3649,13 +3650,13 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
 
   public void variableSolved(InferenceVariable variable) {
     if (mySavedState != null) {
-      mySavedState.solvedVariables.add(variable);
+      mySolvedVariables.add(variable);
     }
   }
 
   private void saveState() {
     ListErrorReporter listErrorReporter = new ListErrorReporter();
-    TypecheckerState state = new TypecheckerState(errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), copyUserData(), mySavedState, listErrorReporter, myAllowDeferredMetas);
+    TypecheckerState state = new TypecheckerState(errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), mySolvedVariables.size(), copyUserData(), mySavedState, listErrorReporter, myAllowDeferredMetas);
     errorReporter = new MyErrorReporter(listErrorReporter);
     myEquations.saveState(state);
     mySavedState = state;
@@ -3664,10 +3665,11 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
   private void restoreState() {
     mySavedState.listErrorReporter.reportTo(mySavedState.errorReporter);
     errorReporter = mySavedState.errorReporter;
-    if (mySavedState.previousState != null) {
-      mySavedState.previousState.solvedVariables.addAll(mySavedState.solvedVariables);
-    }
+    myEquations.discardState(mySavedState);
     mySavedState = mySavedState.previousState;
+    if (mySavedState == null) {
+      mySolvedVariables.clear();
+    }
   }
 
   @Override
@@ -3688,10 +3690,11 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
 
     mySavedState.listErrorReporter.reportTo(mySavedState.errorReporter);
     mySavedState.listErrorReporter.getErrorList().clear();
-    if (mySavedState.previousState != null) {
-      mySavedState.previousState.solvedVariables.addAll(mySavedState.solvedVariables);
+    if (mySavedState.previousState == null) {
+      mySolvedVariables.clear();
     }
-    TypecheckerState state = new TypecheckerState(mySavedState.errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), copyUserData(), mySavedState.previousState, mySavedState.listErrorReporter, mySavedState.allowDeferredMetas);
+    TypecheckerState state = new TypecheckerState(mySavedState.errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), mySolvedVariables.size(), copyUserData(), mySavedState.previousState, mySavedState.listErrorReporter, mySavedState.allowDeferredMetas);
+    myEquations.discardState(mySavedState);
     myEquations.saveState(state);
     mySavedState = state;
   }
@@ -3707,10 +3710,12 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     setUserData(state.userDataHolder);
     myAllowDeferredMetas = state.allowDeferredMetas;
 
-    for (InferenceVariable var : state.solvedVariables) {
-      var.unsolve();
+    for (int i = mySolvedVariables.size() - 1; i >= state.numberOfSolvedVariables; i--) {
+      mySolvedVariables.get(i).unsolve();
+    }
+    if (mySolvedVariables.size() > state.numberOfSolvedVariables) {
+      mySolvedVariables.subList(state.numberOfSolvedVariables, mySolvedVariables.size()).clear();
     }
-    state.solvedVariables.clear();
 
     myEquations.loadState(state);
   }
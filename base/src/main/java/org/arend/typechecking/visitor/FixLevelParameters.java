@@ -110,7 +110,9 @@ public class FixLevelParameters extends VoidExpressionVisitor<Void> {
   }
 
   private void processDefCall(DefCallExpression defCall) {
-    if (!(defCall instanceof LeveledDefCallExpression)) return;
+    // Interned expressions are shared between definitions, so they cannot be modified.
+    // They are loaded from binaries, and their levels were fixed before the binaries were written.
+    if (!(defCall instanceof LeveledDefCallExpression) || defCall.isInterned()) return;
     LeveledDefCallExpression leveled = (LeveledDefCallExpression) defCall;
     if (myDefinitions == null) {
       List<? extends LevelVariable> params = leveled.getDefinition().getLevelParameters();
@@ -124,6 +126,7 @@ public class FixLevelParameters extends VoidExpressionVisitor<Void> {
 
   @Override
   public Void visitDefCall(DefCallExpression expr, Void params) {
+    if (expr.isInterned()) return null;
     processDefCall(expr);
     return super.visitDefCall(expr, params);
   }
@@ -0,0 +1,253 @@
+package org.arend.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * An immutable list that supports concatenation, dropping and taking prefixes in logarithmic time.
+ * It is represented as an AVL-balanced rope whose leaves are slices of other lists, so these operations do not copy elements.
+ * Lists wrapped by {@link #of} must not be modified afterwards.
+ */
+public abstract class PersistentList<E> extends AbstractList<E> implements RandomAccess {
+  // Leaves with at most this many elements are merged on concatenation
+  private static final int MAX_MERGED_LEAF_SIZE = 32;
+
+  private PersistentList() {}
+
+  @SuppressWarnings("unchecked")
+  public static <E> PersistentList<E> of(List<? extends E> list) {
+    return list instanceof PersistentList ? (PersistentList<E>) list : new Leaf<>(list, 0, list.size());
+  }
+
+  public static <E> PersistentList<E> concat(List<? extends E> list1, List<? extends E> list2) {
+    return join(of(list1), of(list2));
+  }
+
+  abstract int height();
+
+  /**
+   * @return the list without the first {@code n} elements.
+   * @throws IndexOutOfBoundsException if {@code n} is negative or greater than the size of the list.
+   */
+  public PersistentList<E> drop(int n) {
+    Objects.checkIndex(n, size() + 1);
+    return dropPrefix(n);
+  }
+
+  /**
+   * @return the first {@code n} elements of the list.
+   * @throws IndexOutOfBoundsException if {@code n} is negative or greater than the size of the list.
+   */
+  public PersistentList<E> take(int n) {
+    Objects.checkIndex(n, size() + 1);
+    return takePrefix(n);
+  }
+
+  abstract PersistentList<E> dropPrefix(int n);
+
+  abstract PersistentList<E> takePrefix(int n);
+
+  abstract void copyTo(Object[] array, int offset);
+
+  @Override
+  public @NotNull PersistentList<E> subList(int fromIndex, int toIndex) {
+    Objects.checkFromToIndex(fromIndex, toIndex, size());
+    return dropPrefix(fromIndex).takePrefix(toIndex - fromIndex);
+  }
+
+  private static <E> PersistentList<E> join(PersistentList<E> left, PersistentList<E> right) {
+    if (right.isEmpty()) return left;
+    if (left.isEmpty()) return right;
+
+    int size = left.size() + right.size();
+    if (size <= MAX_MERGED_LEAF_SIZE) {
+      Object[] array = new Object[size];
+      left.copyTo(array, 0);
+      right.copyTo(array, left.size());
+      @SuppressWarnings("unchecked") List<E> list = (List<E>) Arrays.asList(array);
+      return new Leaf<>(list, 0, size);
+    }
+
+    int diff = left.height() - right.height();
+    if (diff > 1) {
+      Node<E> node = (Node<E>) left;
+      return balance(node.myLeft, join(node.myRight, right));
+    }
+    if (diff < -1) {
+      Node<E> node = (Node<E>) right;
+      return balance(join(left, node.myLeft), node.myRight);
+    }
+    return new Node<>(left, right);
+  }
+
+  private static <E> PersistentList<E> balance(PersistentList<E> left, PersistentList<E> right) {
+    int diff = left.height() - right.height();
+    if (diff > 1) {
+      Node<E> node = (Node<E>) left;
+      if (node.myLeft.height() >= node.myRight.height()) {
+        return new Node<>(node.myLeft, new Node<>(node.myRight, right));
+      }
+      Node<E> inner = (Node<E>) node.myRight;
+      return new Node<>(new Node<>(node.myLeft, inner.myLeft), new Node<>(inner.myRight, right));
+    }
+    if (diff < -1) {
+      Node<E> node = (Node<E>) right;
+      if (node.myRight.height() >= node.myLeft.height()) {
+        return new Node<>(new Node<>(left, node.myLeft), node.myRight);
+      }
+      Node<E> inner = (Node<E>) node.myLeft;
+      return new Node<>(new Node<>(left, inner.myLeft), new Node<>(inner.myRight, node.myRight));
+    }
+    return new Node<>(left, right);
+  }
+
+  @Override
+  public E get(int index) {
+    Objects.checkIndex(index, size());
+    PersistentList<E> list = this;
+    while (list instanceof Node<E> node) {
+      int leftSize = node.myLeft.size();
+      if (index < leftSize) {
+        list = node.myLeft;
+      } else {
+        list = node.myRight;
+        index -= leftSize;
+      }
+    }
+    Leaf<E> leaf = (Leaf<E>) list;
+    return leaf.myList.get(leaf.myOffset + index);
+  }
+
+  @Override
+  public @NotNull Iterator<E> iterator() {
+    return new Iterator<>() {
+      private final Deque<PersistentList<E>> myStack = new ArrayDeque<>();
+      private Leaf<E> myLeaf;
+      private int myIndex;
+
+      {
+        descend(PersistentList.this);
+      }
+
+      private void descend(PersistentList<E> list) {
+        while (list instanceof Node<E> node) {
+          myStack.push(node.myRight);
+          list = node.myLeft;
+        }
+        myLeaf = (Leaf<E>) list;
+        myIndex = 0;
+      }
+
+      @Override
+      public boolean hasNext() {
+        while (myIndex >= myLeaf.mySize) {
+          if (myStack.isEmpty()) return false;
+          descend(myStack.pop());
+        }
+        return true;
+      }
+
+      @Override
+      public E next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return myLeaf.myList.get(myLeaf.myOffset + myIndex++);
+      }
+    };
+  }
+
+  private static final class Leaf<E> extends PersistentList<E> {
+    private final List<? extends E> myList;
+    private final int myOffset;
+    private final int mySize;
+
+    private Leaf(List<? extends E> list, int offset, int size) {
+      myList = list;
+      myOffset = offset;
+      mySize = size;
+    }
+
+    @Override
+    public int size() {
+      return mySize;
+    }
+
+    @Override
+    int height() {
+      return 0;
+    }
+
+    @Override
+    PersistentList<E> dropPrefix(int n) {
+      return n == 0 ? this : new Leaf<>(myList, myOffset + n, mySize - n);
+    }
+
+    @Override
+    PersistentList<E> takePrefix(int n) {
+      return n == mySize ? this : new Leaf<>(myList, myOffset, n);
+    }
+
+    @Override
+    void copyTo(Object[] array, int offset) {
+      for (int i = 0; i < mySize; i++) {
+        array[offset + i] = myList.get(myOffset + i);
+      }
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+      for (int i = 0; i < mySize; i++) {
+        action.accept(myList.get(myOffset + i));
+      }
+    }
+  }
+
+  private static final class Node<E> extends PersistentList<E> {
+    private final PersistentList<E> myLeft;
+    private final PersistentList<E> myRight;
+    private final int mySize;
+    private final int myHeight;
+
+    private Node(PersistentList<E> left, PersistentList<E> right) {
+      myLeft = left;
+      myRight = right;
+      mySize = left.size() + right.size();
+      myHeight = Math.max(left.height(), right.height()) + 1;
+    }
+
+    @Override
+    public int size() {
+      return mySize;
+    }
+
+    @Override
+    int height() {
+      return myHeight;
+    }
+
+    @Override
+    PersistentList<E> dropPrefix(int n) {
+      int leftSize = myLeft.size();
+      return n >= leftSize ? myRight.dropPrefix(n - leftSize) : n == 0 ? this : join(myLeft.dropPrefix(n), myRight);
+    }
+
+    @Override
+    PersistentList<E> takePrefix(int n) {
+      int leftSize = myLeft.size();
+      return n <= leftSize ? myLeft.takePrefix(n) : n == mySize ? this : join(myLeft, myRight.takePrefix(n - leftSize));
+    }
+
+    @Override
+    void copyTo(Object[] array, int offset) {
+      myLeft.copyTo(array, offset);
+      myRight.copyTo(array, offset + myLeft.size());
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+      myLeft.forEach(action);
+      myRight.forEach(action);
+    }
+  }
+}
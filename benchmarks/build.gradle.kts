@@ -0,0 +1,21 @@
+plugins {
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+dependencies {
+    val antlrVersion: String by rootProject.ext
+    val protobufVersion: String by rootProject.ext
+    jmh(project(":base"))
+    jmh(project(":proto"))
+    jmh(project(":parser"))
+    jmh(project(":cli"))
+    jmh("org.antlr:antlr4-runtime:$antlrVersion")
+    jmh("com.google.protobuf:protobuf-java:$protobufVersion")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+}
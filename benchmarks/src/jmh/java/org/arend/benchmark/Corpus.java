@@ -0,0 +1,141 @@
+package org.arend.benchmark;
+
+import org.arend.ext.module.ModulePath;
+
+import java.util.*;
+
+/**
+ * A reproducible corpus of Arend modules.
+ * The base module defines lists, arithmetic on unary numbers, a class with an instance, and a record.
+ * Every generated module defines recursive functions and proves facts about them and about the base module by computation,
+ * so typechecking the corpus exercises normalization, comparison, substitution, instance search, and inference of implicit arguments.
+ */
+public final class Corpus {
+  public static final ModulePath BASE = new ModulePath("Corpus", "Base");
+  public static final long SEED = 20240917L;
+
+  private static final String BASE_SOURCE = """
+    \\data List (A : \\Type) | nil | cons A (List A)
+
+    \\func plus (n m : Nat) : Nat \\elim m
+      | 0 => n
+      | suc m => suc (plus n m)
+
+    \\func times (n m : Nat) : Nat \\elim m
+      | 0 => 0
+      | suc m => plus (times n m) n
+
+    \\func fib (n : Nat) : Nat \\elim n
+      | 0 => 0
+      | 1 => 1
+      | suc (suc n) => plus (fib n) (fib (suc n))
+
+    \\func length {A : \\Type} (xs : List A) : Nat \\elim xs
+      | nil => 0
+      | cons _ xs => suc (length xs)
+
+    \\func append {A : \\Type} (xs ys : List A) : List A \\elim xs
+      | nil => ys
+      | cons x xs => cons x (append xs ys)
+
+    \\func map {A B : \\Type} (f : A -> B) (xs : List A) : List B \\elim xs
+      | nil => nil
+      | cons x xs => cons (f x) (map f xs)
+
+    \\func range (n : Nat) : List Nat \\elim n
+      | 0 => nil
+      | suc n => cons n (range n)
+
+    \\func sum (xs : List Nat) : Nat \\elim xs
+      | nil => 0
+      | cons x xs => plus x (sum xs)
+
+    \\class Monoid (E : \\Set) | ide : E | op : E -> E -> E
+
+    \\instance NatMonoid : Monoid Nat | ide => 0 | op => plus
+
+    \\func fold {M : Monoid} (xs : List M) : M \\elim xs
+      | nil => ide
+      | cons x xs => op x (fold xs)
+
+    \\record Triple (a b c : Nat)
+    """;
+
+  private final Map<ModulePath, String> mySources = new LinkedHashMap<>();
+
+  /**
+   * Generates a corpus.
+   *
+   * @param modules   the number of generated modules in addition to the base one.
+   * @param seed      the seed that determines the contents of the corpus.
+   */
+  public Corpus(int modules, long seed) {
+    mySources.put(BASE, BASE_SOURCE);
+
+    Random random = new Random(seed);
+    int[] constants = new int[modules];
+    int[] steps = new int[modules];
+    for (int i = 0; i < modules; i++) {
+      constants[i] = random.nextInt(10);
+      steps[i] = 1 + random.nextInt(4);
+      int dependency = i == 0 ? i : random.nextInt(i);
+      int factor = 1 + random.nextInt(4);
+      int arg = 5 + random.nextInt(10);
+      int fibArg = 8 + random.nextInt(5);
+      int rangeArg = 10 + random.nextInt(20);
+      int rangeArg2 = 5 + random.nextInt(10);
+
+      StringBuilder builder = new StringBuilder();
+      builder.append("\\import Corpus.Base\n");
+      if (dependency != i) {
+        builder.append("\\import ").append(module(dependency)).append("\n");
+      }
+      builder.append("\n")
+        .append("\\func f").append(i).append(" (n : Nat) : Nat \\elim n\n")
+        .append("  | 0 => ").append(constants[i]).append("\n")
+        .append("  | suc n => plus (f").append(i).append(" n) ").append(steps[i]).append("\n\n")
+        .append("\\func g").append(i).append(" (x : Nat) : Nat => \\let y => times x ").append(factor).append(" \\in plus y (f").append(dependency).append(" x)\n\n")
+        .append("\\func h").append(i).append(" : \\Pi (x : Nat) -> Nat => \\lam x => g").append(i).append(" (suc x)\n\n")
+        .append("\\func fTest").append(i).append(" : f").append(i).append(" ").append(arg).append(" = ").append(f(constants[i], steps[i], arg)).append(" => idp\n\n")
+        .append("\\func gTest").append(i).append(" : g").append(i).append(" ").append(arg).append(" = ").append(arg * factor + f(constants[dependency], steps[dependency], arg)).append(" => idp\n\n")
+        .append("\\func hTest").append(i).append(" : h").append(i).append(" ").append(arg).append(" = ").append((arg + 1) * factor + f(constants[dependency], steps[dependency], arg + 1)).append(" => idp\n\n")
+        .append("\\func fibTest").append(i).append(" : fib ").append(fibArg).append(" = ").append(fib(fibArg)).append(" => idp\n\n")
+        .append("\\func sumTest").append(i).append(" : sum (range ").append(rangeArg).append(") = ").append(triangle(rangeArg)).append(" => idp\n\n")
+        .append("\\func mapTest").append(i).append(" : sum (map (\\lam x => plus x ").append(steps[i]).append(") (range ").append(rangeArg2).append(")) = ").append(triangle(rangeArg2) + rangeArg2 * steps[i]).append(" => idp\n\n")
+        .append("\\func foldTest").append(i).append(" : fold (append (range ").append(rangeArg2).append(") (range ").append(rangeArg).append(")) = ").append(triangle(rangeArg2) + triangle(rangeArg)).append(" => idp\n\n")
+        .append("\\func lengthTest").append(i).append(" : length (append (range ").append(rangeArg2).append(") (range ").append(rangeArg).append(")) = ").append(rangeArg2 + rangeArg).append(" => idp\n\n")
+        .append("\\func triple").append(i).append(" : Triple { | a => ").append(i).append(" } => \\new Triple { | a => ").append(i).append(" | b => ").append(steps[i]).append(" | c => ").append(constants[i]).append(" }\n");
+      mySources.put(module(i), builder.toString());
+    }
+  }
+
+  public static ModulePath module(int index) {
+    return new ModulePath("Corpus", "M" + index);
+  }
+
+  public Map<ModulePath, String> getSources() {
+    return mySources;
+  }
+
+  public List<ModulePath> getModules() {
+    return new ArrayList<>(mySources.keySet());
+  }
+
+  private static int f(int constant, int step, int n) {
+    return constant + step * n;
+  }
+
+  private static int fib(int n) {
+    int a = 0, b = 1;
+    for (int i = 0; i < n; i++) {
+      int c = a + b;
+      a = b;
+      b = c;
+    }
+    return a;
+  }
+
+  private static int triangle(int n) {
+    return n * (n - 1) / 2;
+  }
+}
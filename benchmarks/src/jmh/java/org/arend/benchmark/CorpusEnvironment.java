@@ -0,0 +1,131 @@
+package org.arend.benchmark;
+
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.DefCallExpression;
+import org.arend.core.expr.Expression;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.ListErrorReporter;
+import org.arend.ext.module.ModulePath;
+import org.arend.extImpl.DefinitionRequester;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.library.LibraryManager;
+import org.arend.naming.reference.Referable;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.Scope;
+import org.arend.prelude.Prelude;
+import org.arend.prelude.PreludeResourceLibrary;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A library manager with the prelude and a {@link CorpusLibrary}.
+ * Any error reported while the corpus is loaded or typechecked is considered to be a bug in the corpus.
+ */
+public class CorpusEnvironment {
+  private final List<GeneralError> myErrors = new ArrayList<>();
+  private final ListErrorReporter myErrorReporter = new ListErrorReporter(myErrors);
+  private final LibraryManager myLibraryManager;
+  private final CorpusLibrary myLibrary;
+
+  public CorpusEnvironment(CorpusLibrary library, int threads) {
+    myLibraryManager = new LibraryManager((lib, name) -> null, new InstanceProviderSet(), myErrorReporter, myErrorReporter, DefinitionRequester.INSTANCE, null);
+    myLibraryManager.setNumberOfThreads(threads);
+    if (!myLibraryManager.loadLibrary(new PreludeResourceLibrary(), null)) {
+      throw new IllegalStateException("Cannot load the prelude");
+    }
+    myLibrary = library;
+  }
+
+  public LibraryManager getLibraryManager() {
+    return myLibraryManager;
+  }
+
+  public CorpusLibrary getLibrary() {
+    return myLibrary;
+  }
+
+  public CorpusEnvironment load() {
+    if (!myLibraryManager.loadLibrary(myLibrary, null)) {
+      throw new IllegalStateException("Cannot load the corpus: " + myErrors);
+    }
+    checkErrors();
+    return this;
+  }
+
+  public CorpusEnvironment typecheck(int threads) {
+    TypecheckingOrderingListener typechecking = new TypecheckingOrderingListener(myLibraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, myErrorReporter, PositionComparator.INSTANCE, ref -> null);
+    typechecking.setNumberOfThreads(threads);
+    typechecking.typecheckLibrary(myLibrary);
+    checkErrors();
+    return this;
+  }
+
+  public CorpusEnvironment persist() {
+    myLibrary.persistUpdatedModules(myErrorReporter);
+    checkErrors();
+    return this;
+  }
+
+  private void checkErrors() {
+    if (!myErrors.isEmpty()) {
+      throw new IllegalStateException("Errors in the corpus: " + myErrors);
+    }
+  }
+
+  public Scope getScope(ModulePath module) {
+    Scope scope = myLibrary.getModuleScopeProvider().forModule(module);
+    if (scope == null) {
+      throw new IllegalArgumentException("Module " + module + " is not loaded");
+    }
+    return scope;
+  }
+
+  public Definition getDefinition(ModulePath module, String name) {
+    Referable ref = getScope(module).resolveName(name);
+    Definition def = ref instanceof TCDefReferable ? ((TCDefReferable) ref).getTypechecked() : null;
+    if (def == null) {
+      throw new IllegalArgumentException("Definition " + module + "." + name + " is not typechecked");
+    }
+    return def;
+  }
+
+  /**
+   * @return typechecked functions of the corpus in the order of modules.
+   */
+  public List<FunctionDefinition> getFunctions() {
+    List<FunctionDefinition> result = new ArrayList<>();
+    for (ModulePath module : myLibrary.getCorpus().getModules()) {
+      Scope.traverse(getScope(module), ref -> {
+        if (ref instanceof TCDefReferable && ((TCDefReferable) ref).getTypechecked() instanceof FunctionDefinition function) {
+          result.add(function);
+        }
+      });
+    }
+    return result;
+  }
+
+  /**
+   * An equation {@code left = right} proved by {@code idp} in the corpus.
+   * Both sides have type {@code Nat} and evaluate to the same numeral.
+   */
+  public record Equation(FunctionDefinition function, Expression left, Expression right) {}
+
+  /**
+   * @return equations from result types of functions of the corpus.
+   */
+  public List<Equation> getEquations() {
+    List<Equation> result = new ArrayList<>();
+    for (FunctionDefinition function : getFunctions()) {
+      if (function.getResultType() instanceof DefCallExpression defCall && (defCall.getDefinition() == Prelude.PATH_INFIX || defCall.getDefinition() == Prelude.PATH)) {
+        result.add(new Equation(function, defCall.getDefCallArguments().get(1), defCall.getDefCallArguments().get(2)));
+      }
+    }
+    return result;
+  }
+}
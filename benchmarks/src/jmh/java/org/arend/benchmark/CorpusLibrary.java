@@ -0,0 +1,168 @@
+package org.arend.benchmark;
+
+import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.source.StreamRawSource;
+import org.arend.library.LibraryDependency;
+import org.arend.library.LibraryHeader;
+import org.arend.library.PersistableSourceLibrary;
+import org.arend.library.SourceLibrary;
+import org.arend.naming.reference.converter.ReferableConverter;
+import org.arend.source.PersistableBinarySource;
+import org.arend.source.Source;
+import org.arend.source.StreamBinarySource;
+import org.arend.term.group.ChildGroup;
+import org.arend.util.Range;
+import org.arend.util.Version;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A library that keeps sources of a {@link Corpus} and its binaries in memory.
+ * Several libraries may share binaries, so that modules persisted by one of them can be loaded by another.
+ */
+public class CorpusLibrary extends PersistableSourceLibrary {
+  private final Corpus myCorpus;
+  private final Map<ModulePath, byte[]> myBinaries;
+  private final boolean myHasRawSources;
+
+  /**
+   * @param binaries       binaries of modules.
+   * @param hasRawSources  if false, the library is loaded only from {@code binaries}.
+   */
+  public CorpusLibrary(Corpus corpus, Map<ModulePath, byte[]> binaries, boolean hasRawSources) {
+    super("corpus");
+    myCorpus = corpus;
+    myBinaries = binaries;
+    myHasRawSources = hasRawSources;
+  }
+
+  public CorpusLibrary(Corpus corpus) {
+    this(corpus, new HashMap<>(), true);
+  }
+
+  public Corpus getCorpus() {
+    return myCorpus;
+  }
+
+  public Map<ModulePath, byte[]> getBinaries() {
+    return myBinaries;
+  }
+
+  @Override
+  public @Nullable Source getRawSource(ModulePath modulePath) {
+    String text = myHasRawSources ? myCorpus.getSources().get(modulePath) : null;
+    return text == null ? null : new CorpusRawSource(modulePath, text);
+  }
+
+  @Override
+  public @Nullable PersistableBinarySource getPersistableBinarySource(ModulePath modulePath) {
+    return myCorpus.getSources().containsKey(modulePath) ? new CorpusBinarySource(modulePath) : null;
+  }
+
+  @Override
+  protected @Nullable LibraryHeader loadHeader(ErrorReporter errorReporter) {
+    return new LibraryHeader(myCorpus.getModules(), Collections.emptyList(), null, Range.unbound(), null, null);
+  }
+
+  @Override
+  public @NotNull List<? extends LibraryDependency> getDependencies() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public @Nullable Version getVersion() {
+    return null;
+  }
+
+  @Override
+  public boolean hasRawSources() {
+    return myHasRawSources;
+  }
+
+  @Override
+  public void groupLoaded(ModulePath modulePath, @Nullable ChildGroup group, boolean isRaw, boolean inTests) {
+    // Groups of a library without raw sources are read from binaries
+    super.groupLoaded(modulePath, group, isRaw || !myHasRawSources, inTests);
+  }
+
+  @Override
+  public @Nullable ReferableConverter getReferableConverter() {
+    return myHasRawSources ? super.getReferableConverter() : null;
+  }
+
+  private static class CorpusRawSource extends StreamRawSource {
+    private final String myText;
+
+    CorpusRawSource(ModulePath modulePath, String text) {
+      super(modulePath, false);
+      myText = text;
+    }
+
+    @Override
+    protected @NotNull InputStream getInputStream() {
+      return new ByteArrayInputStream(myText.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public long getTimeStamp() {
+      return 0;
+    }
+
+    @Override
+    public boolean isAvailable() {
+      return true;
+    }
+  }
+
+  private class CorpusBinarySource extends StreamBinarySource {
+    private final ModulePath myModulePath;
+
+    CorpusBinarySource(ModulePath modulePath) {
+      myModulePath = modulePath;
+    }
+
+    @Override
+    protected @Nullable InputStream getInputStream() {
+      byte[] bytes = myBinaries.get(myModulePath);
+      return bytes == null ? null : new ByteArrayInputStream(bytes);
+    }
+
+    @Override
+    protected @Nullable OutputStream getOutputStream() {
+      return new ByteArrayOutputStream() {
+        @Override
+        public void close() {
+          myBinaries.put(myModulePath, toByteArray());
+        }
+      };
+    }
+
+    @Override
+    public @NotNull ModulePath getModulePath() {
+      return myModulePath;
+    }
+
+    @Override
+    public long getTimeStamp() {
+      return 0;
+    }
+
+    @Override
+    public boolean isAvailable() {
+      return myBinaries.containsKey(myModulePath);
+    }
+
+    @Override
+    public boolean delete(SourceLibrary library) {
+      return myBinaries.remove(myModulePath) != null;
+    }
+  }
+}
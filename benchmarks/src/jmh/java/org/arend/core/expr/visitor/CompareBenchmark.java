@@ -0,0 +1,61 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.benchmark.Corpus;
+import org.arend.benchmark.CorpusEnvironment;
+import org.arend.benchmark.CorpusLibrary;
+import org.arend.core.expr.Expression;
+import org.arend.core.subst.ExprSubstitution;
+import org.arend.core.subst.SubstVisitor;
+import org.arend.ext.core.level.LevelSubstitution;
+import org.arend.ext.core.ops.CMP;
+import org.arend.typechecking.implicitargs.equations.DummyEquations;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.arend.core.expr.ExpressionFactory.Nat;
+
+/**
+ * Compares sides of equations proved by computation in the corpus.
+ * Sides of an equation are equal only after normalization, while an expression and its copy are syntactically equal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompareBenchmark {
+  @Param({"20"})
+  public int modules;
+
+  private List<CorpusEnvironment.Equation> myEquations;
+  private final List<Expression> myCopies = new ArrayList<>();
+  private final Expression myType = Nat();
+
+  @Setup
+  public void setup() {
+    myEquations = new CorpusEnvironment(new CorpusLibrary(new Corpus(modules, Corpus.SEED)), 1).load().typecheck(1).getEquations();
+    myCopies.clear();
+    for (CorpusEnvironment.Equation equation : myEquations) {
+      myCopies.add(equation.left().accept(new SubstVisitor(new ExprSubstitution(), LevelSubstitution.EMPTY), null));
+      if (!CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, equation.left(), equation.right(), myType, null)) {
+        throw new IllegalStateException("Sides of " + equation.function().getName() + " are not equal");
+      }
+    }
+  }
+
+  @Benchmark
+  public void computation(Blackhole blackhole) {
+    for (CorpusEnvironment.Equation equation : myEquations) {
+      blackhole.consume(CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, equation.left(), equation.right(), myType, null));
+    }
+  }
+
+  @Benchmark
+  public void copy(Blackhole blackhole) {
+    for (int i = 0; i < myEquations.size(); i++) {
+      blackhole.consume(CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, myEquations.get(i).left(), myCopies.get(i), myType, null));
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.benchmark.Corpus;
+import org.arend.benchmark.CorpusEnvironment;
+import org.arend.benchmark.CorpusLibrary;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalizes left hand sides of equations proved by computation in the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NormalizeBenchmark {
+  @Param({"20"})
+  public int modules;
+
+  @Param({"true", "false"})
+  public boolean whnfCache;
+
+  private boolean myWasEnabled;
+  private List<CorpusEnvironment.Equation> myEquations;
+
+  @Setup
+  public void setup() {
+    myEquations = new CorpusEnvironment(new CorpusLibrary(new Corpus(modules, Corpus.SEED)), 1).load().typecheck(1).getEquations();
+    myWasEnabled = WHNFCache.INSTANCE.isEnabled();
+    WHNFCache.INSTANCE.setEnabled(whnfCache);
+  }
+
+  @TearDown
+  public void tearDown() {
+    WHNFCache.INSTANCE.setEnabled(myWasEnabled);
+  }
+
+  @Benchmark
+  public void whnf(Blackhole blackhole) {
+    for (CorpusEnvironment.Equation equation : myEquations) {
+      blackhole.consume(equation.left().normalize(NormalizationMode.WHNF));
+    }
+  }
+
+  @Benchmark
+  public void nf(Blackhole blackhole) {
+    for (CorpusEnvironment.Equation equation : myEquations) {
+      blackhole.consume(equation.left().normalize(NormalizationMode.NF));
+    }
+  }
+}
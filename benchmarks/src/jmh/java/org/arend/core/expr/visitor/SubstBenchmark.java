@@ -0,0 +1,85 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.benchmark.Corpus;
+import org.arend.benchmark.CorpusEnvironment;
+import org.arend.benchmark.CorpusLibrary;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.DataCallExpression;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.SmallIntegerExpression;
+import org.arend.core.subst.ExprSubstitution;
+import org.arend.core.subst.SubstVisitor;
+import org.arend.ext.core.level.LevelSubstitution;
+import org.arend.prelude.Prelude;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Substitutes numerals for parameters of functions of the corpus in their result types and bodies.
+ * The result types of functions without parameters are copied by an empty substitution.
+ * <p>
+ * Only expressions loaded from binaries are interned, so {@code source = binaries} measures how much
+ * {@link SubstVisitor} saves by sharing closed interned subterms, while {@code source = sources} measures
+ * freshly typechecked expressions, which are traversed in full.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SubstBenchmark {
+  @Param({"20"})
+  public int modules;
+
+  @Param({"sources", "binaries"})
+  public String source;
+
+  private final List<ExprSubstitution> mySubstitutions = new ArrayList<>();
+  private final List<Expression> myExpressions = new ArrayList<>();
+
+  @Setup
+  public void setup() {
+    mySubstitutions.clear();
+    myExpressions.clear();
+    Corpus corpus = new Corpus(modules, Corpus.SEED);
+    CorpusLibrary library = new CorpusLibrary(corpus);
+    CorpusEnvironment environment = new CorpusEnvironment(library, 1).load().typecheck(1);
+    if (source.equals("binaries")) {
+      environment.persist();
+      environment = new CorpusEnvironment(new CorpusLibrary(corpus, library.getBinaries(), false), 1).load();
+    }
+
+    for (FunctionDefinition function : environment.getFunctions()) {
+      ExprSubstitution substitution = new ExprSubstitution();
+      boolean ok = true;
+      int i = 0;
+      for (DependentLink link = function.getParameters(); link.hasNext(); link = link.getNext()) {
+        if (!(link.getTypeExpr() instanceof DataCallExpression dataCall && dataCall.getDefinition() == Prelude.NAT)) {
+          ok = false;
+          break;
+        }
+        substitution.add(link, new SmallIntegerExpression(i++));
+      }
+      if (!ok) {
+        continue;
+      }
+
+      mySubstitutions.add(substitution);
+      myExpressions.add(function.getResultType());
+      if (function.getBody() instanceof Expression body) {
+        mySubstitutions.add(substitution);
+        myExpressions.add(body);
+      }
+    }
+  }
+
+  @Benchmark
+  public void subst(Blackhole blackhole) {
+    for (int i = 0; i < myExpressions.size(); i++) {
+      blackhole.consume(myExpressions.get(i).accept(new SubstVisitor(mySubstitutions.get(i), LevelSubstitution.EMPTY), null));
+    }
+  }
+}
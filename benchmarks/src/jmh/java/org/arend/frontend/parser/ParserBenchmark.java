@@ -0,0 +1,74 @@
+package org.arend.frontend.parser;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.arend.benchmark.Corpus;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.ListErrorReporter;
+import org.arend.ext.module.ModulePath;
+import org.arend.module.ModuleLocation;
+import org.arend.term.group.FileGroup;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses sources of the corpus and builds concrete groups from parse trees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParserBenchmark {
+  @Param({"20"})
+  public int modules;
+
+  private Map<ModulePath, String> mySources;
+  private final List<GeneralError> myErrors = new ArrayList<>();
+
+  @Setup
+  public void setup() {
+    mySources = new Corpus(modules, Corpus.SEED).getSources();
+    for (Map.Entry<ModulePath, String> entry : mySources.entrySet()) {
+      build(entry.getKey(), parse(entry.getKey(), entry.getValue()));
+    }
+    if (!myErrors.isEmpty()) {
+      throw new IllegalStateException("Cannot parse the corpus: " + myErrors);
+    }
+  }
+
+  private ArendParser.StatementsContext parse(ModulePath modulePath, String text) {
+    var errorListener = new ReporterErrorListener(new ListErrorReporter(myErrors), modulePath);
+
+    ArendLexer lexer = new ArendLexer(CharStreams.fromString(text));
+    lexer.removeErrorListeners();
+    lexer.addErrorListener(errorListener);
+
+    ArendParser parser = new ArendParser(new CommonTokenStream(lexer));
+    parser.removeErrorListeners();
+    parser.addErrorListener(errorListener);
+
+    return parser.statements();
+  }
+
+  private FileGroup build(ModulePath modulePath, ArendParser.StatementsContext tree) {
+    return new BuildVisitor(new ModuleLocation("corpus", false, ModuleLocation.LocationKind.SOURCE, modulePath), new ListErrorReporter(myErrors)).visitStatements(tree);
+  }
+
+  @Benchmark
+  public void parse(Blackhole blackhole) {
+    for (Map.Entry<ModulePath, String> entry : mySources.entrySet()) {
+      blackhole.consume(parse(entry.getKey(), entry.getValue()));
+    }
+  }
+
+  @Benchmark
+  public void parseAndBuild(Blackhole blackhole) {
+    for (Map.Entry<ModulePath, String> entry : mySources.entrySet()) {
+      blackhole.consume(build(entry.getKey(), parse(entry.getKey(), entry.getValue())));
+    }
+  }
+}
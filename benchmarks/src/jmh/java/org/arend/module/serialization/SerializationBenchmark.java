@@ -0,0 +1,97 @@
+package org.arend.module.serialization;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.arend.benchmark.Corpus;
+import org.arend.benchmark.CorpusEnvironment;
+import org.arend.benchmark.CorpusLibrary;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.ListErrorReporter;
+import org.arend.ext.module.ModulePath;
+import org.arend.ext.serialization.DeserializationException;
+import org.arend.module.ModuleLocation;
+import org.arend.module.scopeprovider.ModuleScopeProvider;
+import org.arend.module.scopeprovider.SimpleModuleScopeProvider;
+import org.arend.term.group.ChildGroup;
+import org.arend.term.group.Group;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes typechecked modules of the corpus and deserializes them into fresh groups.
+ * Deserialized modules refer to each other and to the prelude of the environment in which the corpus was typechecked.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+  @Param({"20"})
+  public int modules;
+
+  private CorpusEnvironment myEnvironment;
+  private final List<ModulePath> myModules = new ArrayList<>();
+  private final List<Group> myGroups = new ArrayList<>();
+  private final List<byte[]> myBinaries = new ArrayList<>();
+  private final List<GeneralError> myErrors = new ArrayList<>();
+
+  @Setup
+  public void setup() throws Exception {
+    myEnvironment = new CorpusEnvironment(new CorpusLibrary(new Corpus(modules, Corpus.SEED)), 1).load().typecheck(1);
+    myModules.clear();
+    myGroups.clear();
+    myBinaries.clear();
+    for (ModulePath module : myEnvironment.getLibrary().getCorpus().getModules()) {
+      myModules.add(module);
+      myGroups.add(myEnvironment.getLibrary().getModuleGroup(module, false));
+    }
+    for (ModuleProtos.Module proto : serialize()) {
+      myBinaries.add(proto.toByteArray());
+    }
+    deserialize();
+  }
+
+  private List<ModuleProtos.Module> serialize() {
+    myErrors.clear();
+    List<ModuleProtos.Module> result = new ArrayList<>(myModules.size());
+    for (int i = 0; i < myModules.size(); i++) {
+      result.add(new ModuleSerialization(new ListErrorReporter(myErrors), DummyDependencyListener.INSTANCE).writeModule(myGroups.get(i), myModules.get(i), myEnvironment.getLibrary().getReferableConverter()));
+    }
+    if (!myErrors.isEmpty()) {
+      throw new IllegalStateException("Cannot serialize the corpus: " + myErrors);
+    }
+    return result;
+  }
+
+  private List<ChildGroup> deserialize() throws InvalidProtocolBufferException, DeserializationException {
+    SimpleModuleScopeProvider corpusScopeProvider = new SimpleModuleScopeProvider();
+    ModuleScopeProvider otherScopeProvider = myEnvironment.getLibraryManager().getAvailableModuleScopeProvider(myEnvironment.getLibrary());
+    ModuleScopeProvider moduleScopeProvider = module -> {
+      var scope = corpusScopeProvider.forModule(module);
+      return scope != null ? scope : otherScopeProvider.forModule(module);
+    };
+
+    List<ChildGroup> result = new ArrayList<>(myModules.size());
+    for (int i = 0; i < myModules.size(); i++) {
+      ModulePath module = myModules.get(i);
+      ModuleDeserialization deserialization = new ModuleDeserialization(ModuleProtos.Module.parseFrom(myBinaries.get(i)), null, null, null, false);
+      ChildGroup group = deserialization.readGroup(new ModuleLocation(myEnvironment.getLibrary(), ModuleLocation.LocationKind.GENERATED, module));
+      corpusScopeProvider.registerModule(module, group);
+      deserialization.readModule(moduleScopeProvider, DummyDependencyListener.INSTANCE);
+      result.add(group);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public List<ModuleProtos.Module> serialization() {
+    return serialize();
+  }
+
+  @Benchmark
+  public List<ChildGroup> deserialization() throws Exception {
+    return deserialize();
+  }
+}
@@ -0,0 +1,47 @@
+package org.arend.typechecking;
+
+import org.arend.benchmark.Corpus;
+import org.arend.benchmark.CorpusEnvironment;
+import org.arend.benchmark.CorpusLibrary;
+import org.arend.ext.module.ModulePath;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the corpus into a fresh library manager and either typechecks it from sources or reads it from binaries.
+ * Binaries are produced once by typechecking the corpus in the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TypecheckingBenchmark {
+  @Param({"50"})
+  public int modules;
+
+  @Param({"1", "4"})
+  public int threads;
+
+  private Corpus myCorpus;
+  private Map<ModulePath, byte[]> myBinaries;
+
+  @Setup
+  public void setup() {
+    myCorpus = new Corpus(modules, Corpus.SEED);
+    CorpusLibrary library = new CorpusLibrary(myCorpus);
+    new CorpusEnvironment(library, threads).load().typecheck(threads).persist();
+    myBinaries = library.getBinaries();
+    loadBinaries();
+  }
+
+  @Benchmark
+  public CorpusEnvironment typecheckSources() {
+    return new CorpusEnvironment(new CorpusLibrary(myCorpus), threads).load().typecheck(threads);
+  }
+
+  @Benchmark
+  public CorpusEnvironment loadBinaries() {
+    return new CorpusEnvironment(new CorpusLibrary(myCorpus, myBinaries, false), threads).load();
+  }
+}
@@ -0,0 +1,86 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import org.arend.benchmark.Corpus;
+import org.arend.benchmark.CorpusEnvironment;
+import org.arend.benchmark.CorpusLibrary;
+import org.arend.core.context.binding.inference.ExpressionInferenceVariable;
+import org.arend.core.context.binding.inference.InferenceVariable;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.InferenceReferenceExpression;
+import org.arend.core.expr.UniverseExpression;
+import org.arend.core.expr.type.Type;
+import org.arend.core.expr.visitor.CompareVisitor;
+import org.arend.core.sort.Sort;
+import org.arend.ext.core.ops.CMP;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.ListErrorReporter;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.visitor.CheckTypeVisitor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a system of equations similar to those produced by inference of implicit arguments.
+ * The system consists of a chain of inequalities between universes with unknown levels
+ * and lower bounds for a type variable given by result types of {@code triple<i>} functions of the corpus.
+ * The type variable is solved by the least upper bound of these class calls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EquationsBenchmark {
+  @Param({"20"})
+  public int modules;
+
+  @Param({"100"})
+  public int levels;
+
+  private final List<Expression> myLowerBounds = new ArrayList<>();
+  private final List<GeneralError> myErrors = new ArrayList<>();
+  private final Concrete.SourceNode mySourceNode = new Concrete.HoleExpression(null);
+
+  @Setup
+  public void setup() {
+    CorpusEnvironment environment = new CorpusEnvironment(new CorpusLibrary(new Corpus(modules, Corpus.SEED)), 1).load().typecheck(1);
+    myLowerBounds.clear();
+    for (int i = 0; i < modules; i++) {
+      myLowerBounds.add(((FunctionDefinition) environment.getDefinition(Corpus.module(i), "triple" + i)).getResultType());
+    }
+    InferenceVariable variable = solve();
+    if (!myErrors.isEmpty() || !variable.isSolved()) {
+      throw new IllegalStateException("Cannot solve equations: " + myErrors);
+    }
+  }
+
+  private InferenceVariable solve() {
+    myErrors.clear();
+    CheckTypeVisitor visitor = new CheckTypeVisitor(new ListErrorReporter(myErrors), null, null);
+    Equations equations = visitor.getEquations();
+
+    Expression prev = new UniverseExpression(Sort.SET0);
+    for (int i = 0; i < levels; i++) {
+      Expression next = new UniverseExpression(Sort.generateInferVars(equations, false, mySourceNode));
+      CompareVisitor.compare(equations, CMP.LE, prev, next, Type.OMEGA, mySourceNode);
+      prev = next;
+    }
+
+    InferenceVariable variable = new ExpressionInferenceVariable(new UniverseExpression(Sort.SET0), mySourceNode, Collections.emptySet(), true);
+    Expression reference = new InferenceReferenceExpression(variable);
+    for (Expression lowerBound : myLowerBounds) {
+      CompareVisitor.compare(equations, CMP.LE, lowerBound, reference, new UniverseExpression(Sort.SET0), mySourceNode);
+    }
+
+    equations.solveEquations();
+    return variable;
+  }
+
+  @Benchmark
+  public InferenceVariable solveEquations() {
+    return solve();
+  }
+}
@@ -0,0 +1,177 @@
+package org.arend.typechecking.termination;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares bit-packed call matrices with the sparse representation on generated call graphs.
+ * Every edge of a generated graph decreases the first parameter, so the closure is computed completely.
+ * Other rows either keep their parameter or pass it to the next one, so compositions spread across words of wide matrices.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CallMatrixBenchmark {
+  @Param({"8", "40", "100"})
+  public int parameters;
+
+  @Param({"3"})
+  public int vertices;
+
+  @Param({"6"})
+  public int edges;
+
+  private static final long SEED = 20240917L;
+
+  private static class Vertex {
+    final int index;
+
+    Vertex(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public String toString() {
+      return "v" + index;
+    }
+  }
+
+  private static class DenseCallMatrix extends BaseCallMatrix<Vertex> {
+    private final Vertex myDomain;
+    private final Vertex myCodomain;
+
+    DenseCallMatrix(Vertex domain, Vertex codomain, int parameters) {
+      super(parameters, parameters);
+      myDomain = domain;
+      myCodomain = codomain;
+    }
+
+    @Override
+    public Vertex getCodomain() {
+      return myCodomain;
+    }
+
+    @Override
+    public Vertex getDomain() {
+      return myDomain;
+    }
+
+    @Override
+    public int getCompositeLength() {
+      return 1;
+    }
+  }
+
+  private static class DenseCallGraph extends BaseCallGraph<Vertex> {
+    @Override
+    protected String getLabel(Vertex vertex) {
+      return vertex.toString();
+    }
+
+    @Override
+    protected void formErrorMessage(Vertex vertex, Set<RecursiveBehavior<Vertex>> behavior) {
+      throw new IllegalStateException("Generated graphs always terminate");
+    }
+  }
+
+  private List<BaseCallMatrix<Vertex>> myDenseEdges;
+  private List<HashMapCallMatrix> myHashMapEdges;
+  private List<BaseCallMatrix<Vertex>> myDenseLoops;
+  private List<HashMapCallMatrix> myHashMapLoops;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(SEED);
+    Vertex[] vertexArray = new Vertex[vertices];
+    for (int i = 0; i < vertices; i++) {
+      vertexArray[i] = new Vertex(i);
+    }
+
+    myDenseEdges = new ArrayList<>();
+    myHashMapEdges = new ArrayList<>();
+    myDenseLoops = new ArrayList<>();
+    myHashMapLoops = new ArrayList<>();
+    for (int e = 0; e < edges; e++) {
+      int domain = e < vertices ? e : random.nextInt(vertices);
+      int codomain = e < vertices ? (e + 1) % vertices : random.nextInt(vertices);
+      DenseCallMatrix dense = new DenseCallMatrix(vertexArray[domain], vertexArray[codomain], parameters);
+      HashMapCallMatrix hashMap = new HashMapCallMatrix(domain, codomain);
+      DenseCallMatrix denseLoop = new DenseCallMatrix(vertexArray[0], vertexArray[0], parameters);
+      HashMapCallMatrix hashMapLoop = new HashMapCallMatrix(0, 0);
+
+      for (int i = 0; i < parameters; i++) {
+        int j;
+        BaseCallMatrix.R value;
+        if (i == 0) {
+          j = 0;
+          value = BaseCallMatrix.R.LessThan;
+        } else {
+          int kind = random.nextInt(4);
+          if (kind == 0) continue;
+          j = kind == 1 && i + 1 < parameters ? i + 1 : i;
+          value = random.nextInt(3) == 0 ? BaseCallMatrix.R.LessThan : BaseCallMatrix.R.Equal;
+        }
+        dense.set(i, j, value);
+        hashMap.set(i, j, value);
+        denseLoop.set(i, j, value);
+        hashMapLoop.set(i, j, value);
+      }
+
+      myDenseEdges.add(dense);
+      myHashMapEdges.add(hashMap);
+      myDenseLoops.add(denseLoop);
+      myHashMapLoops.add(hashMapLoop);
+    }
+  }
+
+  @Benchmark
+  public void multiplyDense(Blackhole blackhole) {
+    for (BaseCallMatrix<Vertex> m1 : myDenseLoops) {
+      for (BaseCallMatrix<Vertex> m2 : myDenseLoops) {
+        blackhole.consume(new CompositeCallMatrix<>(m1, m2));
+      }
+    }
+  }
+
+  @Benchmark
+  public void multiplyHashMap(Blackhole blackhole) {
+    for (HashMapCallMatrix m1 : myHashMapLoops) {
+      for (HashMapCallMatrix m2 : myHashMapLoops) {
+        blackhole.consume(new HashMapCallMatrix(m1, m2));
+      }
+    }
+  }
+
+  @Benchmark
+  public void compareDense(Blackhole blackhole) {
+    for (BaseCallMatrix<Vertex> m1 : myDenseLoops) {
+      for (BaseCallMatrix<Vertex> m2 : myDenseLoops) {
+        blackhole.consume(m1.compare(m2));
+      }
+    }
+  }
+
+  @Benchmark
+  public void compareHashMap(Blackhole blackhole) {
+    for (HashMapCallMatrix m1 : myHashMapLoops) {
+      for (HashMapCallMatrix m2 : myHashMapLoops) {
+        blackhole.consume(m1.compare(m2));
+      }
+    }
+  }
+
+  @Benchmark
+  public boolean closureDense() {
+    DenseCallGraph graph = new DenseCallGraph();
+    graph.add(new LinkedHashSet<>(myDenseEdges));
+    return graph.checkTermination();
+  }
+
+  @Benchmark
+  public int closureHashMap() {
+    return HashMapCallMatrix.closure(myHashMapEdges);
+  }
+}
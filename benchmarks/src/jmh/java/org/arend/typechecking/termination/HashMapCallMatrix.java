@@ -0,0 +1,147 @@
+package org.arend.typechecking.termination;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * The sparse representation of call matrices that was used before {@link BaseCallMatrix} became bit-packed.
+ * It is kept only as a baseline for {@link CallMatrixBenchmark}.
+ */
+class HashMapCallMatrix {
+  final int domain;
+  final int codomain;
+  private final HashMap<Integer, HashMap<Integer, BaseCallMatrix.R>> matrixMap = new HashMap<>();
+
+  HashMapCallMatrix(int domain, int codomain) {
+    this.domain = domain;
+    this.codomain = codomain;
+  }
+
+  HashMapCallMatrix(HashMapCallMatrix m1, HashMapCallMatrix m2) {
+    this(m1.domain, m2.codomain);
+    for (Integer i : m1.matrixMap.keySet()) {
+      HashMap<Integer, BaseCallMatrix.R> m1map = m1.matrixMap.get(i);
+      for (Integer j : m1map.keySet()) {
+        HashMap<Integer, BaseCallMatrix.R> m2map = m2.matrixMap.get(j);
+        if (m2map != null) for (Map.Entry<Integer, BaseCallMatrix.R> e : m2map.entrySet()) {
+          int k = e.getKey();
+          BaseCallMatrix.R ik_value = getValue(i, k);
+          if (ik_value != BaseCallMatrix.R.LessThan) {
+            BaseCallMatrix.R new_ik_value = radd(ik_value, rmul(m1map.get(j), e.getValue()));
+            if (new_ik_value != ik_value) set(i, k, new_ik_value);
+          }
+        }
+      }
+    }
+  }
+
+  private static BaseCallMatrix.R rmul(BaseCallMatrix.R a, BaseCallMatrix.R b) {
+    if (a == BaseCallMatrix.R.Unknown || b == BaseCallMatrix.R.Unknown) return BaseCallMatrix.R.Unknown;
+    return a == BaseCallMatrix.R.LessThan || b == BaseCallMatrix.R.LessThan ? BaseCallMatrix.R.LessThan : BaseCallMatrix.R.Equal;
+  }
+
+  private static BaseCallMatrix.R radd(BaseCallMatrix.R a, BaseCallMatrix.R b) {
+    if (a == BaseCallMatrix.R.LessThan || b == BaseCallMatrix.R.LessThan) return BaseCallMatrix.R.LessThan;
+    if (a == BaseCallMatrix.R.Equal || b == BaseCallMatrix.R.Equal) return BaseCallMatrix.R.Equal;
+    return BaseCallMatrix.R.Unknown;
+  }
+
+  void set(int i, int j, BaseCallMatrix.R v) {
+    if (v != BaseCallMatrix.R.Unknown) {
+      matrixMap.computeIfAbsent(i, k -> new HashMap<>()).put(j, v);
+    } else {
+      HashMap<Integer, BaseCallMatrix.R> map = matrixMap.get(i);
+      if (map != null) {
+        map.remove(j);
+      }
+    }
+  }
+
+  BaseCallMatrix.R getValue(int i, int j) {
+    HashMap<Integer, BaseCallMatrix.R> map = matrixMap.get(i);
+    BaseCallMatrix.R result = map == null ? null : map.get(j);
+    return result == null ? BaseCallMatrix.R.Unknown : result;
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    return object instanceof HashMapCallMatrix cm && domain == cm.domain && codomain == cm.codomain && matrixMap.equals(cm.matrixMap);
+  }
+
+  @Override
+  public int hashCode() {
+    return (codomain * 31 + domain) * 31 + matrixMap.hashCode();
+  }
+
+  BaseCallMatrix.R compare(HashMapCallMatrix cm) {
+    if (equals(cm)) return BaseCallMatrix.R.Equal;
+    for (Integer i : matrixMap.keySet()) {
+      HashMap<Integer, BaseCallMatrix.R> map = matrixMap.get(i);
+      for (Integer j : map.keySet()) {
+        if (!BaseCallMatrix.rleq(map.get(j), cm.getValue(i, j))) return BaseCallMatrix.R.Unknown;
+      }
+    }
+    return BaseCallMatrix.R.LessThan;
+  }
+
+  private static boolean append(HashMapCallMatrix cm, HashMap<Integer, HashMap<Integer, HashSet<HashMapCallMatrix>>> graph) {
+    HashSet<HashMapCallMatrix> set = graph.computeIfAbsent(cm.domain, k -> new HashMap<>()).computeIfAbsent(cm.codomain, k -> new HashSet<>());
+    if (set.contains(cm)) return false;
+    for (HashMapCallMatrix arrow : set) {
+      if (arrow.compare(cm) != BaseCallMatrix.R.Unknown) return false;
+    }
+    set.removeIf(arrow -> cm.compare(arrow) == BaseCallMatrix.R.LessThan);
+    set.add(cm);
+    return true;
+  }
+
+  /**
+   * Computes the closure of the graph in the same way as {@link BaseCallGraph#checkTermination}.
+   *
+   * @return the number of edges in the closure.
+   */
+  static int closure(Iterable<HashMapCallMatrix> edges) {
+    HashMap<Integer, HashMap<Integer, HashSet<HashMapCallMatrix>>> oldGraph = new HashMap<>();
+    for (HashMapCallMatrix edge : edges) {
+      append(edge, oldGraph);
+    }
+
+    int newEdges;
+    do {
+      newEdges = 0;
+      HashMap<Integer, HashMap<Integer, HashSet<HashMapCallMatrix>>> newGraph = new HashMap<>();
+      for (HashMap<Integer, HashSet<HashMapCallMatrix>> outbound : oldGraph.values()) {
+        for (HashSet<HashMapCallMatrix> set : outbound.values()) {
+          for (HashMapCallMatrix edge : set) {
+            append(edge, newGraph);
+          }
+        }
+      }
+      for (HashMap<Integer, HashSet<HashMapCallMatrix>> outbound : oldGraph.values()) {
+        for (HashSet<HashMapCallMatrix> set : outbound.values()) {
+          for (HashMapCallMatrix arrow : set) {
+            HashMap<Integer, HashSet<HashMapCallMatrix>> outbound2 = oldGraph.get(arrow.codomain);
+            if (outbound2 == null) continue;
+            for (HashSet<HashMapCallMatrix> set2 : outbound2.values()) {
+              for (HashMapCallMatrix arrow2 : set2) {
+                if (append(new HashMapCallMatrix(arrow, arrow2), newGraph)) {
+                  newEdges++;
+                }
+              }
+            }
+          }
+        }
+      }
+      oldGraph = newGraph;
+    } while (newEdges > 0);
+
+    int result = 0;
+    for (HashMap<Integer, HashSet<HashMapCallMatrix>> outbound : oldGraph.values()) {
+      for (HashSet<HashMapCallMatrix> set : outbound.values()) {
+        result += set.size();
+      }
+    }
+    return result;
+  }
+}
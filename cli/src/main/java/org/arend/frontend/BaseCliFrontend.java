@@ -5,7 +5,10 @@ import org.arend.core.definition.ClassDefinition;
 import org.arend.core.definition.DataDefinition;
 import org.arend.core.definition.Definition;
 import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.visitor.ClosureEvaluator;
 import org.arend.core.expr.visitor.SizeExpressionVisitor;
+import org.arend.core.expr.visitor.WHNFCache;
+import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.ext.error.ListErrorReporter;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.error.GeneralError;
@@ -22,6 +25,7 @@ import org.arend.library.*;
 import org.arend.library.classLoader.FileClassLoaderDelegate;
 import org.arend.library.error.LibraryError;
 import org.arend.module.ModuleLocation;
+import org.arend.module.serialization.ModuleDeserialization;
 import org.arend.naming.reference.*;
 import org.arend.naming.reference.converter.IdReferableConverter;
 import org.arend.naming.scope.EmptyScope;
@@ -61,6 +65,10 @@ public abstract class BaseCliFrontend {
   private final static String SHOW_SIZES = "show-sizes";
   private final static String SHOW_MODULES = "show-modules";
   private final static String SHOW_MODULES_WITH_INSTANCES = "show-modules-with-instances";
+  private final static String THREADS = "threads";
+  private final static String CLOSURE_EVALUATION = "closure-evaluation";
+  private final static String LAZY_BODIES = "lazy-bodies";
+  private final static String WHNF_CACHE = "whnf-cache";
 
   // Typechecking
   private final ListErrorReporter myErrorReporter = new ListErrorReporter();
@@ -83,6 +91,21 @@ public abstract class BaseCliFrontend {
   // Libraries
   private final FileLibraryResolver myLibraryResolver = new FileLibraryResolver(new ArrayList<>(), mySystemErrErrorReporter, myDependencyCollector);
   private final LibraryManager myLibraryManager = new TimedLibraryManager(myLibraryResolver, new InstanceProviderSet(), myErrorReporter, mySystemErrErrorReporter, DefinitionRequester.INSTANCE) {
+    @Override
+    protected void afterSourcesLoading(@NotNull Library library, Map<String, Long> times) {
+      if (myTimes != null) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Long> entry : times.entrySet()) {
+          if (entry.getValue() > 0) {
+            builder.append(builder.isEmpty() ? "" : ", ").append(entry.getKey()).append(": ").append(timeToString(entry.getValue()));
+          }
+        }
+        if (!builder.isEmpty()) {
+          System.out.println("[INFO] Loading phases of library " + library.getName() + " (" + builder + ")");
+        }
+      }
+    }
+
     @Override
     protected void afterLibraryLoading(@NotNull Library library, int loaded, int total) {
       super.afterLibraryLoading(library, loaded, total);
@@ -133,13 +156,13 @@ public abstract class BaseCliFrontend {
       super(myLibraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, myErrorReporter, myDependencyCollector, PositionComparator.INSTANCE, new LibraryArendExtensionProvider(myLibraryManager));
     }
 
-    private void startTimer(TCDefReferable ref) {
+    private synchronized void startTimer(TCDefReferable ref) {
       if (myTimes != null) {
         myTimes.compute(ref, (r,pair) -> new Pair<>(System.currentTimeMillis(), pair == null ? 0 : pair.proj2));
       }
     }
 
-    private void stopTimer(TCDefReferable ref) {
+    private synchronized void stopTimer(TCDefReferable ref) {
       if (myTimes != null) {
         myTimes.compute(ref, (r,pair) -> pair == null ? new Pair<>(0L, 0L) : new Pair<>(pair.proj1, pair.proj2 + (System.currentTimeMillis() - pair.proj1)));
       }
@@ -185,8 +208,11 @@ public abstract class BaseCliFrontend {
       stopTimer(definition);
     }
 
-    private void handleDef(Definition definition) {
-      flushErrors();
+    private synchronized void handleDef(Definition definition) {
+      // In parallel mode, errors are reported after typechecking
+      if (getNumberOfThreads() == 1) {
+        flushErrors();
+      }
 
       LocatedReferable parent = definition.getRef().getLocatedReferableParent();
       if (parent == null || parent instanceof ModuleReferable) {
@@ -235,6 +261,10 @@ public abstract class BaseCliFrontend {
       cmdOptions.addOption(Option.builder().longOpt(SHOW_SIZES).build());
       cmdOptions.addOption(Option.builder().longOpt(SHOW_MODULES).build());
       cmdOptions.addOption(Option.builder().longOpt(SHOW_MODULES_WITH_INSTANCES).build());
+      cmdOptions.addOption(Option.builder().longOpt(THREADS).hasArg().argName("N").desc("number of threads used for parsing and typechecking").build());
+      cmdOptions.addOption(Option.builder().longOpt(CLOSURE_EVALUATION).hasArg().argName("modes").desc("normalization modes that use the environment-based evaluator (a comma-separated list of WHNF, NF, ENF)").build());
+      cmdOptions.addOption(Option.builder().longOpt(LAZY_BODIES).desc("load bodies of definitions from binaries of dependencies on first use").build());
+      cmdOptions.addOption(Option.builder().longOpt(WHNF_CACHE).desc("cache weak head normal forms of closed function calls").build());
       addCommandOptions(cmdOptions);
       CommandLine cmdLine = new DefaultParser().parse(cmdOptions, args);
 
@@ -348,6 +378,44 @@ public abstract class BaseCliFrontend {
       mySizes = new HashMap<>();
     }
 
+    int threads = 1;
+    String threadsString = cmdLine.getOptionValue(THREADS);
+    if (threadsString != null) {
+      try {
+        threads = Integer.parseInt(threadsString);
+      } catch (NumberFormatException e) {
+        threads = 0;
+      }
+      if (threads <= 0) {
+        myExitWithError = true;
+        System.err.println("[ERROR] Illegal number of threads: " + threadsString);
+        return null;
+      }
+    }
+
+    String closureEvaluationString = cmdLine.getOptionValue(CLOSURE_EVALUATION);
+    if (closureEvaluationString != null) {
+      Set<NormalizationMode> modes = EnumSet.noneOf(NormalizationMode.class);
+      for (String mode : closureEvaluationString.split(",")) {
+        try {
+          modes.add(NormalizationMode.valueOf(mode.trim().toUpperCase()));
+        } catch (IllegalArgumentException e) {
+          myExitWithError = true;
+          System.err.println("[ERROR] Unknown normalization mode: " + mode);
+          return null;
+        }
+      }
+      ClosureEvaluator.setModes(modes);
+    }
+
+    if (cmdLine.hasOption(LAZY_BODIES)) {
+      ModuleDeserialization.setLazyBodies(true);
+    }
+
+    if (cmdLine.hasOption(WHNF_CACHE)) {
+      WHNFCache.INSTANCE.setEnabled(true);
+    }
+
     String printString = cmdLine.getOptionValue("p");
     if (printString != null) {
       Pair<ModulePath, LongName> pair = parseFullName(printString);
@@ -474,6 +542,8 @@ public abstract class BaseCliFrontend {
 
     // Load and typecheck libraries
     MyTypechecking typechecking = new MyTypechecking();
+    typechecking.setNumberOfThreads(threads);
+    myLibraryManager.setNumberOfThreads(threads);
     boolean doubleCheck = cmdLine.hasOption("c");
     for (SourceLibrary library : requestedLibraries) {
       myModuleResults.clear();
@@ -595,6 +665,9 @@ public abstract class BaseCliFrontend {
         for (Pair<TCDefReferable, Long> pair : list) {
           System.out.println(pair.proj1.getRefLongName() + ": " + timeToString(pair.proj2));
         }
+        if (WHNFCache.INSTANCE.isEnabled()) {
+          System.out.println("WHNF cache: " + WHNFCache.INSTANCE.getHits() + " hits, " + WHNFCache.INSTANCE.getMisses() + " misses");
+        }
       }
 
       if (mySizes != null && !mySizes.isEmpty()) {
@@ -634,13 +707,7 @@ public abstract class BaseCliFrontend {
         long time = System.currentTimeMillis();
 
         try {
-          CoreModuleChecker checker = new CoreModuleChecker(myErrorReporter);
-          for (ModulePath module : library.getLoadedModules()) {
-            Group group = library.getModuleGroup(module, false);
-            if (group != null) {
-              checker.checkGroup(group);
-            }
-          }
+          doubleCheck(library, library.getLoadedModules(), false, threads);
         } finally {
           time = System.currentTimeMillis() - time;
           flushErrors();
@@ -683,13 +750,7 @@ public abstract class BaseCliFrontend {
               }
             }
             if (doCheck) {
-              CoreModuleChecker checker = new CoreModuleChecker(myErrorReporter);
-              for (ModulePath module : modules) {
-                Group group = library.getModuleGroup(module, true);
-                if (group != null) {
-                  checker.checkGroup(group);
-                }
-              }
+              doubleCheck(library, modules, true, threads);
             }
           }
         } finally {
@@ -704,6 +765,26 @@ public abstract class BaseCliFrontend {
     return cmdLine;
   }
 
+  private void doubleCheck(SourceLibrary library, Collection<? extends ModulePath> modules, boolean inTests, int threads) {
+    Map<ModulePath, Group> groups = new LinkedHashMap<>();
+    for (ModulePath module : modules) {
+      Group group = library.getModuleGroup(module, inTests);
+      if (group != null) {
+        groups.put(module, group);
+      }
+    }
+
+    CoreModuleChecker checker = new CoreModuleChecker(myErrorReporter);
+    checker.checkModules(groups, threads);
+    if (myTimes != null) {
+      List<Map.Entry<ModulePath, Long>> times = new ArrayList<>(checker.getTimes().entrySet());
+      times.sort((o1, o2) -> Long.compare(o2.getValue(), o1.getValue()));
+      for (Map.Entry<ModulePath, Long> entry : times) {
+        System.out.println("[INFO] Checked " + entry.getKey() + " (" + timeToString(entry.getValue()) + ")");
+      }
+    }
+  }
+
   private void flushErrors() {
     for (GeneralError error : myErrorReporter.getErrorList()) {
       error.forAffectedDefinitions((referable, err) -> {
@@ -3,6 +3,7 @@ package org.arend.frontend.library;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.module.ModulePath;
 import org.arend.ext.ui.ArendUI;
+import org.arend.frontend.parser.ReplParseTreeCache;
 import org.arend.frontend.source.FileRawSource;
 import org.arend.frontend.ui.ArendCliUI;
 import org.arend.library.LibraryDependency;
@@ -26,6 +27,7 @@ public class FileSourceLibrary extends PersistableSourceLibrary {
   protected LibraryHeader myLibraryHeader;
   protected List<ModulePath> myTestModules = Collections.emptyList();
   private final DependencyListener myDependencyListener;
+  private ReplParseTreeCache myParseTreeCache;
 
   /**
    * Creates a new {@code UnmodifiableFileSourceLibrary}
@@ -54,10 +56,20 @@ public class FileSourceLibrary extends PersistableSourceLibrary {
     return myTestBasePath;
   }
 
+  /**
+   * Sets a cache of parse trees of raw sources.
+   * It is useful if the library is reloaded several times in the same process as the REPL does.
+   *
+   * @param parseTreeCache  a cache or null if parse trees should not be cached.
+   */
+  public void setParseTreeCache(@Nullable ReplParseTreeCache parseTreeCache) {
+    myParseTreeCache = parseTreeCache;
+  }
+
   @Nullable
   @Override
   public final Source getRawSource(ModulePath modulePath) {
-    return mySourceBasePath == null ? null : new FileRawSource(mySourceBasePath, modulePath, false);
+    return mySourceBasePath == null ? null : new FileRawSource(mySourceBasePath, modulePath, false, myParseTreeCache);
   }
 
   @Override
@@ -68,7 +80,7 @@ public class FileSourceLibrary extends PersistableSourceLibrary {
   @Nullable
   @Override
   public PersistableBinarySource getPersistableBinarySource(ModulePath modulePath) {
-    return myBinaryBasePath == null ? null : new GZIPStreamBinarySource(new FileBinarySource(myBinaryBasePath, modulePath));
+    return myBinaryBasePath == null ? null : new MappedFileBinarySource(myBinaryBasePath, modulePath, isExternal());
   }
 
   @Override
@@ -0,0 +1,111 @@
+package org.arend.frontend.parser;
+
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches parse trees of sources without syntax errors in memory.
+ * It is used by the REPL, which reloads its library on every load command.
+ * Trees are keyed by hashes of the contents of sources, so an unchanged source is not lexed and parsed again when it is reloaded.
+ * The cache lives only as long as the process and does not help separate runs of the command line tool.
+ * A tree keeps the token stream and the text of its source, so the total size of cached sources is bounded
+ * and the least recently used trees are evicted first.
+ * Trees are also referenced softly.
+ */
+public class ReplParseTreeCache {
+  private static class Entry {
+    final SoftReference<ArendParser.StatementsContext> tree;
+    final int size;
+
+    Entry(ArendParser.StatementsContext tree, int size) {
+      this.tree = new SoftReference<>(tree);
+      this.size = size;
+    }
+  }
+
+  private final long myMaxSize;
+  private long mySize;
+  private final Map<ByteBuffer, Entry> myCache = new LinkedHashMap<>(16, 0.75f, true);
+  private final AtomicLong myHits = new AtomicLong();
+  private final AtomicLong myMisses = new AtomicLong();
+
+  /**
+   * @param maxSize  the maximum total size in bytes of sources whose trees are cached.
+   */
+  public ReplParseTreeCache(long maxSize) {
+    myMaxSize = maxSize;
+  }
+
+  /**
+   * @param hash  the hash of the contents of a source.
+   * @return the parse tree of the source or null if it is not cached.
+   */
+  public ArendParser.StatementsContext get(byte[] hash) {
+    ArendParser.StatementsContext tree;
+    synchronized (myCache) {
+      ByteBuffer key = ByteBuffer.wrap(hash);
+      Entry entry = myCache.get(key);
+      tree = entry == null ? null : entry.tree.get();
+      if (entry != null && tree == null) {
+        myCache.remove(key);
+        mySize -= entry.size;
+      }
+    }
+    if (tree == null) {
+      myMisses.incrementAndGet();
+    } else {
+      myHits.incrementAndGet();
+    }
+    return tree;
+  }
+
+  /**
+   * Caches the parse tree of a source.
+   * Trees of sources larger than the maximum size are not cached.
+   *
+   * @param hash  the hash of the contents of the source.
+   * @param size  the size of the source in bytes.
+   * @param tree  the parse tree of the source.
+   */
+  public void put(byte[] hash, int size, ArendParser.StatementsContext tree) {
+    if (size > myMaxSize) {
+      return;
+    }
+
+    synchronized (myCache) {
+      Entry old = myCache.put(ByteBuffer.wrap(hash.clone()), new Entry(tree, size));
+      if (old != null) {
+        mySize -= old.size;
+      }
+      mySize += size;
+      for (Iterator<Entry> it = myCache.values().iterator(); mySize > myMaxSize && it.hasNext(); ) {
+        mySize -= it.next().size;
+        it.remove();
+      }
+    }
+  }
+
+  public void clear() {
+    synchronized (myCache) {
+      myCache.clear();
+      mySize = 0;
+    }
+  }
+
+  public long getHits() {
+    return myHits.get();
+  }
+
+  public long getMisses() {
+    return myMisses.get();
+  }
+
+  public void resetStatistics() {
+    myHits.set(0);
+    myMisses.set(0);
+  }
+}
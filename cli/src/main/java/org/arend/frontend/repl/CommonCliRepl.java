@@ -19,6 +19,7 @@ import org.arend.frontend.library.TimedLibraryManager;
 import org.arend.frontend.parser.ArendLexer;
 import org.arend.frontend.parser.ArendParser;
 import org.arend.frontend.parser.BuildVisitor;
+import org.arend.frontend.parser.ReplParseTreeCache;
 import org.arend.frontend.parser.ReporterErrorListener;
 import org.arend.frontend.repl.action.*;
 import org.arend.library.Library;
@@ -77,6 +78,7 @@ public abstract class CommonCliRepl extends Repl {
   private final FileLibraryResolver myLibraryResolver;
   private final SourceLibrary myReplLibrary;
   private final Set<ModulePath> myModules;
+  private static final long PARSE_TREE_CACHE_SIZE = 16 * 1024 * 1024;
 
   //region Tricky constructors (expand to read more...)
   // These two constructors are used for convincing javac that the
@@ -123,6 +125,10 @@ public abstract class CommonCliRepl extends Repl {
     myReplLibrary = Files.exists(pwd.resolve(FileUtils.LIBRARY_CONFIG_FILE))
         ? libraryResolver.registerLibrary(pwd)
         : new FileSourceLibrary("Repl", pwd, null, new LibraryHeader(modules, new ArrayList<>(), null, Range.unbound(), null, null), DummyDependencyListener.INSTANCE);
+    // Modules are reloaded on every load command, unchanged ones do not need to be parsed again
+    if (myReplLibrary instanceof FileSourceLibrary) {
+      ((FileSourceLibrary) myReplLibrary).setParseTreeCache(new ReplParseTreeCache(PARSE_TREE_CACHE_SIZE));
+    }
     myModules = modules;
 
     try {
@@ -1,8 +1,10 @@
 package org.arend.frontend.source;
 
 import org.arend.ext.module.ModulePath;
+import org.arend.frontend.parser.ReplParseTreeCache;
 import org.arend.util.FileUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -18,12 +20,17 @@ public class FileRawSource extends StreamRawSource {
    * @param basePath    a path to the base directory.
    * @param modulePath  a path to the source.
    * @param inTests     true if the source is located in the test directory.
+   * @param parseTreeCache  a cache of parse trees or null if parse trees should not be cached.
    */
-  public FileRawSource(Path basePath, ModulePath modulePath, boolean inTests) {
-    super(modulePath, inTests);
+  public FileRawSource(Path basePath, ModulePath modulePath, boolean inTests, @Nullable ReplParseTreeCache parseTreeCache) {
+    super(modulePath, inTests, parseTreeCache);
     myFile = FileUtils.sourceFile(basePath, modulePath);
   }
 
+  public FileRawSource(Path basePath, ModulePath modulePath, boolean inTests) {
+    this(basePath, modulePath, inTests, null);
+  }
+
   @NotNull
   @Override
   protected InputStream getInputStream() throws IOException {
@@ -1,7 +1,10 @@
 package org.arend.frontend.source;
 
 import org.antlr.v4.runtime.*;
+import org.arend.error.CountingErrorReporter;
 import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.ListErrorReporter;
 import org.arend.ext.module.ModulePath;
 import org.arend.frontend.ConcreteReferableProvider;
 import org.arend.frontend.parser.*;
@@ -16,9 +19,15 @@ import org.arend.source.Source;
 import org.arend.source.SourceLoader;
 import org.arend.term.group.FileGroup;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents a source that loads a raw module from an {@link InputStream}.
@@ -27,11 +36,23 @@ public abstract class StreamRawSource implements Source {
   private final ModulePath myModulePath;
   private final boolean myInTests;
   private FileGroup myGroup;
+  private byte[] myHash;
+  private List<GeneralError> myParsingErrors;
+  private IOException myParsingException;
   private byte myPass = 0;
+  private final ReplParseTreeCache myParseTreeCache;
 
-  protected StreamRawSource(ModulePath modulePath, boolean inTests) {
+  /**
+   * @param parseTreeCache  a cache of parse trees or null if parse trees should not be cached.
+   */
+  protected StreamRawSource(ModulePath modulePath, boolean inTests, @Nullable ReplParseTreeCache parseTreeCache) {
     myModulePath = modulePath;
     myInTests = inTests;
+    myParseTreeCache = parseTreeCache;
+  }
+
+  protected StreamRawSource(ModulePath modulePath, boolean inTests) {
+    this(modulePath, inTests, null);
   }
 
   @NotNull
@@ -48,6 +69,58 @@ public abstract class StreamRawSource implements Source {
   @NotNull
   protected abstract InputStream getInputStream() throws IOException;
 
+  private static byte[] computeHash(byte[] bytes) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(bytes);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private FileGroup parse(SourceLibrary library, ErrorReporter errorReporter) throws IOException {
+    ModulePath modulePath = getModulePath();
+    byte[] bytes;
+    try (InputStream inputStream = getInputStream()) {
+      bytes = inputStream.readAllBytes();
+    }
+    myHash = computeHash(bytes);
+
+    ArendParser.StatementsContext tree = myParseTreeCache == null ? null : myParseTreeCache.get(myHash);
+    if (tree == null) {
+      CountingErrorReporter syntaxErrorReporter = new CountingErrorReporter(errorReporter);
+      var errorListener = new ReporterErrorListener(syntaxErrorReporter, modulePath);
+
+      ArendLexer lexer = new ArendLexer(CharStreams.fromStream(new ByteArrayInputStream(bytes)));
+      lexer.removeErrorListeners();
+      lexer.addErrorListener(errorListener);
+
+      ArendParser parser = new ArendParser(new CommonTokenStream(lexer));
+      parser.removeErrorListeners();
+      parser.addErrorListener(errorListener);
+
+      tree = parser.statements();
+      if (myParseTreeCache != null && syntaxErrorReporter.getErrorsNumber() == 0) {
+        myParseTreeCache.put(myHash, bytes.length, tree);
+      }
+    }
+    return new BuildVisitor(new ModuleLocation(library, myInTests ? ModuleLocation.LocationKind.TEST : ModuleLocation.LocationKind.SOURCE, modulePath), errorReporter).visitStatements(tree);
+  }
+
+  @Override
+  public void preload(SourceLoader sourceLoader) {
+    if (myPass != 0 || myParsingErrors != null) {
+      return;
+    }
+
+    List<GeneralError> errors = new ArrayList<>();
+    try {
+      myGroup = parse(sourceLoader.getLibrary(), new ListErrorReporter(errors));
+    } catch (IOException e) {
+      myParsingException = e;
+    }
+    myParsingErrors = errors;
+  }
+
   @Override
   public @NotNull LoadResult load(SourceLoader sourceLoader) {
     if (myPass == 0) {
@@ -55,28 +128,25 @@ public abstract class StreamRawSource implements Source {
       ModulePath modulePath = getModulePath();
       ErrorReporter errorReporter = sourceLoader.getTypecheckingErrorReporter();
 
-      try {
-        var errorListener = new ReporterErrorListener(errorReporter, modulePath);
-
-        ArendLexer lexer = new ArendLexer(CharStreams.fromStream(getInputStream()));
-        lexer.removeErrorListeners();
-        lexer.addErrorListener(errorListener);
-
-        ArendParser parser = new ArendParser(new CommonTokenStream(lexer));
-        parser.removeErrorListeners();
-        parser.addErrorListener(errorListener);
-
-        ArendParser.StatementsContext tree = parser.statements();
-        myGroup = new BuildVisitor(new ModuleLocation(library, myInTests ? ModuleLocation.LocationKind.TEST : ModuleLocation.LocationKind.SOURCE, modulePath), errorReporter).visitStatements(tree);
-        library.groupLoaded(modulePath, myGroup, true, myInTests);
+      preload(sourceLoader);
+      for (GeneralError error : myParsingErrors) {
+        errorReporter.report(error);
+      }
+      myParsingErrors = null;
 
-        myPass = 1;
-        return LoadResult.CONTINUE;
-      } catch (IOException e) {
-        errorReporter.report(new ExceptionError(e, "loading", modulePath));
+      if (myParsingException != null) {
+        errorReporter.report(new ExceptionError(myParsingException, "loading", modulePath));
+        myParsingException = null;
         library.groupLoaded(modulePath, null, true, myInTests);
         return LoadResult.FAIL;
       }
+
+      library.groupLoaded(modulePath, myGroup, true, myInTests);
+      if (!myInTests) {
+        library.sourceHashComputed(modulePath, myHash);
+      }
+      myPass = 1;
+      return LoadResult.CONTINUE;
     }
 
     if (myPass == 1) {
@@ -85,12 +155,17 @@ public abstract class StreamRawSource implements Source {
       return LoadResult.CONTINUE;
     }
 
+    long time = System.currentTimeMillis();
     new DefinitionResolveNameVisitor(ConcreteReferableProvider.INSTANCE, null, myPass == 2, sourceLoader.getTypecheckingErrorReporter(), null).resolveGroup(myGroup, myGroup.getGroupScope());
+    sourceLoader.addTime("name resolution", System.currentTimeMillis() - time);
     if (myPass == 2) {
       myPass = 3;
       return LoadResult.CONTINUE;
     }
+
+    time = System.currentTimeMillis();
     sourceLoader.getInstanceProviderSet().collectInstances(myGroup, CachingScope.make(ScopeFactory.parentScopeForGroup(myGroup, sourceLoader.getModuleScopeProvider(myInTests), true)), IdReferableConverter.INSTANCE);
+    sourceLoader.addTime("instances", System.currentTimeMillis() - time);
     return LoadResult.SUCCESS;
   }
 }
@@ -1,15 +1,26 @@
 package org.arend.library;
 
 import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.ElimBody;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.IntegerExpression;
+import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.ext.module.ModulePath;
+import org.arend.module.serialization.ModuleDeserialization;
 import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.Scope;
 import org.arend.source.Source;
 import org.arend.term.group.ChildGroup;
 import org.arend.term.group.Group;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.arend.typechecking.order.dependency.DependencyListener;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.arend.Matchers.goal;
 import static org.arend.Matchers.typecheckingError;
@@ -116,6 +127,74 @@ public class CachingTest extends LibraryTestCase {
     assertThat(getDef(aGroup.getGroupScope(), "b").getTypechecked().status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
   }
 
+  @Test
+  public void lazyBodies() {
+    library.addModule(new ModulePath("A"), """
+      \\func f (n : Nat) : Nat
+        | 0 => 0
+        | suc n => suc (suc (f n))
+      \\func g => f 3""");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    ModuleDeserialization.setLazyBodies(true);
+    library.setExternal(true);
+    try {
+      assertTrue(libraryManager.loadLibrary(library, null));
+      assertEquals(1, loadedBinaryModules);
+      Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("A"));
+      assertThat(((FunctionDefinition) getDef(scope, "f").getTypechecked()).getBody(), is(instanceOf(ElimBody.class)));
+      Expression result = ((Expression) ((FunctionDefinition) getDef(scope, "g").getTypechecked()).getBody()).normalize(NormalizationMode.NF);
+      assertThat(result, is(instanceOf(IntegerExpression.class)));
+      assertEquals(6, ((IntegerExpression) result).getSmallInteger());
+    } finally {
+      ModuleDeserialization.setLazyBodies(false);
+    }
+    assertThat(errorList, is(empty()));
+  }
+
+  @Test
+  public void lazyBodyDependencies() {
+    AtomicReference<DependencyCollector> collector = new AtomicReference<>(new DependencyCollector());
+    AtomicBoolean hasRawSources = new AtomicBoolean(true);
+    MemoryLibrary library = new MemoryLibrary() {
+      @Override
+      public DependencyListener getDependencyListener() {
+        return collector.get();
+      }
+
+      @Override
+      public boolean hasRawSources() {
+        return hasRawSources.get();
+      }
+    };
+    setModuleScopeProvider(library.getModuleScopeProvider());
+    library.addModule(new ModulePath("A"), """
+      \\func f => 0
+      \\func g => f""");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    ModuleDeserialization.setLazyBodies(true);
+    collector.set(new DependencyCollector());
+    hasRawSources.set(false);
+    try {
+      assertTrue(libraryManager.loadLibrary(library, null));
+      assertEquals(1, loadedBinaryModules);
+      Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("A"));
+      // The dependency is recorded before the body is loaded
+      assertTrue(collector.get().getDependencies(getDef(scope, "g")).contains(getDef(scope, "f")));
+      assertNotNull(((FunctionDefinition) getDef(scope, "g").getTypechecked()).getBody());
+    } finally {
+      ModuleDeserialization.setLazyBodies(false);
+    }
+    assertThat(errorList, is(empty()));
+  }
+
   @Test
   public void sourceDoesNotChanged() {
     library.addModule(new ModulePath("A"), "\\data D\n");
@@ -124,13 +203,43 @@ public class CachingTest extends LibraryTestCase {
     library.persistUpdatedModules(errorReporter);
     libraryManager.unloadLibrary(library);
 
+    library.updateModule(new ModulePath("A"), "\\data D\n", true);
+    libraryManager.loadLibrary(library, null);
+    assertThat(getDef(library.getModuleScopeProvider().forModule(new ModulePath("A")), "D").getTypechecked(), is(notNullValue()));
+    assertEquals(1, loadedBinaryModules);
+  }
+
+  @Test
+  public void sourceChangedWithoutTimeStamp() {
+    library.addModule(new ModulePath("A"), "\\data D\n");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
     library.updateModule(new ModulePath("A"), "\\func f => 0", false);
     libraryManager.loadLibrary(library, null);
     typechecking.typecheckLibrary(library);
     library.persistUpdatedModules(errorReporter);
     assertThat(getDef(library.getModuleScopeProvider().forModule(new ModulePath("A")), "D"), is(nullValue()));
-    assertThat(getDef(library.getModuleScopeProvider().forModule(new ModulePath("A")), "f"), is(notNullValue()));
-    assertEquals(1, loadedBinaryModules);
+    assertThat(getDef(library.getModuleScopeProvider().forModule(new ModulePath("A")), "f").getTypechecked(), is(notNullValue()));
+    assertEquals(0, loadedBinaryModules);
+  }
+
+  @Test
+  public void dependenciesDoNotChanged() {
+    library.addModule(new ModulePath("A"), "\\data D\n");
+    library.addModule(new ModulePath("B"), "\\import A() \\func f : \\Type0 => A.D\n");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("A"), "\\data D\n", true);
+    library.updateModule(new ModulePath("B"), "\\import A() \\func f : \\Type0 => A.D\n", true);
+    libraryManager.loadLibrary(library, null);
+    assertThat(errorList, is(empty()));
+    assertEquals(2, loadedBinaryModules);
   }
 
   @Test
@@ -168,6 +277,31 @@ public class CachingTest extends LibraryTestCase {
     assertThat(errorList, is(empty()));
   }
 
+  @Test
+  public void dependencyFromOtherLibraryChanged() {
+    MemoryLibrary dependency = new MemoryLibrary("dependency");
+    dependency.addModule(new ModulePath("A"), "\\func a => 0\n");
+    library.addDependency("dependency");
+    library.addModule(new ModulePath("B"), "\\import A() \\func b => A.a\n");
+    assertTrue(libraryManager.loadLibrary(dependency, null));
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(dependency);
+    typechecking.typecheckLibrary(library);
+    dependency.persistUpdatedModules(errorReporter);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+    libraryManager.unloadLibrary(dependency);
+
+    dependency.updateModule(new ModulePath("A"), "\\func a => 1\n", true);
+    library.updateModule(new ModulePath("B"), "\\import A() \\func b => A.a\n", true);
+    assertTrue(libraryManager.loadLibrary(dependency, null));
+    typechecking.typecheckLibrary(dependency);
+    dependency.persistUpdatedModules(errorReporter);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, is(empty()));
+    assertEquals(0, loadedBinaryModules);
+  }
+
   /* These tests do not make sense with the current implementation of libraries.
   @Test
   public void removeRawSource() {
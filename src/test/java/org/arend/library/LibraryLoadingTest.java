@@ -1,6 +1,7 @@
 package org.arend.library;
 
 import org.arend.ext.module.ModulePath;
+import org.arend.naming.scope.Scope;
 import org.arend.source.Source;
 import org.arend.term.group.Group;
 import org.junit.Test;
@@ -66,4 +67,24 @@ public class LibraryLoadingTest extends LibraryTestCase {
     assertThat(library.getModuleGroup(modulePath), is(notNullValue()));
     assertThat(errorList, is(not(empty())));
   }
+
+  @Test
+  public void sharedModuleScope() {
+    ModulePath modulePath = new ModulePath("A");
+    library.addModule(modulePath, "\\func f => 0");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    Scope scope = libraryManager.getAvailableModuleScopeProvider(library).forModule(modulePath);
+    assertThat(scope, is(notNullValue()));
+    assertThat(libraryManager.getAvailableModuleScopeProvider(library).forModule(modulePath), is(sameInstance(scope)));
+    assertThat(scope.resolveName("f"), is(notNullValue()));
+
+    libraryManager.unloadLibrary(library);
+    library.addModule(modulePath, "\\func g => 0");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    Scope newScope = libraryManager.getAvailableModuleScopeProvider(library).forModule(modulePath);
+    assertThat(newScope, is(notNullValue()));
+    assertThat(newScope.resolveName("g"), is(notNullValue()));
+    assertThat(newScope.resolveName("f"), is(nullValue()));
+    assertThat(errorList, containsErrors(0));
+  }
 }
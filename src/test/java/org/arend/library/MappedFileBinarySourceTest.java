@@ -0,0 +1,117 @@
+package org.arend.library;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.module.serialization.ModuleProtos;
+import org.arend.source.MappedFileBinarySource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class MappedFileBinarySourceTest {
+  private static final ModulePath MODULE_PATH = new ModulePath("A", "B");
+  private Path myDirectory;
+
+  private static class TestSource extends MappedFileBinarySource {
+    TestSource(Path basePath, boolean readOnly) {
+      super(basePath, MODULE_PATH, readOnly);
+    }
+
+    ModuleProtos.Module read() throws IOException {
+      return readModule();
+    }
+
+    boolean isWritable() throws IOException {
+      try (OutputStream stream = getOutputStream()) {
+        return stream != null;
+      }
+    }
+
+    void write(ModuleProtos.Module module, boolean compress) throws IOException {
+      try (OutputStream stream = compress ? new GZIPOutputStream(getOutputStream()) : getOutputStream()) {
+        module.writeTo(stream);
+      }
+    }
+  }
+
+  @Before
+  public void createDirectory() throws IOException {
+    myDirectory = Files.createTempDirectory("arend");
+  }
+
+  @After
+  public void deleteDirectory() throws IOException {
+    try (Stream<Path> paths = Files.walk(myDirectory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  private static ModulePath modulePath(int index) {
+    return new ModulePath("M" + index);
+  }
+
+  private static ModuleProtos.Module makeModule(int callTargets, boolean complete) {
+    ModuleProtos.Module.Builder builder = ModuleProtos.Module.newBuilder().setVersion(1).setComplete(complete);
+    for (int i = 0; i < callTargets; i++) {
+      builder.addModuleCallTargets(ModuleProtos.ModuleCallTargets.newBuilder().addAllName(modulePath(i).toList()));
+    }
+    return builder.build();
+  }
+
+  private void check(ModuleProtos.Module module, boolean compress) throws IOException {
+    TestSource source = new TestSource(myDirectory, false);
+    source.write(module, compress);
+    assertEquals(module, source.read());
+    assertEquals(module, new TestSource(myDirectory, true).read());
+  }
+
+  @Test
+  public void smallFile() throws IOException {
+    check(makeModule(10, true), false);
+  }
+
+  @Test
+  public void largeFile() throws IOException {
+    check(makeModule(100000, true), false);
+  }
+
+  @Test
+  public void compressedFile() throws IOException {
+    check(makeModule(100000, true), true);
+  }
+
+  @Test
+  public void compressedSmallFile() throws IOException {
+    check(makeModule(10, true), true);
+  }
+
+  @Test
+  public void missingFile() throws IOException {
+    assertNull(new TestSource(myDirectory, false).read());
+    assertNull(new TestSource(myDirectory, true).read());
+  }
+
+  @Test
+  public void overwriteWithSmallerFile() throws IOException {
+    check(makeModule(100000, true), false);
+    check(makeModule(10, false), false);
+  }
+
+  @Test
+  public void readOnlySource() throws IOException {
+    check(makeModule(100000, true), false);
+    TestSource source = new TestSource(myDirectory, true);
+    assertFalse(source.isWritable());
+    assertFalse(source.delete(null));
+    assertTrue(source.isAvailable());
+  }
+}
@@ -2,6 +2,7 @@ package org.arend.library;
 
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.module.ModulePath;
+import org.arend.frontend.parser.ReplParseTreeCache;
 import org.arend.source.Source;
 import org.arend.term.group.ChildGroup;
 import org.arend.util.Range;
@@ -14,9 +15,15 @@ import java.util.*;
 public class MemoryLibrary extends PersistableSourceLibrary {
   private final Map<ModulePath, MemoryRawSource> myRawSources = new LinkedHashMap<>();
   private final Map<ModulePath, MemoryBinarySource> myBinarySources = new LinkedHashMap<>();
+  private final List<LibraryDependency> myDependencies = new ArrayList<>();
+  private ReplParseTreeCache myParseTreeCache;
 
   protected MemoryLibrary() {
-    super("test_library");
+    this("test_library");
+  }
+
+  protected MemoryLibrary(String name) {
+    super(name);
   }
 
   public ChildGroup getModuleGroup(ModulePath modulePath) {
@@ -38,16 +45,24 @@ public class MemoryLibrary extends PersistableSourceLibrary {
   @Nullable
   @Override
   protected LibraryHeader loadHeader(ErrorReporter errorReporter) {
-    return new LibraryHeader(myRawSources.keySet(), Collections.emptyList(), null, Range.unbound(), null, null);
+    return new LibraryHeader(myRawSources.keySet(), myDependencies, null, Range.unbound(), null, null);
   }
 
   public void addModule(ModulePath module, String text) {
-    myRawSources.put(module, new MemoryRawSource(module, text));
+    myRawSources.put(module, new MemoryRawSource(module, text, 0, myParseTreeCache));
     myBinarySources.put(module, new MemoryBinarySource(module));
   }
 
   public void updateModule(ModulePath module, String text, boolean updateVersion) {
-    myRawSources.put(module, new MemoryRawSource(module, text, updateVersion ? 1 : 0));
+    myRawSources.put(module, new MemoryRawSource(module, text, updateVersion ? 1 : 0, myParseTreeCache));
+  }
+
+  public void setParseTreeCache(ReplParseTreeCache parseTreeCache) {
+    myParseTreeCache = parseTreeCache;
+  }
+
+  public void addDependency(String name) {
+    myDependencies.add(new LibraryDependency(name));
   }
 
   public void removeRawSource(ModulePath module) {
@@ -61,7 +76,7 @@ public class MemoryLibrary extends PersistableSourceLibrary {
   @NotNull
   @Override
   public List<? extends LibraryDependency> getDependencies() {
-    return Collections.emptyList();
+    return myDependencies;
   }
 
   @Override
@@ -1,6 +1,7 @@
 package org.arend.library;
 
 import org.arend.ext.module.ModulePath;
+import org.arend.frontend.parser.ReplParseTreeCache;
 import org.arend.frontend.source.StreamRawSource;
 import org.jetbrains.annotations.NotNull;
 
@@ -11,11 +12,17 @@ import java.nio.charset.StandardCharsets;
 public class MemoryRawSource extends StreamRawSource {
   private final String myText;
   private final long myTimeStamp;
+  private final ReplParseTreeCache myParseTreeCache;
 
-  public MemoryRawSource(ModulePath modulePath, String text, long timeStamp) {
-    super(modulePath, false);
+  public MemoryRawSource(ModulePath modulePath, String text, long timeStamp, ReplParseTreeCache parseTreeCache) {
+    super(modulePath, false, parseTreeCache);
     myText = text;
     myTimeStamp = timeStamp;
+    myParseTreeCache = parseTreeCache;
+  }
+
+  public MemoryRawSource(ModulePath modulePath, String text, long timeStamp) {
+    this(modulePath, text, timeStamp, null);
   }
 
   public MemoryRawSource(ModulePath modulePath, String text) {
@@ -23,7 +30,7 @@ public class MemoryRawSource extends StreamRawSource {
   }
 
   public MemoryRawSource(MemoryRawSource source) {
-    this(source.getModulePath(), source.myText, source.myTimeStamp);
+    this(source.getModulePath(), source.myText, source.myTimeStamp, source.myParseTreeCache);
   }
 
   @NotNull
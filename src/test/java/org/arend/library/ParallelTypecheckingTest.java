@@ -0,0 +1,245 @@
+package org.arend.library;
+
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.ext.DefaultArendExtension;
+import org.arend.ext.core.definition.CoreDefinition;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.module.ModulePath;
+import org.arend.ext.typechecking.DefinitionListener;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.Scope;
+import org.arend.term.group.Group;
+import org.arend.typechecking.doubleChecker.CoreModuleChecker;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.arend.core.expr.ExpressionFactory.Nat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelTypecheckingTest extends LibraryTestCase {
+  private TypecheckingOrderingListener parallelTypechecking(int threads) {
+    TypecheckingOrderingListener typechecking = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, PositionComparator.INSTANCE, ref -> null);
+    typechecking.setNumberOfThreads(threads);
+    return typechecking;
+  }
+
+  private void addModules(int size) {
+    library.addModule(new ModulePath("Base"), """
+      \\class Pointed (E : \\Set) | pt : E
+      \\instance NatPointed : Pointed Nat | pt => 0
+      \\func even (n : Nat) : Bool \\elim n
+        | 0 => true
+        | suc n => odd n
+      \\func odd (n : Nat) : Bool \\elim n
+        | 0 => false
+        | suc n => even n
+      \\data Bool | true | false""");
+    for (int i = 0; i < size; i++) {
+      library.addModule(new ModulePath("M" + i), "\\import Base\n" +
+        (i > 0 ? "\\import M" + (i - 1) + "\n" : "") +
+        "\\func f" + i + " (n : Nat) : Nat \\elim n\n" +
+        "  | 0 => pt\n" +
+        "  | suc n => suc (f" + i + " n)\n" +
+        "\\func g" + i + " : f" + i + " 3 = 3 => idp\n" +
+        "\\func h" + i + " : even 4 = true => idp\n" +
+        (i > 0 ? "\\func k" + i + " : f" + (i - 1) + " 2 = 2 => idp\n" : ""));
+    }
+  }
+
+  @Test
+  public void manyModules() {
+    addModules(20);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertTrue(parallelTypechecking(4).typecheckLibrary(library));
+    assertThat(errorList, is(empty()));
+
+    for (int i = 0; i < 20; i++) {
+      Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("M" + i));
+      TCDefReferable ref = getDef(scope, "g" + i);
+      assertThat(ref, is(notNullValue()));
+      assertThat(ref.getTypechecked().status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+    }
+  }
+
+  private List<String> typecheckAndGetErrors(int threads) {
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    parallelTypechecking(threads).typecheckLibrary(library);
+    List<String> result = new ArrayList<>();
+    for (GeneralError error : errorList) {
+      result.add(error.toString());
+    }
+    errorList.clear();
+    return result;
+  }
+
+  @Test
+  public void deterministicErrors() {
+    for (int i = 0; i < 10; i++) {
+      library.addModule(new ModulePath("M" + i), "\\func f" + i + " : Nat => {?}\n\\func g" + i + " (n : Nat) : Nat => f" + i + " Nat");
+    }
+
+    List<String> expected = typecheckAndGetErrors(1);
+    assertThat(expected, hasSize(20));
+
+    List<String> parallel = typecheckAndGetErrors(4);
+    assertThat(parallel, containsInAnyOrder(expected.toArray()));
+    for (int i = 0; i < 3; i++) {
+      assertThat(typecheckAndGetErrors(4), is(equalTo(parallel)));
+    }
+  }
+
+  @Test
+  public void parallelLoading() {
+    addModules(20);
+    libraryManager.setNumberOfThreads(4);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertTrue(parallelTypechecking(4).typecheckLibrary(library));
+    assertThat(errorList, is(empty()));
+
+    for (int i = 0; i < 20; i++) {
+      Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("M" + i));
+      assertThat(getDef(scope, "f" + i).getTypechecked().status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+    }
+  }
+
+  private List<String> loadAndGetErrors(int threads) {
+    libraryManager.unloadLibrary(library);
+    libraryManager.setNumberOfThreads(threads);
+    libraryManager.loadLibrary(library, null);
+    List<String> result = new ArrayList<>();
+    for (GeneralError error : errorList) {
+      result.add(error.toString());
+    }
+    errorList.clear();
+    return result;
+  }
+
+  @Test
+  public void deterministicLoadingErrors() {
+    for (int i = 0; i < 10; i++) {
+      library.addModule(new ModulePath("M" + i), "\\func f" + i + " => (\n\\func g" + i + " => h" + i);
+    }
+
+    List<String> expected = loadAndGetErrors(1);
+    assertThat(expected, is(not(empty())));
+    for (int i = 0; i < 3; i++) {
+      assertThat(loadAndGetErrors(4), is(equalTo(expected)));
+    }
+  }
+
+  private Map<ModulePath, Group> getGroups() {
+    Map<ModulePath, Group> groups = new LinkedHashMap<>();
+    for (ModulePath module : library.getLoadedModules()) {
+      groups.put(module, library.getModuleGroup(module, false));
+    }
+    return groups;
+  }
+
+  @Test
+  public void parallelDoubleChecking() {
+    addModules(20);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertTrue(parallelTypechecking(4).typecheckLibrary(library));
+
+    CoreModuleChecker checker = new CoreModuleChecker(errorReporter);
+    assertTrue(checker.checkModules(getGroups(), 4));
+    assertThat(errorList, is(empty()));
+    assertThat(checker.getTimes().keySet(), containsInAnyOrder(library.getLoadedModules().toArray()));
+  }
+
+  private List<String> doubleCheckAndGetErrors(int threads) {
+    assertFalse(new CoreModuleChecker(errorReporter).checkModules(getGroups(), threads));
+    List<String> result = new ArrayList<>();
+    for (GeneralError error : errorList) {
+      result.add(error.toString());
+    }
+    errorList.clear();
+    return result;
+  }
+
+  @Test
+  public void deterministicDoubleCheckingErrors() {
+    addModules(10);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertTrue(parallelTypechecking(1).typecheckLibrary(library));
+    for (int i = 0; i < 10; i++) {
+      ((FunctionDefinition) getDef(library.getModuleScopeProvider().forModule(new ModulePath("M" + i)), "g" + i).getTypechecked()).setResultType(Nat());
+    }
+
+    List<String> expected = doubleCheckAndGetErrors(1);
+    assertThat(expected, hasSize(10));
+    for (int i = 0; i < 3; i++) {
+      assertThat(doubleCheckAndGetErrors(4), is(equalTo(expected)));
+    }
+  }
+
+  @Test
+  public void parallelBinaryLoading() {
+    addModules(20);
+    library.addModule(new ModulePath("Records"), "\\record R (x y : Nat)");
+    for (int i = 0; i < 10; i++) {
+      library.addModule(new ModulePath("S" + i), "\\import Records\n" +
+        (i > 0 ? "\\import S" + (i - 1) + "\n" : "") +
+        "\\record S" + i + " \\extends " + (i > 0 ? "S" + (i - 1) : "R") + (i == 0 ? " | x => 0" : "") + "\n" +
+        "\\func s" + i + " : S" + i + " { | y => " + i + " } => \\new S" + i + " { | y => " + i + " }\n" +
+        "\\func t" + i + " : R.x {s" + i + "} = 0 => idp");
+    }
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertTrue(parallelTypechecking(4).typecheckLibrary(library));
+    library.persistUpdatedModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    libraryManager.setNumberOfThreads(4);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(loadedBinaryModules, is(equalTo(32)));
+    assertTrue(new CoreModuleChecker(errorReporter).checkModules(getGroups(), 1));
+    assertThat(errorList, is(empty()));
+    for (int i = 0; i < 10; i++) {
+      Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("S" + i));
+      assertThat(getDef(scope, "t" + i).getTypechecked().status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+    }
+  }
+
+  @Test
+  public void parallelBinaryLoadingCallbacks() {
+    addModules(20);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertTrue(parallelTypechecking(4).typecheckLibrary(library));
+    library.persistUpdatedModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    Set<Thread> threads = new HashSet<>();
+    List<CoreDefinition> loaded = new ArrayList<>();
+    library.setArendExtension(new DefaultArendExtension() {
+      @Override
+      public DefinitionListener getDefinitionListener() {
+        return new DefinitionListener() {
+          @Override
+          public void loaded(@NotNull CoreDefinition definition) {
+            threads.add(Thread.currentThread());
+            loaded.add(definition);
+          }
+        };
+      }
+    });
+    libraryManager.setNumberOfThreads(4);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(loadedBinaryModules, is(equalTo(21)));
+    assertThat(threads, contains(Thread.currentThread()));
+    assertThat(loaded, hasSize(greaterThanOrEqualTo(20 * 3)));
+  }
+}
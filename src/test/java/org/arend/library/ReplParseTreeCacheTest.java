@@ -0,0 +1,71 @@
+package org.arend.library;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.parser.ReplParseTreeCache;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReplParseTreeCacheTest extends LibraryTestCase {
+  private final ModulePath myModule = new ModulePath("A");
+  private final ReplParseTreeCache myCache = new ReplParseTreeCache(1024);
+
+  @Before
+  public void enableCache() {
+    library.setParseTreeCache(myCache);
+  }
+
+  private void reload() {
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library, null));
+  }
+
+  @Test
+  public void unchangedSource() {
+    library.addModule(myModule, "\\func f => 0");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    reload();
+    assertEquals(1, myCache.getHits());
+    assertThat(errorList, containsErrors(0));
+
+    typechecking.typecheckLibrary(library);
+    assertThat(errorList, containsErrors(0));
+    assertThat(getDef(library.getModuleScopeProvider().forModule(myModule), "f").getTypechecked(), is(notNullValue()));
+  }
+
+  @Test
+  public void changedSource() {
+    library.addModule(myModule, "\\func f => 0");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    library.updateModule(myModule, "\\func g => 0", true);
+    reload();
+    assertEquals(0, myCache.getHits());
+    assertThat(getDef(library.getModuleScopeProvider().forModule(myModule), "f"), is(nullValue()));
+    assertThat(getDef(library.getModuleScopeProvider().forModule(myModule), "g"), is(notNullValue()));
+  }
+
+  @Test
+  public void sourceWithSyntaxErrors() {
+    library.addModule(myModule, "hello world");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, is(not(empty())));
+    int errors = errorList.size();
+    reload();
+    assertEquals(0, myCache.getHits());
+    assertEquals(2 * errors, errorList.size());
+  }
+
+  @Test
+  public void sizeBound() {
+    library.addModule(myModule, "\\func f => 0");
+    library.addModule(new ModulePath("B"), "\\func g => 0 -- " + "x".repeat(2000));
+    assertTrue(libraryManager.loadLibrary(library, null));
+    reload();
+    assertEquals(1, myCache.getHits());
+    assertEquals(3, myCache.getMisses());
+  }
+}
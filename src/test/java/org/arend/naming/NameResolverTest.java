@@ -5,12 +5,17 @@ import org.arend.ext.reference.Precedence;
 import org.arend.module.ModuleLocation;
 import org.arend.naming.reference.*;
 import org.arend.naming.scope.EmptyScope;
+import org.arend.naming.scope.LexicalScope;
 import org.arend.naming.scope.ListScope;
+import org.arend.naming.scope.Scope;
 import org.arend.naming.scope.SingletonScope;
 import org.arend.ext.concrete.definition.FunctionKind;
 import org.arend.term.concrete.Concrete;
 import org.arend.term.group.AccessModifier;
 import org.arend.term.group.ChildGroup;
+import org.arend.term.group.Group;
+import org.arend.term.group.Statement;
+import org.jetbrains.annotations.NotNull;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -740,4 +745,57 @@ public class NameResolverTest extends NameResolverTestCase {
       """, 1);
     assertThatErrorsAre(notInScope("foo"));
   }
+
+  @Test
+  public void symbolTableTest() {
+    ChildGroup group = resolveNamesModule("""
+      \\data D | con1 | con2
+      \\func foo \\alias bar => con1
+      \\module M \\where {
+        \\func baz => 0
+      }
+      """);
+    assertSame(group.getSymbolTable(), group.getSymbolTable());
+    Scope scope = LexicalScope.insideOf(group, EmptyScope.INSTANCE);
+    assertEquals(get("D.con1"), scope.resolveName("con1"));
+    assertEquals(get("D.con2"), scope.resolveName("con2"));
+    assertEquals(get("foo"), scope.resolveName("foo"));
+    assertEquals(get("foo"), scope.resolveName("bar").getUnderlyingReferable());
+    assertNotNull(scope.resolveNamespace("M", false));
+    assertNull(scope.resolveName("baz"));
+  }
+
+  @Test
+  public void uncachedGroupTest() {
+    ChildGroup group = resolveNamesModule("""
+      \\data D | con1 | con2
+      \\func foo \\alias bar => con1
+      \\module M \\where {
+        \\func baz => 0
+      }
+      """);
+    Group uncached = new Group() {
+      @Override
+      public @NotNull LocatedReferable getReferable() {
+        return group.getReferable();
+      }
+
+      @Override
+      public @NotNull List<? extends Statement> getStatements() {
+        return group.getStatements();
+      }
+
+      @Override
+      public @NotNull List<? extends InternalReferable> getInternalReferables() {
+        return group.getInternalReferables();
+      }
+    };
+    assertNull(uncached.getSymbolTable());
+    Scope scope = LexicalScope.insideOf(uncached, EmptyScope.INSTANCE);
+    assertEquals(get("D.con1"), scope.resolveName("con1"));
+    assertEquals(get("foo"), scope.resolveName("foo"));
+    assertEquals(get("foo"), scope.resolveName("bar").getUnderlyingReferable());
+    assertNotNull(scope.resolveNamespace("M", false));
+    assertNull(scope.resolveName("baz"));
+  }
 }
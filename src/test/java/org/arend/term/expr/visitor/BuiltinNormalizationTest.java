@@ -185,6 +185,36 @@ public class BuiltinNormalizationTest extends TypeCheckingTestCase {
     assertEquals(Suc(plus(x, y)), plus(Suc(x), y).normalize(NormalizationMode.WHNF));
   }
 
+  @Test
+  public void testSucLiterals() {
+    Expression five = funCall(Prelude.PLUS, val(2), val(3));
+    // suc (2 + 3) + suc 4 = 11
+    assertEquals(val(11), plus(Suc(five), Suc(val(4))).normalize(NormalizationMode.WHNF));
+    // suc (suc (2 + 3)) - 4 = 3
+    assertEquals(Pos(val(3)), minus(Suc(Suc(five)), val(4)).normalize(NormalizationMode.WHNF));
+    // suc (2 + 3) - suc 8 = -3
+    assertEquals(Neg(val(3)), minus(Suc(five), val(9)).normalize(NormalizationMode.WHNF));
+  }
+
+  @Test
+  public void testOverflow() {
+    BigInteger max = BigInteger.valueOf(Integer.MAX_VALUE);
+    assertEquals(new BigIntegerExpression(max.add(BigInteger.ONE)), plus(val(Integer.MAX_VALUE), val(1)).normalize(NormalizationMode.WHNF));
+    assertEquals(new BigIntegerExpression(max.multiply(max)), funCall(Prelude.MUL, val(Integer.MAX_VALUE), val(Integer.MAX_VALUE)).normalize(NormalizationMode.WHNF));
+    assertEquals(Neg(new BigIntegerExpression(max.subtract(BigInteger.valueOf(2)))), minus(val(5), new BigIntegerExpression(max.add(BigInteger.valueOf(3)))).normalize(NormalizationMode.WHNF));
+    assertEquals(val(7), funCall(Prelude.MOD, val(7), new BigIntegerExpression(max.add(BigInteger.ONE))).normalize(NormalizationMode.WHNF));
+    assertEquals(val(2), funCall(Prelude.DIV, val(7), new BigIntegerExpression(BigInteger.valueOf(3))).normalize(NormalizationMode.WHNF));
+  }
+
+  @Test
+  public void testPlusBigLiteral() {
+    ReferenceExpression x = new ReferenceExpression(new TypedBinding("x", Nat()));
+    BigIntegerExpression big = new BigIntegerExpression(BigInteger.valueOf(Integer.MAX_VALUE).add(BigInteger.ONE));
+    assertEquals(plus(x, big), plus(x, big).normalize(NormalizationMode.WHNF));
+    assertEquals(plus(big, x), plus(big, x).normalize(NormalizationMode.WHNF));
+    assertEquals(Suc(plus(x, big)), plus(Suc(x), big).normalize(NormalizationMode.WHNF));
+  }
+
   @Test
   public void testDivMod0() {
     ReferenceExpression x = new ReferenceExpression(new TypedBinding("x", Nat()));
@@ -4,13 +4,14 @@ import org.arend.core.context.binding.Binding;
 import org.arend.core.context.binding.TypedBinding;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.SingleDependentLink;
+import org.arend.core.expr.AppExpression;
 import org.arend.core.expr.Expression;
 import org.arend.typechecking.TypeCheckingTestCase;
 import org.junit.Test;
 
 import static org.arend.ExpressionFactory.*;
 import static org.arend.core.expr.ExpressionFactory.*;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class SubstTest extends TypeCheckingTestCase {
   @Test
@@ -118,4 +119,45 @@ public class SubstTest extends TypeCheckingTestCase {
     Expression expr2 = let(lets(let("x", Lam(z, Ref(z))), let("y", Lam(w, Zero()))), Zero());
     assertEquals(expr2, expr1.subst(a, Zero()));
   }
+
+  @Test
+  public void freeVariablesMask() {
+    // A x 0 [y := zero] = A x 0 if y is not in the summary of A x 0
+    Binding A = new TypedBinding("A", Pi(Nat(), Pi(Nat(), Nat())));
+    Binding x = new TypedBinding("x", Nat());
+    Expression expr = Apps(Ref(A), Ref(x), Zero());
+    int mask = expr.getFreeVariablesMask();
+    assertNotEquals(0, mask & Expression.bindingMask(A));
+    assertNotEquals(0, mask & Expression.bindingMask(x));
+    assertEquals(0, mask & Expression.LEVELS_MASK);
+    assertEquals(Expression.UNKNOWN_MASK, Lam(singleParam("y", Nat()), expr).getFreeVariablesMask());
+
+    for (int i = 0; i < 100; i++) {
+      Binding y = new TypedBinding("y", Nat());
+      Expression result = expr.subst(y, Zero());
+      assertEquals(expr, result);
+      if ((mask & Expression.bindingMask(y)) == 0) {
+        assertSame(expr, result);
+      }
+    }
+
+    Expression result = expr.subst(x, Zero());
+    assertNotSame(expr, result);
+    assertEquals(Apps(Ref(A), Zero(), Zero()), result);
+  }
+
+  @Test
+  public void closedSubtreeIsShared() {
+    // f x (g Nat) [x := zero] = f zero (g Nat), where g Nat is not copied
+    Binding f = new TypedBinding("f", Pi(Nat(), Pi(Nat(), Nat())));
+    Binding g = new TypedBinding("g", Pi(Universe(0), Nat()));
+    Binding x = new TypedBinding("x", Nat());
+    Expression closed = Apps(Ref(g), Nat());
+    assertFalse(closed.isInterned());
+    assertEquals(0, closed.getFreeVariablesMask() & Expression.bindingMask(x));
+
+    Expression result = Apps(Ref(f), Ref(x), closed).subst(x, Zero());
+    assertEquals(Apps(Ref(f), Zero(), closed), result);
+    assertSame(closed, ((AppExpression) result).getArgument());
+  }
 }
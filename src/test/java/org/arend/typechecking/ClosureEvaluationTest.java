@@ -0,0 +1,20 @@
+package org.arend.typechecking;
+
+import org.arend.core.expr.visitor.ClosureEvaluator;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.EnumSet;
+
+public class ClosureEvaluationTest extends EvaluationTest {
+  @Before
+  public void enableClosureEvaluation() {
+    ClosureEvaluator.setModes(EnumSet.allOf(NormalizationMode.class));
+  }
+
+  @After
+  public void disableClosureEvaluation() {
+    ClosureEvaluator.setModes(EnumSet.noneOf(NormalizationMode.class));
+  }
+}
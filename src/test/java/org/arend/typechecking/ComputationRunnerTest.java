@@ -0,0 +1,142 @@
+package org.arend.typechecking;
+
+import org.arend.typechecking.computation.BooleanCancellationIndicator;
+import org.arend.typechecking.computation.CancellationIndicator;
+import org.arend.typechecking.computation.ComputationRunner;
+import org.arend.typechecking.computation.ThreadCancellationIndicator;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class ComputationRunnerTest {
+  @Test
+  public void nestedRun() {
+    BooleanCancellationIndicator outer = new BooleanCancellationIndicator();
+    BooleanCancellationIndicator inner = new BooleanCancellationIndicator();
+    ComputationRunner<Boolean> runner = new ComputationRunner<>();
+    assertTrue(runner.run(outer, () -> {
+      assertSame(outer, ComputationRunner.getCancellationIndicator());
+      assertTrue(new ComputationRunner<Boolean>().run(inner, () -> ComputationRunner.getCancellationIndicator() == inner));
+      assertTrue(runner.run(null, () -> ComputationRunner.getCancellationIndicator() == outer));
+      return ComputationRunner.getCancellationIndicator() == outer;
+    }));
+    assertFalse(ComputationRunner.isCancellationIndicatorSet());
+  }
+
+  @Test
+  public void concurrentRunners() throws InterruptedException {
+    BooleanCancellationIndicator indicator1 = new BooleanCancellationIndicator();
+    BooleanCancellationIndicator indicator2 = new BooleanCancellationIndicator();
+    AtomicReference<CancellationIndicator> seen = new AtomicReference<>();
+    CountDownLatch latch = new CountDownLatch(1);
+
+    new ComputationRunner<Void>().run(indicator1, () -> {
+      Thread thread = new Thread(() -> new ComputationRunner<Void>().run(indicator2, () -> {
+        seen.set(ComputationRunner.getCancellationIndicator());
+        latch.countDown();
+        return null;
+      }));
+      thread.start();
+      try {
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        thread.join();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      assertSame(indicator1, ComputationRunner.getCancellationIndicator());
+      return null;
+    });
+
+    assertSame(indicator2, seen.get());
+  }
+
+  private static class KeyComputationRunner extends ComputationRunner<Boolean> {
+    private final Object myKey;
+
+    KeyComputationRunner(Object key) {
+      myKey = key;
+    }
+
+    @Override
+    public Boolean run(CancellationIndicator cancellationIndicator, Supplier<Boolean> runnable) {
+      return super.run(cancellationIndicator, () -> {
+        addComputedKey(myKey);
+        return runnable.get();
+      });
+    }
+
+    @Override
+    protected Boolean computationInterrupted() {
+      return false;
+    }
+  }
+
+  @Test
+  public void cancelComputations() {
+    BooleanCancellationIndicator indicator = new BooleanCancellationIndicator();
+    BooleanCancellationIndicator otherIndicator = new BooleanCancellationIndicator();
+    Object key = new Object();
+    assertFalse(new KeyComputationRunner(key).run(indicator, () -> {
+      assertTrue(new ComputationRunner<Boolean>().run(otherIndicator, () -> {
+        ComputationRunner.cancelComputations(new Object());
+        assertFalse(indicator.isCanceled());
+        ComputationRunner.cancelComputations(key);
+        return true;
+      }));
+      assertFalse(otherIndicator.isCanceled());
+      ComputationRunner.checkCanceled();
+      return true;
+    }));
+    assertTrue(indicator.isCanceled());
+
+    // Keys are released when the computation finishes
+    BooleanCancellationIndicator newIndicator = new BooleanCancellationIndicator();
+    assertTrue(new ComputationRunner<Boolean>().run(newIndicator, () -> {
+      ComputationRunner.cancelComputations(key);
+      return true;
+    }));
+    assertFalse(newIndicator.isCanceled());
+  }
+
+  @Test
+  public void cancelOtherComputations() {
+    BooleanCancellationIndicator outer = new BooleanCancellationIndicator();
+    BooleanCancellationIndicator inner = new BooleanCancellationIndicator();
+    Object key = new Object();
+    assertFalse(new KeyComputationRunner(key).run(outer, () -> {
+      assertTrue(new KeyComputationRunner(key).run(inner, () -> {
+        ComputationRunner.cancelOtherComputations(key);
+        return true;
+      }));
+      assertFalse(inner.isCanceled());
+      ComputationRunner.checkCanceled();
+      return true;
+    }));
+    assertTrue(outer.isCanceled());
+  }
+
+  @Test
+  public void cancelThreadIndicator() throws InterruptedException {
+    Object key = new Object();
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicReference<Boolean> result = new AtomicReference<>();
+    Thread thread = new Thread(() -> result.set(new KeyComputationRunner(key).run(ThreadCancellationIndicator.INSTANCE, () -> {
+      started.countDown();
+      while (true) {
+        ComputationRunner.checkCanceled();
+        Thread.onSpinWait();
+      }
+    })));
+    thread.start();
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    ComputationRunner.cancelComputations(key);
+    thread.join(10000);
+    assertFalse(Thread.currentThread().isInterrupted());
+    assertEquals(Boolean.FALSE, result.get());
+  }
+}
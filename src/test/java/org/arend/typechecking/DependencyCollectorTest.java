@@ -0,0 +1,157 @@
+package org.arend.typechecking;
+
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.term.concrete.Concrete;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.computation.CancellationIndicator;
+import org.arend.typechecking.computation.ComputationRunner;
+import org.arend.typechecking.computation.DefinitionCancellationIndicator;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+public class DependencyCollectorTest extends TypeCheckingTestCase {
+  private final DependencyCollector myCollector = new DependencyCollector(module -> module.equals(MODULE_PATH.getModulePath()) ? lastGroup.getGroupScope() : null);
+
+  private TypecheckingOrderingListener makeTypechecking() {
+    return new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, myCollector, PositionComparator.INSTANCE, ref -> null);
+  }
+
+  private void typeCheckWithDependencies(String text) {
+    resolveNamesModule(text);
+    assertTrue(makeTypechecking().typecheckModules(Collections.singletonList(lastGroup), null));
+    assertThat(errorList, containsErrors(0));
+  }
+
+  private void retypeCheck(String name) {
+    makeTypechecking().typecheckDefinitions(Collections.singletonList((Concrete.ResolvableDefinition) getConcrete(name)), null);
+    assertThat(errorList, containsErrors(0));
+    assertNotNull(getDefinition(name));
+  }
+
+  /**
+   * Replaces the definition of {@code name} with the one from {@code text} keeping its referable
+   * and typechecks it together with {@code dependents}.
+   */
+  private void editAndRetypeCheck(String name, String text, CancellationIndicator indicator, String... dependents) {
+    TCDefReferable ref = getRef(name);
+    ChildGroup group = lastGroup;
+    resolveNamesModule(text);
+    Concrete.FunctionDefinition newDef = (Concrete.FunctionDefinition) getConcrete(name);
+    lastGroup = group;
+
+    Concrete.FunctionDefinition def = new Concrete.FunctionDefinition(newDef.getKind(), ref, newDef.getPLevelParameters(), newDef.getHLevelParameters(), newDef.getParameters(), newDef.getResultType(), newDef.getResultTypeLevel(), newDef.getBody());
+    def.setResolved();
+    myCollector.update(ref);
+
+    List<Concrete.ResolvableDefinition> definitions = new ArrayList<>();
+    definitions.add(def);
+    for (String dependent : dependents) {
+      definitions.add((Concrete.ResolvableDefinition) getConcrete(dependent));
+    }
+    assertTrue(makeTypechecking().typecheckDefinitions(definitions, indicator));
+    assertThat(errorList, containsErrors(0));
+  }
+
+  private TCDefReferable getRef(String name) {
+    return (TCDefReferable) get(name);
+  }
+
+  @Test
+  public void functionUpdateDropsDependents() {
+    typeCheckWithDependencies(
+      "\\func f => 0\n" +
+      "\\func g => f\n" +
+      "\\func h => g");
+    assertEquals(3, myCollector.update(getRef("f")).size());
+    assertNull(getDefinition("g"));
+    assertNull(getDefinition("h"));
+  }
+
+  @Test
+  public void lemmaUpdateKeepsDependents() {
+    typeCheckWithDependencies(
+      "\\lemma p : 0 = 0 => idp\n" +
+      "\\func g : \\Sigma (0 = 0) Nat => (p, 0)");
+    assertEquals(Collections.singleton(getRef("p")), myCollector.update(getRef("p")));
+    assertNull(getDefinition("p"));
+    assertNotNull(getDefinition("g"));
+
+    retypeCheck("p");
+    assertNotNull(getDefinition("g"));
+  }
+
+  @Test
+  public void lemmaUpdateCancelsDependents() {
+    typeCheckWithDependencies(
+      "\\lemma p : 0 = 0 => idp\n" +
+      "\\func g : \\Sigma (0 = 0) Nat => (p, 0)");
+    // A computation of another session that typechecks g
+    CancellationIndicator indicator = new DefinitionCancellationIndicator(getRef("g"));
+    new ComputationRunner<Void>().run(indicator, () -> {
+      myCollector.update(getRef("p"));
+      return null;
+    });
+    assertTrue(indicator.isCanceled());
+    assertNotNull(getDefinition("g"));
+  }
+
+  @Test
+  public void lemmaInterfaceChanged() {
+    typeCheckWithDependencies(
+      "\\lemma p : 0 = 0 => idp\n" +
+      "\\func g : \\Sigma (0 = 0) Nat => (p, 0)");
+    editAndRetypeCheck("p", "\\lemma p : 1 = 1 => idp", null);
+    assertNotNull(getDefinition("p"));
+    assertNull(getDefinition("g"));
+  }
+
+  @Test
+  public void lemmaInterfaceChangedWithCancellationIndicator() {
+    typeCheckWithDependencies(
+      "\\lemma p : 0 = 0 => idp\n" +
+      "\\func g => p");
+    CancellationIndicator indicator = new DefinitionCancellationIndicator(getRef("g"));
+    editAndRetypeCheck("p", "\\lemma p : 1 = 1 => idp", indicator, "g");
+    assertFalse(indicator.isCanceled());
+    assertNotNull(getDefinition("p"));
+    assertNotNull(getDefinition("g"));
+  }
+
+  @Test
+  public void lemmaRemovedAfterUpdate() {
+    typeCheckWithDependencies(
+      "\\lemma p : 0 = 0 => idp\n" +
+      "\\func g : \\Sigma (0 = 0) Nat => (p, 0)");
+    TCDefReferable p = getRef("p");
+    TCDefReferable g = getRef("g");
+    myCollector.update(p);
+    assertNotNull(g.getTypechecked());
+
+    resolveNamesModule("\\func g => 0");
+    assertTrue(myCollector.update(p).contains(g));
+    assertNull(g.getTypechecked());
+  }
+
+  @Test
+  public void lemmaUpdatedTwice() {
+    typeCheckWithDependencies(
+      "\\lemma p : 0 = 0 => idp\n" +
+      "\\func g : \\Sigma (0 = 0) Nat => (p, 0)");
+    myCollector.update(getRef("p"));
+    retypeCheck("p");
+    myCollector.update(getRef("p"));
+    retypeCheck("p");
+    assertNotNull(getDefinition("g"));
+  }
+}
@@ -4,10 +4,13 @@ import org.arend.core.definition.FunctionDefinition;
 import org.arend.core.expr.BigIntegerExpression;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.SmallIntegerExpression;
+import org.arend.core.expr.visitor.ClosureEvaluator;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.junit.Test;
 
 import java.math.BigInteger;
+import java.util.EnumSet;
+import java.util.Set;
 
 import static org.arend.core.expr.ExpressionFactory.Neg;
 import static org.arend.core.expr.ExpressionFactory.Pos;
@@ -63,4 +66,83 @@ public class EvaluationTest extends TypeCheckingTestCase {
     assertEquals(Neg(new SmallIntegerExpression(22)), ((Expression) ((FunctionDefinition) getDefinition("f6")).getBody()).normalize(NormalizationMode.WHNF));
     assertEquals(Pos(new SmallIntegerExpression(0)),  ((Expression) ((FunctionDefinition) getDefinition("f7")).getBody()).normalize(NormalizationMode.WHNF));
   }
+
+  private Expression normalize(Expression expr, NormalizationMode mode, boolean closureEvaluation) {
+    Set<NormalizationMode> modes = ClosureEvaluator.getModes();
+    ClosureEvaluator.setModes(closureEvaluation ? EnumSet.of(mode) : EnumSet.noneOf(NormalizationMode.class));
+    try {
+      return expr.normalize(mode);
+    } finally {
+      ClosureEvaluator.setModes(modes);
+    }
+  }
+
+  private void checkClosureEvaluation(String... names) {
+    for (String name : names) {
+      Expression body = (Expression) ((FunctionDefinition) getDefinition(name)).getBody();
+      for (NormalizationMode mode : new NormalizationMode[] { NormalizationMode.WHNF, NormalizationMode.NF }) {
+        Expression expected = normalize(body, mode, false);
+        Expression actual = normalize(body, mode, true);
+        assertEquals(expected, actual);
+        if (mode == NormalizationMode.NF) {
+          assertEquals(expected.toString(), actual.toString());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void closureEvalRecursion() {
+    typeCheckModule(
+      "\\func plus (n m : Nat) : Nat \\elim n\n" +
+      "  | 0 => m\n" +
+      "  | suc n => suc (plus n m)\n" +
+      "\\func fib (n : Nat) : Nat\n" +
+      "  | 0 => 0\n" +
+      "  | 1 => 1\n" +
+      "  | suc (suc n) => plus (fib n) (fib (suc n))\n" +
+      "\\func even (n : Nat) : Nat\n" +
+      "  | 0 => 1\n" +
+      "  | suc n => odd n\n" +
+      "\\func odd (n : Nat) : Nat\n" +
+      "  | 0 => 0\n" +
+      "  | suc n => even n\n" +
+      "\\func f1 => fib 15\n" +
+      "\\func f2 => even 1000\n" +
+      "\\func f3 (x : Nat) => plus 3 x\n" +
+      "\\func f4 (x : Nat) => plus x 3\n" +
+      "\\func f5 (x : Nat) => fib (suc (suc x))");
+    checkClosureEvaluation("f1", "f2", "f3", "f4", "f5");
+    assertEquals(new SmallIntegerExpression(610), normalize((Expression) ((FunctionDefinition) getDefinition("f1")).getBody(), NormalizationMode.NF, true));
+  }
+
+  @Test
+  public void closureEvalCase() {
+    typeCheckModule(
+      "\\func pred (n : Nat) : Nat => \\case n \\with { | 0 => 0 | suc n => n }\n" +
+      "\\func twice (f : Nat -> Nat) (n : Nat) => f (f n)\n" +
+      "\\func iter (k : Nat) (f : Nat -> Nat) (n : Nat) : Nat \\elim k\n" +
+      "  | 0 => n\n" +
+      "  | suc k => f (iter k f n)\n" +
+      "\\func f1 => twice pred 10\n" +
+      "\\func f2 => iter 20 (\\lam x => suc (suc x)) 1\n" +
+      "\\func f3 (x : Nat) => iter 3 pred x\n" +
+      "\\func f4 (x : Nat) : Nat => \\case x, 2 \\with { | 0, n => n | suc x', n => iter n suc x' }");
+    checkClosureEvaluation("f1", "f2", "f3", "f4");
+  }
+
+  @Test
+  public void closureEvalArray() {
+    typeCheckModule(
+      "\\func sum (a : Array Nat) : Nat \\elim a\n" +
+      "  | nil => 0\n" +
+      "  | x :: a => x Nat.+ sum a\n" +
+      "\\func replicate (n x : Nat) : Array Nat n \\elim n\n" +
+      "  | 0 => nil\n" +
+      "  | suc n => x :: replicate n x\n" +
+      "\\func f1 => sum (replicate 30 2)\n" +
+      "\\func f2 => replicate 3 7\n" +
+      "\\func f3 (a : Array Nat) => sum (1 :: 2 :: a)");
+    checkClosureEvaluation("f1", "f2", "f3");
+  }
 }
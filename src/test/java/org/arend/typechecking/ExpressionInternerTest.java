@@ -0,0 +1,130 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.Constructor;
+import org.arend.core.definition.DataDefinition;
+import org.arend.core.expr.*;
+import org.arend.core.context.param.SingleDependentLink;
+import org.arend.core.expr.visitor.CompareVisitor;
+import org.arend.core.subst.ExprSubstitution;
+import org.arend.core.subst.LevelPair;
+import org.arend.ext.core.ops.CMP;
+import org.arend.prelude.Prelude;
+import org.arend.typechecking.implicitargs.equations.DummyEquations;
+import org.arend.typechecking.visitor.FixLevelParameters;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.arend.ExpressionFactory.singleParam;
+import static org.arend.core.expr.ExpressionFactory.Nat;
+import static org.junit.Assert.*;
+
+public class ExpressionInternerTest extends TypeCheckingTestCase {
+  private Expression makeConCall(String name, Expression... arguments) {
+    Constructor constructor = (Constructor) getDefinition(name);
+    List<Expression> args = new ArrayList<>(arguments.length);
+    for (Expression argument : arguments) {
+      args.add(ExpressionInterner.INSTANCE.intern(argument));
+    }
+    return ExpressionInterner.INSTANCE.intern(ConCallExpression.make(constructor, constructor.makeIdLevels(), Collections.emptyList(), args));
+  }
+
+  @Test
+  public void sameInstance() {
+    typeCheckModule(
+      "\\data D | a | b (n : Nat) | c D D");
+    Expression expr1 = makeConCall("D.c", makeConCall("D.a"), makeConCall("D.b", new SmallIntegerExpression(3)));
+    Expression expr2 = makeConCall("D.c", makeConCall("D.a"), makeConCall("D.b", new SmallIntegerExpression(3)));
+    assertTrue(expr1.isInterned());
+    assertSame(expr1, expr2);
+    assertEquals(expr1.getStructuralHash(), expr2.getStructuralHash());
+    assertNotSame(expr1, makeConCall("D.c", makeConCall("D.a"), makeConCall("D.b", new SmallIntegerExpression(4))));
+  }
+
+  @Test
+  public void notInterned() {
+    typeCheckModule(
+      "\\data D | a | b (n : Nat)");
+    Expression expr = makeConCall("D.b", new ReferenceExpression(singleParam("x", Nat())));
+    assertFalse(expr.isInterned());
+    assertEquals(0, expr.getStructuralHash());
+  }
+
+  @Test
+  public void compareInterned() {
+    typeCheckModule(
+      "\\data D | a | b (n : Nat)");
+    DataDefinition dataDef = (DataDefinition) getDefinition("D");
+    Expression type = DataCallExpression.make(dataDef, dataDef.makeIdLevels(), Collections.emptyList());
+    Expression expr1 = makeConCall("D.b", new SmallIntegerExpression(7));
+    assertTrue(CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, expr1, makeConCall("D.b", new SmallIntegerExpression(7)), type, null));
+    assertFalse(CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, expr1, makeConCall("D.b", new SmallIntegerExpression(8)), type, null));
+    assertFalse(CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, expr1, makeConCall("D.a"), type, null));
+    assertTrue(CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, makeConCall("D.b", ExpressionInterner.INSTANCE.intern(ConCallExpression.make(Prelude.SUC, Prelude.SUC.makeIdLevels(), Collections.emptyList(), Collections.singletonList(new SmallIntegerExpression(6))))), expr1, type, null));
+  }
+
+  @Test
+  public void compareInternedProps() {
+    typeCheckModule(
+      "\\truncated \\data P : \\Prop | p1 | p2\n" +
+      "\\data D | b (x : P) | c Nat");
+    DataDefinition propDef = (DataDefinition) getDefinition("P");
+    Expression propType = DataCallExpression.make(propDef, propDef.makeIdLevels(), Collections.emptyList());
+    assertTrue(CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, makeConCall("P.p1"), makeConCall("P.p2"), propType, null));
+
+    DataDefinition dataDef = (DataDefinition) getDefinition("D");
+    Expression type = DataCallExpression.make(dataDef, dataDef.makeIdLevels(), Collections.emptyList());
+    assertTrue(CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, makeConCall("D.b", makeConCall("P.p1")), makeConCall("D.b", makeConCall("P.p2")), type, null));
+    assertFalse(CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, makeConCall("D.b", makeConCall("P.p1")), makeConCall("D.c", new SmallIntegerExpression(0)), type, null));
+  }
+
+  @Test
+  public void closedInterned() {
+    typeCheckModule(
+      "\\data D | a | b (n : Nat)");
+    assertTrue(ExpressionInterner.INSTANCE.intern(new SmallIntegerExpression(3)).isClosedInterned());
+    Expression expr = makeConCall("D.b", new SmallIntegerExpression(3));
+    assertTrue(expr.isInterned());
+    assertFalse(expr.isClosedInterned());
+    Constructor constructor = (Constructor) getDefinition("D.b");
+    Expression closedExpr = ExpressionInterner.INSTANCE.intern(ConCallExpression.make(constructor, LevelPair.SET0, Collections.emptyList(), Collections.singletonList(ExpressionInterner.INSTANCE.intern(new SmallIntegerExpression(3)))));
+    assertTrue(closedExpr.isClosedInterned());
+  }
+
+  @Test
+  public void fixLevelsKeepsInterned() {
+    typeCheckModule(
+      "\\data D | a | b (n : Nat)");
+    Constructor constructor = (Constructor) getDefinition("D.b");
+    assertEquals(Collections.emptyList(), constructor.getDataType().getLevelParameters());
+    Expression interned = ExpressionInterner.INSTANCE.intern(ConCallExpression.make(constructor, LevelPair.SET0, Collections.emptyList(), Collections.singletonList(ExpressionInterner.INSTANCE.intern(new SmallIntegerExpression(3)))));
+    assertTrue(interned.isInterned());
+    FixLevelParameters.fix(interned);
+    assertSame(LevelPair.SET0, ((ConCallExpression) interned).getLevels());
+
+    Expression notInterned = ConCallExpression.make(constructor, LevelPair.SET0, Collections.emptyList(), Collections.singletonList(new ReferenceExpression(singleParam("x", Nat()))));
+    assertFalse(notInterned.isInterned());
+    FixLevelParameters.fix(notInterned);
+    assertTrue(((ConCallExpression) notInterned).getLevels().toList().isEmpty());
+  }
+
+  @Test
+  public void substitutionSharesInterned() {
+    typeCheckModule(
+      "\\data D | a | b (n : Nat)");
+    Expression expr = makeConCall("D.b", new SmallIntegerExpression(3));
+    SingleDependentLink x = singleParam("x", Nat());
+    SingleDependentLink f = singleParam("f", Nat());
+    assertSame(expr, expr.subst(x, new SmallIntegerExpression(0)));
+
+    Expression app = AppExpression.make(new ReferenceExpression(f), expr, true);
+    assertSame(app, app.subst(x, new SmallIntegerExpression(0)));
+    assertNotSame(app, app.subst(f, new ReferenceExpression(x)));
+
+    Expression substituted = expr.subst(new ExprSubstitution(), LevelPair.SET0);
+    assertNotSame(expr, substituted);
+    assertTrue(((ConCallExpression) substituted).getLevels().isClosed());
+  }
+}
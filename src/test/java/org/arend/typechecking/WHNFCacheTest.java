@@ -0,0 +1,93 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.FunCallExpression;
+import org.arend.core.expr.SmallIntegerExpression;
+import org.arend.core.expr.visitor.WHNFCache;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class WHNFCacheTest extends TypeCheckingTestCase {
+  @Before
+  public void enableCache() {
+    WHNFCache.INSTANCE.setEnabled(true);
+    WHNFCache.INSTANCE.resetStatistics();
+  }
+
+  @After
+  public void disableCache() {
+    WHNFCache.INSTANCE.setEnabled(false);
+  }
+
+  private Expression makeCall(String name, Expression argument) {
+    FunctionDefinition definition = (FunctionDefinition) getDefinition(name);
+    return FunCallExpression.make(definition, definition.makeIdLevels(), Collections.singletonList(argument));
+  }
+
+  @Test
+  public void cacheHit() {
+    typeCheckModule(
+      "\\func f (n : Nat) : Nat\n" +
+      "  | 0 => 0\n" +
+      "  | suc n => suc (suc (f n))");
+    Expression result = makeCall("f", new SmallIntegerExpression(5)).normalize(NormalizationMode.WHNF);
+    assertEquals(0, WHNFCache.INSTANCE.getHits());
+    assertEquals(1, WHNFCache.INSTANCE.getMisses());
+
+    assertSame(result, makeCall("f", new SmallIntegerExpression(5)).normalize(NormalizationMode.WHNF));
+    assertEquals(1, WHNFCache.INSTANCE.getHits());
+    assertEquals(new SmallIntegerExpression(10), makeCall("f", new SmallIntegerExpression(5)).normalize(NormalizationMode.NF));
+  }
+
+  @Test
+  public void stuckNotCached() {
+    typeCheckModule(
+      "\\sfunc a : Nat => 0\n" +
+      "\\func f (n : Nat) : Nat\n" +
+      "  | 0 => 0\n" +
+      "  | suc n => f n\n" +
+      "\\func g => f a");
+    Expression call = (Expression) ((FunctionDefinition) getDefinition("g")).getBody();
+    call.normalize(NormalizationMode.WHNF);
+    call.normalize(NormalizationMode.WHNF);
+    assertEquals(0, WHNFCache.INSTANCE.getHits());
+  }
+
+  @Test
+  public void classCallNotCached() {
+    // Class calls are mutable, so they cannot be shared
+    typeCheckModule(
+      "\\record R (x : Nat)\n" +
+      "\\func f (n : Nat) : \\Set0\n" +
+      "  | 0 => R\n" +
+      "  | suc n => f n");
+    makeCall("f", new SmallIntegerExpression(2)).normalize(NormalizationMode.WHNF);
+    makeCall("f", new SmallIntegerExpression(2)).normalize(NormalizationMode.WHNF);
+    assertEquals(0, WHNFCache.INSTANCE.getHits());
+  }
+
+  @Test
+  public void invalidateOnUpdate() {
+    typeCheckModule(
+      "\\func f (n : Nat) : Nat\n" +
+      "  | 0 => 0\n" +
+      "  | suc n => suc (f n)");
+    FunctionDefinition definition = (FunctionDefinition) getDefinition("f");
+    makeCall("f", new SmallIntegerExpression(3)).normalize(NormalizationMode.WHNF);
+    makeCall("f", new SmallIntegerExpression(3)).normalize(NormalizationMode.WHNF);
+    assertEquals(1, WHNFCache.INSTANCE.getHits());
+
+    new DependencyCollector().update(definition.getReferable());
+    WHNFCache.Key key = WHNFCache.INSTANCE.makeKey((FunCallExpression) FunCallExpression.make(definition, definition.makeIdLevels(), Collections.singletonList(new SmallIntegerExpression(3))));
+    assertNotNull(key);
+    assertNull(WHNFCache.INSTANCE.get(definition, key));
+  }
+}
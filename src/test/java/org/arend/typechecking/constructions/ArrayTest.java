@@ -85,6 +85,19 @@ public class ArrayTest extends TypeCheckingTestCase {
       """);
   }
 
+  @Test
+  public void longArrayTest() {
+    typeCheckModule("""
+      \\open DArray(!!)
+      \\func replicate (n : Nat) : Array Nat n \\elim n
+        | 0 => nil
+        | suc n => n :: replicate n
+      \\lemma test1 : replicate 100 !! 37 = 62 => idp
+      \\lemma test2 : replicate 3 = 2 :: 1 :: 0 :: nil => idp
+      \\lemma test3 : 5 :: replicate 40 = 5 :: 39 :: replicate 39 => idp
+      """);
+  }
+
   @Test
   public void extendsTest() {
     resolveNamesDef("\\record R \\extends Array", 1);
@@ -99,6 +99,14 @@ public class InferenceTest extends TypeCheckingTestCase {
       "\\func f (c1 : C 1) (c2 : C 2) (p : c1 = c2) => p");
   }
 
+  @Test
+  public void classIntersection2() {
+    typeCheckModule(
+      "\\class C (x y : Nat)\n" +
+      "\\func h {A : \\Type} (a b c : A) => a\n" +
+      "\\func f (c1 : C 1) (c2 : C 1 2) (c3 : C 1 3) : C 1 => h c1 c2 c3");
+  }
+
   @Test
   public void tailInField() {
     typeCheckModule(
@@ -0,0 +1,81 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import org.arend.ext.core.ops.CMP;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class EquationSetTest {
+  private static List<Equation> equations(int n) {
+    List<Equation> result = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      result.add(new Equation(null, null, null, CMP.LE, null));
+    }
+    return result;
+  }
+
+  @Test
+  public void restoreInReverseOrder() {
+    List<Equation> equations = equations(5);
+    EquationSet set = new EquationSet();
+    set.addAll(equations);
+
+    EquationSet.Node node3 = set.removeNode(equations.get(3));
+    EquationSet.Node node0 = set.removeNode(equations.get(0));
+    Equation added = new Equation(null, null, null, CMP.LE, null);
+    set.add(added);
+    EquationSet.Node node4 = set.removeNode(equations.get(4));
+    EquationSet.Node node1 = set.removeNode(equations.get(1));
+    assertEquals(Arrays.asList(equations.get(2), added), new ArrayList<>(set));
+
+    set.restore(node1);
+    set.restore(node4);
+    set.remove(added);
+    set.restore(node0);
+    set.restore(node3);
+    assertEquals(equations, new ArrayList<>(set));
+    assertEquals(5, set.size());
+    assertTrue(set.contains(equations.get(0)));
+  }
+
+  @Test
+  public void removeWhileIterating() {
+    List<Equation> equations = equations(4);
+    EquationSet set = new EquationSet();
+    set.addAll(equations);
+
+    List<Equation> visited = new ArrayList<>();
+    List<EquationSet.Node> nodes = new ArrayList<>();
+    for (Equation equation : set) {
+      visited.add(equation);
+      if (equation != equations.get(2)) {
+        nodes.add(set.removeNode(equation));
+      }
+    }
+    assertEquals(equations, visited);
+    assertEquals(Collections.singletonList(equations.get(2)), new ArrayList<>(set));
+
+    for (int i = nodes.size() - 1; i >= 0; i--) {
+      set.restore(nodes.get(i));
+    }
+    assertEquals(equations, new ArrayList<>(set));
+  }
+
+  @Test
+  public void addRemoved() {
+    List<Equation> equations = equations(3);
+    EquationSet set = new EquationSet();
+    set.addAll(equations);
+    assertFalse(set.add(equations.get(1)));
+    assertNull(set.removeNode(new Equation(null, null, null, CMP.LE, null)));
+
+    set.remove(equations.get(1));
+    assertTrue(set.add(equations.get(1)));
+    assertEquals(Arrays.asList(equations.get(0), equations.get(2), equations.get(1)), new ArrayList<>(set));
+    set.clear();
+    assertTrue(set.isEmpty());
+    assertFalse(set.iterator().hasNext());
+  }
+}
@@ -0,0 +1,148 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LevelEquationsTest {
+  private final LevelEquations<String> myEquations = new LevelEquations<>();
+
+  private void addVariables(String... vars) {
+    for (String var : vars) {
+      myEquations.addVariable(var);
+    }
+  }
+
+  private LevelEquation<String> addEquation(String var1, String var2, int constant) {
+    LevelEquation<String> equation = new LevelEquation<>(var1, var2, constant);
+    myEquations.addEquation(equation);
+    return equation;
+  }
+
+  private Map<String, Integer> solve() {
+    Map<String, Integer> solution = new HashMap<>();
+    assertNull(myEquations.solve(solution));
+    assertEquals(solveFromScratch(), solution);
+    return solution;
+  }
+
+  // Solves the same system with a new instance, so that no previous solution is reused
+  private Map<String, Integer> solveFromScratch() {
+    LevelEquations<String> equations = new LevelEquations<>();
+    equations.add(myEquations);
+    Map<String, Integer> solution = new HashMap<>();
+    assertNull(equations.solve(solution));
+    return solution;
+  }
+
+  private static Map<String, Integer> map(Object... pairs) {
+    Map<String, Integer> result = new HashMap<>();
+    for (int i = 0; i < pairs.length; i += 2) {
+      result.put((String) pairs[i], (Integer) pairs[i + 1]);
+    }
+    return result;
+  }
+
+  @Test
+  public void solveAddResolve() {
+    addVariables("a", "b", "c");
+    addEquation("a", "b", -1);
+    assertEquals(map("a", 0, "b", -1, "c", 0), solve());
+
+    addEquation("b", "c", -2);
+    assertEquals(map("a", 0, "b", -1, "c", -3), solve());
+
+    addVariables("d");
+    addEquation("d", "a", -1);
+    assertEquals(map("a", -1, "b", -2, "c", -4, "d", 0), solve());
+  }
+
+  @Test
+  public void solveAddEquationsOfSolvedVariables() {
+    addVariables("a", "b", "c", "d");
+    addEquation("a", "b", -1);
+    addEquation("b", "c", -1);
+    assertEquals(map("a", 0, "b", -1, "c", -2, "d", 0), solve());
+
+    // The new equation starts at a variable whose distance was already decreased
+    addEquation("c", "d", -1);
+    assertEquals(map("a", 0, "b", -1, "c", -2, "d", -3), solve());
+
+    // The new equation does not decrease distances
+    addEquation("d", "a", 3);
+    assertEquals(map("a", 0, "b", -1, "c", -2, "d", -3), solve());
+  }
+
+  @Test
+  public void addInfinityAfterSolve() {
+    addVariables("a", "b", "c");
+    addEquation("a", "b", 0);
+    assertEquals(map("a", 0, "b", 0, "c", 0), solve());
+
+    myEquations.addEquation(new LevelEquation<>("a"));
+    assertEquals(map("a", LevelEquations.INFINITY, "b", LevelEquations.INFINITY, "c", 0), solve());
+
+    // Infinity propagates along equations added after it was found
+    addEquation("b", "c", -1);
+    assertEquals(map("a", LevelEquations.INFINITY, "b", LevelEquations.INFINITY, "c", LevelEquations.INFINITY), solve());
+  }
+
+  @Test
+  public void solveAfterCycle() {
+    addVariables("a", "b", "c");
+    addEquation("a", "b", -1);
+    assertEquals(map("a", 0, "b", -1, "c", 0), solve());
+
+    LevelEquation<String> cycle = addEquation("b", "a", -1);
+    List<LevelEquation<String>> path = myEquations.solve(new HashMap<>());
+    assertNotNull(path);
+    assertTrue(path.contains(cycle));
+
+    // The partial solution of the failed call is not reused
+    addEquation("c", "a", -1);
+    assertNotNull(myEquations.solve(new HashMap<>()));
+
+    myEquations.removeEquations(equation -> equation == cycle);
+    assertEquals(map("a", -1, "b", -2, "c", 0), solve());
+  }
+
+  @Test
+  public void cycleThroughConstant() {
+    addVariables("a");
+    LevelEquation<String> equation = addEquation("a", null, -1);
+    List<LevelEquation<String>> path = myEquations.solve(new HashMap<>());
+    assertEquals(Collections.singletonList(equation), path);
+
+    myEquations.removeEquations(eq -> eq == equation);
+    addEquation(null, "a", -1);
+    assertEquals(map("a", -1), solve());
+  }
+
+  @Test
+  public void solveAfterRemoveEquations() {
+    addVariables("a", "b", "c");
+    LevelEquation<String> ab = addEquation("a", "b", -2);
+    addEquation("b", "c", -1);
+    assertEquals(map("a", 0, "b", -2, "c", -3), solve());
+
+    // Distances of the previous solution are too small after the removal, so they must be recomputed
+    myEquations.removeEquations(equation -> equation == ab);
+    assertEquals(map("a", 0, "b", 0, "c", -1), solve());
+
+    addEquation("c", "a", -1);
+    assertEquals(map("a", -2, "b", 0, "c", -1), solve());
+  }
+
+  @Test
+  public void removeNothing() {
+    addVariables("a", "b");
+    addEquation("a", "b", -1);
+    assertEquals(map("a", 0, "b", -1), solve());
+    myEquations.removeEquations(equation -> false);
+    addVariables("c");
+    addEquation("b", "c", -1);
+    assertEquals(map("a", 0, "b", -1, "c", -2), solve());
+  }
+}
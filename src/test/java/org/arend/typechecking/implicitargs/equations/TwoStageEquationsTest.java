@@ -0,0 +1,189 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import org.arend.core.context.binding.inference.ExpressionInferenceVariable;
+import org.arend.core.context.binding.inference.InferenceVariable;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.InferenceReferenceExpression;
+import org.arend.core.expr.UniverseExpression;
+import org.arend.core.sort.Sort;
+import org.arend.ext.core.ops.CMP;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.visitor.CheckTypeVisitor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.arend.core.expr.ExpressionFactory.Nat;
+import static org.arend.core.expr.ExpressionFactory.Zero;
+import static org.junit.Assert.*;
+
+public class TwoStageEquationsTest extends TypeCheckingTestCase {
+  private static final Expression UNIVERSE = new UniverseExpression(Sort.SET0);
+
+  private CheckTypeVisitor myVisitor;
+  private TwoStageEquations myEquations;
+
+  @Before
+  public void initialize() {
+    myVisitor = new CheckTypeVisitor(localErrorReporter, null, null);
+    myEquations = (TwoStageEquations) myVisitor.getEquations();
+  }
+
+  private static InferenceReferenceExpression newVariable(Expression type, boolean solvableFromEquations) {
+    return new InferenceReferenceExpression(new ExpressionInferenceVariable(type, null, Collections.emptySet(), solvableFromEquations));
+  }
+
+  private static InferenceReferenceExpression newTypeVariable() {
+    return newVariable(UNIVERSE, true);
+  }
+
+  private Equation addEquation(Expression expr1, Expression expr2) {
+    assertTrue(myEquations.addEquation(expr1, expr2, UNIVERSE, CMP.LE, null, null, null));
+    List<Equation> equations = myEquations.getDeferredEquations();
+    return equations.get(equations.size() - 1);
+  }
+
+  @Test
+  public void nestedWithCurrentState() {
+    InferenceReferenceExpression x = newTypeVariable();
+    InferenceReferenceExpression y = newTypeVariable();
+    InferenceReferenceExpression z = newTypeVariable();
+    Equation equation = addEquation(x, y);
+
+    myVisitor.withCurrentState(tc1 -> {
+      Equation equation2 = addEquation(y, z);
+      tc1.withCurrentState(tc2 -> {
+        addEquation(x, z);
+        assertEquals(3, myEquations.getDeferredEquations().size());
+        tc2.loadSavedState();
+        assertEquals(Arrays.asList(equation, equation2), myEquations.getDeferredEquations());
+        return null;
+      });
+      assertEquals(Arrays.asList(equation, equation2), myEquations.getDeferredEquations());
+      tc1.loadSavedState();
+      assertEquals(Collections.singletonList(equation), myEquations.getDeferredEquations());
+      return null;
+    });
+
+    assertEquals(Collections.singletonList(equation), myEquations.getDeferredEquations());
+    assertEquals(0, myEquations.getNumberOfChanges());
+    addEquation(y, z);
+    assertEquals(0, myEquations.getNumberOfChanges());
+  }
+
+  @Test
+  public void updateSavedState() {
+    InferenceReferenceExpression x = newTypeVariable();
+    InferenceReferenceExpression y = newTypeVariable();
+    InferenceReferenceExpression z = newTypeVariable();
+    InferenceReferenceExpression n = newVariable(Nat(), true);
+
+    myVisitor.withCurrentState(tc -> {
+      Equation equation = addEquation(x, y);
+      assertTrue(myEquations.solve(n.getVariable(), Zero()));
+      tc.updateSavedState();
+      addEquation(y, z);
+      tc.loadSavedState();
+      assertEquals(Collections.singletonList(equation), myEquations.getDeferredEquations());
+      assertTrue(n.getVariable().isSolved());
+
+      // The state can be loaded again
+      addEquation(x, z);
+      tc.loadSavedState();
+      assertEquals(Collections.singletonList(equation), myEquations.getDeferredEquations());
+      return null;
+    });
+    assertEquals(0, myEquations.getNumberOfChanges());
+  }
+
+  @Test
+  public void loadSavedStateUnsolvesVariables() {
+    InferenceReferenceExpression n = newVariable(Nat(), true);
+    InferenceVariable var = n.getVariable();
+
+    myVisitor.withCurrentState(tc -> {
+      assertTrue(myEquations.solve(var, Zero()));
+      assertTrue(var.isSolved());
+      tc.loadSavedState();
+      assertFalse(var.isSolved());
+
+      assertTrue(myEquations.solve(var, Zero()));
+      tc.loadSavedState();
+      assertFalse(var.isSolved());
+      return null;
+    });
+  }
+
+  @Test
+  public void loadSavedStateRemovesPropsAndNotSolvableVariables() {
+    InferenceReferenceExpression p = newTypeVariable();
+    InferenceReferenceExpression q = newVariable(Nat(), false);
+    InferenceReferenceExpression r = newTypeVariable();
+    assertTrue(myEquations.addEquation(new UniverseExpression(Sort.PROP), r, UNIVERSE, CMP.LE, null, null, null));
+    assertTrue(myEquations.getPropVariables().contains(r.getVariable()));
+
+    myVisitor.withCurrentState(tc -> {
+      assertTrue(myEquations.addEquation(new UniverseExpression(Sort.PROP), p, UNIVERSE, CMP.LE, null, null, null));
+      assertTrue(myEquations.addEquation(q, Zero(), Nat(), CMP.EQ, null, null, null));
+      assertEquals(Arrays.asList(r.getVariable(), p.getVariable()), List.copyOf(myEquations.getPropVariables()));
+      assertEquals(Collections.singleton(q.getVariable()), myEquations.getNotSolvableFromEquationsVariables());
+      assertEquals(1, myEquations.getDeferredEquations().size());
+
+      tc.loadSavedState();
+      assertEquals(Collections.singletonList(r.getVariable()), List.copyOf(myEquations.getPropVariables()));
+      assertTrue(myEquations.getNotSolvableFromEquationsVariables().isEmpty());
+      assertTrue(myEquations.getDeferredEquations().isEmpty());
+      return null;
+    });
+  }
+
+  @Test
+  public void restoredEquationsKeepOrderAndIndex() {
+    InferenceReferenceExpression x = newTypeVariable();
+    InferenceReferenceExpression y = newTypeVariable();
+    InferenceReferenceExpression z = newTypeVariable();
+    Equation equation1 = addEquation(x, y);
+    Equation equation2 = addEquation(y, z);
+    Equation equation3 = addEquation(x, z);
+
+    myVisitor.withCurrentState(tc -> {
+      assertTrue(myEquations.remove(equation2));
+      assertTrue(myEquations.remove(equation1));
+      assertEquals(Collections.singletonList(equation3), myEquations.getDeferredEquations());
+      assertFalse(myEquations.getIndexedEquations(y.getVariable()).contains(equation1));
+
+      tc.loadSavedState();
+      assertEquals(Arrays.asList(equation1, equation2, equation3), myEquations.getDeferredEquations());
+      assertTrue(myEquations.getIndexedEquations(x.getVariable()).containsAll(Arrays.asList(equation1, equation3)));
+      assertTrue(myEquations.getIndexedEquations(y.getVariable()).containsAll(Arrays.asList(equation1, equation2)));
+      assertTrue(myEquations.getIndexedEquations(z.getVariable()).containsAll(Arrays.asList(equation2, equation3)));
+      return null;
+    });
+  }
+
+  @Test
+  public void compareVisitorBacktracking() {
+    // CompareVisitor saves a standalone state, loads it if the comparison fails, and always discards it
+    InferenceReferenceExpression x = newTypeVariable();
+    InferenceReferenceExpression y = newTypeVariable();
+    InferenceReferenceExpression p = newTypeVariable();
+    Equation equation = addEquation(x, y);
+
+    TypecheckerState state = new TypecheckerState(null, 0, 0, 0, null, null, null, true);
+    myEquations.saveState(state);
+    assertTrue(myEquations.remove(equation));
+    addEquation(y, x);
+    assertTrue(myEquations.addEquation(new UniverseExpression(Sort.PROP), p, UNIVERSE, CMP.LE, null, null, null));
+    state.numberOfLevelVariables = Integer.MAX_VALUE;
+    myEquations.loadState(state);
+    myEquations.discardState(state);
+
+    assertEquals(Collections.singletonList(equation), myEquations.getDeferredEquations());
+    assertTrue(myEquations.getPropVariables().isEmpty());
+    assertEquals(0, myEquations.getNumberOfChanges());
+  }
+}
@@ -190,6 +190,22 @@ public class InferLevelTest extends TypeCheckingTestCase {
     typeCheckModule("\\func f (X : \\Set10) (x : X) : \\1-Type1 => (x = x : \\Prop) -> \\Set0");
   }
 
+  @Test
+  public void chainTest() {
+    typeCheckModule(
+      "\\func f (A : \\Type) => A\n" +
+      "\\func g : \\Type (\\suc \\lp) (\\suc \\lh) => f (f (f (f (f \\Type \\lp \\lh))))");
+  }
+
+  @Test
+  public void chainError() {
+    // 1 <= ?l1 <= ... <= ?l4 <= c
+    // error: cannot solve 1 <= c
+    typeCheckModule(
+      "\\func f (A : \\Type) => A\n" +
+      "\\func g : \\Type \\lp (\\suc \\lh) => f (f (f (f \\Type0)))", 1);
+  }
+
   @Test
   public void constantUpperBound() {
     typeCheckModule(
@@ -0,0 +1,70 @@
+package org.arend.typechecking.levels;
+
+import org.arend.core.context.binding.LevelVariable;
+import org.arend.core.definition.Definition;
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+import org.arend.core.subst.LevelPair;
+import org.arend.core.subst.Levels;
+import org.arend.core.subst.SimpleLevelSubstitution;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LevelSharingTest extends TypeCheckingTestCase {
+  @Test
+  public void sharedLevels() {
+    assertSame(Level.make(0), Level.make(0));
+    assertSame(Level.make(-1), Level.make(null, -1, 5));
+    assertSame(Level.make(LevelVariable.PVAR, 1), Level.make(LevelVariable.PVAR).add(1));
+    assertSame(Level.make(LevelVariable.HVAR), LevelPair.STD.getHLevel());
+    assertNotSame(Level.make(LevelVariable.PVAR, 1, 3), Level.make(LevelVariable.PVAR, 1, 3));
+    assertEquals(new Level(LevelVariable.PVAR, 2, 1), Level.make(LevelVariable.PVAR, 2, 1));
+  }
+
+  @Test
+  public void sharedSorts() {
+    assertSame(Sort.PROP, Sort.make(Level.make(0), Level.make(-1)));
+    assertSame(Sort.STD, Sort.make(Level.make(LevelVariable.PVAR), Level.make(LevelVariable.HVAR)));
+    assertSame(Sort.SET0, Sort.SET0.max(new Sort(0, 0)));
+    assertSame(LevelPair.SET0, LevelPair.make(Level.make(0), Level.make(0)));
+  }
+
+  @Test
+  public void unchangedSubstitution() {
+    Level level = new Level(LevelVariable.PVAR, 2, 5);
+    assertSame(level, level.subst(LevelPair.STD));
+    assertSame(level, level.subst(new LevelPair(new Level(LevelVariable.PVAR), new Level(LevelVariable.HVAR))));
+
+    Sort sort = new Sort(level, Level.make(LevelVariable.HVAR, 1));
+    assertSame(sort, sort.subst(new LevelPair(new Level(LevelVariable.PVAR), new Level(LevelVariable.HVAR))));
+
+    LevelPair levels = new LevelPair(level, Level.make(LevelVariable.HVAR));
+    assertSame(levels, levels.subst(new LevelPair(new Level(LevelVariable.PVAR), new Level(LevelVariable.HVAR))));
+  }
+
+  @Test
+  public void changedSubstitution() {
+    Sort sort = new Sort(new Level(LevelVariable.PVAR, 1), new Level(LevelVariable.HVAR));
+    Sort result = sort.subst(new LevelPair(Level.make(2), Level.make(0)));
+    assertSame(Level.make(3), result.getPLevel());
+    assertSame(Level.make(0), result.getHLevel());
+  }
+
+  @Test
+  public void idLevelsAreShared() {
+    typeCheckModule(
+      "\\data D \\plevels p1 >= p2 (A : \\Type p1) | con A");
+    Definition data = getDefinition("D");
+    Levels levels = data.makeIdLevels();
+    assertSame(levels, data.makeIdLevels());
+    assertSame(levels, getDefinition("D.con").makeIdLevels());
+
+    SimpleLevelSubstitution substitution = new SimpleLevelSubstitution();
+    for (LevelVariable var : data.getLevelParameters()) {
+      substitution.add(var, new Level(var));
+    }
+    assertSame(levels, levels.subst(substitution));
+  }
+}
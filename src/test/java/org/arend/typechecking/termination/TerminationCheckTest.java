@@ -18,7 +18,10 @@ package org.arend.typechecking.termination;
 import org.arend.typechecking.TypeCheckingTestCase;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class TerminationCheckTest extends TypeCheckingTestCase {
@@ -292,6 +295,46 @@ public class TerminationCheckTest extends TypeCheckingTestCase {
     assert TestCallGraph.testTermination(cms);
   }
 
+  private static TestCallMatrix diagonalCall(String label, TestVertex f, Map<Integer, Character> diagonal) {
+    List<Object> data = new ArrayList<>();
+    for (int i = 0; i < f.myArguments.length; i++) {
+      Character c = diagonal.get(i);
+      if (c == null) {
+        data.add('?');
+      } else {
+        data.add(c);
+        data.add(i);
+      }
+    }
+    return new TestCallMatrix(label, f, f, data.toArray());
+  }
+
+  private static TestVertex wideVertex(int arguments) {
+    String[] names = new String[arguments];
+    for (int i = 0; i < arguments; i++) {
+      names[i] = "x" + i;
+    }
+    return new TestVertex("f", names);
+  }
+
+  @Test
+  public void wideMatrices() {
+    TestVertex f = wideVertex(70);
+    Set<BaseCallMatrix<TestVertex>> cms = new HashSet<>();
+    cms.add(diagonalCall("1", f, Map.of(35, '<')));
+    cms.add(diagonalCall("2", f, Map.of(35, '=', 66, '<')));
+    assert TestCallGraph.testTermination(cms);
+  }
+
+  @Test
+  public void wideMatricesNonTerminating() {
+    TestVertex f = wideVertex(70);
+    Set<BaseCallMatrix<TestVertex>> cms = new HashSet<>();
+    cms.add(diagonalCall("1", f, Map.of(35, '<')));
+    cms.add(diagonalCall("2", f, Map.of(35, '=', 66, '=')));
+    assert !TestCallGraph.testTermination(cms);
+  }
+
   @Test
   public void test312() {
     TestVertex h = new TestVertex("h", "hx", "hy");
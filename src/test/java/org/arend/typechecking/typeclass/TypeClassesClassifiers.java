@@ -1,14 +1,21 @@
 package org.arend.typechecking.typeclass;
 
 import org.arend.Matchers;
+import org.arend.core.definition.ClassDefinition;
 import org.arend.core.definition.Constructor;
+import org.arend.core.definition.Definition;
 import org.arend.core.subst.Levels;
+import org.arend.naming.reference.TCDefReferable;
 import org.arend.typechecking.TypeCheckingTestCase;
+import org.arend.typechecking.instance.provider.InstanceIndex;
+import org.arend.typechecking.instance.provider.SimpleInstanceProvider;
 import org.junit.Test;
 
 import java.util.Collections;
 
 import static org.arend.ExpressionFactory.ConCall;
+import static org.arend.core.expr.ExpressionFactory.Nat;
+import static org.junit.Assert.assertSame;
 
 public class TypeClassesClassifiers extends TypeCheckingTestCase {
   @Test
@@ -63,4 +70,66 @@ public class TypeClassesClassifiers extends TypeCheckingTestCase {
       "\\instance s : C (\\Sigma) | a => ()\n" +
       "\\func f : \\Sigma => a");
   }
+
+  @Test
+  public void instanceOrderTest() {
+    typeCheckModule(
+      "\\class C (A : \\Type) | n : Nat\n" +
+      "\\func get (A : \\Type) {c : C A} => n {c}\n" +
+      "\\instance i1 : C Nat | n => 1\n" +
+      "\\instance i2 : C (\\Sigma Nat Nat) | n => 2\n" +
+      "\\instance i3 : C Nat | n => 3\n" +
+      "\\instance i4 : C (Nat -> Nat) | n => 4\n" +
+      "\\instance i5 : C (\\Sigma Nat Nat Nat) | n => 5\n" +
+      "\\func f1 : get Nat = 1 => idp\n" +
+      "\\func f2 : get (\\Sigma Nat Nat) = 2 => idp\n" +
+      "\\func f3 : get (Nat -> Nat) = 4 => idp\n" +
+      "\\func f4 : get (\\Sigma Nat Nat Nat) = 5 => idp");
+  }
+
+  @Test
+  public void integerInstanceTest() {
+    typeCheckModule(
+      "\\class C (k : Nat) | n : Nat\n" +
+      "\\func get (k : Nat) {c : C k} => n {c}\n" +
+      "\\instance i0 : C 0 | n => 10\n" +
+      "\\instance i1 : C 1 | n => 11\n" +
+      "\\instance i2 : C 2 | n => 12\n" +
+      "\\func f1 : get 1 = 11 => idp\n" +
+      "\\func f2 (m : Nat) : get (suc m) = 11 => idp", 1);
+  }
+
+  @Test
+  public void subclassInstanceTest() {
+    typeCheckModule(
+      "\\class C (A : \\Type) | n : Nat\n" +
+      "\\class D \\extends C\n" +
+      "\\func get (A : \\Type) {c : C A} => n {c}\n" +
+      "\\instance i1 : D Nat | n => 1\n" +
+      "\\instance i2 : C (\\Sigma Nat Nat) | n => 2\n" +
+      "\\instance i3 : C Int | n => 3\n" +
+      "\\func f : get Nat = 1 => idp");
+  }
+
+  @Test
+  public void retypecheckedInstanceTest() {
+    typeCheckModule(
+      "\\class C (A : \\Type) | n : Nat\n" +
+      "\\instance i1 : C Nat | n => 1\n" +
+      "\\instance i2 : C Nat | n => 2");
+    TCDefReferable i1 = (TCDefReferable) get("i1");
+    TCDefReferable i2 = (TCDefReferable) get("i2");
+    ClassDefinition classDef = (ClassDefinition) getDefinition("C");
+    SimpleInstanceProvider provider = new SimpleInstanceProvider();
+    provider.add(-1, i1);
+    provider.add(-1, i2);
+    Object head = InstanceIndex.getHead(Nat());
+    assertSame(i2, provider.findInstance(c -> c == classDef, head, entry -> entry.getDefinition() != null));
+
+    Definition typechecked = i2.getTypechecked();
+    i2.setTypechecked(null);
+    assertSame(i1, provider.findInstance(c -> c == classDef, head, entry -> entry.getDefinition() != null));
+    i2.setTypechecked(typechecked);
+    assertSame(i2, provider.findInstance(c -> c == classDef, head, entry -> entry.getDefinition() != null));
+  }
 }
@@ -0,0 +1,120 @@
+package org.arend.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PersistentListTest {
+  private static List<Integer> range(int from, int to) {
+    List<Integer> result = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) {
+      result.add(i);
+    }
+    return result;
+  }
+
+  private static void assertBalanced(PersistentList<?> list) {
+    // An AVL tree with n leaves has height at most 1.45 log2(n + 2)
+    int leaves = list.size() + 2;
+    assertTrue("height " + list.height() + " of a list of size " + list.size(), list.height() <= 1.45 * (Math.log(leaves) / Math.log(2)));
+  }
+
+  private static void assertPrefixesAndSuffixes(List<Integer> expected, PersistentList<Integer> list) {
+    for (int i = 0; i <= expected.size(); i++) {
+      assertEquals(expected.subList(i, expected.size()), list.drop(i));
+      assertEquals(expected.subList(0, i), list.take(i));
+    }
+  }
+
+  @Test
+  public void deepRope() {
+    // Concatenation of many small lists, each of which is bigger than the merged leaf size
+    PersistentList<Integer> list = PersistentList.of(Collections.emptyList());
+    for (int i = 0; i < 200; i++) {
+      list = PersistentList.concat(list, range(i * 40, (i + 1) * 40));
+    }
+    assertEquals(range(0, 8000), list);
+    assertBalanced(list);
+    for (int i = 0; i < 8000; i += 37) {
+      assertEquals(Integer.valueOf(i), list.get(i));
+    }
+    assertEquals(range(1234, 5678), list.subList(1234, 5678));
+  }
+
+  @Test
+  public void prependedRope() {
+    PersistentList<Integer> list = PersistentList.of(Collections.emptyList());
+    for (int i = 199; i >= 0; i--) {
+      list = PersistentList.concat(range(i * 40, (i + 1) * 40), list);
+    }
+    assertEquals(range(0, 8000), list);
+    assertBalanced(list);
+  }
+
+  @Test
+  public void unbalancedConcat() {
+    PersistentList<Integer> big = PersistentList.of(Collections.emptyList());
+    for (int i = 0; i < 100; i++) {
+      big = PersistentList.concat(big, range(i * 50, (i + 1) * 50));
+    }
+    PersistentList<Integer> small = PersistentList.of(range(5000, 5100));
+
+    PersistentList<Integer> right = PersistentList.concat(big, small);
+    assertEquals(range(0, 5100), right);
+    assertBalanced(right);
+
+    PersistentList<Integer> left = PersistentList.concat(small, big);
+    List<Integer> expected = range(5000, 5100);
+    expected.addAll(range(0, 5000));
+    assertEquals(expected, left);
+    assertBalanced(left);
+  }
+
+  @Test
+  public void mergedLeaves() {
+    PersistentList<Integer> list = PersistentList.concat(range(0, 10), range(10, 20));
+    assertEquals(0, list.height());
+    assertEquals(range(0, 20), list);
+    assertPrefixesAndSuffixes(range(0, 20), list);
+  }
+
+  @Test
+  public void boundaryIndices() {
+    List<Integer> expected = range(0, 300);
+    PersistentList<Integer> list = PersistentList.concat(PersistentList.concat(range(0, 100), range(100, 200)), range(200, 300));
+    assertPrefixesAndSuffixes(expected, list);
+    assertTrue(list.drop(300).isEmpty());
+    assertTrue(list.take(0).isEmpty());
+    assertSame(list, list.drop(0));
+    assertSame(list, list.take(300));
+    assertEquals(Integer.valueOf(0), list.get(0));
+    assertEquals(Integer.valueOf(299), list.get(299));
+  }
+
+  @Test
+  public void dropOfSlices() {
+    PersistentList<Integer> list = PersistentList.concat(range(0, 100), range(100, 200));
+    PersistentList<Integer> slice = list.drop(50).take(100);
+    assertEquals(range(50, 150), slice);
+    assertPrefixesAndSuffixes(range(50, 150), slice);
+    assertEquals(range(60, 70), PersistentList.concat(slice.drop(10).take(5), slice.drop(15).take(5)));
+  }
+
+  @Test
+  public void badIndices() {
+    PersistentList<Integer> list = PersistentList.concat(range(0, 100), range(100, 200));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.drop(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.drop(201));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.take(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.take(201));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(200));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.subList(150, 100));
+    assertThrows(IndexOutOfBoundsException.class, () -> PersistentList.of(range(0, 10)).drop(11));
+    assertThrows(IndexOutOfBoundsException.class, () -> PersistentList.of(range(0, 10)).take(11));
+  }
+}